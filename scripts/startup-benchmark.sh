@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Compares startup time and resident memory of the JVM jar and the native image.
+#
+# Build both artifacts first:
+#   ./mvnw -DskipTests package                    -> target/serial-provider-*.jar
+#   ./mvnw -Pnative -DskipTests native:compile    -> target/serial-provider
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$ROOT"/target/serial-provider-*.jar 2>/dev/null | grep -v plain | head -n1 || true)"
+NATIVE="$ROOT/target/serial-provider"
+
+now_ms() { date +%s%3N; }
+
+# Starts the given command, waits until the app answers, prints "<ready ms> <rss kB>".
+measure() {
+    local start pid ready rss
+    start=$(now_ms)
+    "$@" --server.port="$PORT" --spring.jpa.show-sql=false >/dev/null 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/admin/auth-settings/status" >/dev/null 2>&1; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "process exited before becoming ready" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    ready=$(( $(now_ms) - start ))
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$ready $rss"
+}
+
+report() {
+    local label=$1; shift
+    local total_ms=0 total_rss=0 result ms rss
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure "$@")
+        read -r ms rss <<<"$result"
+        printf '%-7s run %d: ready in %5d ms, RSS %7d kB\n' "$label" "$i" "$ms" "$rss"
+        total_ms=$((total_ms + ms))
+        total_rss=$((total_rss + rss))
+    done
+    printf '%-7s mean:  ready in %5d ms, RSS %7d kB\n\n' "$label" $((total_ms / RUNS)) $((total_rss / RUNS))
+}
+
+if [[ -n "$JAR" ]]; then
+    report "jvm" java -jar "$JAR"
+else
+    echo "No jar in target/, skipping JVM run" >&2
+fi
+
+if [[ -x "$NATIVE" ]]; then
+    report "native" "$NATIVE"
+else
+    echo "No native image at $NATIVE, skipping native run" >&2
+fi
@@ -3,160 +3,261 @@ package com.example.serialprovider.auth;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.SessionScope;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+/**
+ * Authentication progress for the current HTTP session.
+ *
+ * <p>Browsers issue parallel requests against the same session, so all state lives in one
+ * immutable {@link Snapshot} that is replaced by compare-and-set. Readers always see a
+ * consistent snapshot and concurrent step completions are never lost.
+ *
+ * <p>When the container persists or replicates the HTTP session, the snapshot is written with
+ * {@link AuthenticationSessionCodec} rather than default Java serialization.
+ */
 @Component
 @SessionScope
-public class AuthenticationSession {
-    private String username;
-    private Set<String> completedSteps = new HashSet<>();
-    private LocalDateTime lastActivity = LocalDateTime.now();
-    private String otpCode;
-    private boolean onboardingCompleted = false;
-    
+public class AuthenticationSession implements Externalizable {
+
+    /**
+     * Inactivity period after which an in-progress authentication expires
+     */
+    public static final Duration ACTIVITY_TIMEOUT = Duration.ofMinutes(30);
+
+    private final AtomicReference<Snapshot> state = new AtomicReference<>(Snapshot.initial());
+
+    /**
+     * Immutable view of the session state at one point in time
+     */
+    public record Snapshot(String username,
+                           Set<String> completedSteps,
+                           long lastActivityMillis,
+                           String otpCode,
+                           boolean onboardingCompleted) implements Serializable {
+
+        public Snapshot {
+            completedSteps = Set.copyOf(completedSteps);
+        }
+
+        static Snapshot initial() {
+            return new Snapshot(null, Set.of(), System.currentTimeMillis(), null, false);
+        }
+
+        public boolean hasCompletedStep(String stepId) {
+            return completedSteps.contains(stepId);
+        }
+
+        public Snapshot withUsername(String username) {
+            return new Snapshot(username, completedSteps, lastActivityMillis, otpCode, onboardingCompleted);
+        }
+
+        public Snapshot withCompletedStep(String stepId) {
+            Set<String> steps = new HashSet<>(completedSteps);
+            steps.add(stepId);
+            return new Snapshot(username, steps, System.currentTimeMillis(), otpCode, onboardingCompleted);
+        }
+
+        public Snapshot withoutCompletedStep(String stepId) {
+            Set<String> steps = new HashSet<>(completedSteps);
+            steps.remove(stepId);
+            return new Snapshot(username, steps, System.currentTimeMillis(), otpCode, onboardingCompleted);
+        }
+
+        public Snapshot withCompletedSteps(Set<String> steps) {
+            return new Snapshot(username, steps, System.currentTimeMillis(), otpCode, onboardingCompleted);
+        }
+
+        public Snapshot withOtpCode(String otpCode) {
+            return new Snapshot(username, completedSteps, lastActivityMillis, otpCode, onboardingCompleted);
+        }
+
+        public Snapshot withOnboardingCompleted(boolean onboardingCompleted) {
+            return new Snapshot(username, completedSteps, lastActivityMillis, otpCode, onboardingCompleted);
+        }
+    }
+
+    /**
+     * Current state; use this when several fields must be read consistently
+     */
+    public Snapshot snapshot() {
+        return state.get();
+    }
+
+    /**
+     * Apply a transition atomically, retrying on contention. The transition may run more
+     * than once and must be free of side effects.
+     */
+    public Snapshot update(UnaryOperator<Snapshot> transition) {
+        return state.updateAndGet(transition);
+    }
+
+    /**
+     * Replace the state only if it is still the expected snapshot
+     */
+    public boolean compareAndSet(Snapshot expected, Snapshot next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    /**
+     * Atomically mark a step completed if the precondition holds on the current state.
+     * @return true if this call performed the transition
+     */
+    public boolean completeStepIf(String stepId, Predicate<Snapshot> precondition) {
+        return completeStepIf(stepId, precondition, UnaryOperator.identity());
+    }
+
+    /**
+     * Like {@link #completeStepIf(String, Predicate)}, applying a further change in the same
+     * transition, e.g. using up the credential the precondition checked
+     */
+    public boolean completeStepIf(String stepId, Predicate<Snapshot> precondition, UnaryOperator<Snapshot> alongWith) {
+        while (true) {
+            Snapshot current = state.get();
+            if (!precondition.test(current)) {
+                return false;
+            }
+            if (state.compareAndSet(current, alongWith.apply(current.withCompletedStep(stepId)))) {
+                return true;
+            }
+        }
+    }
+
     public String getUsername() {
-        return username;
+        return state.get().username();
     }
-    
+
     public void setUsername(String username) {
-        this.username = username;
+        update(current -> current.withUsername(username));
     }
-    
+
     public Set<String> getCompletedSteps() {
-        return new HashSet<>(completedSteps);
+        return state.get().completedSteps();
     }
-    
+
     public void addCompletedStep(String stepId) {
-        this.completedSteps.add(stepId);
-        this.lastActivity = LocalDateTime.now();
+        update(current -> current.withCompletedStep(stepId));
     }
-    
+
     public void removeCompletedStep(String stepId) {
-        this.completedSteps.remove(stepId);
-        this.lastActivity = LocalDateTime.now();
+        update(current -> current.withoutCompletedStep(stepId));
     }
-    
+
     public boolean hasCompletedStep(String stepId) {
-        return completedSteps.contains(stepId);
+        return state.get().hasCompletedStep(stepId);
     }
-    
+
     // Legacy method for backward compatibility
     @Deprecated
     public AuthenticationState getState() {
+        Snapshot current = state.get();
+        Set<String> completedSteps = current.completedSteps();
         if (completedSteps.isEmpty()) {
             return AuthenticationState.UNAUTHENTICATED;
         } else if (completedSteps.contains("password") && !completedSteps.contains("otp") && !completedSteps.contains("onboarding")) {
             return AuthenticationState.USERNAME_PASSWORD_VERIFIED;
         } else if (completedSteps.contains("otp") && !completedSteps.contains("onboarding")) {
             return AuthenticationState.OTP_VERIFIED;
-        } else if (onboardingCompleted) {
+        } else if (current.onboardingCompleted()) {
             return AuthenticationState.FULLY_AUTHENTICATED;
         }
         return AuthenticationState.UNAUTHENTICATED;
     }
-    
+
     // Legacy method for backward compatibility
     @Deprecated
-    public void setState(AuthenticationState state) {
-        this.lastActivity = LocalDateTime.now();
+    public void setState(AuthenticationState targetState) {
         // Convert state to completed steps for backward compatibility
-        switch (state) {
-            case UNAUTHENTICATED -> completedSteps.clear();
-            case USERNAME_PASSWORD_VERIFIED -> {
-                completedSteps.clear();
-                completedSteps.add("password");
-            }
-            case OTP_VERIFIED -> {
-                completedSteps.clear();
-                completedSteps.add("password");
-                completedSteps.add("otp");
-            }
-            case FULLY_AUTHENTICATED -> {
-                completedSteps.add("password");
-                if (completedSteps.contains("otp")) {
-                    completedSteps.add("otp");
-                }
-                completedSteps.add("onboarding");
-                onboardingCompleted = true;
-            }
-        }
+        update(current -> switch (targetState) {
+            case UNAUTHENTICATED -> current.withCompletedSteps(Set.of());
+            case USERNAME_PASSWORD_VERIFIED -> current.withCompletedSteps(Set.of("password"));
+            case OTP_VERIFIED -> current.withCompletedSteps(Set.of("password", "otp"));
+            case FULLY_AUTHENTICATED -> current
+                .withCompletedStep("password")
+                .withCompletedStep("onboarding")
+                .withOnboardingCompleted(true);
+        });
     }
-    
+
     public LocalDateTime getLastActivity() {
-        return lastActivity;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(state.get().lastActivityMillis()), ZoneId.systemDefault());
     }
-    
+
     public String getOtpCode() {
-        return otpCode;
+        return state.get().otpCode();
     }
-    
+
     public void setOtpCode(String otpCode) {
-        this.otpCode = otpCode;
+        update(current -> current.withOtpCode(otpCode));
     }
-    
+
     public boolean isOnboardingCompleted() {
-        return onboardingCompleted;
+        return state.get().onboardingCompleted();
     }
-    
+
     public void setOnboardingCompleted(boolean onboardingCompleted) {
-        this.onboardingCompleted = onboardingCompleted;
+        update(current -> current.withOnboardingCompleted(onboardingCompleted));
     }
-    
+
     public void reset() {
-        this.username = null;
-        this.completedSteps.clear();
-        this.lastActivity = LocalDateTime.now();
-        this.otpCode = null;
-        this.onboardingCompleted = false;
+        state.set(Snapshot.initial());
     }
-    
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        AuthenticationSessionCodec.write(state.get(), out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        state.set(AuthenticationSessionCodec.read(in));
+    }
+
     public boolean isExpired() {
-        return lastActivity.isBefore(LocalDateTime.now().minusMinutes(30));
+        return state.get().lastActivityMillis() < System.currentTimeMillis() - ACTIVITY_TIMEOUT.toMillis();
     }
-    
+
     // Legacy method for backward compatibility
     @Deprecated
     public boolean canProgressTo(AuthenticationState targetState) {
+        Snapshot current = state.get();
+        Set<String> completedSteps = current.completedSteps();
         return switch (targetState) {
             case UNAUTHENTICATED -> true;
             case USERNAME_PASSWORD_VERIFIED -> completedSteps.isEmpty();
             case OTP_VERIFIED -> completedSteps.contains("password") && !completedSteps.contains("otp");
-            case FULLY_AUTHENTICATED -> completedSteps.contains("password") && 
-                (!completedSteps.contains("otp") || completedSteps.contains("otp")) &&
-                !onboardingCompleted;
-        };
-    }
-    
-    /**
-     * Check if user can access a specific authentication step
-     */
-    public boolean canAccessStep(String stepId) {
-        return switch (stepId) {
-            case "password" -> true; // Always accessible as first step
-            case "otp" -> completedSteps.contains("password");
-            case "onboarding" -> completedSteps.contains("password") && 
-                                (!completedSteps.contains("otp") || completedSteps.contains("otp"));
-            default -> false;
+            case FULLY_AUTHENTICATED -> completedSteps.contains("password") && !current.onboardingCompleted();
         };
     }
-    
+
     /**
      * Get authentication progress information
      */
     public String getProgressDescription() {
-        if (completedSteps.isEmpty()) {
+        Snapshot current = state.get();
+        if (current.completedSteps().isEmpty()) {
             return "Not authenticated";
         }
-        
+
         StringBuilder progress = new StringBuilder("Completed: ");
-        progress.append(String.join(", ", completedSteps));
-        
-        if (onboardingCompleted) {
+        progress.append(String.join(", ", current.completedSteps()));
+
+        if (current.onboardingCompleted()) {
             progress.append(" (Fully authenticated)");
         }
-        
+
         return progress.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.example.serialprovider.auth;
+
+/**
+ * Authentication details of a login request, used by steps that look beyond the credentials
+ * (trusted devices, risk assessment of known devices, links bound to the browser session). Any field may be null.
+ */
+public record LoginRequestDetails(String remoteAddress,
+                                  String userAgent,
+                                  String deviceCookie,
+                                  String knownDeviceCookie,
+                                  String sessionId) {
+}
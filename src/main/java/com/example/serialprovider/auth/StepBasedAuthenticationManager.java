@@ -4,11 +4,15 @@ import com.example.serialprovider.auth.step.AuthenticationStepChain;
 import com.example.serialprovider.auth.step.AuthenticationStepResult;
 import com.example.serialprovider.auth.token.OnboardingAuthenticationToken;
 import com.example.serialprovider.auth.token.OtpAuthenticationToken;
+import com.example.serialprovider.auth.token.StepAuthenticationToken;
 import com.example.serialprovider.auth.token.UsernamePasswordAuthenticationToken;
+import com.example.serialprovider.tracing.AuthTracer;
+import io.opentelemetry.api.trace.Span;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 /**
@@ -16,22 +20,31 @@ import org.springframework.stereotype.Component;
  * Routes authentication requests to appropriate steps and handles their results.
  */
 @Component
+@Primary
 public class StepBasedAuthenticationManager implements AuthenticationManager {
 
     private final AuthenticationStepChain stepChain;
     private final AuthenticationSession authenticationSession;
+    private final AuthTracer tracer;
 
     public StepBasedAuthenticationManager(AuthenticationStepChain stepChain,
-                                        AuthenticationSession authenticationSession) {
+                                        AuthenticationSession authenticationSession,
+                                        AuthTracer tracer) {
         this.stepChain = stepChain;
         this.authenticationSession = authenticationSession;
+        this.tracer = tracer;
     }
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        return tracer.inSpan("auth.authenticate", () -> dispatch(authentication));
+    }
+
+    private Authentication dispatch(Authentication authentication) {
         
         // Determine which step this authentication belongs to
         String stepId = determineStepId(authentication);
+        Span.current().setAttribute("auth.step", String.valueOf(stepId));
         
         if (stepId == null) {
             throw new BadCredentialsException("Unknown authentication type: " + authentication.getClass().getSimpleName());
@@ -64,6 +77,8 @@ public class StepBasedAuthenticationManager implements AuthenticationManager {
             return "otp";
         } else if (authentication instanceof OnboardingAuthenticationToken) {
             return "onboarding";
+        } else if (authentication instanceof StepAuthenticationToken stepToken) {
+            return stepToken.getStepId();
         }
         return null;
     }
@@ -90,6 +105,14 @@ public class StepBasedAuthenticationManager implements AuthenticationManager {
                 null, // Clear credentials for security
                 result.getGrantedAuthorities()
             );
+        } else if (originalAuth instanceof StepAuthenticationToken stepToken) {
+            // A step may be the one that identifies the user, e.g. a passkey login
+            return new StepAuthenticationToken(
+                stepToken.getStepId(),
+                authenticationSession.getUsername(),
+                null, // Clear credentials for security
+                result.getGrantedAuthorities()
+            );
         }
         
         // Fallback - should not happen
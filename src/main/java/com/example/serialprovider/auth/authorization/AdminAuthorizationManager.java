@@ -2,6 +2,7 @@ package com.example.serialprovider.auth.authorization;
 
 import com.example.serialprovider.auth.AuthenticationSession;
 import com.example.serialprovider.auth.AuthenticationState;
+import com.example.serialprovider.network.IpReputationService;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
@@ -14,9 +15,12 @@ import java.util.function.Supplier;
 public class AdminAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
 
     private final AuthenticationSession authenticationSession;
+    private final IpReputationService ipReputation;
 
-    public AdminAuthorizationManager(AuthenticationSession authenticationSession) {
+    public AdminAuthorizationManager(AuthenticationSession authenticationSession,
+                                   IpReputationService ipReputation) {
         this.authenticationSession = authenticationSession;
+        this.ipReputation = ipReputation;
     }
 
     @Override
@@ -25,6 +29,11 @@ public class AdminAuthorizationManager implements AuthorizationManager<RequestAu
         
         String requestPath = requestContext.getRequest().getRequestURI();
         
+        // Even the open demo endpoints are closed to blocklisted ranges
+        if (ipReputation.isDenied(requestContext.getRequest())) {
+            return new AuthorizationDecision(false);
+        }
+        
         // For demo purposes, allow all admin endpoints without authentication
         // This matches the original .permitAll() behavior for admin endpoints
         // In production, you would add proper authentication and authorization checks
@@ -2,6 +2,8 @@ package com.example.serialprovider.auth.authorization;
 
 import com.example.serialprovider.auth.AuthenticationSession;
 import com.example.serialprovider.auth.AuthenticationState;
+import com.example.serialprovider.auth.token.AccessTokenAuthenticationToken;
+import com.example.serialprovider.network.IpReputationService;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
@@ -14,10 +16,16 @@ import java.util.function.Supplier;
 @Component
 public class ApiAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
 
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
     private final AuthenticationSession authenticationSession;
+    private final IpReputationService ipReputation;
 
-    public ApiAuthorizationManager(AuthenticationSession authenticationSession) {
+    public ApiAuthorizationManager(AuthenticationSession authenticationSession,
+                                 IpReputationService ipReputation) {
         this.authenticationSession = authenticationSession;
+        this.ipReputation = ipReputation;
     }
 
     @Override
@@ -30,6 +38,16 @@ public class ApiAuthorizationManager implements AuthorizationManager<RequestAuth
             return new AuthorizationDecision(false);
         }
         
+        // Blocklisted ranges are refused whatever credential they present
+        if (ipReputation.isDenied(requestContext.getRequest())) {
+            return DENIED;
+        }
+        
+        // Access tokens were verified by signature and claims; the session is not consulted
+        if (auth instanceof AccessTokenAuthenticationToken accessToken) {
+            return accessToken.isFullyAuthenticated() ? GRANTED : DENIED;
+        }
+        
         // Enhanced API access control beyond simple authority check
         
         // 1. Check if user has completed full authentication flow
@@ -67,7 +85,7 @@ public class ApiAuthorizationManager implements AuthorizationManager<RequestAuth
         // - API key validation for external integrations
         // - Scope-based permissions (read vs write)
         // - Time-based access restrictions
-        // - Geographical restrictions
+        // - Geographical restrictions (IpLabel.country of ipReputation.classify(request))
         
         return new AuthorizationDecision(true);
     }
@@ -2,6 +2,7 @@ package com.example.serialprovider.auth.authorization;
 
 import com.example.serialprovider.auth.AuthenticationSession;
 import com.example.serialprovider.auth.AuthenticationState;
+import com.example.serialprovider.network.IpReputationService;
 import com.example.serialprovider.service.AuthenticationSettingsService;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
@@ -16,11 +17,14 @@ public class OnboardingAuthorizationManager implements AuthorizationManager<Requ
 
     private final AuthenticationSession authenticationSession;
     private final AuthenticationSettingsService settingsService;
+    private final IpReputationService ipReputation;
 
     public OnboardingAuthorizationManager(AuthenticationSession authenticationSession,
-                                        AuthenticationSettingsService settingsService) {
+                                        AuthenticationSettingsService settingsService,
+                                        IpReputationService ipReputation) {
         this.authenticationSession = authenticationSession;
         this.settingsService = settingsService;
+        this.ipReputation = ipReputation;
     }
 
     @Override
@@ -34,6 +38,11 @@ public class OnboardingAuthorizationManager implements AuthorizationManager<Requ
             return new AuthorizationDecision(false);
         }
         
+        // Blocklisted ranges cannot continue a login
+        if (ipReputation.isDenied(requestContext.getRequest())) {
+            return new AuthorizationDecision(false);
+        }
+        
         AuthenticationState currentState = authenticationSession.getState();
         
         // Allow access to onboarding endpoints based on flow configuration:
@@ -2,7 +2,9 @@ package com.example.serialprovider.auth.authorization;
 
 import com.example.serialprovider.auth.AuthenticationSession;
 import com.example.serialprovider.auth.AuthenticationState;
-import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.network.IpReputationService;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
@@ -15,12 +17,15 @@ import java.util.function.Supplier;
 public class OtpAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
 
     private final AuthenticationSession authenticationSession;
-    private final AuthenticationSettingsService settingsService;
+    private final AuthenticationFlows flows;
+    private final IpReputationService ipReputation;
 
     public OtpAuthorizationManager(AuthenticationSession authenticationSession,
-                                 AuthenticationSettingsService settingsService) {
+                                 AuthenticationFlows flows,
+                                 IpReputationService ipReputation) {
         this.authenticationSession = authenticationSession;
-        this.settingsService = settingsService;
+        this.flows = flows;
+        this.ipReputation = ipReputation;
     }
 
     @Override
@@ -29,8 +34,13 @@ public class OtpAuthorizationManager implements AuthorizationManager<RequestAuth
         
         Authentication auth = authentication.get();
         
-        // Check if OTP is enabled in settings
-        if (!settingsService.isOtpEnabled()) {
+        // Check if OTP is part of this user's flow; a mandatory step stays in it when switched off
+        if (!flows.includes(authenticationSession, OtpAuthenticationStep.STEP_ID)) {
+            return new AuthorizationDecision(false);
+        }
+        
+        // Blocklisted ranges cannot continue a login
+        if (ipReputation.isDenied(requestContext.getRequest())) {
             return new AuthorizationDecision(false);
         }
         
@@ -39,7 +49,7 @@ public class OtpAuthorizationManager implements AuthorizationManager<RequestAuth
         
         // Allow access to OTP endpoints only if:
         // 1. User has completed password authentication
-        // 2. OTP is enabled in settings
+        // 2. OTP is part of the user's flow
         // 3. Session is not expired
         if (currentState == AuthenticationState.USERNAME_PASSWORD_VERIFIED && 
             !authenticationSession.isExpired()) {
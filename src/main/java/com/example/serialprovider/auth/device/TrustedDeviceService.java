@@ -0,0 +1,278 @@
+package com.example.serialprovider.auth.device;
+
+import com.example.serialprovider.auth.jwt.ExpiringIdSet;
+import com.example.serialprovider.auth.jwt.JwtKeyRing;
+import com.example.serialprovider.entity.TrustedDevice;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.repository.TrustedDeviceRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Devices on which a user has already passed OTP and asked not to be challenged again.
+ *
+ * <p>The device cookie is signed and names the user, the device and the expiry, so a login
+ * can check it without any lookup beyond the device index. The index maps a device id to one
+ * packed long (expiry seconds and a hash of the username), which keeps it small enough to hold
+ * every trusted device in memory.
+ *
+ * <p>The database is written behind the index in batches and only read when a correctly
+ * signed cookie names a device this node does not know, e.g. after a restart or when the
+ * device was trusted on another node. Forgotten devices are remembered until their cookie
+ * would have expired, so a pending delete cannot be undone by that read.
+ */
+@Component
+public class TrustedDeviceService implements DisposableBean {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int SECRET_BYTES = 32;
+
+    private final TrustedDeviceRepository repository;
+    private final AuthEventLogger eventLogger;
+    private final JwtKeyRing.SigningKey signingKey;
+    private final Duration trustDuration;
+    private final String cookieName;
+    private final SecureRandom random = new SecureRandom();
+    // device id -> expiry seconds << 32 | username hash
+    private final Map<Long, Long> index = new ConcurrentHashMap<>();
+    private final ExpiringIdSet forgottenDevices = new ExpiringIdSet(Duration.ofMinutes(1).toMillis());
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder trustedLogins = new LongAdder();
+    private final LongAdder loadedFromStore = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public TrustedDeviceService(TrustedDeviceRepository repository,
+                                AuthEventLogger eventLogger,
+                                @Value("${auth.device.secret:}") String secret,
+                                @Value("${auth.device.trust-duration:30d}") Duration trustDuration,
+                                @Value("${auth.device.cookie-name:SERIAL_PROVIDER_DEVICE}") String cookieName) {
+        this.repository = repository;
+        this.eventLogger = eventLogger;
+        this.trustDuration = trustDuration;
+        this.cookieName = cookieName;
+        byte[] material;
+        if (secret.isBlank()) {
+            // Cookies then only verify on this node until it restarts
+            material = new byte[SECRET_BYTES];
+            random.nextBytes(material);
+        } else {
+            material = Base64.getDecoder().decode(secret);
+        }
+        this.signingKey = JwtKeyRing.SigningKey.fromSecret(material);
+    }
+
+    public record IssuedDeviceCookie(String value, Instant expiresAt) {
+    }
+
+    /**
+     * Trust the current device for this user; call only after the user passed OTP
+     */
+    public IssuedDeviceCookie register(String username) {
+        long deviceId = random.nextLong();
+        long expiresAt = Instant.now().plus(trustDuration).getEpochSecond();
+        index.put(deviceId, pack(expiresAt, username));
+        pendingWrites.add(new PendingWrite(deviceId, username, expiresAt, false));
+        registered.increment();
+        eventLogger.event(AuthEventType.DEVICE_TRUSTED)
+            .field("user", username)
+            .publish();
+        return new IssuedDeviceCookie(sign(deviceId, expiresAt, username), Instant.ofEpochSecond(expiresAt));
+    }
+
+    /**
+     * @return true if the cookie is a valid, unexpired, not forgotten device for this user
+     */
+    public boolean isTrusted(String username, String cookie) {
+        DeviceClaim claim = parse(cookie);
+        if (claim == null || !claim.username().equals(username)
+                || Instant.now().getEpochSecond() >= claim.expiresAt()
+                || forgottenDevices.contains(claim.deviceId())) {
+            rejected.increment();
+            return false;
+        }
+
+        long expected = pack(claim.expiresAt(), username);
+        Long packed = index.get(claim.deviceId());
+        if (packed == null) {
+            packed = loadFromStore(claim.deviceId());
+        }
+        if (packed == null || packed != expected) {
+            rejected.increment();
+            return false;
+        }
+        trustedLogins.increment();
+        return true;
+    }
+
+    /**
+     * Stop trusting the device named by the cookie. Invalid cookies are ignored.
+     */
+    public void forget(String cookie) {
+        DeviceClaim claim = parse(cookie);
+        if (claim == null) {
+            return;
+        }
+        forgottenDevices.add(claim.deviceId(), claim.expiresAt() * 1000);
+        index.remove(claim.deviceId());
+        pendingWrites.add(new PendingWrite(claim.deviceId(), claim.username(), claim.expiresAt(), true));
+        eventLogger.event(AuthEventType.DEVICE_FORGOTTEN)
+            .field("user", claim.username())
+            .publish();
+    }
+
+    public ResponseCookie deviceCookie(IssuedDeviceCookie device, boolean secure) {
+        return ResponseCookie.from(cookieName, device.value())
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path("/auth")
+            .maxAge(Duration.between(Instant.now(), device.expiresAt()))
+            .build();
+    }
+
+    public ResponseCookie clearedDeviceCookie(boolean secure) {
+        return ResponseCookie.from(cookieName, "")
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path("/auth")
+            .maxAge(0)
+            .build();
+    }
+
+    /**
+     * Write pending registrations and removals in one batch each; the last change per device wins
+     */
+    @Scheduled(fixedDelayString = "${auth.device.flush-interval-ms:10000}")
+    public void flush() {
+        Map<Long, PendingWrite> latest = new LinkedHashMap<>();
+        for (PendingWrite write; (write = pendingWrites.poll()) != null; ) {
+            latest.put(write.deviceId(), write);
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        List<TrustedDevice> saves = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        latest.values().forEach(write -> {
+            if (write.removed()) {
+                deletes.add(write.deviceId());
+            } else {
+                saves.add(new TrustedDevice(write.deviceId(), write.username(), write.expiresAt()));
+            }
+        });
+        try {
+            repository.saveAll(saves);
+            repository.deleteAllByIdInBatch(deletes);
+        } catch (RuntimeException e) {
+            // Keep the batch for the next attempt; the index stays authoritative meanwhile
+            pendingWrites.addAll(latest.values());
+            eventLogger.event(AuthEventType.DEVICE_FLUSH_FAILED)
+                .field("pending", String.valueOf(latest.size()))
+                .field("error", e.toString())
+                .publish();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.device.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        index.values().removeIf(packed -> (packed >>> 32) <= now);
+        repository.deleteExpired(now);
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public Stats getStats() {
+        return new Stats(registered.sum(), trustedLogins.sum(), loadedFromStore.sum(), rejected.sum(),
+            index.size(), pendingWrites.size());
+    }
+
+    private Long loadFromStore(long deviceId) {
+        return repository.findById(deviceId)
+            .map(device -> {
+                loadedFromStore.increment();
+                long packed = pack(device.getExpiresAt(), device.getUsername());
+                Long current = index.putIfAbsent(deviceId, packed);
+                return current != null ? current : packed;
+            })
+            .orElse(null);
+    }
+
+    private String sign(long deviceId, long expiresAt, String username) {
+        String payload = Long.toUnsignedString(deviceId, 36) + "." + expiresAt + "."
+            + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(signingKey.sign(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private DeviceClaim parse(String cookie) {
+        if (cookie == null || cookie.isEmpty()) {
+            return null;
+        }
+        int signatureStart = cookie.lastIndexOf('.');
+        String[] fields = signatureStart > 0 ? cookie.substring(0, signatureStart).split("\\.") : new String[0];
+        if (fields.length != 3) {
+            return null;
+        }
+        try {
+            byte[] signature = DECODER.decode(cookie.substring(signatureStart + 1));
+            if (!signingKey.verify(cookie.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII), signature)) {
+                return null;
+            }
+            return new DeviceClaim(Long.parseUnsignedLong(fields[0], 36), Long.parseLong(fields[1]),
+                new String(DECODER.decode(fields[2]), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long pack(long expiresAtSeconds, String username) {
+        return expiresAtSeconds << 32 | (username.hashCode() & 0xFFFFFFFFL);
+    }
+
+    private record DeviceClaim(long deviceId, long expiresAt, String username) {
+    }
+
+    private record PendingWrite(long deviceId, String username, long expiresAt, boolean removed) {
+    }
+
+    /**
+     * Trusted device counters since startup; trustedLogins are logins that skipped OTP
+     */
+    public record Stats(long registered,
+                        long trustedLogins,
+                        long loadedFromStore,
+                        long rejected,
+                        int indexedDevices,
+                        int pendingWrites) {
+    }
+}
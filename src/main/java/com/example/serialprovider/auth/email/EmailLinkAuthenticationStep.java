@@ -0,0 +1,183 @@
+package com.example.serialprovider.auth.email;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.LoginRequestDetails;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import com.example.serialprovider.service.OtpService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Second factor by mail: instead of typing the OTP, the user asks for a login link
+ * (POST /auth/email-link) and opens it in the same browser. The link carries a signed token
+ * that is posted to /auth/step/email-link and completes the OTP step.
+ *
+ * <p>Unlike the OTP, nothing is kept per session until the link comes back; see
+ * {@link EmailLinkTokens}. Flows that make OTP mandatory do not accept a link.
+ */
+@Component
+public class EmailLinkAuthenticationStep implements AuthenticationStep {
+
+    public static final String STEP_ID = "email-link";
+    private static final int ORDER = 3;
+
+    private final EmailLinkTokens tokens;
+    private final OtpService otpService;
+    private final AuthenticationFlows flows;
+    private final boolean enabled;
+    private final String baseUrl;
+
+    public EmailLinkAuthenticationStep(EmailLinkTokens tokens,
+                                       OtpService otpService,
+                                       AuthenticationFlows flows,
+                                       @Value("${auth.email-link.enabled:false}") boolean enabled,
+                                       @Value("${auth.email-link.base-url:}") String baseUrl) {
+        this.tokens = tokens;
+        this.otpService = otpService;
+        this.flows = flows;
+        if (enabled && baseUrl.isBlank()) {
+            // Never taken from the request: a forged Host header would mail the victim a link to another site
+            throw new IllegalStateException("auth.email-link.base-url must be set when auth.email-link.enabled=true");
+        }
+        this.enabled = enabled;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * Mail a login link for the session's pending OTP step, pointing at the configured base URL
+     * @return false if no link can complete this session's login
+     */
+    public boolean sendLink(AuthenticationSession session, String sessionId) {
+        String username = session.getUsername();
+        if (!isOffered(session) || !canAccess(session) || session.hasCompletedStep(OtpAuthenticationStep.STEP_ID)
+                || !flows.canEnter(session, OtpAuthenticationStep.STEP_ID)) {
+            return false;
+        }
+        otpService.sendLoginLink(username, baseUrl + "/otp?link=" + tokens.issue(sessionId, username));
+        return true;
+    }
+
+    /**
+     * Whether the session's user may use a link instead of the OTP; the OTP step then sends
+     * no code until the user asks for one
+     */
+    public boolean isOffered(AuthenticationSession session) {
+        return enabled && flows.isWaivable(session.getUsername(), OtpAuthenticationStep.STEP_ID);
+    }
+
+    public Duration getLinkTtl() {
+        return tokens.getTtl();
+    }
+
+    @Override
+    public String getStepId() {
+        return STEP_ID;
+    }
+
+    @Override
+    public String getStepName() {
+        return "Email Login Link";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isCompleted(AuthenticationSession session) {
+        return session.hasCompletedStep(STEP_ID);
+    }
+
+    @Override
+    public boolean canAccess(AuthenticationSession session) {
+        return session.hasCompletedStep(PasswordAuthenticationStep.STEP_ID) && !session.isExpired();
+    }
+
+    @Override
+    public Set<String> getReplacedSteps() {
+        return Set.of(OtpAuthenticationStep.STEP_ID);
+    }
+
+    @Override
+    public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+        String username = session.getUsername();
+        String token = authentication.getCredentials() instanceof Map<?, ?> fields && fields.get("token") instanceof String value
+            ? value : null;
+        String sessionId = authentication.getDetails() instanceof LoginRequestDetails details ? details.sessionId() : null;
+
+        if (!flows.isWaivable(username, OtpAuthenticationStep.STEP_ID)) {
+            return failure("A one-time password is required for this account");
+        }
+        if (!tokens.consume(token, sessionId, username)) {
+            return failure("Invalid or expired login link");
+        }
+        // Unless a concurrent reset removed the password step meanwhile
+        if (!session.completeStepIf(OtpAuthenticationStep.STEP_ID,
+                current -> current.hasCompletedStep(PasswordAuthenticationStep.STEP_ID))) {
+            return failure("Session was reset during link verification");
+        }
+        session.addCompletedStep(STEP_ID);
+        // A code the user asked for as well is no longer needed
+        session.setOtpCode(null);
+
+        String nextStep = getNextStep(session);
+        boolean isFullyCompleted = nextStep == null;
+
+        List<GrantedAuthority> authorities = isFullyCompleted
+            ? List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED"), new SimpleGrantedAuthority("STEP_2_COMPLETED"),
+                new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("FULLY_AUTHENTICATED"))
+            : List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED"), new SimpleGrantedAuthority("STEP_2_COMPLETED"));
+
+        return AuthenticationStepResult.success()
+            .completed(isFullyCompleted)
+            .message(getSuccessMessage())
+            .nextStep(nextStep)
+            .grantedAuthorities(authorities)
+            .build();
+    }
+
+    @Override
+    public String getNextStep(AuthenticationSession session) {
+        return flows.nextStepId(session); // null once fully authenticated
+    }
+
+    @Override
+    public String getStepUrl() {
+        return "/auth/step/" + STEP_ID;
+    }
+
+    @Override
+    public String getSuccessMessage() {
+        return "Login link verified.";
+    }
+
+    @Override
+    public void resetStep(AuthenticationSession session) {
+        session.removeCompletedStep(STEP_ID);
+    }
+
+    private static AuthenticationStepResult failure(String message) {
+        return AuthenticationStepResult.failure()
+            .message(message)
+            .error(new RuntimeException(message))
+            .build();
+    }
+}
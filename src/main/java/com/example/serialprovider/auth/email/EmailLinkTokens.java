@@ -0,0 +1,141 @@
+package com.example.serialprovider.auth.email;
+
+import com.example.serialprovider.auth.jwt.ExpiringIdSet;
+import com.example.serialprovider.auth.jwt.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tokens for login links: a nonce, an expiry and a reference to the browser session and user
+ * the link was sent for, signed. Nothing is stored when a link is issued; checking one takes
+ * the signature and a set of nonces already used, which only holds them until they expire.
+ *
+ * <p>The session reference is a hash of the HTTP session id and the username, so a link only
+ * completes the login it was requested from, in the same browser, and does not reveal the
+ * session id to whoever reads the mail.
+ */
+@Component
+public class EmailLinkTokens {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int SECRET_BYTES = 32;
+    private static final int NONCE_BYTES = 16;
+    private static final int SESSION_REF_BYTES = 16;
+    private static final int MAC_BYTES = 32;
+    private static final int SIGNED_BYTES = NONCE_BYTES + Long.BYTES + SESSION_REF_BYTES;
+
+    private final Duration ttl;
+    private final JwtKeyRing.SigningKey signingKey;
+    private final SecureRandom random = new SecureRandom();
+    private final ExpiringIdSet usedNonces = new ExpiringIdSet(Duration.ofSeconds(30).toMillis());
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public EmailLinkTokens(@Value("${auth.email-link.secret:}") String secret,
+                           @Value("${auth.email-link.ttl:10m}") Duration ttl) {
+        this.ttl = ttl;
+        byte[] material;
+        if (secret.isBlank()) {
+            // Links then only verify on the node that sent them
+            material = new byte[SECRET_BYTES];
+            random.nextBytes(material);
+        } else {
+            material = Base64.getDecoder().decode(secret);
+        }
+        this.signingKey = JwtKeyRing.SigningKey.fromSecret(material);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return a base64url token for one login of this user in this session
+     */
+    public String issue(String sessionId, String username) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        byte[] signed = ByteBuffer.allocate(SIGNED_BYTES)
+            .put(nonce)
+            .putLong(System.currentTimeMillis() + ttl.toMillis())
+            .put(sessionReference(sessionId, username))
+            .array();
+        issued.increment();
+        return ENCODER.encodeToString(ByteBuffer.allocate(SIGNED_BYTES + MAC_BYTES)
+            .put(signed)
+            .put(signingKey.sign(signed))
+            .array());
+    }
+
+    /**
+     * Check a token and use it up
+     * @return false if it is forged, expired, for another session or user, or was used before
+     */
+    public boolean consume(String token, String sessionId, String username) {
+        boolean valid = check(token, sessionId, username);
+        (valid ? accepted : rejected).increment();
+        return valid;
+    }
+
+    public Stats getStats() {
+        return new Stats(issued.sum(), accepted.sum(), rejected.sum(), usedNonces.size());
+    }
+
+    private boolean check(String token, String sessionId, String username) {
+        if (token == null || sessionId == null || username == null) {
+            return false;
+        }
+        byte[] payload;
+        try {
+            payload = DECODER.decode(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (payload.length != SIGNED_BYTES + MAC_BYTES) {
+            return false;
+        }
+        byte[] signed = Arrays.copyOf(payload, SIGNED_BYTES);
+        if (!signingKey.verify(signed, Arrays.copyOfRange(payload, SIGNED_BYTES, payload.length))) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(signed);
+        long nonceId = buffer.getLong() ^ buffer.getLong();
+        long expiresAt = buffer.getLong();
+        byte[] sessionRef = new byte[SESSION_REF_BYTES];
+        buffer.get(sessionRef);
+        return System.currentTimeMillis() < expiresAt
+            && MessageDigest.isEqual(sessionRef, sessionReference(sessionId, username))
+            && usedNonces.add(nonceId, expiresAt);
+    }
+
+    private static byte[] sessionReference(String sessionId, String username) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(sessionId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest.digest(), SESSION_REF_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * Link counters since startup; usedNonces are those remembered until their links expire
+     */
+    public record Stats(long issued, long accepted, long rejected, int usedNonces) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.serialprovider.auth.event;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.service.AuthenticationSettingsChangedEvent;
+import com.example.serialprovider.service.OtpDeliveryListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fan-out hub for the authentication status Server-Sent Events stream.
+ * Pushes step transitions, OTP delivery status, session expiry warnings and settings changes
+ * to subscribed browsers so the pages no longer poll /auth/status.
+ *
+ * <p>Emitters are completed asynchronously by the servlet container, so an idle subscription
+ * holds no thread, only its emitter and a small {@link Subscriber} entry.
+ */
+@Component
+public class AuthStatusEventHub implements OtpDeliveryListener {
+
+    private static final long EXPIRY_WARNING_MILLIS = 2 * 60 * 1000L;
+    private static final long PENDING_DELIVERY_MILLIS = 60 * 1000L;
+
+    private final Map<String, Subscriber> subscribersBySession = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> subscribersByUsername = new ConcurrentHashMap<>();
+    // OTP deliveries that completed before the session's stream learned its username
+    private final Map<String, Long> pendingOtpDeliveries = new ConcurrentHashMap<>();
+
+    /**
+     * Open a stream for the given HTTP session and send the initial status snapshot
+     */
+    public SseEmitter subscribe(String sessionId, String username, long lastActivityMillis,
+                                Map<String, Object> snapshot) {
+        SseEmitter emitter = new SseEmitter(AuthenticationSession.ACTIVITY_TIMEOUT.toMillis());
+        Subscriber subscriber = subscribersBySession.compute(sessionId, (id, existing) -> {
+            Subscriber target = existing != null ? existing : new Subscriber(id);
+            target.emitters.add(emitter);
+            return target;
+        });
+        touch(subscriber, username, lastActivityMillis);
+
+        Runnable cleanup = () -> removeEmitter(subscriber, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        send(subscriber, emitter, SseEmitter.event().name("status").data(snapshot));
+        return emitter;
+    }
+
+    public boolean hasSubscribers(String sessionId) {
+        return subscribersBySession.containsKey(sessionId);
+    }
+
+    /**
+     * Push a status snapshot after a step transition, failure or logout
+     */
+    public void publishStatus(String sessionId, String username, long lastActivityMillis,
+                              Map<String, Object> snapshot) {
+        Subscriber subscriber = subscribersBySession.get(sessionId);
+        if (subscriber == null) {
+            return;
+        }
+        touch(subscriber, username, lastActivityMillis);
+        broadcast(subscriber, "status", snapshot);
+    }
+
+    @Override
+    public void onOtpSent(String username, String otpCode) {
+        // Only the delivery status is pushed, never the code itself
+        Set<Subscriber> subscribers = subscribersByUsername.get(username);
+        if (subscribers != null) {
+            subscribers.forEach(this::notifyOtpDelivered);
+        } else if (!subscribersBySession.isEmpty()) {
+            pendingOtpDeliveries.put(username, System.currentTimeMillis());
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSettingsChanged(AuthenticationSettingsChangedEvent event) {
+        Map<String, Object> payload = Map.of(
+            "otpEnabled", event.otpEnabled(),
+            "onboardingEnabled", event.onboardingEnabled(),
+            "flowDescription", event.flowDescription()
+        );
+        subscribersBySession.values().forEach(subscriber -> broadcast(subscriber, "settings", payload));
+    }
+
+    /**
+     * Warn subscribers whose authentication is about to expire, close expired ones and keep
+     * the remaining connections alive through intermediaries.
+     */
+    @Scheduled(fixedDelayString = "${auth.status-stream.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long timeout = AuthenticationSession.ACTIVITY_TIMEOUT.toMillis();
+        pendingOtpDeliveries.values().removeIf(deliveredAt -> now - deliveredAt > PENDING_DELIVERY_MILLIS);
+
+        for (Subscriber subscriber : subscribersBySession.values()) {
+            long expiresAt = subscriber.lastActivityMillis + timeout;
+            if (now >= expiresAt) {
+                broadcast(subscriber, "expired", Map.of("message", "Authentication session expired"));
+                subscriber.emitters.forEach(SseEmitter::complete);
+            } else if (now >= expiresAt - EXPIRY_WARNING_MILLIS && !subscriber.expiryWarned) {
+                subscriber.expiryWarned = true;
+                broadcast(subscriber, "expiry-warning", Map.of("expiresInSeconds", (expiresAt - now) / 1000));
+            } else {
+                for (SseEmitter emitter : subscriber.emitters) {
+                    send(subscriber, emitter, SseEmitter.event().comment("keepalive"));
+                }
+            }
+        }
+    }
+
+    private void touch(Subscriber subscriber, String username, long lastActivityMillis) {
+        if (lastActivityMillis != subscriber.lastActivityMillis) {
+            subscriber.lastActivityMillis = lastActivityMillis;
+            subscriber.expiryWarned = false;
+        }
+
+        String previous = subscriber.username;
+        if (Objects.equals(previous, username)) {
+            return;
+        }
+        subscriber.username = username;
+        if (previous != null) {
+            unindex(previous, subscriber);
+        }
+        if (username != null) {
+            subscribersByUsername.compute(username, (name, set) -> {
+                Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+            if (pendingOtpDeliveries.remove(username) != null) {
+                notifyOtpDelivered(subscriber);
+            }
+        }
+    }
+
+    private void notifyOtpDelivered(Subscriber subscriber) {
+        broadcast(subscriber, "otp", Map.of("status", "delivered"));
+    }
+
+    private void broadcast(Subscriber subscriber, String eventName, Object payload) {
+        for (SseEmitter emitter : subscriber.emitters) {
+            send(subscriber, emitter, SseEmitter.event().name(eventName).data(payload));
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            removeEmitter(subscriber, emitter);
+        }
+    }
+
+    private void removeEmitter(Subscriber subscriber, SseEmitter emitter) {
+        subscriber.emitters.remove(emitter);
+        Subscriber removed = subscribersBySession.computeIfPresent(subscriber.sessionId,
+            (id, current) -> current == subscriber && current.emitters.isEmpty() ? null : current);
+        if (removed == null && subscriber.username != null) {
+            unindex(subscriber.username, subscriber);
+        }
+    }
+
+    private void unindex(String username, Subscriber subscriber) {
+        subscribersByUsername.computeIfPresent(username, (name, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Open streams and expiry bookkeeping for one HTTP session
+     */
+    private static class Subscriber {
+        private final String sessionId;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile String username;
+        private volatile long lastActivityMillis;
+        private volatile boolean expiryWarned;
+
+        Subscriber(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+}
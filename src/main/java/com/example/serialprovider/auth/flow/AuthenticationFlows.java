@@ -0,0 +1,312 @@
+package com.example.serialprovider.auth.flow;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Picks the {@link FlowDefinition} for a session's user and answers, from its
+ * {@link CompiledFlow}, which steps the user may enter and which comes next.
+ *
+ * <p>Steps get ordinals by their order. A flow is compiled the first time it is needed for a
+ * given set of enabled steps and kept, so a settings change costs one compilation per flow and
+ * the per-request work is building two bitmasks and reading the tables. The user is only known
+ * once the first step is done, so every flow has to start with the same steps as the default.
+ * Steps are looked up lazily because most of them depend on this class. Steps no flow names
+ * are added to the flows by their {@link StepPlacement}.
+ */
+@Component
+public class AuthenticationFlows implements SmartInitializingSingleton {
+
+    private static final int MAX_STEPS = 16;
+
+    private final ObjectProvider<AuthenticationStep> stepProvider;
+    private final List<FlowDefinition> definitions;
+    private final UserGroups userGroups;
+    private volatile Registry registry;
+
+    public AuthenticationFlows(ObjectProvider<AuthenticationStep> stepProvider,
+                               List<FlowDefinition> definitions,
+                               ObjectProvider<StepPlacement> placements,
+                               UserGroups userGroups) {
+        this.stepProvider = stepProvider;
+        List<StepPlacement> placed = placements.orderedStream().toList();
+        this.definitions = definitions.stream()
+            .map(definition -> {
+                for (StepPlacement placement : placed) {
+                    definition = definition.with(placement);
+                }
+                return definition;
+            })
+            .toList();
+        this.userGroups = userGroups;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Validate the graphs at startup rather than on the first login
+        registry();
+    }
+
+    /**
+     * Every step, in order
+     */
+    public List<AuthenticationStep> getSteps() {
+        return registry().steps;
+    }
+
+    public Optional<AuthenticationStep> getStep(String stepId) {
+        Registry current = registry();
+        Integer ordinal = current.ordinals.get(stepId);
+        return ordinal == null ? Optional.empty() : Optional.of(current.steps.get(ordinal));
+    }
+
+    public CompiledFlow flowFor(AuthenticationSession session) {
+        Registry current = registry();
+        return current.compiled(flowIndex(current, session.getUsername()), current.enabledMask());
+    }
+
+    /**
+     * Bitmask of the session's completed steps by ordinal
+     */
+    public int completedMask(AuthenticationSession session) {
+        Registry current = registry();
+        int mask = 0;
+        for (String stepId : session.getCompletedSteps()) {
+            Integer ordinal = current.ordinals.get(stepId);
+            if (ordinal != null) {
+                mask |= 1 << ordinal;
+            }
+        }
+        return mask;
+    }
+
+    public Optional<AuthenticationStep> nextStep(AuthenticationSession session) {
+        int next = flowFor(session).nextStep(completedMask(session));
+        return next == CompiledFlow.DONE ? Optional.empty() : Optional.of(registry().steps.get(next));
+    }
+
+    /**
+     * @return the id of the next step, or null once the flow is complete
+     */
+    public String nextStepId(AuthenticationSession session) {
+        return nextStep(session).map(AuthenticationStep::getStepId).orElse(null);
+    }
+
+    public boolean includes(AuthenticationSession session, String stepId) {
+        Integer ordinal = registry().ordinals.get(stepId);
+        return ordinal != null && flowFor(session).includes(ordinal);
+    }
+
+    public boolean canEnter(AuthenticationSession session, String stepId) {
+        Integer ordinal = registry().ordinals.get(stepId);
+        return ordinal != null && flowFor(session).canEnter(completedMask(session), ordinal);
+    }
+
+    public boolean isComplete(AuthenticationSession session) {
+        return flowFor(session).isComplete(completedMask(session));
+    }
+
+    /**
+     * Steps of the session's flow as currently configured, in order
+     */
+    public List<AuthenticationStep> stepsFor(AuthenticationSession session) {
+        Registry current = registry();
+        CompiledFlow flow = flowFor(session);
+        List<AuthenticationStep> included = new ArrayList<>();
+        for (int ordinal = 0; ordinal < current.steps.size(); ordinal++) {
+            if (flow.includes(ordinal)) {
+                included.add(current.steps.get(ordinal));
+            }
+        }
+        return included;
+    }
+
+    /**
+     * @return false if the user's flow marks the step mandatory, so nothing may complete it
+     *         on the user's behalf
+     */
+    public boolean isWaivable(String username, String stepId) {
+        Registry current = registry();
+        Integer ordinal = current.ordinals.get(stepId);
+        return ordinal == null || (current.mandatoryMasks[flowIndex(current, username)] & 1 << ordinal) == 0;
+    }
+
+    public Stats getStats() {
+        Registry current = registry();
+        int tables = 0;
+        long entries = 0;
+        for (int i = 0; i < current.compiled.length(); i++) {
+            CompiledFlow flow = current.compiled.get(i);
+            if (flow != null) {
+                tables++;
+                entries += flow.getTableEntries();
+            }
+        }
+        return new Stats(definitions.stream().map(FlowDefinition::getName).toList(), current.steps.size(), tables, entries);
+    }
+
+    private int flowIndex(Registry current, String username) {
+        Set<String> groups = userGroups.groupsOf(username);
+        for (int i = 0; i < definitions.size(); i++) {
+            FlowDefinition definition = definitions.get(i);
+            if (!definition.isDefault() && definition.appliesTo(username, groups)) {
+                return i;
+            }
+        }
+        return current.defaultIndex;
+    }
+
+    private Registry registry() {
+        Registry current = registry;
+        if (current == null) {
+            synchronized (this) {
+                current = registry;
+                if (current == null) {
+                    current = new Registry(stepProvider.stream()
+                        .sorted(Comparator.comparingInt(AuthenticationStep::getOrder)
+                            .thenComparing(AuthenticationStep::getStepId))
+                        .toList(), definitions);
+                    registry = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static final class Registry {
+        private final List<AuthenticationStep> steps;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final int[] flowMasks;
+        private final int[] mandatoryMasks;
+        private final int[][] ancestors;
+        private final int defaultIndex;
+        private final List<FlowDefinition> definitions;
+        // flow index << step count | enabled mask
+        private final AtomicReferenceArray<CompiledFlow> compiled;
+
+        Registry(List<AuthenticationStep> steps, List<FlowDefinition> definitions) {
+            if (steps.size() > MAX_STEPS) {
+                throw new IllegalStateException("Flows support at most " + MAX_STEPS + " steps, found " + steps.size());
+            }
+            this.steps = steps;
+            this.definitions = definitions;
+            for (int ordinal = 0; ordinal < steps.size(); ordinal++) {
+                if (ordinals.put(steps.get(ordinal).getStepId(), ordinal) != null) {
+                    throw new IllegalStateException("Duplicate step id " + steps.get(ordinal).getStepId());
+                }
+            }
+
+            int defaults = 0;
+            int defaultFlow = -1;
+            this.flowMasks = new int[definitions.size()];
+            this.mandatoryMasks = new int[definitions.size()];
+            this.ancestors = new int[definitions.size()][];
+            int[] rootMasks = new int[definitions.size()];
+            for (int i = 0; i < definitions.size(); i++) {
+                FlowDefinition definition = definitions.get(i);
+                if (definition.isDefault()) {
+                    defaults++;
+                    defaultFlow = i;
+                }
+                int[] direct = new int[steps.size()];
+                for (String stepId : definition.getSteps()) {
+                    int ordinal = ordinalOf(definition, stepId);
+                    flowMasks[i] |= 1 << ordinal;
+                    for (String predecessor : definition.getPredecessors(stepId)) {
+                        direct[ordinal] |= 1 << ordinalOf(definition, predecessor);
+                    }
+                    if (definition.getPredecessors(stepId).isEmpty()) {
+                        rootMasks[i] |= 1 << ordinal;
+                    }
+                }
+                for (String stepId : definition.getMandatorySteps()) {
+                    mandatoryMasks[i] |= 1 << ordinalOf(definition, stepId);
+                }
+                ancestors[i] = closure(definition, direct);
+            }
+            if (defaults != 1) {
+                throw new IllegalStateException("Exactly one flow must apply to everyone, found " + defaults);
+            }
+            for (int i = 0; i < definitions.size(); i++) {
+                if (rootMasks[i] != rootMasks[defaultFlow]) {
+                    throw new IllegalStateException("Flow " + definitions.get(i).getName() +
+                        " must start with the same steps as the default flow");
+                }
+            }
+            this.defaultIndex = defaultFlow;
+            this.compiled = new AtomicReferenceArray<>(definitions.size() << steps.size());
+        }
+
+        int enabledMask() {
+            int mask = 0;
+            for (int ordinal = 0; ordinal < steps.size(); ordinal++) {
+                if (steps.get(ordinal).isEnabled()) {
+                    mask |= 1 << ordinal;
+                }
+            }
+            return mask;
+        }
+
+        CompiledFlow compiled(int flowIndex, int enabledMask) {
+            int slot = flowIndex << steps.size() | enabledMask;
+            CompiledFlow flow = compiled.get(slot);
+            if (flow == null) {
+                // Compilation is deterministic, so a race only compiles the same table twice
+                flow = CompiledFlow.compile(definitions.get(flowIndex).getName(), steps.size(),
+                    flowMasks[flowIndex], mandatoryMasks[flowIndex], ancestors[flowIndex], enabledMask);
+                compiled.set(slot, flow);
+            }
+            return flow;
+        }
+
+        private int ordinalOf(FlowDefinition definition, String stepId) {
+            Integer ordinal = ordinals.get(stepId);
+            if (ordinal == null) {
+                throw new IllegalStateException("Flow " + definition.getName() + " names unknown step " + stepId);
+            }
+            return ordinal;
+        }
+
+        private static int[] closure(FlowDefinition definition, int[] direct) {
+            int[] all = direct.clone();
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int ordinal = 0; ordinal < all.length; ordinal++) {
+                    int expanded = all[ordinal];
+                    for (int bits = all[ordinal]; bits != 0; bits &= bits - 1) {
+                        expanded |= all[Integer.numberOfTrailingZeros(bits)];
+                    }
+                    if (expanded != all[ordinal]) {
+                        all[ordinal] = expanded;
+                        changed = true;
+                    }
+                }
+            }
+            for (int ordinal = 0; ordinal < all.length; ordinal++) {
+                if ((all[ordinal] & 1 << ordinal) != 0) {
+                    throw new IllegalStateException("Flow " + definition.getName() + " has a cycle");
+                }
+            }
+            return all;
+        }
+    }
+
+    /**
+     * Configured flows and the tables compiled for them so far
+     */
+    public record Stats(List<String> flows, int steps, int compiledTables, long tableEntries) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.serialprovider.auth.flow;
+
+import java.util.Arrays;
+
+/**
+ * One flow compiled for one set of enabled steps into a deterministic state machine. The state
+ * is the bitmask of completed step ordinals; the transition table is indexed by (state, step
+ * ordinal) and holds the state after that step, or -1 where the step may not be entered. A
+ * second table holds the next step for every state. Both are filled for every possible state
+ * up front, so checking access and resolving the next step are array reads whatever the shape
+ * of the graph.
+ *
+ * <p>Completed steps that are not part of the flow are masked off before indexing, so e.g. an
+ * OTP waived by the risk score does not change the state of a flow without OTP.
+ */
+public final class CompiledFlow {
+
+    public static final int DONE = -1;
+
+    private final String name;
+    private final int includedMask;
+    private final int ordinalBits;
+    private final int[] transitions;
+    private final byte[] nextSteps;
+
+    private CompiledFlow(String name, int includedMask, int ordinalBits, int[] transitions, byte[] nextSteps) {
+        this.name = name;
+        this.includedMask = includedMask;
+        this.ordinalBits = ordinalBits;
+        this.transitions = transitions;
+        this.nextSteps = nextSteps;
+    }
+
+    /**
+     * @param stepCount  number of step ordinals, at most 16
+     * @param flowMask   steps that appear in the graph
+     * @param mandatory  steps kept even when disabled
+     * @param ancestors  per ordinal, every step that has to precede it in the graph
+     * @param enabled    steps currently switched on
+     */
+    static CompiledFlow compile(String name, int stepCount, int flowMask, int mandatory, int[] ancestors, int enabled) {
+        int included = flowMask & (enabled | mandatory);
+        int ordinalBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, stepCount - 1));
+        int states = 1 << stepCount;
+        int[] transitions = new int[states << ordinalBits];
+        byte[] nextSteps = new byte[states];
+        Arrays.fill(transitions, -1);
+
+        for (int state = 0; state < states; state++) {
+            int next = DONE;
+            for (int ordinal = 0; ordinal < stepCount; ordinal++) {
+                int bit = 1 << ordinal;
+                // Disabled steps drop out: their successors wait only for the included ancestors
+                if ((included & bit) == 0 || (ancestors[ordinal] & included & ~state) != 0) {
+                    continue;
+                }
+                transitions[state << ordinalBits | ordinal] = state | bit;
+                if (next == DONE && (state & bit) == 0) {
+                    next = ordinal;
+                }
+            }
+            nextSteps[state] = (byte) next;
+        }
+        return new CompiledFlow(name, included, ordinalBits, transitions, nextSteps);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean includes(int ordinal) {
+        return (includedMask & 1 << ordinal) != 0;
+    }
+
+    /**
+     * @return whether every predecessor of the step in this flow is among the completed steps
+     */
+    public boolean canEnter(int completed, int ordinal) {
+        return transitions[(completed & includedMask) << ordinalBits | ordinal] >= 0;
+    }
+
+    /**
+     * @return the state after completing the step, or -1 if it may not be entered yet
+     */
+    public int complete(int completed, int ordinal) {
+        return transitions[(completed & includedMask) << ordinalBits | ordinal];
+    }
+
+    /**
+     * @return the ordinal of the first step that is accessible and not yet done, or {@link #DONE}
+     */
+    public int nextStep(int completed) {
+        return nextSteps[completed & includedMask];
+    }
+
+    public boolean isComplete(int completed) {
+        return (includedMask & ~completed) == 0;
+    }
+
+    public int getIncludedMask() {
+        return includedMask;
+    }
+
+    public int getTableEntries() {
+        return transitions.length + nextSteps.length;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.serialprovider.auth.flow;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A login flow as a graph of step ids: an edge from a to b means b can only be started once a
+ * is done. A step that is switched off in the settings is left out and its successors wait
+ * for its predecessors instead; a mandatory step is never left out and cannot be waived, e.g.
+ * by a trusted device or a low risk score.
+ *
+ * <p>A flow applies to the users and groups it names; one without either is the default.
+ */
+public final class FlowDefinition {
+
+    private final String name;
+    private final Set<String> users;
+    private final Set<String> groups;
+    private final Map<String, Set<String>> predecessors;
+    private final Set<String> mandatorySteps;
+
+    private FlowDefinition(Builder builder) {
+        this.name = builder.name;
+        this.users = Set.copyOf(builder.users);
+        this.groups = Set.copyOf(builder.groups);
+        Map<String, Set<String>> edges = new LinkedHashMap<>();
+        builder.predecessors.forEach((step, before) -> edges.put(step, Collections.unmodifiableSet(new LinkedHashSet<>(before))));
+        this.predecessors = Collections.unmodifiableMap(edges);
+        this.mandatorySteps = Set.copyOf(builder.mandatorySteps);
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isDefault() {
+        return users.isEmpty() && groups.isEmpty();
+    }
+
+    public boolean appliesTo(String username, Set<String> userGroups) {
+        return username != null && users.contains(username) ||
+               userGroups.stream().anyMatch(groups::contains);
+    }
+
+    /**
+     * Every step of the flow, in the order they were added
+     */
+    public Set<String> getSteps() {
+        return predecessors.keySet();
+    }
+
+    /**
+     * Steps with a direct edge to the given one
+     */
+    public Set<String> getPredecessors(String stepId) {
+        return predecessors.getOrDefault(stepId, Set.of());
+    }
+
+    public Set<String> getMandatorySteps() {
+        return mandatorySteps;
+    }
+
+    /**
+     * @return this flow with the placed step added, or this flow if it lacks a step the
+     *         placement comes after or already has the step
+     */
+    public FlowDefinition with(StepPlacement placement) {
+        if (predecessors.containsKey(placement.stepId()) || !predecessors.keySet().containsAll(placement.after())) {
+            return this;
+        }
+        Builder builder = new Builder(name);
+        builder.users.addAll(users);
+        builder.groups.addAll(groups);
+        builder.mandatorySteps.addAll(mandatorySteps);
+        predecessors.forEach((step, before) -> builder.predecessors.put(step, new LinkedHashSet<>(before)));
+        builder.predecessors.put(placement.stepId(), new LinkedHashSet<>(placement.after()));
+        for (String successor : placement.before()) {
+            Set<String> before = builder.predecessors.get(successor);
+            if (before != null) {
+                before.add(placement.stepId());
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final Set<String> users = new LinkedHashSet<>();
+        private final Set<String> groups = new LinkedHashSet<>();
+        private final Map<String, Set<String>> predecessors = new LinkedHashMap<>();
+        private final Set<String> mandatorySteps = new LinkedHashSet<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder forUsers(String... usernames) {
+            users.addAll(List.of(usernames));
+            return this;
+        }
+
+        public Builder forGroups(String... groupNames) {
+            groups.addAll(List.of(groupNames));
+            return this;
+        }
+
+        /**
+         * Add the steps with an edge from each to the next
+         */
+        public Builder path(String... stepIds) {
+            for (int i = 0; i < stepIds.length; i++) {
+                Set<String> before = predecessors.computeIfAbsent(stepIds[i], step -> new LinkedHashSet<>());
+                if (i > 0) {
+                    before.add(stepIds[i - 1]);
+                }
+            }
+            return this;
+        }
+
+        public Builder mandatory(String... stepIds) {
+            mandatorySteps.addAll(List.of(stepIds));
+            return this;
+        }
+
+        public FlowDefinition build() {
+            if (!predecessors.keySet().containsAll(mandatorySteps)) {
+                throw new IllegalStateException("Flow " + name + " marks steps mandatory that it does not contain");
+            }
+            return new FlowDefinition(this);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.serialprovider.auth.flow;
+
+import com.example.serialprovider.auth.risk.RiskAssessmentStep;
+import com.example.serialprovider.auth.step.OnboardingAuthenticationStep;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * The built-in flows. A user gets the first flow, in bean order, that names them or one of
+ * their groups, otherwise the default; further flows are picked up as any other
+ * FlowDefinition bean.
+ */
+@Configuration
+public class FlowDefinitions {
+
+    /**
+     * Administrators always confirm with OTP, even when it is switched off for everyone else
+     */
+    @Bean
+    @Order(1)
+    FlowDefinition adminFlow() {
+        return FlowDefinition.builder("admins")
+            .forGroups("admins")
+            .path(PasswordAuthenticationStep.STEP_ID, RiskAssessmentStep.STEP_ID,
+                OtpAuthenticationStep.STEP_ID, OnboardingAuthenticationStep.STEP_ID)
+            .mandatory(OtpAuthenticationStep.STEP_ID)
+            .build();
+    }
+
+    /**
+     * Service accounts have no profile to complete
+     */
+    @Bean
+    @Order(2)
+    FlowDefinition serviceFlow() {
+        return FlowDefinition.builder("service")
+            .forGroups("service")
+            .path(PasswordAuthenticationStep.STEP_ID, RiskAssessmentStep.STEP_ID, OtpAuthenticationStep.STEP_ID)
+            .build();
+    }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    FlowDefinition defaultFlow() {
+        return FlowDefinition.builder("default")
+            .path(PasswordAuthenticationStep.STEP_ID, RiskAssessmentStep.STEP_ID,
+                OtpAuthenticationStep.STEP_ID, OnboardingAuthenticationStep.STEP_ID)
+            .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.serialprovider.auth.flow;
+
+import java.util.Set;
+
+/**
+ * Where a step that no {@link FlowDefinition} names goes: it is added to every flow that
+ * contains all the steps it comes after, and the steps it comes before that the flow contains
+ * wait for it. Used for steps that ship separately from the flows.
+ */
+public record StepPlacement(String stepId, Set<String> after, Set<String> before) {
+
+    public StepPlacement {
+        after = Set.copyOf(after);
+        before = Set.copyOf(before);
+    }
+}
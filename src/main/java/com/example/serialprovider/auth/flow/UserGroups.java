@@ -0,0 +1,44 @@
+package com.example.serialprovider.auth.flow;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Group membership used to pick a user's flow, from {@code auth.flow.user-groups}:
+ * {@code group:user,user;group:user}. Stands in for a directory lookup.
+ */
+@Component
+public class UserGroups {
+
+    private final Map<String, Set<String>> groupsByUser;
+
+    public UserGroups(@Value("${auth.flow.user-groups:}") String assignments) {
+        Map<String, Set<String>> groups = new HashMap<>();
+        for (String assignment : assignments.split(";")) {
+            if (assignment.isBlank()) {
+                continue;
+            }
+            int colon = assignment.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected group:user,user in auth.flow.user-groups, got " + assignment);
+            }
+            String group = assignment.substring(0, colon).trim();
+            for (String user : assignment.substring(colon + 1).split(",")) {
+                if (!user.isBlank()) {
+                    groups.computeIfAbsent(user.trim(), name -> new HashSet<>()).add(group);
+                }
+            }
+        }
+        groups.replaceAll((user, names) -> Set.copyOf(names));
+        this.groupsByUser = Map.copyOf(groups);
+    }
+
+    public Set<String> groupsOf(String username) {
+        return username == null ? Set.of() : groupsByUser.getOrDefault(username, Set.of());
+    }
+}
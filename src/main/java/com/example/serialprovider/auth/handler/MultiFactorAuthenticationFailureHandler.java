@@ -1,6 +1,10 @@
 package com.example.serialprovider.auth.handler;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.network.IpLabel;
+import com.example.serialprovider.network.IpReputationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,10 +20,16 @@ import java.util.Map;
 public class MultiFactorAuthenticationFailureHandler implements AuthenticationFailureHandler {
 
     private final AuthenticationSession authenticationSession;
+    private final IpReputationService ipReputation;
+    private final AuthEventLogger eventLogger;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public MultiFactorAuthenticationFailureHandler(AuthenticationSession authenticationSession) {
+    public MultiFactorAuthenticationFailureHandler(AuthenticationSession authenticationSession,
+                                                   IpReputationService ipReputation,
+                                                   AuthEventLogger eventLogger) {
         this.authenticationSession = authenticationSession;
+        this.ipReputation = ipReputation;
+        this.eventLogger = eventLogger;
     }
 
     @Override
@@ -31,6 +41,15 @@ public class MultiFactorAuthenticationFailureHandler implements AuthenticationFa
 
         String errorMessage = exception.getMessage();
         
+        // The network is logged, not returned: a client must not learn how it is classified
+        int network = ipReputation.classify(request);
+        eventLogger.event(AuthEventType.AUTH_FAILED)
+            .field("user", authenticationSession.getUsername())
+            .field("error", errorMessage)
+            .field("network", IpLabel.describe(network))
+            .field("country", IpLabel.country(network))
+            .publish();
+        
         // For certain errors, reset the session
         if (exception instanceof BadCredentialsException) {
             String message = exception.getMessage();
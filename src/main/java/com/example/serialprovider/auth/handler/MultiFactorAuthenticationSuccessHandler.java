@@ -1,19 +1,27 @@
 package com.example.serialprovider.auth.handler;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.jwt.AccessTokenService;
+import com.example.serialprovider.auth.jwt.RefreshTokenService;
+import com.example.serialprovider.auth.risk.LoginHistory;
 import com.example.serialprovider.auth.step.AuthenticationStep;
 import com.example.serialprovider.auth.step.AuthenticationStepChain;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -22,13 +30,22 @@ public class MultiFactorAuthenticationSuccessHandler implements AuthenticationSu
 
     private final AuthenticationSession authenticationSession;
     private final AuthenticationStepChain stepChain;
+    private final AccessTokenService accessTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginHistory loginHistory;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final AuthenticationSuccessHandler dashboardSuccessHandler;
 
     public MultiFactorAuthenticationSuccessHandler(AuthenticationSession authenticationSession,
-                                                 AuthenticationStepChain stepChain) {
+                                                 AuthenticationStepChain stepChain,
+                                                 AccessTokenService accessTokenService,
+                                                 RefreshTokenService refreshTokenService,
+                                                 LoginHistory loginHistory) {
         this.authenticationSession = authenticationSession;
         this.stepChain = stepChain;
+        this.accessTokenService = accessTokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.loginHistory = loginHistory;
         this.dashboardSuccessHandler = new SimpleUrlAuthenticationSuccessHandler("/dashboard");
     }
 
@@ -52,22 +69,44 @@ public class MultiFactorAuthenticationSuccessHandler implements AuthenticationSu
             sendJsonResponse(response, 
                 nextStep.getSuccessMessage(), 
                 nextStep.getStepId(),
-                false // Not fully authenticated yet
+                false, // Not fully authenticated yet
+                null,
+                null
             );
         } else {
             // All authentication steps completed
             if (stepChain.isFullyAuthenticated(authenticationSession)) {
+                // Only complete logins teach the risk signals what is normal for this user
+                Cookie knownDevice = WebUtils.getCookie(request, loginHistory.getDeviceCookieName());
+                String deviceId = loginHistory.recordCompletedLogin(authenticationSession.getUsername(),
+                    knownDevice != null ? knownDevice.getValue() : null, Instant.now());
+                response.addHeader(HttpHeaders.SET_COOKIE,
+                    loginHistory.deviceCookie(deviceId, request.isSecure()).toString());
+                // API calls from here on are authorized by this token instead of the session;
+                // the refresh token renews it without repeating the chain
+                AccessTokenService.IssuedToken accessToken = accessTokenService.mint(
+                    authenticationSession.getUsername(), authenticationSession.getCompletedSteps());
+                RefreshTokenService.IssuedRefreshToken refreshToken = refreshTokenService.issue(
+                    authenticationSession.getUsername(), authenticationSession.getCompletedSteps());
+                response.addHeader(HttpHeaders.SET_COOKIE,
+                    accessTokenService.accessTokenCookie(accessToken, request.isSecure()).toString());
+                response.addHeader(HttpHeaders.SET_COOKIE,
+                    refreshTokenService.refreshTokenCookie(refreshToken, request.isSecure()).toString());
                 sendJsonResponse(response, 
                     "Authentication completed successfully!", 
                     "dashboard",
-                    true // Fully authenticated
+                    true, // Fully authenticated
+                    accessToken,
+                    refreshToken
                 );
             } else {
                 // Something went wrong - redirect to login
                 sendJsonResponse(response, 
                     "Please start authentication.", 
                     "login",
-                    false
+                    false,
+                    null,
+                    null
                 );
             }
         }
@@ -86,13 +125,15 @@ public class MultiFactorAuthenticationSuccessHandler implements AuthenticationSu
     /**
      * Send a standardized JSON response with authentication progress information
      */
-    private void sendJsonResponse(HttpServletResponse response, String message, String nextStep, boolean fullyAuthenticated) throws IOException {
+    private void sendJsonResponse(HttpServletResponse response, String message, String nextStep, boolean fullyAuthenticated,
+                                  AccessTokenService.IssuedToken accessToken,
+                                  RefreshTokenService.IssuedRefreshToken refreshToken) throws IOException {
         response.setContentType("application/json");
         
         // Get authentication progress
         AuthenticationStepChain.AuthenticationProgress progress = stepChain.getProgress(authenticationSession);
         
-        Map<String, Object> responseBody = Map.of(
+        Map<String, Object> responseBody = new HashMap<>(Map.of(
             "message", message,
             "nextStep", nextStep,
             "fullyAuthenticated", fullyAuthenticated,
@@ -102,8 +143,16 @@ public class MultiFactorAuthenticationSuccessHandler implements AuthenticationSu
                 "percentage", Math.round(progress.getProgressPercentage())
             ),
             "user", authenticationSession.getUsername() != null ? authenticationSession.getUsername() : "null",
-            "flowDescription", stepChain.getFlowDescription()
-        );
+            "flowDescription", stepChain.getFlowDescription(authenticationSession)
+        ));
+        if (accessToken != null) {
+            responseBody.put("accessToken", accessToken.value());
+            responseBody.put("tokenType", "Bearer");
+            responseBody.put("expiresIn", accessTokenService.getAccessTokenTtl().toSeconds());
+        }
+        if (refreshToken != null) {
+            responseBody.put("refreshToken", refreshToken.value());
+        }
         
         objectMapper.writeValue(response.getWriter(), responseBody);
     }
@@ -0,0 +1,191 @@
+package com.example.serialprovider.auth.jwt;
+
+import com.example.serialprovider.auth.token.AccessTokenAuthenticationToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mints and verifies the short-lived HS256 access tokens that authorize /api/** requests
+ * without the HTTP session.
+ *
+ * <p>Verified tokens are cached by a SHA-256 digest of the token together with the
+ * authentication built from them, so a repeated token costs one digest, one hash lookup and
+ * an expiry check; the signature and claims are only checked the first time a token is seen.
+ * The cache never holds a usable bearer token, so a heap dump of it cannot be replayed.
+ */
+@Component
+public class AccessTokenService {
+
+    public static final String FULLY_AUTHENTICATED = "FULLY_AUTHENTICATED";
+
+    static final String ISSUER = "serial-provider";
+    private static final String TOKEN_TYPE = "JWT";
+    private static final Base64.Encoder CACHE_KEY_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtKeyRing keyRing;
+    private final Duration accessTokenTtl;
+    private final int maxCachedTokens;
+    private final String cookieName;
+    private final Map<String, AccessTokenAuthenticationToken> verified = new ConcurrentHashMap<>();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AccessTokenService(JwtKeyRing keyRing,
+                              @Value("${auth.jwt.access-token-ttl:5m}") Duration accessTokenTtl,
+                              @Value("${auth.jwt.verification-cache.max-entries:10000}") int maxCachedTokens,
+                              @Value("${auth.jwt.cookie-name:SERIAL_PROVIDER_ACCESS}") String cookieName) {
+        this.keyRing = keyRing;
+        this.accessTokenTtl = accessTokenTtl;
+        this.maxCachedTokens = maxCachedTokens;
+        this.cookieName = cookieName;
+    }
+
+    /**
+     * Token issued to a user who completed the authentication chain
+     */
+    public record IssuedToken(String value, Instant expiresAt) {
+    }
+
+    public IssuedToken mint(String username, Set<String> completedSteps) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(accessTokenTtl);
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("sub", username);
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("scope", FULLY_AUTHENTICATED);
+        claims.put("amr", completedSteps);
+
+        String token = CompactJws.sign(keyRing.signingKey(), TOKEN_TYPE, claims);
+        issued.increment();
+        return new IssuedToken(token, expiresAt);
+    }
+
+    /**
+     * @throws BadCredentialsException if the token is malformed, forged, expired or signed by a retired key
+     */
+    public AccessTokenAuthenticationToken verify(String token) {
+        String cacheKey = cacheKey(token);
+        AccessTokenAuthenticationToken cached = verified.get(cacheKey);
+        if (cached != null) {
+            if (System.currentTimeMillis() < cached.getExpiresAtMillis()) {
+                cacheHits.increment();
+                return cached;
+            }
+            verified.remove(cacheKey);
+        }
+
+        verifications.increment();
+        AccessTokenAuthenticationToken authentication;
+        try {
+            authentication = decodeAndVerify(token);
+        } catch (BadCredentialsException e) {
+            rejected.increment();
+            throw e;
+        }
+        if (verified.size() >= maxCachedTokens) {
+            evictExpired();
+        }
+        if (verified.size() < maxCachedTokens) {
+            verified.put(cacheKey, authentication);
+        }
+        return authentication;
+    }
+
+    public ResponseCookie accessTokenCookie(IssuedToken token, boolean secure) {
+        return ResponseCookie.from(cookieName, token.value())
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path("/api")
+            .maxAge(accessTokenTtl)
+            .build();
+    }
+
+    public ResponseCookie clearedAccessTokenCookie(boolean secure) {
+        return ResponseCookie.from(cookieName, "")
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path("/api")
+            .maxAge(0)
+            .build();
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    public Stats getStats() {
+        return new Stats(issued.sum(), cacheHits.sum(), verifications.sum(), rejected.sum(), verified.size());
+    }
+
+    private AccessTokenAuthenticationToken decodeAndVerify(String token) {
+        JsonNode claims = CompactJws.verify(token, TOKEN_TYPE, keyRing);
+        long expiresAtMillis = claims.path("exp").asLong() * 1000;
+        if (!ISSUER.equals(claims.path("iss").asText()) || System.currentTimeMillis() >= expiresAtMillis) {
+            throw new BadCredentialsException("Access token expired or not issued here");
+        }
+        String subject = claims.path("sub").asText(null);
+        if (subject == null) {
+            throw new BadCredentialsException("Access token has no subject");
+        }
+
+        Set<String> completedSteps = new LinkedHashSet<>();
+        claims.path("amr").forEach(step -> completedSteps.add(step.asText()));
+        return new AccessTokenAuthenticationToken(subject, completedSteps, expiresAtMillis,
+            AuthorityUtils.commaSeparatedStringToAuthorityList(claims.path("scope").asText("")));
+    }
+
+    private static String cacheKey(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return CACHE_KEY_ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(authentication -> now >= authentication.getExpiresAtMillis());
+    }
+
+    /**
+     * Token counters since startup; cacheHits are requests authorized without verifying again
+     */
+    public record Stats(long issued,
+                        long cacheHits,
+                        long verifications,
+                        long rejected,
+                        int cachedTokens) {
+    }
+}
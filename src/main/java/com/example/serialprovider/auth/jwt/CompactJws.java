@@ -0,0 +1,71 @@
+package com.example.serialprovider.auth.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HS256 compact serialization shared by access and refresh tokens. The typ header keeps the
+ * two apart, so a refresh token is never accepted where an access token is expected.
+ */
+final class CompactJws {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CompactJws() {
+    }
+
+    static String sign(JwtKeyRing.SigningKey key, String type, Map<String, Object> claims) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", "HS256");
+        header.put("typ", type);
+        header.put("kid", key.kid());
+        try {
+            String signingInput = ENCODER.encodeToString(OBJECT_MAPPER.writeValueAsBytes(header))
+                + "." + ENCODER.encodeToString(OBJECT_MAPPER.writeValueAsBytes(claims));
+            return signingInput + "." + ENCODER.encodeToString(key.sign(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode token", e);
+        }
+    }
+
+    /**
+     * Check structure, algorithm, type and signature, and return the claims. Expiry and other
+     * claims are left to the caller.
+     * @throws BadCredentialsException if any check fails
+     */
+    static JsonNode verify(String token, String expectedType, JwtKeyRing keyRing) {
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new BadCredentialsException("Malformed token");
+        }
+
+        try {
+            JsonNode header = OBJECT_MAPPER.readTree(DECODER.decode(token.substring(0, firstDot)));
+            // Only HS256 is accepted; never trust the token to choose a weaker algorithm
+            if (!"HS256".equals(header.path("alg").asText()) || !expectedType.equals(header.path("typ").asText())) {
+                throw new BadCredentialsException("Unsupported token algorithm or type");
+            }
+            JwtKeyRing.SigningKey key = keyRing.verificationKey(header.path("kid").asText(null));
+            if (key == null) {
+                throw new BadCredentialsException("Token signed with an unknown key");
+            }
+            byte[] signature = DECODER.decode(token.substring(secondDot + 1));
+            if (!key.verify(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII), signature)) {
+                throw new BadCredentialsException("Invalid token signature");
+            }
+            return OBJECT_MAPPER.readTree(DECODER.decode(token.substring(firstDot + 1, secondDot)));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Malformed token", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.serialprovider.auth.jwt;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent set of 64-bit ids that each expire at a given time.
+ *
+ * <p>Membership is one hash lookup. Expiry is tracked in coarse time buckets instead of per
+ * entry: an id is filed under the bucket that ends at or after its expiry, and once a bucket
+ * has passed the whole bucket is dropped. Purging runs inline when a caller first enters a new
+ * bucket, so there is no background thread and no full scan, and the set never holds more than
+ * the ids whose expiry is still ahead, plus at most one bucket's worth.
+ */
+public class ExpiringIdSet {
+
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final Set<Long> members = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Long>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong purgedThrough = new AtomicLong(Long.MIN_VALUE);
+
+    public ExpiringIdSet(long bucketMillis) {
+        this(bucketMillis, System::currentTimeMillis);
+    }
+
+    ExpiringIdSet(long bucketMillis, LongSupplier clock) {
+        this.bucketMillis = bucketMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Add an id until the given time.
+     * @return false if the id was already present, so exactly one of several concurrent callers wins
+     */
+    public boolean add(long id, long expiresAtMillis) {
+        long now = clock.getAsLong();
+        purgeIfDue(now);
+        if (expiresAtMillis <= now) {
+            // Nothing to remember; callers reject expired tokens before claiming their ids
+            return true;
+        }
+        if (!members.add(id)) {
+            return false;
+        }
+        // Bucket end is at or after the expiry, so a bucket is only dropped once all its ids are due
+        long bucket = Math.floorDiv(expiresAtMillis + bucketMillis - 1, bucketMillis);
+        buckets.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(id);
+        return true;
+    }
+
+    public boolean contains(long id) {
+        purgeIfDue(clock.getAsLong());
+        return members.contains(id);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    private void purgeIfDue(long now) {
+        long currentBucket = Math.floorDiv(now, bucketMillis);
+        long purged = purgedThrough.get();
+        if (purged >= currentBucket || !purgedThrough.compareAndSet(purged, currentBucket)) {
+            return;
+        }
+        // Buckets ending at or before now are due; there are at most TTL / bucket size of them
+        buckets.entrySet().removeIf(bucket -> {
+            if (bucket.getKey() > currentBucket) {
+                return false;
+            }
+            bucket.getValue().forEach(members::remove);
+            return true;
+        });
+    }
+}
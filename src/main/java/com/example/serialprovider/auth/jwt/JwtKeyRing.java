@@ -0,0 +1,156 @@
+package com.example.serialprovider.auth.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HS256 keys for access tokens, held in memory so verification never leaves the process.
+ *
+ * <p>Without a configured secret each node generates its own key and rotates it; retired keys
+ * stay available for verification until every token they signed has expired. With
+ * auth.jwt.secret set, all nodes share one key and tokens verify on any node.
+ *
+ * <p>Mac instances are not thread-safe and are costly to set up, so each key keeps a pool of
+ * initialised instances that callers borrow and return.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, SigningKey> keys = new ConcurrentHashMap<>();
+    private final boolean rotating;
+    private final Duration rotationInterval;
+    private final Duration retention;
+
+    private volatile SigningKey current;
+
+    public JwtKeyRing(@Value("${auth.jwt.secret:}") String secret,
+                      @Value("${auth.jwt.key-rotation-interval:1h}") Duration rotationInterval,
+                      @Value("${auth.jwt.access-token-ttl:5m}") Duration accessTokenTtl,
+                      @Value("${auth.jwt.refresh-token-ttl:8h}") Duration refreshTokenTtl) {
+        this.rotating = secret.isBlank();
+        this.rotationInterval = rotationInterval;
+        // A retired key must outlive the last token it signed
+        this.retention = rotationInterval.plus(accessTokenTtl.compareTo(refreshTokenTtl) > 0 ? accessTokenTtl : refreshTokenTtl);
+        if (rotating) {
+            activate(generate());
+        } else {
+            byte[] material = Base64.getDecoder().decode(secret);
+            if (material.length < KEY_BYTES) {
+                throw new IllegalArgumentException("auth.jwt.secret must decode to at least " + KEY_BYTES + " bytes");
+            }
+            activate(new SigningKey("shared-" + fingerprint(material), new SecretKeySpec(material, ALGORITHM), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * A key and its pool of initialised Mac instances
+     */
+    public static final class SigningKey {
+        private final String kid;
+        private final SecretKeySpec key;
+        private final long createdAtMillis;
+        private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+        SigningKey(String kid, SecretKeySpec key, long createdAtMillis) {
+            this.kid = kid;
+            this.key = key;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        /**
+         * Standalone key for other signed values (e.g. device cookies) that outlive token keys
+         */
+        public static SigningKey fromSecret(byte[] material) {
+            if (material.length < KEY_BYTES) {
+                throw new IllegalArgumentException("Signing secret must be at least " + KEY_BYTES + " bytes");
+            }
+            return new SigningKey(fingerprint(material), new SecretKeySpec(material, ALGORITHM), System.currentTimeMillis());
+        }
+
+        public String kid() {
+            return kid;
+        }
+
+        public byte[] sign(byte[] data) {
+            Mac mac = macs.poll();
+            try {
+                if (mac == null) {
+                    mac = Mac.getInstance(ALGORITHM);
+                    mac.init(key);
+                }
+                return mac.doFinal(data);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            } finally {
+                if (mac != null) {
+                    macs.offer(mac);
+                }
+            }
+        }
+
+        public boolean verify(byte[] data, byte[] signature) {
+            return MessageDigest.isEqual(sign(data), signature);
+        }
+    }
+
+    public SigningKey signingKey() {
+        return current;
+    }
+
+    /**
+     * @return the key with this id, or null if unknown or retired
+     */
+    public SigningKey verificationKey(String kid) {
+        return kid != null ? keys.get(kid) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwt.key-rotation-check-ms:60000}")
+    public void rotateIfDue() {
+        if (!rotating) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - current.createdAtMillis >= rotationInterval.toMillis()) {
+            activate(generate());
+        }
+        keys.values().removeIf(key -> key != current && now - key.createdAtMillis >= retention.toMillis());
+    }
+
+    private void activate(SigningKey key) {
+        keys.put(key.kid, key);
+        current = key;
+    }
+
+    private SigningKey generate() {
+        byte[] material = new byte[KEY_BYTES];
+        random.nextBytes(material);
+        return new SigningKey(fingerprint(material), new SecretKeySpec(material, ALGORITHM), System.currentTimeMillis());
+    }
+
+    private static String fingerprint(byte[] material) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
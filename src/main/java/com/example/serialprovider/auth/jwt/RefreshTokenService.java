@@ -0,0 +1,202 @@
+package com.example.serialprovider.auth.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refresh tokens that let a client obtain new access tokens without repeating the
+ * authentication chain.
+ *
+ * <p>Tokens are signed and self-contained, so the server keeps no per-token record. Each token
+ * can be exchanged once: the exchange claims its id in a revocation index and returns a
+ * successor in the same family. Presenting a claimed id again means the token was replayed or
+ * stolen, and the whole family is revoked, which also invalidates the successor. Both indexes
+ * forget an id once the token it refers to would have expired anyway, so memory is bounded by
+ * the tokens still live.
+ */
+@Component
+public class RefreshTokenService {
+
+    private static final String TOKEN_TYPE = "refresh+jwt";
+    private static final String COOKIE_PATH = "/auth";
+
+    private final JwtKeyRing keyRing;
+    private final Duration refreshTokenTtl;
+    private final Duration maxLifetime;
+    private final String cookieName;
+    private final SecureRandom random = new SecureRandom();
+    // Ids of tokens that have been exchanged; a second exchange is reuse
+    private final ExpiringIdSet exchangedTokens;
+    private final ExpiringIdSet revokedFamilies;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder reuseDetected = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RefreshTokenService(JwtKeyRing keyRing,
+                               @Value("${auth.jwt.refresh-token-ttl:8h}") Duration refreshTokenTtl,
+                               @Value("${auth.jwt.refresh-token-max-lifetime:7d}") Duration maxLifetime,
+                               @Value("${auth.jwt.revocation-index.bucket:1m}") Duration bucket,
+                               @Value("${auth.jwt.refresh-cookie-name:SERIAL_PROVIDER_REFRESH}") String cookieName) {
+        this.keyRing = keyRing;
+        this.refreshTokenTtl = refreshTokenTtl;
+        this.maxLifetime = maxLifetime;
+        this.cookieName = cookieName;
+        this.exchangedTokens = new ExpiringIdSet(bucket.toMillis());
+        this.revokedFamilies = new ExpiringIdSet(bucket.toMillis());
+    }
+
+    public record IssuedRefreshToken(String value, Instant expiresAt) {
+    }
+
+    /**
+     * Result of a successful exchange: who the token belongs to and its successor
+     */
+    public record Rotation(String username, Set<String> completedSteps, IssuedRefreshToken refreshToken) {
+    }
+
+    /**
+     * Start a new token family after the authentication chain completed
+     */
+    public IssuedRefreshToken issue(String username, Set<String> completedSteps) {
+        Instant familyExpiresAt = Instant.now().plus(maxLifetime);
+        return sign(username, completedSteps, random.nextLong(), familyExpiresAt);
+    }
+
+    /**
+     * Exchange a refresh token for its successor.
+     * @throws BadCredentialsException if the token is invalid, expired, revoked or was already exchanged
+     */
+    public Rotation rotate(String token) {
+        RefreshClaims claims = verify(token);
+        if (revokedFamilies.contains(claims.familyId())) {
+            rejected.increment();
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        if (!exchangedTokens.add(claims.tokenId(), claims.expiresAtMillis())) {
+            revokedFamilies.add(claims.familyId(), claims.familyExpiresAt().toEpochMilli());
+            reuseDetected.increment();
+            throw new BadCredentialsException("Refresh token reuse detected; please sign in again");
+        }
+        rotated.increment();
+        return new Rotation(claims.username(), claims.completedSteps(),
+            sign(claims.username(), claims.completedSteps(), claims.familyId(), claims.familyExpiresAt()));
+    }
+
+    /**
+     * Revoke the token's whole family, e.g. on logout. Invalid tokens are ignored.
+     */
+    public void revoke(String token) {
+        try {
+            RefreshClaims claims = verify(token);
+            revokedFamilies.add(claims.familyId(), claims.familyExpiresAt().toEpochMilli());
+        } catch (BadCredentialsException e) {
+            // Nothing a forged or expired token could still be used for
+        }
+    }
+
+    public ResponseCookie refreshTokenCookie(IssuedRefreshToken token, boolean secure) {
+        return ResponseCookie.from(cookieName, token.value())
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            // Sent to /auth/token/refresh and to /auth/logout, which revokes the family
+            .path(COOKIE_PATH)
+            .maxAge(Duration.between(Instant.now(), token.expiresAt()))
+            .build();
+    }
+
+    public ResponseCookie clearedRefreshTokenCookie(boolean secure) {
+        return ResponseCookie.from(cookieName, "")
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path(COOKIE_PATH)
+            .maxAge(0)
+            .build();
+    }
+
+    public Stats getStats() {
+        return new Stats(issued.sum(), rotated.sum(), reuseDetected.sum(), rejected.sum(),
+            exchangedTokens.size(), revokedFamilies.size());
+    }
+
+    private IssuedRefreshToken sign(String username, Set<String> completedSteps, long familyId, Instant familyExpiresAt) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(refreshTokenTtl);
+        if (expiresAt.isAfter(familyExpiresAt)) {
+            expiresAt = familyExpiresAt;
+        }
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", AccessTokenService.ISSUER);
+        claims.put("sub", username);
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        claims.put("jti", random.nextLong());
+        claims.put("fam", familyId);
+        claims.put("fexp", familyExpiresAt.getEpochSecond());
+        claims.put("amr", completedSteps);
+
+        issued.increment();
+        return new IssuedRefreshToken(CompactJws.sign(keyRing.signingKey(), TOKEN_TYPE, claims), expiresAt);
+    }
+
+    private RefreshClaims verify(String token) {
+        JsonNode claims;
+        try {
+            claims = CompactJws.verify(token, TOKEN_TYPE, keyRing);
+        } catch (BadCredentialsException e) {
+            rejected.increment();
+            throw e;
+        }
+        long expiresAtMillis = claims.path("exp").asLong() * 1000;
+        String subject = claims.path("sub").asText(null);
+        if (!AccessTokenService.ISSUER.equals(claims.path("iss").asText()) || subject == null
+                || !claims.path("jti").canConvertToLong() || !claims.path("fam").canConvertToLong()) {
+            rejected.increment();
+            throw new BadCredentialsException("Malformed refresh token");
+        }
+        if (System.currentTimeMillis() >= expiresAtMillis) {
+            rejected.increment();
+            throw new BadCredentialsException("Refresh token expired");
+        }
+
+        Set<String> completedSteps = new LinkedHashSet<>();
+        claims.path("amr").forEach(step -> completedSteps.add(step.asText()));
+        return new RefreshClaims(subject, completedSteps, claims.path("jti").asLong(), claims.path("fam").asLong(),
+            expiresAtMillis, Instant.ofEpochSecond(claims.path("fexp").asLong()));
+    }
+
+    private record RefreshClaims(String username,
+                                 Set<String> completedSteps,
+                                 long tokenId,
+                                 long familyId,
+                                 long expiresAtMillis,
+                                 Instant familyExpiresAt) {
+    }
+
+    /**
+     * Refresh token counters since startup, plus the current size of both revocation indexes
+     */
+    public record Stats(long issued,
+                        long rotated,
+                        long reuseDetected,
+                        long rejected,
+                        int exchangedTokenIds,
+                        int revokedFamilies) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.serialprovider.auth.plugin;
+
+import com.example.serialprovider.auth.step.AuthenticationStep;
+
+/**
+ * Service provider interface for authentication steps shipped in their own jar. A jar lists
+ * its providers in {@code META-INF/services/com.example.serialprovider.auth.plugin.AuthenticationStepProvider}
+ * and annotates each with {@link StepPlugin}.
+ *
+ * <p>Providers are discovered at startup but only instantiated, and their step created, the
+ * first time the step is used, which needs it to be switched on in the authentication
+ * settings. The step's id, name, order and URL come from the descriptor; the step has to
+ * report the same id.
+ */
+public interface AuthenticationStepProvider {
+
+    AuthenticationStep create(StepPluginContext context);
+}
@@ -0,0 +1,173 @@
+package com.example.serialprovider.auth.plugin;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import org.springframework.security.core.Authentication;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stands in for a plugin's step. Answers everything the flows need from the descriptor and
+ * the settings; the provider is instantiated and the step created the first time anything
+ * else is asked, which only happens once the plugin is switched on and a user reaches it.
+ * A step that fails to load is retried on the next use.
+ */
+public class PluginAuthenticationStep implements AuthenticationStep {
+
+    private final StepPlugin descriptor;
+    private final ServiceLoader.Provider<AuthenticationStepProvider> provider;
+    private final StepPluginContext context;
+    private final AuthenticationSettingsService settingsService;
+    private final AuthEventLogger eventLogger;
+    // Not a monitor, so loading does not pin a virtual thread
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile AuthenticationStep step;
+    private volatile long loadMillis = -1;
+
+    PluginAuthenticationStep(StepPlugin descriptor,
+                             ServiceLoader.Provider<AuthenticationStepProvider> provider,
+                             StepPluginContext context,
+                             AuthenticationSettingsService settingsService,
+                             AuthEventLogger eventLogger) {
+        this.descriptor = descriptor;
+        this.provider = provider;
+        this.context = context;
+        this.settingsService = settingsService;
+        this.eventLogger = eventLogger;
+    }
+
+    @Override
+    public String getStepId() {
+        return descriptor.id();
+    }
+
+    @Override
+    public String getStepName() {
+        return descriptor.name();
+    }
+
+    @Override
+    public int getOrder() {
+        return descriptor.order();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return settingsService.isPluginEnabled(descriptor.id());
+    }
+
+    @Override
+    public String getStepUrl() {
+        return descriptor.url().isEmpty() ? "/auth/step/" + descriptor.id() : descriptor.url();
+    }
+
+    @Override
+    public boolean requiresUserInput() {
+        return descriptor.requiresUserInput();
+    }
+
+    @Override
+    public boolean isCompleted(AuthenticationSession session) {
+        return step().isCompleted(session);
+    }
+
+    @Override
+    public boolean canAccess(AuthenticationSession session) {
+        return step().canAccess(session);
+    }
+
+    @Override
+    public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+        return step().processAuthentication(authentication, session);
+    }
+
+    @Override
+    public String getNextStep(AuthenticationSession session) {
+        return step().getNextStep(session);
+    }
+
+    @Override
+    public String getSuccessMessage() {
+        return step().getSuccessMessage();
+    }
+
+    @Override
+    public void enter(AuthenticationSession session) {
+        step().enter(session);
+    }
+
+    @Override
+    public Set<String> getReplacedSteps() {
+        return step().getReplacedSteps();
+    }
+
+    @Override
+    public void resetStep(AuthenticationSession session) {
+        // A step that was never loaded has nothing in the session
+        AuthenticationStep loaded = step;
+        if (loaded != null) {
+            loaded.resetStep(session);
+        }
+    }
+
+    public boolean isLoaded() {
+        return step != null;
+    }
+
+    public Stats getStats() {
+        return new Stats(descriptor.id(), descriptor.name(), provider.type().getName(), isEnabled(), isLoaded(), loadMillis);
+    }
+
+    private AuthenticationStep step() {
+        AuthenticationStep loaded = step;
+        if (loaded != null) {
+            return loaded;
+        }
+        loadLock.lock();
+        try {
+            if (step == null) {
+                step = load();
+            }
+            return step;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private AuthenticationStep load() {
+        long started = System.nanoTime();
+        try {
+            AuthenticationStep created = provider.get().create(context);
+            if (created == null || !descriptor.id().equals(created.getStepId())) {
+                throw new IllegalStateException("Plugin " + provider.type().getName() +
+                    " created a step that is not " + descriptor.id());
+            }
+            loadMillis = (System.nanoTime() - started) / 1_000_000;
+            eventLogger.event(AuthEventType.STEP_PLUGIN_LOADED)
+                .field("step", descriptor.id())
+                .field("provider", provider.type().getName())
+                .field("loadMillis", String.valueOf(loadMillis))
+                .publish();
+            return created;
+        } catch (RuntimeException | ServiceConfigurationError e) {
+            eventLogger.event(AuthEventType.STEP_PLUGIN_LOAD_FAILED)
+                .field("step", descriptor.id())
+                .field("error", String.valueOf(e.getMessage()))
+                .publish();
+            throw new IllegalStateException("Cannot load step plugin " + descriptor.id(), e);
+        }
+    }
+
+    /**
+     * A plugin's descriptor and whether its step has been created; load time is -1 until then
+     */
+    public record Stats(String stepId, String name, String provider, boolean enabled, boolean loaded, long loadMillis) {
+    }
+}
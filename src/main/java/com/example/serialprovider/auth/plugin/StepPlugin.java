@@ -0,0 +1,44 @@
+package com.example.serialprovider.auth.plugin;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Descriptor of a step plugin, put on its {@link AuthenticationStepProvider}. It is read from
+ * the provider class without creating the provider, so the step can be listed, ordered and
+ * placed in the flows before, or without ever, being loaded.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface StepPlugin {
+
+    /**
+     * Step id; also the id used to switch the plugin on in the settings
+     */
+    String id();
+
+    String name();
+
+    int order();
+
+    /**
+     * Steps this one comes after; it is added to every flow that has all of them
+     */
+    String[] after() default {};
+
+    /**
+     * Steps that wait for this one in the flows that have them
+     */
+    String[] before() default {};
+
+    /**
+     * Endpoint the user submits the step to; defaults to {@code /auth/step/{id}}
+     */
+    String url() default "";
+
+    boolean requiresUserInput() default true;
+}
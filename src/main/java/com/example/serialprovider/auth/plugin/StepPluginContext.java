@@ -0,0 +1,48 @@
+package com.example.serialprovider.auth.plugin;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+
+/**
+ * What a step plugin gets to build its step: its own properties, under
+ * {@code auth.plugins.<step id>.}, and the application's services.
+ */
+public final class StepPluginContext {
+
+    private final StepPlugin descriptor;
+    private final Environment environment;
+    private final BeanFactory beanFactory;
+
+    StepPluginContext(StepPlugin descriptor, Environment environment, BeanFactory beanFactory) {
+        this.descriptor = descriptor;
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    public String getStepId() {
+        return descriptor.id();
+    }
+
+    public StepPlugin getDescriptor() {
+        return descriptor;
+    }
+
+    public String getProperty(String key, String defaultValue) {
+        return environment.getProperty(propertyName(key), defaultValue);
+    }
+
+    public <T> T getProperty(String key, Class<T> type, T defaultValue) {
+        return environment.getProperty(propertyName(key), type, defaultValue);
+    }
+
+    /**
+     * An application service, e.g. the OTP delivery or the event logger
+     */
+    public <T> T getBean(Class<T> type) {
+        return beanFactory.getBean(type);
+    }
+
+    private String propertyName(String key) {
+        return "auth.plugins." + descriptor.id() + "." + key;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.serialprovider.auth.plugin;
+
+import com.example.serialprovider.auth.flow.StepPlacement;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Registers a {@link PluginAuthenticationStep} and a {@link StepPlacement} for every
+ * {@link AuthenticationStepProvider} on the class path, so plugin steps reach the flows and
+ * the chain the same way as the built-in ones. Only the provider classes are loaded here,
+ * to read their descriptors; a plugin that is never switched on costs two small beans.
+ */
+@Component
+public class StepPluginRegistrar implements BeanDefinitionRegistryPostProcessor, BeanClassLoaderAware {
+
+    private ClassLoader classLoader = StepPluginRegistrar.class.getClassLoader();
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        if (!(registry instanceof BeanFactory beanFactory)) {
+            throw new IllegalStateException("Step plugins need a bean factory, got " + registry.getClass().getName());
+        }
+        Set<String> ids = new HashSet<>();
+        ServiceLoader.load(AuthenticationStepProvider.class, classLoader).stream().forEach(provider -> {
+            StepPlugin descriptor = provider.type().getAnnotation(StepPlugin.class);
+            if (descriptor == null) {
+                throw new IllegalStateException("Step plugin " + provider.type().getName() + " has no @StepPlugin descriptor");
+            }
+            if (!ids.add(descriptor.id())) {
+                throw new IllegalStateException("Duplicate step plugin id " + descriptor.id());
+            }
+
+            registry.registerBeanDefinition("stepPlugin." + descriptor.id(), BeanDefinitionBuilder
+                .genericBeanDefinition(PluginAuthenticationStep.class, () -> new PluginAuthenticationStep(
+                    descriptor,
+                    provider,
+                    new StepPluginContext(descriptor, beanFactory.getBean(Environment.class), beanFactory),
+                    beanFactory.getBean(AuthenticationSettingsService.class),
+                    beanFactory.getBean(AuthEventLogger.class)))
+                .getBeanDefinition());
+            registry.registerBeanDefinition("stepPlugin." + descriptor.id() + ".placement", BeanDefinitionBuilder
+                .genericBeanDefinition(StepPlacement.class, () -> new StepPlacement(
+                    descriptor.id(), Set.of(descriptor.after()), Set.of(descriptor.before())))
+                .getBeanDefinition());
+        });
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.serialprovider.auth.risk;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-node memory of recent logins that the risk signals read.
+ *
+ * <p>Failures and attempts are counted in one-minute buckets over a sliding window; devices and
+ * login hours are only learned from logins that completed the whole chain, so a stolen
+ * password alone cannot make a device look familiar. Idle counters are purged every minute.
+ *
+ * <p>A device is known by a random id this node hands out in a cookie when a login completes,
+ * not by anything the client reports about itself: a copied user agent makes no device familiar.
+ */
+@Component
+public class LoginHistory {
+
+    static final Duration FAILURE_WINDOW = Duration.ofHours(1);
+    static final Duration ATTEMPT_WINDOW = Duration.ofMinutes(15);
+    private static final int MAX_DEVICES_PER_USER = 8;
+    private static final int DEVICE_ID_BYTES = 16;
+    private static final Duration DEVICE_COOKIE_LIFETIME = Duration.ofDays(365);
+
+    private final Map<String, WindowCounter> failuresByAddress = new ConcurrentHashMap<>();
+    private final Map<String, WindowCounter> attemptsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> devicesByUser = new ConcurrentHashMap<>();
+    // Bit h set: the user has completed a login during hour h
+    private final Map<String, AtomicInteger> hoursByUser = new ConcurrentHashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final SecureRandom random = new SecureRandom();
+    private final String deviceCookieName;
+
+    public LoginHistory(@Value("${auth.risk.device-cookie-name:SERIAL_PROVIDER_KNOWN_DEVICE}") String deviceCookieName) {
+        this.deviceCookieName = deviceCookieName;
+    }
+
+    public void recordAttempt(String username) {
+        attemptsByUser.computeIfAbsent(username, key -> new WindowCounter(ATTEMPT_WINDOW)).add(System.currentTimeMillis());
+    }
+
+    public void recordFailure(String remoteAddress) {
+        if (remoteAddress != null) {
+            failuresByAddress.computeIfAbsent(remoteAddress, key -> new WindowCounter(FAILURE_WINDOW)).add(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Learn the device and hour of a login that completed every step
+     * @param deviceId the id from the device's cookie, or null if it has none yet
+     * @return the id the device is known by from now on, to be set in its cookie
+     */
+    public String recordCompletedLogin(String username, String deviceId, Instant at) {
+        String id = isWellFormed(deviceId) ? deviceId : newDeviceId();
+        Set<String> devices = devicesByUser.computeIfAbsent(username, key -> new LinkedHashSet<>());
+        synchronized (devices) {
+            devices.remove(id);
+            devices.add(id);
+            if (devices.size() > MAX_DEVICES_PER_USER) {
+                Iterator<String> oldest = devices.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        int hour = at.atZone(zone).getHour();
+        hoursByUser.computeIfAbsent(username, key -> new AtomicInteger()).getAndUpdate(mask -> mask | 1 << hour);
+        return id;
+    }
+
+    public int recentFailures(String remoteAddress) {
+        WindowCounter counter = remoteAddress != null ? failuresByAddress.get(remoteAddress) : null;
+        return counter != null ? counter.sum(System.currentTimeMillis()) : 0;
+    }
+
+    public int recentAttempts(String username) {
+        WindowCounter counter = attemptsByUser.get(username);
+        return counter != null ? counter.sum(System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * @return true if a login of this user has completed on the device with this cookie id
+     */
+    public boolean isKnownDevice(String username, String deviceId) {
+        Set<String> devices = deviceId != null ? devicesByUser.get(username) : null;
+        if (devices == null) {
+            return false;
+        }
+        synchronized (devices) {
+            return devices.contains(deviceId);
+        }
+    }
+
+    public ResponseCookie deviceCookie(String deviceId, boolean secure) {
+        return ResponseCookie.from(deviceCookieName, deviceId)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Strict")
+            .path("/auth")
+            .maxAge(DEVICE_COOKIE_LIFETIME)
+            .build();
+    }
+
+    public String getDeviceCookieName() {
+        return deviceCookieName;
+    }
+
+    /**
+     * @return true if the user has completed a login within an hour of this time of day
+     */
+    public boolean isUsualHour(String username, Instant at) {
+        AtomicInteger hours = hoursByUser.get(username);
+        if (hours == null) {
+            return false;
+        }
+        int hour = at.atZone(zone).getHour();
+        int neighbours = 1 << hour | 1 << (hour + 1) % 24 | 1 << (hour + 23) % 24;
+        return (hours.get() & neighbours) != 0;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeIdle() {
+        long now = System.currentTimeMillis();
+        failuresByAddress.values().removeIf(counter -> counter.isIdle(now));
+        attemptsByUser.values().removeIf(counter -> counter.isIdle(now));
+    }
+
+    private String newDeviceId() {
+        byte[] id = new byte[DEVICE_ID_BYTES];
+        random.nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    private static boolean isWellFormed(String deviceId) {
+        // Only ever learned after the whole chain, so a presented id is kept if it has our shape
+        return deviceId != null && deviceId.length() == 22 && deviceId.chars().allMatch(c ->
+            c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_');
+    }
+
+    /**
+     * Event count over a sliding window in one-minute buckets
+     */
+    private static final class WindowCounter {
+        private static final long BUCKET_MILLIS = 60_000;
+
+        private final int[] counts;
+        private final long[] bucketIds;
+        private volatile long lastEventMillis;
+
+        WindowCounter(Duration window) {
+            int buckets = (int) (window.toMillis() / BUCKET_MILLIS);
+            this.counts = new int[buckets];
+            this.bucketIds = new long[buckets];
+        }
+
+        synchronized void add(long now) {
+            long bucketId = now / BUCKET_MILLIS;
+            int slot = (int) (bucketId % counts.length);
+            if (bucketIds[slot] != bucketId) {
+                bucketIds[slot] = bucketId;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+            lastEventMillis = now;
+        }
+
+        synchronized int sum(long now) {
+            long oldest = now / BUCKET_MILLIS - counts.length;
+            int total = 0;
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (bucketIds[slot] > oldest) {
+                    total += counts[slot];
+                }
+            }
+            return total;
+        }
+
+        boolean isIdle(long now) {
+            return now - lastEventMillis > counts.length * BUCKET_MILLIS;
+        }
+    }
+}
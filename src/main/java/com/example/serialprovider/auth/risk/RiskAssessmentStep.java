@@ -0,0 +1,261 @@
+package com.example.serialprovider.auth.risk;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.LoginRequestDetails;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive MFA: scores the login right after the password step and waives OTP when the risk
+ * is low.
+ *
+ * <p>All signals run at once, each on its own virtual thread, and the assessment waits for
+ * them only until the deadline; a signal that has not answered by then is cancelled and
+ * counted as maximum risk, so a slow signal can make a login ask for OTP but never let one
+ * skip it. The step needs no user input and is run by the chain as soon as the password
+ * step completes.
+ */
+@Component
+public class RiskAssessmentStep implements AuthenticationStep, DisposableBean {
+
+    public static final String STEP_ID = "risk";
+    private static final int ORDER = 2;
+
+    private final List<RiskSignal> signals;
+    private final AuthenticationFlows flows;
+    private final AuthenticationSettingsService settingsService;
+    private final AuthEventLogger eventLogger;
+    private final boolean enabled;
+    private final double otpThreshold;
+    private final Duration deadline;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder assessments = new LongAdder();
+    private final LongAdder otpWaived = new LongAdder();
+    private final LongAdder signalsTimedOut = new LongAdder();
+    private final LongAdder assessmentNanos = new LongAdder();
+
+    public RiskAssessmentStep(List<RiskSignal> signals,
+                              AuthenticationFlows flows,
+                              AuthenticationSettingsService settingsService,
+                              AuthEventLogger eventLogger,
+                              @Value("${auth.risk.enabled:false}") boolean enabled,
+                              @Value("${auth.risk.otp-threshold:0.3}") double otpThreshold,
+                              @Value("${auth.risk.deadline:25ms}") Duration deadline) {
+        this.signals = List.copyOf(signals);
+        this.flows = flows;
+        this.settingsService = settingsService;
+        this.eventLogger = eventLogger;
+        this.enabled = enabled;
+        this.otpThreshold = otpThreshold;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Weighted score between 0 and 1, and how many signals missed the deadline
+     */
+    public record RiskScore(double value, int timedOutSignals) {
+    }
+
+    @Override
+    public String getStepId() {
+        return STEP_ID;
+    }
+
+    @Override
+    public String getStepName() {
+        return "Risk Assessment";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        // The score only decides about OTP, so there is nothing to assess without it
+        return enabled && settingsService.isOtpEnabled();
+    }
+
+    @Override
+    public boolean isCompleted(AuthenticationSession session) {
+        return session.getCompletedSteps().contains(STEP_ID);
+    }
+
+    @Override
+    public boolean canAccess(AuthenticationSession session) {
+        return session.getCompletedSteps().contains(PasswordAuthenticationStep.STEP_ID) &&
+               !session.isExpired();
+    }
+
+    @Override
+    public boolean requiresUserInput() {
+        return false;
+    }
+
+    @Override
+    public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+        String username = session.getUsername();
+        LoginRequestDetails details = authentication.getDetails() instanceof LoginRequestDetails loginDetails
+            ? loginDetails : new LoginRequestDetails(null, null, null, null, null);
+        RiskScore score = assess(new RiskContext(username, details.remoteAddress(), details.userAgent(),
+            details.knownDeviceCookie(), Instant.now()));
+
+        // A trusted device may already have satisfied OTP; the score can only add the challenge.
+        // A flow that makes OTP mandatory is never waived, whatever the score
+        boolean otpAlreadySatisfied = session.hasCompletedStep(OtpAuthenticationStep.STEP_ID);
+        boolean waiveOtp = !otpAlreadySatisfied && score.value() < otpThreshold &&
+                           flows.isWaivable(username, OtpAuthenticationStep.STEP_ID);
+        // The waiver lands in the same transition as the assessment, so a session reset in
+        // between cannot end up with OTP completed but no password. Otherwise the code is sent
+        // when the chain moves on to the OTP step
+        if (!session.completeStepIf(STEP_ID, current -> current.hasCompletedStep(PasswordAuthenticationStep.STEP_ID),
+                current -> waiveOtp ? current.withCompletedStep(OtpAuthenticationStep.STEP_ID) : current)) {
+            return AuthenticationStepResult.failure()
+                .message("Session was reset during risk assessment")
+                .error(new RuntimeException("Invalid step access"))
+                .build();
+        }
+        if (waiveOtp) {
+            otpWaived.increment();
+        }
+
+        eventLogger.event(AuthEventType.RISK_ASSESSED)
+            .field("user", username)
+            .field("score", String.format("%.2f", score.value()))
+            .field("timedOutSignals", String.valueOf(score.timedOutSignals()))
+            .field("otp", otpAlreadySatisfied ? "satisfied" : waiveOtp ? "waived" : "required")
+            .publish();
+
+        String nextStep = getNextStep(session);
+        List<GrantedAuthority> authorities = new ArrayList<>(List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED")));
+        if (session.hasCompletedStep(OtpAuthenticationStep.STEP_ID)) {
+            authorities.add(new SimpleGrantedAuthority("STEP_2_COMPLETED"));
+        }
+        if (nextStep == null) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+            authorities.add(new SimpleGrantedAuthority("FULLY_AUTHENTICATED"));
+        }
+        return AuthenticationStepResult.success()
+            .completed(nextStep == null)
+            .message(getSuccessMessage())
+            .nextStep(nextStep)
+            .grantedAuthorities(authorities)
+            .build();
+    }
+
+    /**
+     * Evaluate every signal concurrently within the deadline
+     */
+    public RiskScore assess(RiskContext context) {
+        long started = System.nanoTime();
+        List<Callable<Double>> tasks = signals.stream()
+            .<Callable<Double>>map(signal -> () -> signal.evaluate(context))
+            .toList();
+
+        double weightedRisk = 0;
+        double totalWeight = 0;
+        int timedOut = 0;
+        try {
+            // Returns once all have finished or the deadline passed; stragglers are cancelled
+            List<Future<Double>> results = executor.invokeAll(tasks, deadline.toNanos(), TimeUnit.NANOSECONDS);
+            for (int i = 0; i < results.size(); i++) {
+                double weight = signals.get(i).getWeight();
+                Double risk = resultOf(results.get(i));
+                if (risk == null) {
+                    timedOut++;
+                    risk = 1.0;
+                }
+                weightedRisk += weight * Math.max(0.0, Math.min(1.0, risk));
+                totalWeight += weight;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RiskScore(1.0, signals.size());
+        } finally {
+            assessments.increment();
+            assessmentNanos.add(System.nanoTime() - started);
+        }
+        signalsTimedOut.add(timedOut);
+        return new RiskScore(totalWeight == 0 ? 1.0 : weightedRisk / totalWeight, timedOut);
+    }
+
+    @Override
+    public String getNextStep(AuthenticationSession session) {
+        return flows.nextStepId(session);
+    }
+
+    @Override
+    public String getStepUrl() {
+        // Run by the chain; there is no endpoint to submit to
+        return "/auth/login";
+    }
+
+    @Override
+    public String getSuccessMessage() {
+        return "Risk assessed.";
+    }
+
+    @Override
+    public void resetStep(AuthenticationSession session) {
+        session.removeCompletedStep(STEP_ID);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public Stats getStats() {
+        long count = assessments.sum();
+        return new Stats(enabled, count, otpWaived.sum(), signalsTimedOut.sum(),
+            count == 0 ? 0 : assessmentNanos.sum() / count / 1000);
+    }
+
+    private static Double resultOf(Future<Double> result) {
+        if (result.isCancelled()) {
+            return null;
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException | InterruptedException e) {
+            // A failing signal is treated like a late one
+            return null;
+        }
+    }
+
+    /**
+     * Assessment counters since startup
+     */
+    public record Stats(boolean enabled,
+                        long assessments,
+                        long otpWaived,
+                        long signalsTimedOut,
+                        long averageAssessmentMicros) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.serialprovider.auth.risk;
+
+import java.time.Instant;
+
+/**
+ * What is known about a login when it is scored; remoteAddress, userAgent and deviceId may be
+ * null. The user agent is reported by the client; the device id comes from the cookie
+ * {@link LoginHistory} set on an earlier completed login.
+ */
+public record RiskContext(String username, String remoteAddress, String userAgent, String deviceId, Instant at) {
+}
@@ -0,0 +1,23 @@
+package com.example.serialprovider.auth.risk;
+
+/**
+ * One input to the login risk score. Signals are evaluated concurrently and must be
+ * thread-safe; a signal that misses the assessment deadline counts as maximum risk.
+ */
+public interface RiskSignal {
+
+    /**
+     * Name reported in the risk.assessed event
+     */
+    String getName();
+
+    /**
+     * Share of the total score; weights need not add up to one
+     */
+    double getWeight();
+
+    /**
+     * @return risk between 0 (no concern) and 1 (maximum concern)
+     */
+    double evaluate(RiskContext context) throws Exception;
+}
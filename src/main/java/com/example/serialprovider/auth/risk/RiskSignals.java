@@ -0,0 +1,83 @@
+package com.example.serialprovider.auth.risk;
+
+import com.example.serialprovider.network.IpLabel;
+import com.example.serialprovider.network.IpReputationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The built-in signals, answered from {@link LoginHistory} and the local IP list. Further
+ * signals are picked up as any other RiskSignal bean.
+ */
+@Configuration
+public class RiskSignals {
+
+    private static final int SUSPICIOUS_ADDRESS_FAILURES = 10;
+    private static final int SUSPICIOUS_ATTEMPTS = 5;
+    // Hosting and proxy ranges are a common source of credential stuffing, not a verdict
+    private static final double ANONYMISED_NETWORK_RISK = 0.5;
+
+    /**
+     * Listed range of the address, and failed logins from it within the last hour
+     */
+    @Bean
+    RiskSignal ipReputationSignal(LoginHistory history, IpReputationService ipReputation) {
+        return signal("ip-reputation", 0.35, context -> {
+            int network = ipReputation.classify(context.remoteAddress());
+            if (IpLabel.isBlocklisted(network)) {
+                return 1.0;
+            }
+            double failures = Math.min(1.0, (double) history.recentFailures(context.remoteAddress()) / SUSPICIOUS_ADDRESS_FAILURES);
+            return IpLabel.isDatacenter(network) || IpLabel.isProxy(network)
+                ? Math.max(failures, ANONYMISED_NETWORK_RISK) : failures;
+        });
+    }
+
+    /**
+     * Whether the user has completed a login on this device before, by its device cookie
+     */
+    @Bean
+    RiskSignal deviceFamiliaritySignal(LoginHistory history) {
+        return signal("device-familiarity", 0.30,
+            context -> history.isKnownDevice(context.username(), context.deviceId()) ? 0.0 : 1.0);
+    }
+
+    /**
+     * Password attempts for the user within the last 15 minutes, beyond the current one
+     */
+    @Bean
+    RiskSignal velocitySignal(LoginHistory history) {
+        return signal("velocity", 0.20,
+            context -> Math.min(1.0, (double) Math.max(0, history.recentAttempts(context.username()) - 1) / SUSPICIOUS_ATTEMPTS));
+    }
+
+    /**
+     * Whether the user usually logs in around this hour
+     */
+    @Bean
+    RiskSignal timeOfDaySignal(LoginHistory history) {
+        return signal("time-of-day", 0.15,
+            context -> history.isUsualHour(context.username(), context.at()) ? 0.0 : 1.0);
+    }
+
+    private static RiskSignal signal(String name, double weight, ToDoubleFunction<RiskContext> evaluation) {
+        return new RiskSignal() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public double getWeight() {
+                return weight;
+            }
+
+            @Override
+            public double evaluate(RiskContext context) {
+                return evaluation.applyAsDouble(context);
+            }
+        };
+    }
+}
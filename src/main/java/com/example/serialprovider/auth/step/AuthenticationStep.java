@@ -3,6 +3,8 @@ package com.example.serialprovider.auth.step;
 import com.example.serialprovider.auth.AuthenticationSession;
 import org.springframework.security.core.Authentication;
 
+import java.util.Set;
+
 /**
  * Generic interface for authentication steps in a multi-factor authentication flow.
  * Each step is self-contained and knows its own configuration, validation logic, and next step.
@@ -25,7 +27,7 @@ public interface AuthenticationStep {
     int getOrder();
     
     /**
-     * Whether this step is currently enabled/required
+     * Whether this step is currently enabled/required; a flow may still require a disabled step
      */
     boolean isEnabled();
     
@@ -35,7 +37,7 @@ public interface AuthenticationStep {
     boolean isCompleted(AuthenticationSession session);
     
     /**
-     * Whether the user can access this step based on current session state
+     * Whether the step's own preconditions hold; the order of steps comes from the user's flow
      */
     boolean canAccess(AuthenticationSession session);
     
@@ -48,7 +50,7 @@ public interface AuthenticationStep {
     AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session);
     
     /**
-     * Get the next step after successful completion of this step
+     * Get the next step after successful completion of this step, as resolved by the user's flow
      * @param session Current authentication session
      * @return Next step identifier, or null if this is the final step
      */
@@ -64,8 +66,39 @@ public interface AuthenticationStep {
      */
     String getSuccessMessage();
     
+    /**
+     * Message after successful completion in this session, where it depends on what the
+     * session's flow asks for next
+     */
+    default String getSuccessMessage(AuthenticationSession session) {
+        return getSuccessMessage();
+    }
+    
     /**
      * Reset/clear any step-specific data from the session
      */
     void resetStep(AuthenticationSession session);
-}
\ No newline at end of file
+    
+    /**
+     * Whether the user has to submit something for this step. Steps that do not are run by the
+     * chain right after the step that makes them accessible, with that step's authentication.
+     */
+    default boolean requiresUserInput() {
+        return true;
+    }
+    
+    /**
+     * Called when the flow moves on to this step, before the user is asked for input
+     */
+    default void enter(AuthenticationSession session) {
+    }
+    
+    /**
+     * Steps this one completes in their place, e.g. a passkey standing in for password and OTP.
+     * Such a step is in no flow; while enabled it can be run wherever one of those steps is
+     * still to do.
+     */
+    default Set<String> getReplacedSteps() {
+        return Set.of();
+    }
+}
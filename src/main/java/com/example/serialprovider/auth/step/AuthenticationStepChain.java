@@ -1,34 +1,42 @@
 package com.example.serialprovider.auth.step;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.tracing.AuthTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Manages the chain of authentication steps and coordinates their execution.
  * Uses Chain of Responsibility pattern to handle dynamic authentication flows.
+ * Which steps a user goes through, and in what order, comes from their flow in
+ * {@link AuthenticationFlows}.
  */
 @Component
 public class AuthenticationStepChain {
     
-    private final List<AuthenticationStep> allSteps;
+    private final AuthenticationFlows flows;
+    private final AuthTracer tracer;
     
-    public AuthenticationStepChain(List<AuthenticationStep> authenticationSteps) {
-        // Sort steps by order to ensure proper sequence
-        this.allSteps = authenticationSteps.stream()
-            .sorted(Comparator.comparingInt(AuthenticationStep::getOrder))
-            .toList();
+    // Steps come from the flows, which look them up once the context is ready, so plugin
+    // steps are found the same way as built-in ones
+    public AuthenticationStepChain(AuthenticationFlows flows, AuthTracer tracer) {
+        this.flows = flows;
+        this.tracer = tracer;
     }
     
     /**
      * Get all currently enabled authentication steps in order
      */
     public List<AuthenticationStep> getEnabledSteps() {
-        return allSteps.stream()
+        return flows.getSteps().stream()
             .filter(AuthenticationStep::isEnabled)
             .toList();
     }
@@ -37,9 +45,7 @@ public class AuthenticationStepChain {
      * Get an authentication step by its ID
      */
     public Optional<AuthenticationStep> getStepById(String stepId) {
-        return allSteps.stream()
-            .filter(step -> step.getStepId().equals(stepId))
-            .findFirst();
+        return flows.getStep(stepId);
     }
     
     /**
@@ -53,26 +59,14 @@ public class AuthenticationStepChain {
      * Get the next step that should be executed based on current session state
      */
     public Optional<AuthenticationStep> getNextStep(AuthenticationSession session) {
-        List<AuthenticationStep> enabledSteps = getEnabledSteps();
-        
-        for (AuthenticationStep step : enabledSteps) {
-            // If this step is not completed and can be accessed, it's the next step
-            if (!step.isCompleted(session) && step.canAccess(session)) {
-                return Optional.of(step);
-            }
-        }
-        
-        return Optional.empty(); // All steps completed
+        return flows.nextStep(session);
     }
     
     /**
-     * Check if all enabled authentication steps are completed
+     * Check if every step of the session's flow is completed
      */
     public boolean isFullyAuthenticated(AuthenticationSession session) {
-        List<AuthenticationStep> enabledSteps = getEnabledSteps();
-        
-        return enabledSteps.stream()
-            .allMatch(step -> step.isCompleted(session));
+        return flows.isComplete(session);
     }
     
     /**
@@ -90,28 +84,59 @@ public class AuthenticationStepChain {
         
         AuthenticationStep step = stepOpt.get();
         
-        if (!step.isEnabled()) {
+        boolean inFlow = flows.includes(session, stepId);
+        // Enabled first: asking a plugin step for its replaced steps loads the plugin
+        if (!inFlow && (!step.isEnabled() || step.getReplacedSteps().isEmpty())) {
             return AuthenticationStepResult.failure()
                 .message("Authentication step is disabled: " + stepId)
                 .error(new RuntimeException("Step disabled"))
                 .build();
         }
         
-        if (!step.canAccess(session)) {
+        // The flow decides the order; the step only checks its own preconditions
+        boolean reachable = inFlow
+            ? flows.canEnter(session, stepId)
+            : step.getReplacedSteps().stream()
+                .anyMatch(replaced -> !session.hasCompletedStep(replaced) && flows.canEnter(session, replaced));
+        if (!reachable || !step.canAccess(session)) {
             return AuthenticationStepResult.failure()
                 .message("Cannot access step " + stepId + " in current state")
                 .error(new RuntimeException("Invalid step access"))
                 .build();
         }
         
-        return step.processAuthentication(authentication, session);
+        AuthenticationStepResult result = runStep(step, authentication, session);
+        
+        // Steps that need no user input (e.g. risk assessment) run as soon as they are reached
+        Set<String> ran = new HashSet<>(Set.of(stepId));
+        Optional<AuthenticationStep> next = getNextStep(session);
+        while (result.isSuccess() && next.isPresent() && !next.get().requiresUserInput() && ran.add(next.get().getStepId())) {
+            result = runStep(next.get(), authentication, session);
+            next = getNextStep(session);
+        }
+        if (result.isSuccess() && next.isPresent() && next.get().requiresUserInput()) {
+            next.get().enter(session);
+        }
+        return result;
+    }
+    
+    private AuthenticationStepResult runStep(AuthenticationStep step, Authentication authentication, AuthenticationSession session) {
+        return tracer.inSpan("auth.step." + step.getStepId(), () -> {
+            AuthenticationStepResult result = step.processAuthentication(authentication, session);
+            Span span = Span.current();
+            span.setAttribute("auth.step.success", result.isSuccess());
+            if (!result.isSuccess()) {
+                span.setStatus(StatusCode.ERROR, String.valueOf(result.getMessage()));
+            }
+            return result;
+        });
     }
     
     /**
      * Get the step that should handle a given URL/endpoint
      */
     public Optional<AuthenticationStep> getStepByUrl(String url) {
-        return allSteps.stream()
+        return flows.getSteps().stream()
             .filter(step -> step.getStepUrl().equals(url))
             .findFirst();
     }
@@ -120,15 +145,15 @@ public class AuthenticationStepChain {
      * Reset all steps and clear session
      */
     public void resetAllSteps(AuthenticationSession session) {
-        allSteps.forEach(step -> step.resetStep(session));
+        flows.getSteps().forEach(step -> step.resetStep(session));
         session.reset();
     }
     
     /**
      * Get authentication flow description for debugging/monitoring
      */
-    public String getFlowDescription() {
-        List<AuthenticationStep> enabledSteps = getEnabledSteps();
+    public String getFlowDescription(AuthenticationSession session) {
+        List<AuthenticationStep> enabledSteps = flows.stepsFor(session);
         
         if (enabledSteps.isEmpty()) {
             return "No authentication steps enabled";
@@ -146,7 +171,7 @@ public class AuthenticationStepChain {
      * Get current authentication progress for a session
      */
     public AuthenticationProgress getProgress(AuthenticationSession session) {
-        List<AuthenticationStep> enabledSteps = getEnabledSteps();
+        List<AuthenticationStep> enabledSteps = flows.stepsFor(session);
         int totalSteps = enabledSteps.size();
         int completedSteps = (int) enabledSteps.stream()
             .filter(step -> step.isCompleted(session))
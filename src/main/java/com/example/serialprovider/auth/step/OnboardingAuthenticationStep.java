@@ -1,6 +1,7 @@
 package com.example.serialprovider.auth.step;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
 import com.example.serialprovider.service.AuthenticationSettingsService;
 import com.example.serialprovider.service.OnboardingService;
 import org.springframework.security.core.Authentication;
@@ -14,15 +15,18 @@ import java.util.List;
 public class OnboardingAuthenticationStep implements AuthenticationStep {
     
     public static final String STEP_ID = "onboarding";
-    private static final int ORDER = 3;
+    private static final int ORDER = 4;
     
     private final OnboardingService onboardingService;
     private final AuthenticationSettingsService settingsService;
+    private final AuthenticationFlows flows;
     
     public OnboardingAuthenticationStep(OnboardingService onboardingService,
-                                      AuthenticationSettingsService settingsService) {
+                                      AuthenticationSettingsService settingsService,
+                                      AuthenticationFlows flows) {
         this.onboardingService = onboardingService;
         this.settingsService = settingsService;
+        this.flows = flows;
     }
     
     @Override
@@ -53,33 +57,22 @@ public class OnboardingAuthenticationStep implements AuthenticationStep {
     @Override
     public boolean canAccess(AuthenticationSession session) {
         // Can only access onboarding step if:
-        // 1. Onboarding is enabled
-        // 2. Required previous steps are completed
-        // 3. Session is not expired
-        if (!isEnabled() || session.isExpired()) {
+        // 1. Session is not expired
+        // 2. Password step is completed (the profile belongs to a known user)
+        // Steps required before onboarding (e.g. OTP) are enforced by the user's flow
+        if (session.isExpired()) {
             return false;
         }
         
-        // Must complete password first
-        if (!session.getCompletedSteps().contains("password")) {
-            return false;
-        }
-        
-        // If OTP is enabled, must complete OTP step first
-        if (settingsService.isOtpEnabled() && !session.getCompletedSteps().contains("otp")) {
-            return false;
-        }
-        
-        return true;
+        return session.getCompletedSteps().contains("password");
     }
     
     @Override
     public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
         try {
             if (!canAccess(session)) {
-                String requiredStep = settingsService.isOtpEnabled() ? "OTP" : "password";
                 return AuthenticationStepResult.failure()
-                    .message("Must complete " + requiredStep + " step first")
+                    .message("Must complete password step first")
                     .error(new RuntimeException("Invalid step access"))
                     .build();
             }
@@ -96,18 +89,17 @@ public class OnboardingAuthenticationStep implements AuthenticationStep {
                     .build();
             }
             
-            // Update session
-            session.addCompletedStep(STEP_ID);
-            session.setOnboardingCompleted(true);
+            // Update session (step and completion flag in one atomic transition)
+            session.update(current -> current.withCompletedStep(STEP_ID).withOnboardingCompleted(true));
             
-            // Onboarding is always the final step
+            // Onboarding is the final step of the built-in flows
             String nextStep = getNextStep(session);
-            boolean isFullyCompleted = true; // Onboarding is always the final step
+            boolean isFullyCompleted = nextStep == null;
             
             // Build authorities - onboarding completion means full authentication
             List<GrantedAuthority> authorities;
             
-            if (settingsService.isOtpEnabled()) {
+            if (session.hasCompletedStep(OtpAuthenticationStep.STEP_ID)) {
                 // 3-step flow: Password + OTP + Onboarding
                 authorities = List.of(
                     new SimpleGrantedAuthority("STEP_1_COMPLETED"),
@@ -143,7 +135,7 @@ public class OnboardingAuthenticationStep implements AuthenticationStep {
     
     @Override
     public String getNextStep(AuthenticationSession session) {
-        return null; // Onboarding is always the final step
+        return flows.nextStepId(session); // null once fully authenticated
     }
     
     @Override
@@ -158,7 +150,6 @@ public class OnboardingAuthenticationStep implements AuthenticationStep {
     
     @Override
     public void resetStep(AuthenticationSession session) {
-        session.removeCompletedStep(STEP_ID);
-        session.setOnboardingCompleted(false);
+        session.update(current -> current.withoutCompletedStep(STEP_ID).withOnboardingCompleted(false));
     }
 }
\ No newline at end of file
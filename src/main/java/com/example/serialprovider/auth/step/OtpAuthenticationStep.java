@@ -1,6 +1,8 @@
 package com.example.serialprovider.auth.step;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.email.EmailLinkAuthenticationStep;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
 import com.example.serialprovider.service.AuthenticationSettingsService;
 import com.example.serialprovider.service.OtpService;
 import org.springframework.security.core.Authentication;
@@ -14,15 +16,53 @@ import java.util.List;
 public class OtpAuthenticationStep implements AuthenticationStep {
     
     public static final String STEP_ID = "otp";
-    private static final int ORDER = 2;
+    private static final int ORDER = 3;
     
     private final OtpService otpService;
     private final AuthenticationSettingsService settingsService;
+    private final AuthenticationFlows flows;
+    private final EmailLinkAuthenticationStep emailLinkStep;
     
     public OtpAuthenticationStep(OtpService otpService,
-                               AuthenticationSettingsService settingsService) {
+                               AuthenticationSettingsService settingsService,
+                               AuthenticationFlows flows,
+                               EmailLinkAuthenticationStep emailLinkStep) {
         this.otpService = otpService;
         this.settingsService = settingsService;
+        this.flows = flows;
+        this.emailLinkStep = emailLinkStep;
+    }
+    
+    /**
+     * Send the session its code, unless a login link is offered instead; then nothing is
+     * generated until the user picks the code ({@link #sendCode})
+     */
+    @Override
+    public void enter(AuthenticationSession session) {
+        if (!emailLinkStep.isOffered(session)) {
+            sendCode(session);
+        }
+    }
+    
+    /**
+     * Generate a code for this session and send it to the user, once per login
+     * @return false if the session is not at the OTP step or already has a code
+     */
+    public boolean sendCode(AuthenticationSession session) {
+        if (!canAccess(session) || session.hasCompletedStep(STEP_ID) || !flows.canEnter(session, STEP_ID)) {
+            return false;
+        }
+        String otpCode = otpService.generateOtp();
+        // Of two concurrent requests only one stores and sends a code
+        AuthenticationSession.Snapshot current;
+        do {
+            current = session.snapshot();
+            if (current.otpCode() != null) {
+                return false;
+            }
+        } while (!session.compareAndSet(current, current.withOtpCode(otpCode)));
+        otpService.sendOtp(current.username(), otpCode);
+        return true;
     }
     
     @Override
@@ -53,11 +93,10 @@ public class OtpAuthenticationStep implements AuthenticationStep {
     @Override
     public boolean canAccess(AuthenticationSession session) {
         // Can only access OTP step if:
-        // 1. OTP is enabled
-        // 2. Password step is completed
-        // 3. Session is not expired
-        return isEnabled() && 
-               session.getCompletedSteps().contains("password") &&
+        // 1. Password step is completed (a code was issued to a known user)
+        // 2. Session is not expired
+        // Whether OTP is part of the user's flow is decided by the flow, not the global switch
+        return session.getCompletedSteps().contains("password") &&
                !session.isExpired();
     }
     
@@ -71,20 +110,33 @@ public class OtpAuthenticationStep implements AuthenticationStep {
                     .build();
             }
             
-            String username = session.getUsername();
             String otpCode = (String) authentication.getCredentials();
             
-            // Validate OTP
-            if (!otpService.validateOtp(username, otpCode)) {
+            // Check the code issued to this session and use it up in one transition, so of two
+            // concurrent submissions only one succeeds, and none after a concurrent reset
+            if (!session.completeStepIf(STEP_ID,
+                    current -> current.hasCompletedStep("password") && otpService.validateOtp(current.otpCode(), otpCode),
+                    current -> current.withOtpCode(null))) {
+                AuthenticationSession.Snapshot current = session.snapshot();
+                if (!current.hasCompletedStep("password")) {
+                    return AuthenticationStepResult.failure()
+                        .message("Session was reset during OTP verification")
+                        .error(new RuntimeException("Invalid step access"))
+                        .build();
+                }
+                if (current.hasCompletedStep(STEP_ID) && current.otpCode() == null) {
+                    // A duplicate of the submission that used the code; not a reason to reset the session
+                    return AuthenticationStepResult.failure()
+                        .message("OTP code was already used")
+                        .error(new RuntimeException("OTP already used"))
+                        .build();
+                }
                 return AuthenticationStepResult.failure()
                     .message("Invalid OTP code")
                     .error(new RuntimeException("Invalid OTP"))
                     .build();
             }
             
-            // Update session
-            session.addCompletedStep(STEP_ID);
-            
             // Determine next step
             String nextStep = getNextStep(session);
             boolean isFullyCompleted = nextStep == null;
@@ -106,7 +158,7 @@ public class OtpAuthenticationStep implements AuthenticationStep {
             
             return AuthenticationStepResult.success()
                 .completed(isFullyCompleted)
-                .message(getSuccessMessage())
+                .message(getSuccessMessage(session))
                 .nextStep(nextStep)
                 .grantedAuthorities(authorities)
                 .build();
@@ -121,10 +173,7 @@ public class OtpAuthenticationStep implements AuthenticationStep {
     
     @Override
     public String getNextStep(AuthenticationSession session) {
-        if (settingsService.isOnboardingEnabled()) {
-            return "onboarding";
-        }
-        return null; // No more steps - fully authenticated
+        return flows.nextStepId(session); // null once fully authenticated
     }
     
     @Override
@@ -134,10 +183,18 @@ public class OtpAuthenticationStep implements AuthenticationStep {
     
     @Override
     public String getSuccessMessage() {
-        if (settingsService.isOnboardingEnabled()) {
-            return "OTP verified. Please complete onboarding.";
+        return "OTP verified.";
+    }
+    
+    @Override
+    public String getSuccessMessage(AuthenticationSession session) {
+        String nextStep = flows.nextStepId(session);
+        if (nextStep == null) {
+            return "Authentication completed successfully!";
         }
-        return "Authentication completed successfully!";
+        return OnboardingAuthenticationStep.STEP_ID.equals(nextStep)
+            ? "OTP verified. Please complete onboarding."
+            : getSuccessMessage();
     }
     
     @Override
@@ -1,14 +1,21 @@
 package com.example.serialprovider.auth.step;
 
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.LoginRequestDetails;
+import com.example.serialprovider.auth.device.TrustedDeviceService;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.risk.LoginHistory;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
 import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.service.BreachedPasswordPolicy;
 import com.example.serialprovider.service.UserCredentialsService;
-import com.example.serialprovider.service.OtpService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -19,15 +26,27 @@ public class PasswordAuthenticationStep implements AuthenticationStep {
     private static final int ORDER = 1;
     
     private final UserCredentialsService credentialsService;
-    private final OtpService otpService;
+    private final AuthenticationFlows flows;
+    private final LoginHistory loginHistory;
     private final AuthenticationSettingsService settingsService;
+    private final TrustedDeviceService trustedDevices;
+    private final AuthEventLogger eventLogger;
+    private final BreachedPasswordPolicy breachedPasswordPolicy;
     
     public PasswordAuthenticationStep(UserCredentialsService credentialsService,
-                                    OtpService otpService,
-                                    AuthenticationSettingsService settingsService) {
+                                    AuthenticationFlows flows,
+                                    LoginHistory loginHistory,
+                                    AuthenticationSettingsService settingsService,
+                                    TrustedDeviceService trustedDevices,
+                                    AuthEventLogger eventLogger,
+                                    BreachedPasswordPolicy breachedPasswordPolicy) {
         this.credentialsService = credentialsService;
-        this.otpService = otpService;
+        this.flows = flows;
+        this.loginHistory = loginHistory;
         this.settingsService = settingsService;
+        this.trustedDevices = trustedDevices;
+        this.eventLogger = eventLogger;
+        this.breachedPasswordPolicy = breachedPasswordPolicy;
     }
     
     @Override
@@ -67,24 +86,58 @@ public class PasswordAuthenticationStep implements AuthenticationStep {
         try {
             String username = authentication.getName();
             String password = (String) authentication.getCredentials();
+            LoginRequestDetails details = authentication.getDetails() instanceof LoginRequestDetails loginDetails
+                ? loginDetails : null;
+            loginHistory.recordAttempt(username);
             
             // Validate credentials
             if (!credentialsService.validateCredentials(username, password)) {
+                if (details != null) {
+                    loginHistory.recordFailure(details.remoteAddress());
+                }
                 return AuthenticationStepResult.failure()
                     .message("Invalid username or password")
                     .error(new RuntimeException("Invalid credentials"))
                     .build();
             }
             
-            // Update session
-            session.setUsername(username);
-            session.addCompletedStep(STEP_ID);
+            // Checked only after the credentials are valid, so it never reveals anything about unknown users
+            if (breachedPasswordPolicy.isBreached(password)) {
+                eventLogger.event(AuthEventType.PASSWORD_BREACHED)
+                    .field("user", username)
+                    .field("action", breachedPasswordPolicy.getMode().name().toLowerCase())
+                    .publish();
+                if (breachedPasswordPolicy.getMode() == BreachedPasswordPolicy.Mode.REJECT) {
+                    return AuthenticationStepResult.failure()
+                        .message("This password appears in a known data breach; please reset it")
+                        .error(new RuntimeException("Breached password"))
+                        .build();
+                }
+            }
+            
+            // A trusted device has already passed OTP for this user, so the OTP step is satisfied,
+            // unless the user's flow insists on OTP every time
+            boolean otpEnabled = settingsService.isOtpEnabled();
+            boolean trustedDevice = otpEnabled
+                && details != null
+                && flows.isWaivable(username, OtpAuthenticationStep.STEP_ID)
+                && trustedDevices.isTrusted(username, details.deviceCookie());
             
-            // Generate OTP if next step requires it
-            if (settingsService.isOtpEnabled()) {
-                String otpCode = otpService.generateOtp();
-                otpService.sendOtp(username, otpCode);
-                session.setOtpCode(otpCode);
+            // Update session (username and steps in one atomic transition)
+            session.update(current -> {
+                // Neither a code nor OTP passed earlier in this session carries over to a new login
+                AuthenticationSession.Snapshot next = current.withUsername(username).withCompletedStep(STEP_ID).withOtpCode(null);
+                return trustedDevice
+                    ? next.withCompletedStep(OtpAuthenticationStep.STEP_ID)
+                    : next.withoutCompletedStep(OtpAuthenticationStep.STEP_ID);
+            });
+            
+            // The OTP itself is sent when the flow reaches that step
+            if (trustedDevice) {
+                eventLogger.event(AuthEventType.OTP_SKIPPED)
+                    .field("user", username)
+                    .field("reason", "trusted-device")
+                    .publish();
             }
             
             // Determine next step
@@ -92,21 +145,19 @@ public class PasswordAuthenticationStep implements AuthenticationStep {
             boolean isFullyCompleted = nextStep == null;
             
             // Build authorities
-            List<GrantedAuthority> authorities = List.of(
-                new SimpleGrantedAuthority("STEP_1_COMPLETED")
-            );
+            List<GrantedAuthority> authorities = trustedDevice
+                ? List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED"), new SimpleGrantedAuthority("STEP_2_COMPLETED"))
+                : List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED"));
             
             if (isFullyCompleted) {
-                authorities = List.of(
-                    new SimpleGrantedAuthority("STEP_1_COMPLETED"),
-                    new SimpleGrantedAuthority("ROLE_USER"),
-                    new SimpleGrantedAuthority("FULLY_AUTHENTICATED")
-                );
+                authorities = new ArrayList<>(authorities);
+                authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+                authorities.add(new SimpleGrantedAuthority("FULLY_AUTHENTICATED"));
             }
             
             return AuthenticationStepResult.success()
                 .completed(isFullyCompleted)
-                .message(getSuccessMessage())
+                .message(getSuccessMessage(session))
                 .nextStep(nextStep)
                 .grantedAuthorities(authorities)
                 .build();
@@ -121,12 +172,7 @@ public class PasswordAuthenticationStep implements AuthenticationStep {
     
     @Override
     public String getNextStep(AuthenticationSession session) {
-        if (settingsService.isOtpEnabled()) {
-            return "otp";
-        } else if (settingsService.isOnboardingEnabled()) {
-            return "onboarding";
-        }
-        return null; // No more steps - fully authenticated
+        return flows.nextStepId(session); // null once fully authenticated
     }
     
     @Override
@@ -136,12 +182,20 @@ public class PasswordAuthenticationStep implements AuthenticationStep {
     
     @Override
     public String getSuccessMessage() {
-        if (settingsService.isOtpEnabled()) {
-            return "Credentials verified. OTP sent.";
-        } else if (settingsService.isOnboardingEnabled()) {
-            return "Credentials verified. Please complete onboarding.";
+        return "Credentials verified.";
+    }
+    
+    @Override
+    public String getSuccessMessage(AuthenticationSession session) {
+        String nextStep = flows.nextStepId(session);
+        if (nextStep == null) {
+            return "Authentication completed successfully!";
         }
-        return "Authentication completed successfully!";
+        return switch (nextStep) {
+            case OtpAuthenticationStep.STEP_ID -> "Credentials verified. OTP sent.";
+            case OnboardingAuthenticationStep.STEP_ID -> "Credentials verified. Please complete onboarding.";
+            default -> getSuccessMessage();
+        };
     }
     
     @Override
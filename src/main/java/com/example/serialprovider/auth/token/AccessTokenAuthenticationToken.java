@@ -0,0 +1,63 @@
+package com.example.serialprovider.auth.token;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Authentication established from a verified access token alone, without the HTTP session.
+ * Instances are immutable and shared between requests carrying the same token.
+ */
+public class AccessTokenAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final String principal; // username (token subject)
+    private final Set<String> completedSteps;
+    private final long expiresAtMillis;
+    private final boolean fullyAuthenticated;
+
+    public AccessTokenAuthenticationToken(String principal, Set<String> completedSteps, long expiresAtMillis,
+                                          Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.principal = principal;
+        this.completedSteps = Set.copyOf(completedSteps);
+        this.expiresAtMillis = expiresAtMillis;
+        this.fullyAuthenticated = authorities.stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch("FULLY_AUTHENTICATED"::equals);
+        super.setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        // The token itself is not retained
+        return "";
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return this.principal;
+    }
+
+    public Set<String> getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Precomputed from the authorities so authorization needs no scan
+     */
+    public boolean isFullyAuthenticated() {
+        return fullyAuthenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+        // Shared between requests, so it must not be downgraded in place
+        throw new IllegalArgumentException("Access token authentications are immutable");
+    }
+}
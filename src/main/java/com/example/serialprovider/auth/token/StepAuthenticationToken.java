@@ -0,0 +1,64 @@
+package com.example.serialprovider.auth.token;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Submission for a step that has no token type of its own, e.g. a plugin step; the
+ * credentials are the submitted fields.
+ */
+public class StepAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final String stepId;
+    private final Object principal; // username
+    private Map<String, String> credentials;
+
+    public StepAuthenticationToken(String stepId, Object principal, Map<String, String> credentials) {
+        super(null);
+        this.stepId = stepId;
+        this.principal = principal;
+        this.credentials = credentials;
+        setAuthenticated(false);
+    }
+
+    public StepAuthenticationToken(String stepId, Object principal, Map<String, String> credentials,
+                                   Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.stepId = stepId;
+        this.principal = principal;
+        this.credentials = credentials;
+        super.setAuthenticated(true);
+    }
+
+    public String getStepId() {
+        return stepId;
+    }
+
+    @Override
+    public Map<String, String> getCredentials() {
+        return this.credentials;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return this.principal;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException(
+                "Cannot set this token to trusted - use constructor which takes a GrantedAuthority list instead");
+        }
+        super.setAuthenticated(false);
+    }
+
+    @Override
+    public void eraseCredentials() {
+        super.eraseCredentials();
+        this.credentials = null;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.serialprovider.auth.webauthn;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Login with a passkey: a WebAuthn assertion stands in for the password, and when the
+ * authenticator verified the user (PIN or biometric), for the OTP as well, unless the user's
+ * flow makes OTP mandatory.
+ *
+ * <p>The assertion is posted to /auth/step/webauthn as base64url fields credentialId,
+ * clientDataJSON, authenticatorData and signature, answering a challenge from
+ * /auth/webauthn/options.
+ */
+@Component
+public class WebAuthnAuthenticationStep implements AuthenticationStep {
+
+    public static final String STEP_ID = "webauthn";
+    private static final int ORDER = 1;
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final WebAuthnRelyingParty relyingParty;
+    private final WebAuthnCredentialService credentials;
+    private final AuthenticationFlows flows;
+    private final AuthEventLogger eventLogger;
+    private final boolean enabled;
+
+    public WebAuthnAuthenticationStep(WebAuthnRelyingParty relyingParty,
+                                      WebAuthnCredentialService credentials,
+                                      AuthenticationFlows flows,
+                                      AuthEventLogger eventLogger,
+                                      @Value("${auth.webauthn.enabled:false}") boolean enabled) {
+        this.relyingParty = relyingParty;
+        this.credentials = credentials;
+        this.flows = flows;
+        this.eventLogger = eventLogger;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String getStepId() {
+        return STEP_ID;
+    }
+
+    @Override
+    public String getStepName() {
+        return "Passkey Authentication";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isCompleted(AuthenticationSession session) {
+        return session.hasCompletedStep(STEP_ID);
+    }
+
+    @Override
+    public boolean canAccess(AuthenticationSession session) {
+        return !session.isExpired();
+    }
+
+    @Override
+    public Set<String> getReplacedSteps() {
+        return Set.of(PasswordAuthenticationStep.STEP_ID, OtpAuthenticationStep.STEP_ID);
+    }
+
+    @Override
+    public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+        try {
+            if (!(authentication.getCredentials() instanceof Map<?, ?> fields)) {
+                return failure("Missing passkey assertion");
+            }
+            WebAuthnCredentialService.CachedCredential credential = credentials.find(text(fields, "credentialId"));
+            if (credential == null) {
+                return failure("Unknown passkey");
+            }
+            // A passkey must not finish a login that another user's password started
+            String startedBy = session.getUsername();
+            if (startedBy != null && !startedBy.equals(credential.getUsername())) {
+                return failure("Passkey belongs to a different user");
+            }
+
+            byte[] clientDataJson = DECODER.decode(text(fields, "clientDataJSON"));
+            byte[] authenticatorData = DECODER.decode(text(fields, "authenticatorData"));
+            byte[] signature = DECODER.decode(text(fields, "signature"));
+
+            // Cheap checks first; the challenge is only used up once the signature is good
+            WebAuthnRelyingParty.AuthenticatorData parsed = relyingParty.checkAuthenticatorData(authenticatorData);
+            if (parsed == null) {
+                return failure("Assertion is not for this site");
+            }
+            byte[] signedData = ByteBuffer.allocate(authenticatorData.length + 32)
+                .put(authenticatorData)
+                .put(WebAuthnRelyingParty.sha256(clientDataJson))
+                .array();
+            if (!credentials.verifySignature(credential, signedData, signature)) {
+                return failure("Invalid passkey signature");
+            }
+            if (!relyingParty.checkClientData(clientDataJson, WebAuthnRelyingParty.Purpose.AUTHENTICATION)) {
+                return failure("Invalid or expired passkey challenge");
+            }
+            if (!credentials.advanceSignCount(credential, parsed.signCount())) {
+                return failure("Passkey signature counter did not advance");
+            }
+
+            String username = credential.getUsername();
+            boolean replacesOtp = parsed.userVerified() && flows.isWaivable(username, OtpAuthenticationStep.STEP_ID);
+            session.update(current -> {
+                AuthenticationSession.Snapshot next = current.withUsername(username)
+                    .withCompletedStep(PasswordAuthenticationStep.STEP_ID)
+                    .withCompletedStep(STEP_ID);
+                return replacesOtp ? next.withCompletedStep(OtpAuthenticationStep.STEP_ID) : next;
+            });
+            if (replacesOtp) {
+                eventLogger.event(AuthEventType.OTP_SKIPPED)
+                    .field("user", username)
+                    .field("reason", "passkey")
+                    .publish();
+            }
+
+            String nextStep = getNextStep(session);
+            boolean isFullyCompleted = nextStep == null;
+
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            authorities.add(new SimpleGrantedAuthority("STEP_1_COMPLETED"));
+            if (session.hasCompletedStep(OtpAuthenticationStep.STEP_ID)) {
+                authorities.add(new SimpleGrantedAuthority("STEP_2_COMPLETED"));
+            }
+            if (isFullyCompleted) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+                authorities.add(new SimpleGrantedAuthority("FULLY_AUTHENTICATED"));
+            }
+
+            return AuthenticationStepResult.success()
+                .completed(isFullyCompleted)
+                .message(getSuccessMessage())
+                .nextStep(nextStep)
+                .grantedAuthorities(authorities)
+                .build();
+
+        } catch (IllegalArgumentException e) {
+            return failure("Malformed passkey assertion");
+        }
+    }
+
+    @Override
+    public String getNextStep(AuthenticationSession session) {
+        return flows.nextStepId(session); // null once fully authenticated
+    }
+
+    @Override
+    public String getStepUrl() {
+        return "/auth/step/" + STEP_ID;
+    }
+
+    @Override
+    public String getSuccessMessage() {
+        return "Passkey verified.";
+    }
+
+    @Override
+    public void resetStep(AuthenticationSession session) {
+        session.removeCompletedStep(STEP_ID);
+    }
+
+    private static String text(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        if (!(value instanceof String text) || text.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return text;
+    }
+
+    private static AuthenticationStepResult failure(String message) {
+        return AuthenticationStepResult.failure()
+            .message(message)
+            .error(new RuntimeException(message))
+            .build();
+    }
+}
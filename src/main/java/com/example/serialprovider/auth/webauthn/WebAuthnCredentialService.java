@@ -0,0 +1,260 @@
+package com.example.serialprovider.auth.webauthn;
+
+import com.example.serialprovider.entity.WebAuthnCredential;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.repository.WebAuthnCredentialRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registered passkeys and their public keys.
+ *
+ * <p>Parsing a key is the expensive part of checking an assertion after the signature itself,
+ * so parsed keys are cached by credential id, up to a limit; when the cache is full the least
+ * recently used eighth is dropped and reloaded from the database on next use.
+ *
+ * <p>Each cached credential holds the last signature counter seen. A new counter is accepted
+ * by compare-and-set on this node and then by a conditional update in the database, so of two
+ * logins presenting the same counter, on one node or on two, exactly one succeeds.
+ */
+@Component
+public class WebAuthnCredentialService {
+
+    public static final int ES256 = -7;
+    public static final int EDDSA = -8;
+    public static final int RS256 = -257;
+
+    private static final int MIN_RSA_BITS = 2048;
+
+    private final WebAuthnCredentialRepository repository;
+    private final AuthEventLogger eventLogger;
+    private final int maxCachedKeys;
+    private final Map<String, CachedCredential> keys = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder keyLoads = new LongAdder();
+    private final LongAdder counterRejections = new LongAdder();
+
+    public WebAuthnCredentialService(WebAuthnCredentialRepository repository,
+                                     AuthEventLogger eventLogger,
+                                     @Value("${auth.webauthn.key-cache.max-entries:10000}") int maxCachedKeys) {
+        this.repository = repository;
+        this.eventLogger = eventLogger;
+        this.maxCachedKeys = maxCachedKeys;
+    }
+
+    /**
+     * A credential with its parsed key and last seen signature counter
+     */
+    public static final class CachedCredential {
+        private final String credentialId;
+        private final String username;
+        private final int algorithm;
+        private final PublicKey publicKey;
+        private final AtomicLong signCount;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        CachedCredential(String credentialId, String username, int algorithm, PublicKey publicKey, long signCount) {
+            this.credentialId = credentialId;
+            this.username = username;
+            this.algorithm = algorithm;
+            this.publicKey = publicKey;
+            this.signCount = new AtomicLong(signCount);
+        }
+
+        public String getCredentialId() {
+            return credentialId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getSignCount() {
+            return signCount.get();
+        }
+    }
+
+    /**
+     * Store a new passkey; attestation is not checked, the key is trusted as the user's own
+     * @throws IllegalArgumentException if the key or algorithm is unsupported or the id is taken
+     */
+    public void register(String username, String credentialId, byte[] publicKey, int algorithm) {
+        PublicKey parsed = parsePublicKey(publicKey, algorithm);
+        if (credentialId == null || credentialId.isEmpty() || repository.existsById(credentialId)) {
+            throw new IllegalArgumentException("Credential id is missing or already registered");
+        }
+        repository.save(new WebAuthnCredential(credentialId, username, publicKey, algorithm, 0L,
+            Instant.now().getEpochSecond()));
+        registered.increment();
+        cache(new CachedCredential(credentialId, username, algorithm, parsed, 0));
+        eventLogger.event(AuthEventType.WEBAUTHN_REGISTERED)
+            .field("user", username)
+            .publish();
+    }
+
+    /**
+     * @return the credential, or null if no such credential is registered
+     */
+    public CachedCredential find(String credentialId) {
+        if (credentialId == null) {
+            return null;
+        }
+        CachedCredential cached = keys.get(credentialId);
+        if (cached != null) {
+            cacheHits.increment();
+            cached.lastUsedNanos = System.nanoTime();
+            return cached;
+        }
+        return repository.findById(credentialId)
+            .map(stored -> {
+                keyLoads.increment();
+                return cache(new CachedCredential(stored.getCredentialId(), stored.getUsername(), stored.getAlgorithm(),
+                    parsePublicKey(stored.getPublicKey(), stored.getAlgorithm()), stored.getSignCount()));
+            })
+            .orElse(null);
+    }
+
+    public List<String> credentialIdsOf(String username) {
+        return repository.findByUsername(username).stream()
+            .map(WebAuthnCredential::getCredentialId)
+            .toList();
+    }
+
+    public boolean verifySignature(CachedCredential credential, byte[] signedData, byte[] signature) {
+        try {
+            Signature verifier = Signature.getInstance(signatureAlgorithm(credential.algorithm));
+            verifier.initVerify(credential.publicKey);
+            verifier.update(signedData);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Record the counter of a verified assertion. It has to be above the last one seen, unless
+     * the authenticator keeps no counter and both are 0.
+     * @return false if it is not, which suggests a cloned authenticator or a replayed assertion
+     */
+    public boolean advanceSignCount(CachedCredential credential, long signCount) {
+        long current;
+        do {
+            current = credential.signCount.get();
+            if ((signCount != 0 || current != 0) && signCount <= current) {
+                return rejectCounter(credential, signCount);
+            }
+        } while (!credential.signCount.compareAndSet(current, signCount));
+
+        if (repository.advanceSignCount(credential.credentialId, signCount, Instant.now().getEpochSecond()) == 0) {
+            // Another node has seen this counter or a later one; reload the current one on next use
+            keys.remove(credential.credentialId, credential);
+            return rejectCounter(credential, signCount);
+        }
+        return true;
+    }
+
+    public Stats getStats() {
+        return new Stats(registered.sum(), keys.size(), cacheHits.sum(), keyLoads.sum(), counterRejections.sum());
+    }
+
+    private boolean rejectCounter(CachedCredential credential, long signCount) {
+        counterRejections.increment();
+        eventLogger.event(AuthEventType.WEBAUTHN_COUNTER_REJECTED)
+            .field("user", credential.username)
+            .field("signCount", String.valueOf(signCount))
+            .field("lastSignCount", String.valueOf(credential.signCount.get()))
+            .publish();
+        return false;
+    }
+
+    private CachedCredential cache(CachedCredential credential) {
+        if (keys.size() >= maxCachedKeys) {
+            evictLeastRecentlyUsed();
+        }
+        CachedCredential existing = keys.putIfAbsent(credential.credentialId, credential);
+        return existing != null ? existing : credential;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // One caller sorts; the others go ahead and briefly overfill the cache
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<CachedCredential> byLastUse = keys.values().stream()
+                .sorted(Comparator.comparingLong(cached -> cached.lastUsedNanos))
+                .toList();
+            int evict = Math.max(1, byLastUse.size() / 8);
+            for (int i = 0; i < evict; i++) {
+                keys.remove(byLastUse.get(i).credentialId, byLastUse.get(i));
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    static PublicKey parsePublicKey(byte[] encoded, int algorithm) {
+        try {
+            X509EncodedKeySpec spec = new X509EncodedKeySpec(encoded);
+            return switch (algorithm) {
+                case ES256 -> {
+                    PublicKey key = KeyFactory.getInstance("EC").generatePublic(spec);
+                    if (!(key instanceof ECPublicKey ec) || ec.getParams().getCurve().getField().getFieldSize() != 256) {
+                        throw new IllegalArgumentException("ES256 needs a P-256 key");
+                    }
+                    yield key;
+                }
+                case EDDSA -> KeyFactory.getInstance("Ed25519").generatePublic(spec);
+                case RS256 -> {
+                    PublicKey key = KeyFactory.getInstance("RSA").generatePublic(spec);
+                    if (!(key instanceof RSAPublicKey rsa) || rsa.getModulus().bitLength() < MIN_RSA_BITS) {
+                        throw new IllegalArgumentException("RS256 needs a key of at least " + MIN_RSA_BITS + " bits");
+                    }
+                    yield key;
+                }
+                default -> throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+            };
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Malformed public key", e);
+        }
+    }
+
+    private static String signatureAlgorithm(int algorithm) {
+        return switch (algorithm) {
+            case ES256 -> "SHA256withECDSA";
+            case EDDSA -> "Ed25519";
+            case RS256 -> "SHA256withRSA";
+            default -> throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        };
+    }
+
+    /**
+     * Passkey counters since startup; keyLoads are cache misses answered from the database
+     */
+    public record Stats(long registered,
+                        int cachedKeys,
+                        long cacheHits,
+                        long keyLoads,
+                        long counterRejections) {
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.serialprovider.auth.webauthn;
+
+import com.example.serialprovider.auth.jwt.ExpiringIdSet;
+import com.example.serialprovider.auth.jwt.JwtKeyRing;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * This application as a WebAuthn relying party: its id and origins, the challenges it hands
+ * out, and the checks on what the browser and the authenticator send back.
+ *
+ * <p>Challenges are not stored. Each is a random nonce and an expiry, signed, so any node
+ * holding the secret can check it; a nonce is remembered once used so a challenge is good
+ * for one ceremony. Registration and login challenges are signed for their purpose and are
+ * not interchangeable.
+ */
+@Component
+public class WebAuthnRelyingParty {
+
+    static final int FLAG_USER_PRESENT = 0x01;
+    static final int FLAG_USER_VERIFIED = 0x04;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int SECRET_BYTES = 32;
+    private static final int NONCE_BYTES = 16;
+    private static final int MAC_BYTES = 32;
+    private static final int AUTHENTICATOR_DATA_MIN_BYTES = 37;
+
+    private final String rpId;
+    private final String rpName;
+    private final Set<String> origins;
+    private final Duration challengeTtl;
+    private final byte[] rpIdHash;
+    private final JwtKeyRing.SigningKey signingKey;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecureRandom random = new SecureRandom();
+    private final ExpiringIdSet usedNonces = new ExpiringIdSet(Duration.ofSeconds(10).toMillis());
+
+    public WebAuthnRelyingParty(@Value("${auth.webauthn.rp-id:localhost}") String rpId,
+                                @Value("${auth.webauthn.rp-name:Serial Provider}") String rpName,
+                                @Value("${auth.webauthn.origins:}") Set<String> origins,
+                                @Value("${auth.webauthn.challenge-ttl:2m}") Duration challengeTtl,
+                                @Value("${auth.webauthn.secret:}") String secret) {
+        this.rpId = rpId;
+        this.rpName = rpName;
+        this.origins = Set.copyOf(origins);
+        this.challengeTtl = challengeTtl;
+        this.rpIdHash = sha256(rpId.getBytes(StandardCharsets.UTF_8));
+        byte[] material;
+        if (secret.isBlank()) {
+            // Challenges then only verify on the node that issued them
+            material = new byte[SECRET_BYTES];
+            random.nextBytes(material);
+        } else {
+            material = Base64.getDecoder().decode(secret);
+        }
+        this.signingKey = JwtKeyRing.SigningKey.fromSecret(material);
+    }
+
+    public enum Purpose {
+        REGISTRATION("webauthn.create"),
+        AUTHENTICATION("webauthn.get");
+
+        private final String clientDataType;
+
+        Purpose(String clientDataType) {
+            this.clientDataType = clientDataType;
+        }
+    }
+
+    /**
+     * Fields of an authenticator data structure that the checks use
+     */
+    public record AuthenticatorData(int flags, long signCount) {
+
+        public boolean userVerified() {
+            return (flags & FLAG_USER_VERIFIED) != 0;
+        }
+    }
+
+    public String getRpId() {
+        return rpId;
+    }
+
+    public String getRpName() {
+        return rpName;
+    }
+
+    public Duration getChallengeTtl() {
+        return challengeTtl;
+    }
+
+    /**
+     * @return a base64url challenge for one ceremony of the given kind
+     */
+    public String issueChallenge(Purpose purpose) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        long expiresAt = System.currentTimeMillis() + challengeTtl.toMillis();
+        ByteBuffer payload = ByteBuffer.allocate(NONCE_BYTES + Long.BYTES + MAC_BYTES)
+            .put(nonce)
+            .putLong(expiresAt);
+        payload.put(signingKey.sign(signedPart(purpose, payload.array())));
+        return ENCODER.encodeToString(payload.array());
+    }
+
+    /**
+     * Check the client data of a ceremony and use up its challenge
+     * @return false if the type, origin or challenge is wrong, or the challenge was used before
+     */
+    public boolean checkClientData(byte[] clientDataJson, Purpose purpose) {
+        JsonNode clientData;
+        try {
+            clientData = objectMapper.readTree(clientDataJson);
+        } catch (IOException e) {
+            return false;
+        }
+        if (clientData == null || !purpose.clientDataType.equals(clientData.path("type").asText())
+                || !isAllowedOrigin(clientData.path("origin").asText())) {
+            return false;
+        }
+        return consumeChallenge(clientData.path("challenge").asText(), purpose);
+    }
+
+    /**
+     * @return the parsed data, or null if it is not for this relying party or the user was not present
+     */
+    public AuthenticatorData checkAuthenticatorData(byte[] authenticatorData) {
+        if (authenticatorData.length < AUTHENTICATOR_DATA_MIN_BYTES
+                || !MessageDigest.isEqual(rpIdHash, Arrays.copyOf(authenticatorData, rpIdHash.length))) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(authenticatorData, rpIdHash.length, 5);
+        int flags = buffer.get() & 0xFF;
+        long signCount = Integer.toUnsignedLong(buffer.getInt());
+        if ((flags & FLAG_USER_PRESENT) == 0) {
+            return null;
+        }
+        return new AuthenticatorData(flags, signCount);
+    }
+
+    /**
+     * Configured origins, or without any, https on the relying party id and its subdomains
+     * (http too for localhost)
+     */
+    boolean isAllowedOrigin(String origin) {
+        if (!origins.isEmpty()) {
+            return origins.contains(origin);
+        }
+        try {
+            URI uri = URI.create(origin);
+            String host = uri.getHost();
+            boolean secure = "https".equals(uri.getScheme()) || "http".equals(uri.getScheme()) && "localhost".equals(rpId);
+            return secure && host != null && (host.equals(rpId) || host.endsWith("." + rpId));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean consumeChallenge(String challenge, Purpose purpose) {
+        byte[] payload;
+        try {
+            payload = DECODER.decode(challenge);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (payload.length != NONCE_BYTES + Long.BYTES + MAC_BYTES) {
+            return false;
+        }
+        byte[] mac = Arrays.copyOfRange(payload, NONCE_BYTES + Long.BYTES, payload.length);
+        if (!signingKey.verify(signedPart(purpose, Arrays.copyOf(payload, NONCE_BYTES + Long.BYTES)), mac)) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long nonceId = buffer.getLong() ^ buffer.getLong();
+        long expiresAt = buffer.getLong();
+        return System.currentTimeMillis() < expiresAt && usedNonces.add(nonceId, expiresAt);
+    }
+
+    private static byte[] signedPart(Purpose purpose, byte[] nonceAndExpiry) {
+        return ByteBuffer.allocate(1 + NONCE_BYTES + Long.BYTES)
+            .put((byte) purpose.ordinal())
+            .put(nonceAndExpiry, 0, NONCE_BYTES + Long.BYTES)
+            .array();
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
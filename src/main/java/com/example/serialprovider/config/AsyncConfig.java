@@ -0,0 +1,14 @@
+package com.example.serialprovider.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables asynchronous execution for blocking delivery work (e.g. OTP sending).
+ * Tasks run on Boot's applicationTaskExecutor, which is backed by virtual threads
+ * when spring.threads.virtual.enabled=true.
+ */
+@Configuration
+@EnableAsync(proxyTargetClass = true)
+public class AsyncConfig {
+}
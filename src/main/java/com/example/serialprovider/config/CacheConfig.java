@@ -1,17 +1,34 @@
 package com.example.serialprovider.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String AUTH_SETTINGS_CACHE = "authSettings";
+
+    @Bean
+    public SingleFlightCache authSettingsCache(@Value("${auth.settings.cache.ttl:0}") Duration ttl,
+                                               @Value("${auth.settings.cache.stale-while-revalidate:true}") boolean staleWhileRevalidate,
+                                               @Qualifier("applicationTaskExecutor") Executor refreshExecutor) {
+        return new SingleFlightCache(AUTH_SETTINGS_CACHE, ttl, staleWhileRevalidate, refreshExecutor);
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("authSettings");
+    public CacheManager cacheManager(SingleFlightCache authSettingsCache) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(authSettingsCache));
+        return cacheManager;
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,32 @@
 package com.example.serialprovider.config;
 
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
 import com.example.serialprovider.service.AuthenticationSettingsService;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Component
+@Order(1)
 public class DataInitializer implements CommandLineRunner {
 
     private final AuthenticationSettingsService settingsService;
+    private final AuthEventLogger eventLogger;
 
-    public DataInitializer(AuthenticationSettingsService settingsService) {
+    public DataInitializer(AuthenticationSettingsService settingsService, AuthEventLogger eventLogger) {
         this.settingsService = settingsService;
+        this.eventLogger = eventLogger;
     }
 
     @Override
     public void run(String... args) throws Exception {
         // Initialize default authentication settings
         settingsService.initializeDefaultSettings();
-        System.out.println("✅ Authentication settings initialized: " + 
-                          settingsService.getCurrentSettings().getFlowDescription());
+        // Looked up before claiming a log entry, which must be published promptly
+        String flow = settingsService.getCurrentSettings().getFlowDescription();
+        eventLogger.event(AuthEventType.SETTINGS_INITIALIZED)
+            .field("flow", flow)
+            .publish();
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.serialprovider.config;
+
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.controller.AdminController;
+import com.example.serialprovider.controller.AuthController;
+import com.example.serialprovider.entity.AuthenticationSettings;
+import com.example.serialprovider.entity.TrustedDevice;
+import com.example.serialprovider.entity.WebAuthnCredential;
+import com.example.serialprovider.service.OnboardingService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reachability metadata for the native image build (-Pnative).
+ * Request/response DTOs are bound by Jackson and the entities are read by Hibernate,
+ * both reflectively, so they are registered explicitly.
+ */
+@Configuration
+@RegisterReflectionForBinding({
+    AuthController.LoginRequest.class,
+    AuthController.OtpRequest.class,
+    AuthController.RefreshRequest.class,
+    OnboardingService.OnboardingData.class,
+    AdminController.SettingsUpdateRequest.class,
+    AuthenticationSettings.class,
+    TrustedDevice.class,
+    WebAuthnCredential.class
+})
+@ImportRuntimeHints(NativeHintsConfig.AuthenticationStepHints.class)
+public class NativeHintsConfig {
+
+    /**
+     * Steps are resolved as a List<AuthenticationStep> and invoked through the interface,
+     * so keep their public methods reachable.
+     */
+    static class AuthenticationStepHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(AuthenticationStep.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(AuthenticationSettings.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerType(TrustedDevice.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerType(WebAuthnCredential.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
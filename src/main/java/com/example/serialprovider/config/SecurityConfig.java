@@ -7,11 +7,14 @@ import com.example.serialprovider.auth.authorization.OnboardingAuthorizationMana
 import com.example.serialprovider.auth.authorization.OtpAuthorizationManager;
 import com.example.serialprovider.auth.handler.MultiFactorAuthenticationFailureHandler;
 import com.example.serialprovider.auth.handler.MultiFactorAuthenticationSuccessHandler;
+import com.example.serialprovider.auth.jwt.AccessTokenService;
+import com.example.serialprovider.auth.jwt.BearerTokenAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity(debug = false)
@@ -24,6 +27,7 @@ public class SecurityConfig {
     private final ApiAuthorizationManager apiAuthorizationManager;
     private final OtpAuthorizationManager otpAuthorizationManager;
     private final OnboardingAuthorizationManager onboardingAuthorizationManager;
+    private final AccessTokenService accessTokenService;
 
     public SecurityConfig(StepBasedAuthenticationManager authenticationManager,
                            MultiFactorAuthenticationSuccessHandler successHandler,
@@ -31,7 +35,8 @@ public class SecurityConfig {
                            AdminAuthorizationManager adminAuthorizationManager,
                            ApiAuthorizationManager apiAuthorizationManager,
                            OtpAuthorizationManager otpAuthorizationManager,
-                           OnboardingAuthorizationManager onboardingAuthorizationManager) {
+                           OnboardingAuthorizationManager onboardingAuthorizationManager,
+                           AccessTokenService accessTokenService) {
         this.authenticationManager = authenticationManager;
         this.successHandler = successHandler;
         this.failureHandler = failureHandler;
@@ -39,6 +44,7 @@ public class SecurityConfig {
         this.apiAuthorizationManager = apiAuthorizationManager;
         this.otpAuthorizationManager = otpAuthorizationManager;
         this.onboardingAuthorizationManager = onboardingAuthorizationManager;
+        this.accessTokenService = accessTokenService;
     }
 
     @Bean
@@ -48,6 +54,7 @@ public class SecurityConfig {
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/admin/**").access(adminAuthorizationManager)
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 .requestMatchers("/", "/login", "/otp", "/onboarding", "/dashboard", 
                                "/*.html", "/js/**", "/css/**", "/favicon.ico").permitAll()
                 .requestMatchers("/otp").access(otpAuthorizationManager)
@@ -56,6 +63,8 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             )
             .authenticationManager(authenticationManager)
+            // API calls carry an access token; no session lookup needed
+            .addFilterBefore(new BearerTokenAuthenticationFilter(accessTokenService), AnonymousAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions().disable()) // For H2 console
             .formLogin(form -> form.disable())
             .httpBasic(basic -> basic.disable());
@@ -0,0 +1,202 @@
+package com.example.serialprovider.config;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache that coalesces concurrent misses: one caller runs the loader and every other caller
+ * for the same key waits on that caller's future, so a cold or evicted entry costs one load
+ * instead of one per request.
+ *
+ * <p>With stale-while-revalidate enabled, an expired or evicted entry keeps its last value:
+ * callers get that snapshot immediately while a single background refresh reloads it. Only a
+ * key that has never been loaded makes callers wait.
+ *
+ * <p>Each put or eviction advances a generation counter. A load that started before it will not
+ * overwrite the newer state, but callers already waiting on that load still receive its result.
+ */
+public class SingleFlightCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final long ttlNanos;
+    private final boolean staleWhileRevalidate;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedWaits = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * @param ttl time after which an entry is reloaded; zero keeps entries until evicted
+     */
+    public SingleFlightCache(String name, Duration ttl, boolean staleWhileRevalidate, Executor refreshExecutor) {
+        super(false);
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    private record Entry(Object value, long loadedAtNanos, boolean stale) {
+
+        Entry markedStale() {
+            return new Entry(value, loadedAtNanos, true);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null || (!isFresh(entry) && !staleWhileRevalidate)) {
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (isFresh(entry)) {
+                hits.increment();
+                return (T) fromStoreValue(entry.value());
+            }
+            if (staleWhileRevalidate) {
+                staleHits.increment();
+                refreshInBackground(key, valueLoader);
+                return (T) fromStoreValue(entry.value());
+            }
+        }
+        return (T) fromStoreValue(await(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        generation.incrementAndGet();
+        entries.put(key, new Entry(toStoreValue(value), System.nanoTime(), false));
+    }
+
+    /**
+     * With stale-while-revalidate the value is kept as a stale snapshot until the next refresh
+     */
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        if (staleWhileRevalidate) {
+            entries.computeIfPresent(key, (k, entry) -> entry.markedStale());
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        if (staleWhileRevalidate) {
+            entries.replaceAll((key, entry) -> entry.markedStale());
+        } else {
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), hits.sum(), staleHits.sum(), loads.sum(),
+            coalescedWaits.sum(), loadFailures.sum());
+    }
+
+    private boolean isFresh(Entry entry) {
+        return !entry.stale() && (ttlNanos == 0 || System.nanoTime() - entry.loadedAtNanos() < ttlNanos);
+    }
+
+    private Object await(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, load);
+        if (leader == null) {
+            // This caller loads; the value also completes the future the others wait on
+            runLoad(key, valueLoader, load);
+            leader = load;
+        } else {
+            coalescedWaits.increment();
+        }
+
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, refresh) == null) {
+            try {
+                refreshExecutor.execute(() -> runLoad(key, valueLoader, refresh));
+            } catch (RuntimeException e) {
+                // Executor rejected the task; a later caller will try again
+                inFlight.remove(key, refresh);
+                refresh.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void runLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        long startGeneration = generation.get();
+        loads.increment();
+        try {
+            Object value = toStoreValue(valueLoader.call());
+            Entry loaded = new Entry(value, System.nanoTime(), false);
+            // Checked under the key's lock: evict and put advance the generation before touching the entry
+            entries.compute(key, (k, current) -> generation.get() == startGeneration ? loaded : current);
+            load.complete(value);
+        } catch (Throwable e) {
+            // A failed refresh leaves the stale snapshot in place
+            loadFailures.increment();
+            load.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Cache counters since startup; coalescedWaits counts callers that waited on another caller's load
+     */
+    public record Stats(int entries,
+                        long hits,
+                        long staleHits,
+                        long loads,
+                        long coalescedWaits,
+                        long loadFailures) {
+    }
+}
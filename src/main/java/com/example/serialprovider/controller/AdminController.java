@@ -1,7 +1,10 @@
 package com.example.serialprovider.controller;
 
+import com.example.serialprovider.auth.plugin.PluginAuthenticationStep;
 import com.example.serialprovider.entity.AuthenticationSettings;
 import com.example.serialprovider.service.AuthenticationSettingsService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,9 +15,12 @@ import java.util.Map;
 public class AdminController {
 
     private final AuthenticationSettingsService settingsService;
+    private final ObjectProvider<PluginAuthenticationStep> pluginSteps;
 
-    public AdminController(AuthenticationSettingsService settingsService) {
+    public AdminController(AuthenticationSettingsService settingsService,
+                           ObjectProvider<PluginAuthenticationStep> pluginSteps) {
         this.settingsService = settingsService;
+        this.pluginSteps = pluginSteps;
     }
 
     @GetMapping
@@ -28,6 +34,7 @@ public class AdminController {
         return ResponseEntity.ok(Map.of(
             "otpEnabled", settings.isOtpEnabled(),
             "onboardingEnabled", settings.isOnboardingEnabled(),
+            "enabledPlugins", settings.getEnabledPlugins(),
             "flowDescription", settings.getFlowDescription(),
             "settingName", settings.getSettingName(),
             "description", settings.getDescription()
@@ -97,6 +104,29 @@ public class AdminController {
         ));
     }
 
+    @PostMapping("/plugins/{stepId}/enable")
+    public ResponseEntity<Map<String, Object>> enablePlugin(@PathVariable String stepId) {
+        return setPluginEnabled(stepId, true);
+    }
+
+    @PostMapping("/plugins/{stepId}/disable")
+    public ResponseEntity<Map<String, Object>> disablePlugin(@PathVariable String stepId) {
+        return setPluginEnabled(stepId, false);
+    }
+
+    private ResponseEntity<Map<String, Object>> setPluginEnabled(String stepId, boolean enabled) {
+        if (pluginSteps.stream().noneMatch(step -> step.getStepId().equals(stepId))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "No step plugin " + stepId + " is installed"));
+        }
+        AuthenticationSettings updated = settingsService.setPluginEnabled(stepId, enabled);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Step plugin " + stepId + (enabled ? " enabled" : " disabled"),
+            "enabledPlugins", updated.getEnabledPlugins()
+        ));
+    }
+
     @GetMapping("/flow-combinations")
     public ResponseEntity<Map<String, Object>> getFlowCombinations() {
         return ResponseEntity.ok(Map.of(
@@ -0,0 +1,171 @@
+package com.example.serialprovider.controller;
+
+import com.example.serialprovider.auth.device.TrustedDeviceService;
+import com.example.serialprovider.auth.email.EmailLinkTokens;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
+import com.example.serialprovider.auth.jwt.AccessTokenService;
+import com.example.serialprovider.auth.jwt.RefreshTokenService;
+import com.example.serialprovider.auth.plugin.PluginAuthenticationStep;
+import com.example.serialprovider.auth.risk.RiskAssessmentStep;
+import com.example.serialprovider.auth.webauthn.WebAuthnCredentialService;
+import com.example.serialprovider.config.SingleFlightCache;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.network.IpReputationService;
+import com.example.serialprovider.service.BreachedPasswordPolicy;
+import com.example.serialprovider.service.OtpCodePool;
+import com.example.serialprovider.service.UserCredentialsService;
+import com.example.serialprovider.tracing.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/metrics")
+public class AdminMetricsController {
+
+    private final OtpCodePool otpCodePool;
+    private final AuthEventLogger eventLogger;
+    private final InMemorySpanExporter spanExporter;
+    private final SingleFlightCache authSettingsCache;
+    private final AccessTokenService accessTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final TrustedDeviceService trustedDeviceService;
+    private final UserCredentialsService credentialsService;
+    private final BreachedPasswordPolicy breachedPasswordPolicy;
+    private final RiskAssessmentStep riskAssessmentStep;
+    private final IpReputationService ipReputationService;
+    private final AuthenticationFlows authenticationFlows;
+    private final ObjectProvider<PluginAuthenticationStep> pluginSteps;
+    private final WebAuthnCredentialService webAuthnCredentials;
+    private final EmailLinkTokens emailLinkTokens;
+
+    public AdminMetricsController(OtpCodePool otpCodePool, AuthEventLogger eventLogger,
+                                  InMemorySpanExporter spanExporter, SingleFlightCache authSettingsCache,
+                                  AccessTokenService accessTokenService, RefreshTokenService refreshTokenService,
+                                  TrustedDeviceService trustedDeviceService, UserCredentialsService credentialsService,
+                                  BreachedPasswordPolicy breachedPasswordPolicy, RiskAssessmentStep riskAssessmentStep,
+                                  IpReputationService ipReputationService, AuthenticationFlows authenticationFlows,
+                                  ObjectProvider<PluginAuthenticationStep> pluginSteps,
+                                  WebAuthnCredentialService webAuthnCredentials, EmailLinkTokens emailLinkTokens) {
+        this.otpCodePool = otpCodePool;
+        this.eventLogger = eventLogger;
+        this.spanExporter = spanExporter;
+        this.authSettingsCache = authSettingsCache;
+        this.accessTokenService = accessTokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.trustedDeviceService = trustedDeviceService;
+        this.credentialsService = credentialsService;
+        this.breachedPasswordPolicy = breachedPasswordPolicy;
+        this.riskAssessmentStep = riskAssessmentStep;
+        this.ipReputationService = ipReputationService;
+        this.authenticationFlows = authenticationFlows;
+        this.pluginSteps = pluginSteps;
+        this.webAuthnCredentials = webAuthnCredentials;
+        this.emailLinkTokens = emailLinkTokens;
+    }
+
+    @GetMapping("/otp-pool")
+    public ResponseEntity<OtpCodePool.Stats> getOtpPoolStats() {
+        return ResponseEntity.ok(otpCodePool.getStats());
+    }
+
+    @GetMapping("/event-log")
+    public ResponseEntity<Map<String, Object>> getEventLogStats() {
+        return ResponseEntity.ok(Map.of(
+            "written", eventLogger.getWrittenCount(),
+            "dropped", eventLogger.getDroppedCount()
+        ));
+    }
+
+    @GetMapping("/settings-cache")
+    public ResponseEntity<SingleFlightCache.Stats> getSettingsCacheStats() {
+        return ResponseEntity.ok(authSettingsCache.getStats());
+    }
+
+    @GetMapping("/access-tokens")
+    public ResponseEntity<AccessTokenService.Stats> getAccessTokenStats() {
+        return ResponseEntity.ok(accessTokenService.getStats());
+    }
+
+    @GetMapping("/refresh-tokens")
+    public ResponseEntity<RefreshTokenService.Stats> getRefreshTokenStats() {
+        return ResponseEntity.ok(refreshTokenService.getStats());
+    }
+
+    @GetMapping("/trusted-devices")
+    public ResponseEntity<TrustedDeviceService.Stats> getTrustedDeviceStats() {
+        return ResponseEntity.ok(trustedDeviceService.getStats());
+    }
+
+    @GetMapping("/credentials")
+    public ResponseEntity<UserCredentialsService.Stats> getCredentialStats() {
+        return ResponseEntity.ok(credentialsService.getStats());
+    }
+
+    @GetMapping("/breach-corpus")
+    public ResponseEntity<BreachedPasswordPolicy.Stats> getBreachCorpusStats() {
+        return ResponseEntity.ok(breachedPasswordPolicy.getStats());
+    }
+
+    @GetMapping("/risk")
+    public ResponseEntity<RiskAssessmentStep.Stats> getRiskStats() {
+        return ResponseEntity.ok(riskAssessmentStep.getStats());
+    }
+
+    @GetMapping("/ip-reputation")
+    public ResponseEntity<IpReputationService.Stats> getIpReputationStats() {
+        return ResponseEntity.ok(ipReputationService.getStats());
+    }
+
+    @GetMapping("/flows")
+    public ResponseEntity<AuthenticationFlows.Stats> getFlowStats() {
+        return ResponseEntity.ok(authenticationFlows.getStats());
+    }
+
+    @GetMapping("/step-plugins")
+    public ResponseEntity<List<PluginAuthenticationStep.Stats>> getStepPluginStats() {
+        return ResponseEntity.ok(pluginSteps.stream().map(PluginAuthenticationStep::getStats).toList());
+    }
+
+    @GetMapping("/webauthn")
+    public ResponseEntity<WebAuthnCredentialService.Stats> getWebAuthnStats() {
+        return ResponseEntity.ok(webAuthnCredentials.getStats());
+    }
+
+    @GetMapping("/email-link")
+    public ResponseEntity<EmailLinkTokens.Stats> getEmailLinkStats() {
+        return ResponseEntity.ok(emailLinkTokens.getStats());
+    }
+
+    @GetMapping("/traces")
+    public ResponseEntity<List<Map<String, Object>>> getRecentSpans(@RequestParam(defaultValue = "100") int limit) {
+        List<SpanData> spans = spanExporter.getFinishedSpans();
+        int count = Math.max(0, Math.min(limit, spans.size()));
+        return ResponseEntity.ok(spans.subList(spans.size() - count, spans.size()).stream()
+            .map(this::toSummary)
+            .toList());
+    }
+
+    private Map<String, Object> toSummary(SpanData span) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("traceId", span.getTraceId());
+        summary.put("spanId", span.getSpanId());
+        summary.put("parentSpanId", span.getParentSpanId());
+        summary.put("name", span.getName());
+        summary.put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000);
+        summary.put("status", span.getStatus().getStatusCode().name());
+        summary.put("attributes", attributes);
+        return summary;
+    }
+}
@@ -1,22 +1,38 @@
 package com.example.serialprovider.controller;
 
 import com.example.serialprovider.auth.StepBasedAuthenticationManager;
+import com.example.serialprovider.auth.device.TrustedDeviceService;
+import com.example.serialprovider.auth.email.EmailLinkAuthenticationStep;
+import com.example.serialprovider.auth.event.AuthStatusEventHub;
+import com.example.serialprovider.auth.flow.AuthenticationFlows;
 import com.example.serialprovider.auth.handler.MultiFactorAuthenticationFailureHandler;
 import com.example.serialprovider.auth.handler.MultiFactorAuthenticationSuccessHandler;
+import com.example.serialprovider.auth.jwt.AccessTokenService;
+import com.example.serialprovider.auth.jwt.RefreshTokenService;
+import com.example.serialprovider.auth.step.AuthenticationStepChain;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
 import com.example.serialprovider.auth.token.OnboardingAuthenticationToken;
 import com.example.serialprovider.auth.token.OtpAuthenticationToken;
+import com.example.serialprovider.auth.token.StepAuthenticationToken;
 import com.example.serialprovider.auth.token.UsernamePasswordAuthenticationToken;
 import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.LoginRequestDetails;
+import com.example.serialprovider.entity.AuthenticationSettings;
 import com.example.serialprovider.service.AuthenticationSettingsService;
 import com.example.serialprovider.service.OnboardingService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.ZoneId;
 import java.util.Map;
 import jakarta.servlet.ServletException;
 
@@ -29,26 +45,55 @@ public class AuthController {
     private final MultiFactorAuthenticationFailureHandler failureHandler;
     private final AuthenticationSession authenticationSession;
     private final AuthenticationSettingsService settingsService;
+    private final AuthStatusEventHub statusEventHub;
+    private final AccessTokenService accessTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final TrustedDeviceService trustedDeviceService;
+    private final AuthenticationStepChain stepChain;
+    private final EmailLinkAuthenticationStep emailLinkStep;
+    private final OtpAuthenticationStep otpStep;
+    private final AuthenticationFlows flows;
 
     public AuthController(StepBasedAuthenticationManager authenticationManager,
                            MultiFactorAuthenticationSuccessHandler successHandler,
                            MultiFactorAuthenticationFailureHandler failureHandler,
                            AuthenticationSession authenticationSession,
-                           AuthenticationSettingsService settingsService) {
+                           AuthenticationSettingsService settingsService,
+                           AuthStatusEventHub statusEventHub,
+                           AccessTokenService accessTokenService,
+                           RefreshTokenService refreshTokenService,
+                           TrustedDeviceService trustedDeviceService,
+                           AuthenticationStepChain stepChain,
+                           EmailLinkAuthenticationStep emailLinkStep,
+                           OtpAuthenticationStep otpStep,
+                           AuthenticationFlows flows) {
         this.authenticationManager = authenticationManager;
         this.successHandler = successHandler;
         this.failureHandler = failureHandler;
         this.authenticationSession = authenticationSession;
         this.settingsService = settingsService;
+        this.statusEventHub = statusEventHub;
+        this.accessTokenService = accessTokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.trustedDeviceService = trustedDeviceService;
+        this.stepChain = stepChain;
+        this.emailLinkStep = emailLinkStep;
+        this.otpStep = otpStep;
+        this.flows = flows;
     }
 
     @PostMapping("/login")
     public void login(@RequestBody LoginRequest request, 
+                     @CookieValue(name = "${auth.device.cookie-name:SERIAL_PROVIDER_DEVICE}", required = false) String deviceCookie,
+                     @CookieValue(name = "${auth.risk.device-cookie-name:SERIAL_PROVIDER_KNOWN_DEVICE}", required = false) String knownDeviceCookie,
                      HttpServletRequest servletRequest,
                      HttpServletResponse servletResponse) throws IOException, ServletException {
         try {
             UsernamePasswordAuthenticationToken authToken = 
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword());
+            authToken.setDetails(new LoginRequestDetails(servletRequest.getRemoteAddr(),
+                servletRequest.getHeader(HttpHeaders.USER_AGENT), deviceCookie, knownDeviceCookie,
+                servletRequest.getSession().getId()));
             
             Authentication result = authenticationManager.authenticate(authToken);
             successHandler.onAuthenticationSuccess(servletRequest, servletResponse, result);
@@ -56,6 +101,7 @@ public class AuthController {
         } catch (AuthenticationException e) {
             failureHandler.onAuthenticationFailure(servletRequest, servletResponse, e);
         }
+        publishStatus(servletRequest);
     }
 
     @PostMapping("/otp")
@@ -63,8 +109,8 @@ public class AuthController {
                          HttpServletRequest servletRequest,
                          HttpServletResponse servletResponse) throws IOException, ServletException {
         
-        // Check if OTP step is enabled
-        if (!settingsService.isOtpEnabled()) {
+        // Whether OTP applies is up to the user's flow: admins' flows keep it when it is switched off
+        if (!flows.includes(authenticationSession, OtpAuthenticationStep.STEP_ID)) {
             servletResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             servletResponse.setContentType("application/json");
             servletResponse.getWriter().write("{\"error\":\"OTP authentication is disabled\"}");
@@ -76,11 +122,18 @@ public class AuthController {
                 new OtpAuthenticationToken(authenticationSession.getUsername(), request.getOtp());
             
             Authentication result = authenticationManager.authenticate(authToken);
+            if (request.isRememberDevice()) {
+                // Cookie header must be set before the success handler writes the body
+                TrustedDeviceService.IssuedDeviceCookie device = trustedDeviceService.register(result.getName());
+                servletResponse.addHeader(HttpHeaders.SET_COOKIE,
+                    trustedDeviceService.deviceCookie(device, servletRequest.isSecure()).toString());
+            }
             successHandler.onAuthenticationSuccess(servletRequest, servletResponse, result);
             
         } catch (AuthenticationException e) {
             failureHandler.onAuthenticationFailure(servletRequest, servletResponse, e);
         }
+        publishStatus(servletRequest);
     }
 
     @PostMapping("/onboard")
@@ -106,28 +159,183 @@ public class AuthController {
         } catch (AuthenticationException e) {
             failureHandler.onAuthenticationFailure(servletRequest, servletResponse, e);
         }
+        publishStatus(servletRequest);
+    }
+
+    /**
+     * Submit a step that is served here rather than by an endpoint of its own, such as a
+     * plugin step; the body's fields are the step's credentials
+     */
+    @PostMapping("/step/{stepId}")
+    public void submitStep(@PathVariable String stepId,
+                           @RequestBody(required = false) Map<String, String> fields,
+                           @CookieValue(name = "${auth.risk.device-cookie-name:SERIAL_PROVIDER_KNOWN_DEVICE}", required = false) String knownDeviceCookie,
+                           HttpServletRequest servletRequest,
+                           HttpServletResponse servletResponse) throws IOException, ServletException {
+        
+        boolean servedHere = stepChain.getStepById(stepId)
+            .filter(step -> step.getStepUrl().equals("/auth/step/" + stepId))
+            .isPresent();
+        if (!servedHere) {
+            servletResponse.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            servletResponse.setContentType("application/json");
+            servletResponse.getWriter().write("{\"error\":\"Unknown authentication step\"}");
+            return;
+        }
+        
+        try {
+            StepAuthenticationToken authToken = new StepAuthenticationToken(
+                stepId, authenticationSession.getUsername(), fields != null ? fields : Map.of());
+            authToken.setDetails(new LoginRequestDetails(servletRequest.getRemoteAddr(),
+                servletRequest.getHeader(HttpHeaders.USER_AGENT), null, knownDeviceCookie,
+                servletRequest.getSession().getId()));
+            
+            Authentication result = authenticationManager.authenticate(authToken);
+            successHandler.onAuthenticationSuccess(servletRequest, servletResponse, result);
+            
+        } catch (AuthenticationException e) {
+            failureHandler.onAuthenticationFailure(servletRequest, servletResponse, e);
+        }
+        publishStatus(servletRequest);
     }
 
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
-        String username = authenticationSession.getUsername();
+        return ResponseEntity.ok(statusSnapshot());
+    }
+
+    /**
+     * Server-Sent Events stream of status changes for the current session
+     */
+    @GetMapping(path = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatus(HttpServletRequest servletRequest) {
+        return statusEventHub.subscribe(
+            servletRequest.getSession().getId(),
+            authenticationSession.getUsername(),
+            lastActivityMillis(),
+            statusSnapshot()
+        );
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest servletRequest,
+                                                      @CookieValue(name = "${auth.jwt.refresh-cookie-name:SERIAL_PROVIDER_REFRESH}", required = false) String refreshToken) {
+        authenticationSession.reset();
+        publishStatus(servletRequest);
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        // Already issued access tokens stay valid until they expire; the browser just stops sending its one
+        return ResponseEntity.ok()
+            .header(HttpHeaders.SET_COOKIE, accessTokenService.clearedAccessTokenCookie(servletRequest.isSecure()).toString())
+            .header(HttpHeaders.SET_COOKIE, refreshTokenService.clearedRefreshTokenCookie(servletRequest.isSecure()).toString())
+            .body(Map.of("message", "Logged out successfully"));
+    }
+
+    /**
+     * Stop skipping OTP on this device
+     */
+    @PostMapping("/device/forget")
+    public ResponseEntity<Map<String, Object>> forgetDevice(@CookieValue(name = "${auth.device.cookie-name:SERIAL_PROVIDER_DEVICE}", required = false) String deviceCookie,
+                                                            HttpServletRequest servletRequest) {
+        if (deviceCookie != null && !deviceCookie.isEmpty()) {
+            trustedDeviceService.forget(deviceCookie);
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.SET_COOKIE, trustedDeviceService.clearedDeviceCookie(servletRequest.isSecure()).toString())
+            .body(Map.of("message", "This device is no longer trusted"));
+    }
+
+    /**
+     * Send the OTP when the user picks it over a login link; when no link is offered the code
+     * is sent on reaching the OTP step
+     */
+    @PostMapping("/otp/send")
+    public ResponseEntity<Map<String, Object>> sendOtp() {
+        if (!otpStep.sendCode(authenticationSession)) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "No code can be sent for this session"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Code sent"));
+    }
+
+    /**
+     * Mail a login link in place of typing the OTP; the link opens /otp, which submits its token
+     * to /auth/step/email-link
+     */
+    @PostMapping("/email-link")
+    public ResponseEntity<Map<String, Object>> sendEmailLink(HttpServletRequest servletRequest) {
+        if (!emailLinkStep.sendLink(authenticationSession, servletRequest.getSession().getId())) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "No login link can be sent for this session"));
+        }
         return ResponseEntity.ok(Map.of(
+            "message", "Login link sent",
+            "expiresIn", emailLinkStep.getLinkTtl().toSeconds()
+        ));
+    }
+
+    /**
+     * Exchange a refresh token (body or cookie) for a new access token and its successor
+     * refresh token; the session is not used
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<Map<String, Object>> refreshToken(@RequestBody(required = false) RefreshRequest request,
+                                                            @CookieValue(name = "${auth.jwt.refresh-cookie-name:SERIAL_PROVIDER_REFRESH}", required = false) String refreshCookie,
+                                                            HttpServletRequest servletRequest) {
+        String presented = request != null && request.getRefreshToken() != null ? request.getRefreshToken() : refreshCookie;
+        boolean secure = servletRequest.isSecure();
+        if (presented == null || presented.isEmpty()) {
+            return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED)
+                .body(Map.of("error", "Refresh token required"));
+        }
+
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(presented);
+            AccessTokenService.IssuedToken accessToken = accessTokenService.mint(rotation.username(), rotation.completedSteps());
+            return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessTokenService.accessTokenCookie(accessToken, secure).toString())
+                .header(HttpHeaders.SET_COOKIE, refreshTokenService.refreshTokenCookie(rotation.refreshToken(), secure).toString())
+                .body(Map.of(
+                    "accessToken", accessToken.value(),
+                    "refreshToken", rotation.refreshToken().value(),
+                    "tokenType", "Bearer",
+                    "expiresIn", accessTokenService.getAccessTokenTtl().toSeconds(),
+                    "user", rotation.username()
+                ));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED)
+                .header(HttpHeaders.SET_COOKIE, refreshTokenService.clearedRefreshTokenCookie(secure).toString())
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> statusSnapshot() {
+        String username = authenticationSession.getUsername();
+        AuthenticationSettings settings = settingsService.getCurrentSettings();
+        return Map.of(
             "user", username != null ? username : "null",
             "currentState", authenticationSession.getState(),
             "isExpired", authenticationSession.isExpired(),
             "onboardingCompleted", authenticationSession.isOnboardingCompleted(),
             "settings", Map.of(
-                "otpEnabled", settingsService.isOtpEnabled(),
-                "onboardingEnabled", settingsService.isOnboardingEnabled(),
-                "flowDescription", settingsService.getCurrentSettings().getFlowDescription()
+                "otpEnabled", settings.isOtpEnabled(),
+                "onboardingEnabled", settings.isOnboardingEnabled(),
+                "flowDescription", settings.getFlowDescription()
             )
-        ));
+        );
     }
 
-    @PostMapping("/logout")
-    public ResponseEntity<Map<String, Object>> logout() {
-        authenticationSession.reset();
-        return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
+    private void publishStatus(HttpServletRequest servletRequest) {
+        HttpSession session = servletRequest.getSession(false);
+        if (session != null && statusEventHub.hasSubscribers(session.getId())) {
+            statusEventHub.publishStatus(session.getId(), authenticationSession.getUsername(),
+                lastActivityMillis(), statusSnapshot());
+        }
+    }
+
+    private long lastActivityMillis() {
+        return authenticationSession.getLastActivity().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     // Request DTOs
@@ -143,8 +351,18 @@ public class AuthController {
 
     public static class OtpRequest {
         private String otp;
+        private boolean rememberDevice;
 
         public String getOtp() { return otp; }
         public void setOtp(String otp) { this.otp = otp; }
+        public boolean isRememberDevice() { return rememberDevice; }
+        public void setRememberDevice(boolean rememberDevice) { this.rememberDevice = rememberDevice; }
+    }
+
+    public static class RefreshRequest {
+        private String refreshToken;
+
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
     }
 }
\ No newline at end of file
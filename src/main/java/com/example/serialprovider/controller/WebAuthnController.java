@@ -0,0 +1,121 @@
+package com.example.serialprovider.controller;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.webauthn.WebAuthnAuthenticationStep;
+import com.example.serialprovider.auth.webauthn.WebAuthnCredentialService;
+import com.example.serialprovider.auth.webauthn.WebAuthnRelyingParty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options for the browser's navigator.credentials calls, and registration of the passkeys
+ * they create. The login assertion itself goes to /auth/step/webauthn.
+ */
+@RestController
+public class WebAuthnController {
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final WebAuthnRelyingParty relyingParty;
+    private final WebAuthnCredentialService credentials;
+    private final WebAuthnAuthenticationStep step;
+    private final AuthenticationSession authenticationSession;
+
+    public WebAuthnController(WebAuthnRelyingParty relyingParty,
+                              WebAuthnCredentialService credentials,
+                              WebAuthnAuthenticationStep step,
+                              AuthenticationSession authenticationSession) {
+        this.relyingParty = relyingParty;
+        this.credentials = credentials;
+        this.step = step;
+        this.authenticationSession = authenticationSession;
+    }
+
+    /**
+     * Options for navigator.credentials.get(). Credentials are only listed once a password has
+     * named the user; before that the browser offers its discoverable passkeys, so the endpoint
+     * never tells who has one.
+     */
+    @PostMapping("/auth/webauthn/options")
+    public ResponseEntity<Map<String, Object>> assertionOptions() {
+        if (!step.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Passkeys are not enabled"));
+        }
+        String username = authenticationSession.getUsername();
+        return ResponseEntity.ok(Map.of(
+            "challenge", relyingParty.issueChallenge(WebAuthnRelyingParty.Purpose.AUTHENTICATION),
+            "rpId", relyingParty.getRpId(),
+            "timeout", relyingParty.getChallengeTtl().toMillis(),
+            "userVerification", "preferred",
+            "allowCredentials", username == null ? List.of() : descriptors(username)
+        ));
+    }
+
+    /**
+     * Options for navigator.credentials.create() for the signed-in user
+     */
+    @PostMapping("/api/webauthn/credentials/options")
+    public ResponseEntity<Map<String, Object>> registrationOptions(Authentication authentication) {
+        if (!step.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Passkeys are not enabled"));
+        }
+        String username = authentication.getName();
+        return ResponseEntity.ok(Map.of(
+            "challenge", relyingParty.issueChallenge(WebAuthnRelyingParty.Purpose.REGISTRATION),
+            "rp", Map.of("id", relyingParty.getRpId(), "name", relyingParty.getRpName()),
+            "user", Map.of(
+                "id", ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)),
+                "name", username,
+                "displayName", username),
+            "pubKeyCredParams", List.of(
+                Map.of("type", "public-key", "alg", WebAuthnCredentialService.ES256),
+                Map.of("type", "public-key", "alg", WebAuthnCredentialService.EDDSA),
+                Map.of("type", "public-key", "alg", WebAuthnCredentialService.RS256)),
+            "timeout", relyingParty.getChallengeTtl().toMillis(),
+            "attestation", "none",
+            "excludeCredentials", descriptors(username)
+        ));
+    }
+
+    /**
+     * Register a passkey from the browser's response: base64url credentialId and clientDataJSON,
+     * the DER key from response.getPublicKey() and its algorithm from getPublicKeyAlgorithm()
+     */
+    @PostMapping("/api/webauthn/credentials")
+    public ResponseEntity<Map<String, Object>> register(@RequestBody Map<String, Object> request,
+                                                        Authentication authentication) {
+        if (!step.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Passkeys are not enabled"));
+        }
+        try {
+            String credentialId = String.valueOf(request.get("credentialId"));
+            byte[] clientDataJson = DECODER.decode(String.valueOf(request.get("clientDataJSON")));
+            byte[] publicKey = DECODER.decode(String.valueOf(request.get("publicKey")));
+            if (!(request.get("publicKeyAlgorithm") instanceof Number algorithm)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "publicKeyAlgorithm is required"));
+            }
+            if (!relyingParty.checkClientData(clientDataJson, WebAuthnRelyingParty.Purpose.REGISTRATION)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired registration challenge"));
+            }
+            credentials.register(authentication.getName(), credentialId, publicKey, algorithm.intValue());
+            return ResponseEntity.ok(Map.of("credentialId", credentialId, "registered", true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private List<Map<String, String>> descriptors(String username) {
+        return credentials.credentialIdsOf(username).stream()
+            .map(id -> Map.of("type", "public-key", "id", id))
+            .toList();
+    }
+}
@@ -2,6 +2,11 @@ package com.example.serialprovider.entity;
 
 import jakarta.persistence.*;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
 @Entity
 @Table(name = "auth_settings")
 public class AuthenticationSettings {
@@ -16,12 +21,24 @@ public class AuthenticationSettings {
     @Column(name = "onboarding_enabled", nullable = false)
     private Boolean onboardingEnabled = true;
     
+    // Step plugins switched on, comma-separated step ids; plugins not listed are never loaded
+    @Column(name = "enabled_plugins", nullable = false)
+    private String enabledPlugins = "";
+    
+    @Transient
+    private Set<String> enabledPluginIds;
+    
     @Column(name = "setting_name", unique = true)
     private String settingName = "DEFAULT";
     
     @Column(name = "description")
     private String description = "Default authentication settings";
     
+    // Orders settings changes broadcast between nodes
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     // Constructors
     public AuthenticationSettings() {}
     
@@ -55,6 +72,15 @@ public class AuthenticationSettings {
         this.onboardingEnabled = onboardingEnabled;
     }
     
+    public String getEnabledPlugins() {
+        return enabledPlugins;
+    }
+    
+    public void setEnabledPlugins(String enabledPlugins) {
+        this.enabledPlugins = enabledPlugins;
+        this.enabledPluginIds = null;
+    }
+    
     public String getSettingName() {
         return settingName;
     }
@@ -71,6 +97,14 @@ public class AuthenticationSettings {
         this.description = description;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     // Helper methods
     public boolean isOtpEnabled() {
         return otpEnabled != null && otpEnabled;
@@ -80,6 +114,36 @@ public class AuthenticationSettings {
         return onboardingEnabled != null && onboardingEnabled;
     }
     
+    // Parsed once per instance; checked for every plugin step on every request
+    public boolean isPluginEnabled(String stepId) {
+        Set<String> ids = enabledPluginIds;
+        if (ids == null) {
+            ids = parsePluginIds(enabledPlugins);
+            enabledPluginIds = ids;
+        }
+        return ids.contains(stepId);
+    }
+    
+    public void setPluginEnabled(String stepId, boolean enabled) {
+        Set<String> ids = new TreeSet<>(parsePluginIds(enabledPlugins));
+        if (enabled) {
+            ids.add(stepId);
+        } else {
+            ids.remove(stepId);
+        }
+        setEnabledPlugins(String.join(",", ids));
+    }
+    
+    private static Set<String> parsePluginIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(ids.split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+    
     // Get authentication flow description
     public String getFlowDescription() {
         if (isOtpEnabled() && isOnboardingEnabled()) {
@@ -99,8 +163,10 @@ public class AuthenticationSettings {
                 "id=" + id +
                 ", otpEnabled=" + otpEnabled +
                 ", onboardingEnabled=" + onboardingEnabled +
+                ", enabledPlugins='" + enabledPlugins + '\'' +
                 ", settingName='" + settingName + '\'' +
                 ", description='" + description + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
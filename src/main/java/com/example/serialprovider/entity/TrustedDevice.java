@@ -0,0 +1,66 @@
+package com.example.serialprovider.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A device on which a user chose to skip OTP. Rows are written behind the in-memory device
+ * index and only read back at startup.
+ */
+@Entity
+@Table(name = "trusted_devices", indexes = @Index(name = "idx_trusted_devices_expires_at", columnList = "expires_at"))
+public class TrustedDevice {
+    
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+    
+    @Column(name = "username", nullable = false)
+    private String username;
+    
+    // Epoch seconds, the same resolution as the device cookie
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+    
+    // Constructors
+    public TrustedDevice() {}
+    
+    public TrustedDevice(Long deviceId, String username, Long expiresAt) {
+        this.deviceId = deviceId;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getDeviceId() {
+        return deviceId;
+    }
+    
+    public void setDeviceId(Long deviceId) {
+        this.deviceId = deviceId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "TrustedDevice{" +
+                "deviceId=" + deviceId +
+                ", username='" + username + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.serialprovider.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A passkey registered by a user: the authenticator's public key and the last signature
+ * counter it reported.
+ */
+@Entity
+@Table(name = "webauthn_credentials", indexes = @Index(name = "idx_webauthn_credentials_username", columnList = "username"))
+public class WebAuthnCredential {
+
+    // Base64url, as the browser reports it
+    @Id
+    @Column(name = "credential_id", length = 1024)
+    private String credentialId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    // X.509 SubjectPublicKeyInfo, DER
+    @Column(name = "public_key", nullable = false, length = 2048)
+    private byte[] publicKey;
+
+    // COSE algorithm identifier, e.g. -7 for ES256
+    @Column(name = "algorithm", nullable = false)
+    private Integer algorithm;
+
+    @Column(name = "sign_count", nullable = false)
+    private Long signCount;
+
+    // Epoch seconds
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Column(name = "last_used_at")
+    private Long lastUsedAt;
+
+    // Constructors
+    public WebAuthnCredential() {}
+
+    public WebAuthnCredential(String credentialId, String username, byte[] publicKey, Integer algorithm,
+                              Long signCount, Long createdAt) {
+        this.credentialId = credentialId;
+        this.username = username;
+        this.publicKey = publicKey;
+        this.algorithm = algorithm;
+        this.signCount = signCount;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getCredentialId() {
+        return credentialId;
+    }
+
+    public void setCredentialId(String credentialId) {
+        this.credentialId = credentialId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public byte[] getPublicKey() {
+        return publicKey;
+    }
+
+    public void setPublicKey(byte[] publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public Integer getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(Integer algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Long getSignCount() {
+        return signCount;
+    }
+
+    public void setSignCount(Long signCount) {
+        this.signCount = signCount;
+    }
+
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(Long lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "WebAuthnCredential{" +
+                "credentialId='" + credentialId + '\'' +
+                ", username='" + username + '\'' +
+                ", algorithm=" + algorithm +
+                ", signCount=" + signCount +
+                '}';
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.serialprovider.invalidation;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM bus: every bus created with the same group name delivers to the others, synchronously
+ * on the publishing thread. Covers single-node runs and several application contexts in one
+ * JVM.
+ */
+public class LoopbackSettingsInvalidationBus implements SettingsInvalidationBus, DisposableBean {
+
+    private static final Map<String, Set<LoopbackSettingsInvalidationBus>> GROUPS = new ConcurrentHashMap<>();
+
+    private final Set<LoopbackSettingsInvalidationBus> group;
+    private final List<Consumer<SettingsChange>> listeners = new CopyOnWriteArrayList<>();
+
+    public LoopbackSettingsInvalidationBus(String groupName) {
+        this.group = GROUPS.computeIfAbsent(groupName, name -> ConcurrentHashMap.newKeySet());
+        group.add(this);
+    }
+
+    @Override
+    public void publish(SettingsChange change) {
+        for (LoopbackSettingsInvalidationBus peer : group) {
+            if (peer != this) {
+                peer.listeners.forEach(listener -> listener.accept(change));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<SettingsChange> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void destroy() {
+        group.remove(this);
+    }
+}
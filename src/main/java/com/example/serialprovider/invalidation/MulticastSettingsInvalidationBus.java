@@ -0,0 +1,142 @@
+package com.example.serialprovider.invalidation;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * UDP multicast bus for nodes on one network segment, or on one host when bound to the
+ * loopback interface. Each change is a single datagram of a 32-byte header and the enabled
+ * plugin ids; a lost datagram is covered by the settings cache TTL.
+ */
+public class MulticastSettingsInvalidationBus implements SettingsInvalidationBus, DisposableBean {
+
+    private static final int MAGIC = 0x53455453; // "SETS"
+    private static final byte FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int MAX_MESSAGE_SIZE = 1024;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final InetSocketAddress groupAddress;
+    private final DatagramChannel channel;
+    private final List<Consumer<SettingsChange>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+
+    private volatile boolean running = true;
+
+    public MulticastSettingsInvalidationBus(String groupAddress, int port, String interfaceName) {
+        try {
+            InetAddress group = InetAddress.getByName(groupAddress);
+            NetworkInterface networkInterface = interfaceName.isBlank()
+                ? NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress())
+                : NetworkInterface.getByName(interfaceName);
+            if (networkInterface == null) {
+                throw new IllegalArgumentException("Unknown network interface for settings bus: " + interfaceName);
+            }
+            this.groupAddress = new InetSocketAddress(group, port);
+            this.channel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                .bind(new InetSocketAddress(port))
+                .setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface)
+                .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true)
+                .setOption(StandardSocketOptions.IP_MULTICAST_TTL, 1);
+            channel.join(group, networkInterface);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot join settings multicast group " + groupAddress + ":" + port, e);
+        }
+        this.receiver = Thread.ofPlatform()
+            .name("settings-bus-receiver")
+            .daemon()
+            .start(this::receiveLoop);
+    }
+
+    @Override
+    public void publish(SettingsChange change) {
+        byte[] plugins = change.enabledPlugins().getBytes(StandardCharsets.UTF_8);
+        if (HEADER_SIZE + plugins.length > MAX_MESSAGE_SIZE) {
+            throw new IllegalArgumentException("Too many enabled plugins to publish: " + change.enabledPlugins());
+        }
+        ByteBuffer message = ByteBuffer.allocate(HEADER_SIZE + plugins.length)
+            .putInt(MAGIC)
+            .put(FORMAT_VERSION)
+            .putLong(nodeId.getMostSignificantBits())
+            .putLong(nodeId.getLeastSignificantBits())
+            .putLong(change.version())
+            .put((byte) ((change.otpEnabled() ? 1 : 0) | (change.onboardingEnabled() ? 2 : 0)))
+            .putShort((short) plugins.length)
+            .put(plugins)
+            .flip();
+        try {
+            channel.send(message, groupAddress);
+        } catch (IOException e) {
+            // Peers pick the change up when their cached settings expire
+            throw new UncheckedIOException("Failed to publish settings change", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<SettingsChange> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        running = false;
+        channel.close();
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_MESSAGE_SIZE + 1);
+        while (running) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                SettingsChange change = decode(buffer);
+                if (change != null) {
+                    listeners.forEach(listener -> listener.accept(change));
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Drop the datagram; a failing listener must not stop the receiver
+            }
+        }
+    }
+
+    /**
+     * @return the change, or null for foreign, malformed or own datagrams
+     */
+    private SettingsChange decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.remaining() > MAX_MESSAGE_SIZE ||
+            buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) {
+            return null;
+        }
+        UUID sender = new UUID(buffer.getLong(), buffer.getLong());
+        if (nodeId.equals(sender)) {
+            return null;
+        }
+        long version = buffer.getLong();
+        byte flags = buffer.get();
+        int pluginsLength = Short.toUnsignedInt(buffer.getShort());
+        if (buffer.remaining() != pluginsLength) {
+            return null;
+        }
+        String plugins = StandardCharsets.UTF_8.decode(buffer).toString();
+        return new SettingsChange(version, (flags & 1) != 0, (flags & 2) != 0, plugins);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.serialprovider.invalidation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the settings invalidation bus with auth.settings.bus: loopback (default, in-JVM)
+ * or multicast.
+ */
+@Configuration
+public class SettingsBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "auth.settings.bus", havingValue = "loopback", matchIfMissing = true)
+    public SettingsInvalidationBus loopbackSettingsInvalidationBus(@Value("${auth.settings.bus.group:default}") String group) {
+        return new LoopbackSettingsInvalidationBus(group);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "auth.settings.bus", havingValue = "multicast")
+    public SettingsInvalidationBus multicastSettingsInvalidationBus(
+            @Value("${auth.settings.bus.multicast.address:239.255.42.99}") String address,
+            @Value("${auth.settings.bus.multicast.port:45678}") int port,
+            @Value("${auth.settings.bus.multicast.interface:}") String interfaceName) {
+        return new MulticastSettingsInvalidationBus(address, port, interfaceName);
+    }
+}
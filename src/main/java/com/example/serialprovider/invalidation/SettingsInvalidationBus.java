@@ -0,0 +1,30 @@
+package com.example.serialprovider.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries authentication settings changes between nodes so each one can update its settings
+ * cache as soon as another node commits a change, instead of waiting for the cache entry to
+ * expire.
+ *
+ * <p>Delivery is best effort and may reorder changes; receivers keep the highest version
+ * they have seen. A node never receives its own changes.
+ */
+public interface SettingsInvalidationBus {
+
+    void publish(SettingsChange change);
+
+    void subscribe(Consumer<SettingsChange> listener);
+
+    /**
+     * Committed settings at a given entity version
+     *
+     * @param enabledPlugins comma-separated ids of the enabled step plugins
+     */
+    record SettingsChange(long version, boolean otpEnabled, boolean onboardingEnabled, String enabledPlugins) {
+
+        public SettingsChange(long version, boolean otpEnabled, boolean onboardingEnabled) {
+            this(version, otpEnabled, onboardingEnabled, "");
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.serialprovider.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous structured logger for auth events.
+ *
+ * <p>Request threads claim a preallocated {@link Entry} in a ring buffer with a CAS,
+ * copy their fields into its fixed-size char buffers (masking sensitive values as they
+ * copy) and publish it. The only allocation on that path is the {@link Event} handle that
+ * remembers which sequence the caller claimed; it does not outlive the call chain. A single consumer thread
+ * formats published entries as JSON lines and writes each batch to stdout with one call.
+ * When the buffer is full, events are dropped and counted instead of blocking the caller.
+ *
+ * <p>Field values should be computed before {@link #event} is called: a claimed entry holds
+ * back every later one until it is published. An entry left unpublished for longer than
+ * {@code auth.event-log.abandon-after} (a caller that threw between claiming and publishing)
+ * is skipped and counted as dropped, so one failure cannot stall the log. The slot is then
+ * revoked: if the late caller does get round to its fields or {@link Event#publish()}, they
+ * are ignored rather than landing in the event of whoever claims the slot next.
+ *
+ * <pre>
+ * eventLogger.event(AuthEventType.OTP_SENT)
+ *     .field("user", username)
+ *     .secret("otp", otpCode)
+ *     .publish();
+ * </pre>
+ */
+@Component
+public class AuthEventLogger {
+
+    private static final int MAX_FIELDS = 4;
+    private static final int FIELD_CAPACITY = 96;
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+    private static final Duration DEFAULT_ABANDON_AFTER = Duration.ofSeconds(2);
+    // Entry.state is the claimed sequence while its fields are written, with one of these bits once settled
+    private static final long PUBLISHED = 1L << 62;
+    private static final long REVOKED = 1L << 61;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Entry.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+    private final int batchSize;
+    private final long abandonAfterNanos;
+    private final PrintStream out;
+    private final Event discarded = new Event(null, -1);
+
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    // Next sequence the consumer will read; written only by the consumer thread
+    private volatile long consumedSequence;
+    // Claimed but unpublished sequence the consumer is waiting on, and since when; consumer thread only
+    private long stalledSequence = -1;
+    private long stalledSinceNanos;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public AuthEventLogger(@Value("${auth.event-log.buffer-size:8192}") int bufferSize,
+                           @Value("${auth.event-log.batch-size:256}") int batchSize,
+                           @Value("${auth.event-log.abandon-after:2s}") Duration abandonAfter) {
+        this(bufferSize, batchSize, abandonAfter, System.out);
+    }
+
+    AuthEventLogger(int bufferSize, int batchSize, PrintStream out) {
+        this(bufferSize, batchSize, DEFAULT_ABANDON_AFTER, out);
+    }
+
+    AuthEventLogger(int bufferSize, int batchSize, Duration abandonAfter, PrintStream out) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1) << 1);
+        this.entries = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+        }
+        this.mask = capacity - 1;
+        this.batchSize = batchSize;
+        this.abandonAfterNanos = abandonAfter.toNanos();
+        this.out = out;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        consumer = Thread.ofPlatform()
+            .name("auth-event-log")
+            .daemon()
+            .start(this::consumeLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            consumer.join(1000);
+        }
+    }
+
+    /**
+     * Claim an entry for the given event; call {@link Event#publish()} once its fields are set.
+     * Returns a discarding event if the buffer is full.
+     */
+    public Event event(AuthEventType type) {
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if (sequence - consumedSequence >= entries.length) {
+                dropped.increment();
+                return discarded;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        Entry entry = entries[(int) (sequence & mask)];
+        if (!entry.begin(sequence, type)) {
+            // Stalled between claiming and starting for so long that the consumer gave up on it
+            return discarded;
+        }
+        return new Event(entry, sequence);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private void consumeLoop() {
+        StringBuilder batch = new StringBuilder(batchSize * 128);
+        while (running) {
+            if (drain(batch) == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        // Flush whatever was published before shutdown
+        while (drain(batch) > 0) {
+            // keep draining
+        }
+    }
+
+    private int drain(StringBuilder batch) {
+        long next = consumedSequence;
+        int count = 0;
+        int skipped = 0;
+        while (count + skipped < batchSize) {
+            Entry entry = entries[(int) (next & mask)];
+            if (entry.state != (next | PUBLISHED)) {
+                // Not published yet; a claimed but unpublished entry holds back later ones until abandoned.
+                // Revoking fails if it was published in the meantime, and the next pass writes it
+                if (next < claimSequence.get() && isAbandoned(next) && entry.revoke(next)) {
+                    dropped.increment();
+                    next++;
+                    skipped++;
+                    continue;
+                }
+                break;
+            }
+            entry.appendJson(batch);
+            next++;
+            count++;
+        }
+        if (count + skipped > 0) {
+            consumedSequence = next;
+        }
+        if (count > 0) {
+            out.print(batch);
+            out.flush();
+            batch.setLength(0);
+            written.add(count);
+        }
+        return count + skipped;
+    }
+
+    private boolean isAbandoned(long sequence) {
+        long now = System.nanoTime();
+        if (stalledSequence != sequence) {
+            stalledSequence = sequence;
+            stalledSinceNanos = now;
+            return false;
+        }
+        return now - stalledSinceNanos >= abandonAfterNanos;
+    }
+
+    /**
+     * The caller's hold on one claimed entry. Every method checks that the slot still belongs to
+     * the sequence claimed, so a caller that resumes after its entry was abandoned cannot touch
+     * the event that reused the slot; the check is not atomic with the copy, so a field can still
+     * race a reclaim that happens in the middle of it, but never a publish.
+     */
+    public static final class Event {
+        private final Entry entry;
+        private final long sequence;
+
+        private Event(Entry entry, long sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Plain value, truncated to the slot size
+         */
+        public Event field(String key, CharSequence value) {
+            return copy(key, value, 0, 0);
+        }
+
+        /**
+         * Value replaced entirely by '*', keeping only its length
+         */
+        public Event secret(String key, CharSequence value) {
+            return copy(key, value, 0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Keeps the first character, for names and similar personal data
+         */
+        public Event partial(String key, CharSequence value) {
+            return copy(key, value, 1, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Keeps the first character of the local part and the domain
+         */
+        public Event email(String key, CharSequence value) {
+            int at = Entry.indexOf(value, '@');
+            return at < 0 ? secret(key, value) : copy(key, value, 1, at);
+        }
+
+        /**
+         * Hand the entry to the consumer; does nothing if it was abandoned first
+         */
+        public void publish() {
+            if (entry != null) {
+                STATE.compareAndSet(entry, sequence, sequence | PUBLISHED);
+            }
+        }
+
+        private Event copy(String key, CharSequence value, int maskFrom, int maskTo) {
+            if (entry != null && entry.state == sequence) {
+                entry.copy(key, value, maskFrom, maskTo);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One preallocated ring buffer slot; values are copied in, never referenced
+     */
+    private static final class Entry {
+        private final String[] keys = new String[MAX_FIELDS];
+        private final char[][] values = new char[MAX_FIELDS][FIELD_CAPACITY];
+        private final int[] lengths = new int[MAX_FIELDS];
+        private int fieldCount;
+        private AuthEventType type;
+        private long timestampMillis;
+        // Sequence being written, that sequence | PUBLISHED, or | REVOKED once abandoned; -1 before first use
+        private volatile long state = -1;
+
+        /**
+         * Take the slot for a freshly claimed sequence, unless the consumer already revoked it
+         */
+        private boolean begin(long sequence, AuthEventType type) {
+            long current;
+            do {
+                current = state;
+                if (current == (sequence | REVOKED)) {
+                    return false;
+                }
+            } while (!STATE.compareAndSet(this, current, sequence));
+            this.type = type;
+            this.timestampMillis = System.currentTimeMillis();
+            this.fieldCount = 0;
+            return true;
+        }
+
+        /**
+         * Give up on an unpublished sequence; false if it was published after all
+         */
+        private boolean revoke(long sequence) {
+            long current;
+            do {
+                current = state;
+                if (current == (sequence | PUBLISHED)) {
+                    return false;
+                }
+            } while (!STATE.compareAndSet(this, current, sequence | REVOKED));
+            return true;
+        }
+
+        /**
+         * Copies value into the next field, masking characters in [maskFrom, maskTo)
+         */
+        private void copy(String key, CharSequence value, int maskFrom, int maskTo) {
+            if (fieldCount == MAX_FIELDS) {
+                return;
+            }
+            int field = fieldCount++;
+            keys[field] = key;
+            char[] target = values[field];
+            if (value == null) {
+                lengths[field] = -1;
+                return;
+            }
+            int length = Math.min(value.length(), FIELD_CAPACITY);
+            for (int i = 0; i < length; i++) {
+                target[i] = i >= maskFrom && i < maskTo ? '*' : value.charAt(i);
+            }
+            lengths[field] = length;
+        }
+
+        private void appendJson(StringBuilder out) {
+            out.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestampMillis))
+                .append("\",\"event\":\"").append(type.getEventName()).append('"');
+            for (int i = 0; i < fieldCount; i++) {
+                out.append(",\"").append(keys[i]).append("\":");
+                if (lengths[i] < 0) {
+                    out.append("null");
+                    continue;
+                }
+                out.append('"');
+                char[] value = values[i];
+                for (int c = 0; c < lengths[i]; c++) {
+                    appendEscaped(out, value[c]);
+                }
+                out.append('"');
+            }
+            out.append("}\n");
+        }
+
+        private static void appendEscaped(StringBuilder out, char c) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+
+        private static int indexOf(CharSequence value, char c) {
+            if (value == null) {
+                return -1;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
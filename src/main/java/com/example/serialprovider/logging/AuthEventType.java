@@ -0,0 +1,36 @@
+package com.example.serialprovider.logging;
+
+/**
+ * Structured auth events written by {@link AuthEventLogger}
+ */
+public enum AuthEventType {
+    SETTINGS_INITIALIZED("settings.initialized"),
+    OTP_SENT("otp.sent"),
+    OTP_SKIPPED("otp.skipped"),
+    EMAIL_LINK_SENT("email-link.sent"),
+    DEVICE_TRUSTED("device.trusted"),
+    DEVICE_FORGOTTEN("device.forgotten"),
+    DEVICE_FLUSH_FAILED("device.flush-failed"),
+    PASSWORD_BREACHED("password.breached"),
+    RISK_ASSESSED("risk.assessed"),
+    AUTH_FAILED("auth.failed"),
+    IP_LIST_RELOADED("ip-list.reloaded"),
+    IP_LIST_RELOAD_FAILED("ip-list.reload-failed"),
+    STEP_PLUGIN_LOADED("step-plugin.loaded"),
+    STEP_PLUGIN_LOAD_FAILED("step-plugin.load-failed"),
+    WEBAUTHN_REGISTERED("webauthn.registered"),
+    WEBAUTHN_COUNTER_REJECTED("webauthn.counter-rejected"),
+    ONBOARDING_COMPLETED("onboarding.completed"),
+    WARMUP_COMPLETED("warmup.completed"),
+    WARMUP_ABORTED("warmup.aborted");
+
+    private final String eventName;
+
+    AuthEventType(String eventName) {
+        this.eventName = eventName;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+}
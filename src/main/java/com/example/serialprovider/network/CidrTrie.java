@@ -0,0 +1,385 @@
+package com.example.serialprovider.network;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Read-only binary radix trie over IPv4 and IPv6 prefixes, memory-mapped from a file written
+ * by {@link #compile}.
+ *
+ * <p>Labels are pushed down to the leaves when the trie is compiled, so every inner node has
+ * exactly two children and a node is just two ints: the index of each child, or the
+ * complement of its label when the child is a leaf. A lookup follows one bit of the address
+ * per node until it reaches a leaf, at most 32 nodes for IPv4 and 128 for IPv6, and the leaf
+ * holds the label of the longest matching prefix. The address is parsed in place and the
+ * mapping is read with absolute gets, so lookups allocate nothing and the trie can be shared
+ * between threads.
+ *
+ * <p>IPv4 prefixes are also compiled under {@code ::ffff:0:0/96}, so IPv4-mapped IPv6 addresses
+ * find them. The mapping is released by the garbage collector once the trie is unreachable.
+ */
+public final class CidrTrie {
+
+    private static final int MAGIC = 0x43494452;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int NODE_BYTES = 2 * Integer.BYTES;
+    // A mapping is limited to 2 GB
+    private static final int MAX_NODES = (Integer.MAX_VALUE - HEADER_BYTES) / NODE_BYTES;
+
+    private final MappedByteBuffer nodes;
+    private final int ipv4Root;
+    private final int ipv6Root;
+    private final int nodeCount;
+
+    private CidrTrie(MappedByteBuffer nodes, int ipv4Root, int ipv6Root, int nodeCount) {
+        this.nodes = nodes;
+        this.ipv4Root = ipv4Root;
+        this.ipv6Root = ipv6Root;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * A network and its label; labels must not be negative, 0 means unlisted
+     */
+    public record Prefix(byte[] address, int length, int label) {
+
+        public Prefix {
+            if (address.length != 4 && address.length != 16) {
+                throw new IllegalArgumentException("Address must be 4 or 16 bytes");
+            }
+            if (length < 0 || length > address.length * 8) {
+                throw new IllegalArgumentException("Prefix length " + length + " out of range");
+            }
+            if (label < 0) {
+                throw new IllegalArgumentException("Labels must not be negative");
+            }
+        }
+
+        /**
+         * Parse {@code 203.0.113.0/24} or {@code 2001:db8::/32}; a bare address is a single host.
+         * Host bits beyond the prefix length are ignored.
+         */
+        public static Prefix parse(String cidr, int label) {
+            int slash = cidr.indexOf('/');
+            String literal = slash < 0 ? cidr : cidr.substring(0, slash);
+            // Only IP literals, so getByName can never turn into a DNS lookup
+            if (literal.isEmpty() || !literal.chars().allMatch(c -> c == '.' || c == ':' || hexValue((char) c) >= 0)) {
+                throw new IllegalArgumentException("Not an IP network: " + cidr);
+            }
+            InetAddress address;
+            try {
+                address = InetAddress.getByName(literal);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Not an IP network: " + cidr, e);
+            }
+            int maxLength = literal.indexOf(':') >= 0 ? 128 : 32;
+            int length;
+            try {
+                length = slash < 0 ? maxLength : Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not an IP network: " + cidr, e);
+            }
+            if (length < 0 || length > maxLength) {
+                throw new IllegalArgumentException("Prefix length out of range: " + cidr);
+            }
+            if (address instanceof Inet4Address && maxLength == 128) {
+                // getByName turns ::ffff:a.b.c.d into a plain IPv4 address
+                if (length < 96) {
+                    throw new IllegalArgumentException("IPv4-mapped network shorter than /96: " + cidr);
+                }
+                length -= 96;
+            }
+            return new Prefix(address.getAddress(), length, label);
+        }
+    }
+
+    /**
+     * Compile prefixes into a trie file, replacing it. Where prefixes nest or repeat, the label
+     * of the inner one is {@code refine.applyAsInt(enclosingLabel, ownLabel)}, with 0 as the
+     * label enclosing everything.
+     *
+     * @return the number of nodes written
+     */
+    public static int compile(List<Prefix> prefixes, IntBinaryOperator refine, Path file) throws IOException {
+        BuildNode ipv4 = new BuildNode();
+        BuildNode ipv6 = new BuildNode();
+        for (Prefix prefix : prefixes) {
+            if (prefix.address().length == 4) {
+                insert(ipv4, prefix.address(), prefix.length(), prefix.label(), refine);
+                byte[] mapped = new byte[16];
+                mapped[10] = (byte) 0xFF;
+                mapped[11] = (byte) 0xFF;
+                System.arraycopy(prefix.address(), 0, mapped, 12, 4);
+                insert(ipv6, mapped, 96 + prefix.length(), prefix.label(), refine);
+            } else {
+                insert(ipv6, prefix.address(), prefix.length(), prefix.label(), refine);
+            }
+        }
+
+        NodeWriter writer = new NodeWriter();
+        int ipv4Root = writer.emit(ipv4, 0, refine);
+        int ipv6Root = writer.emit(ipv6, 0, refine);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(MAGIC).putInt(VERSION).putInt(ipv4Root).putInt(ipv6Root).putInt(writer.count)
+            .flip();
+        ByteBuffer body = ByteBuffer.allocate(writer.count * NODE_BYTES);
+        body.asIntBuffer().put(writer.children, 0, writer.count * 2);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+        return writer.count;
+    }
+
+    public static CidrTrie open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a compiled CIDR trie: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int nodeCount = mapped.getInt(16);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION ||
+                (long) nodeCount * NODE_BYTES + HEADER_BYTES != size) {
+                throw new IOException("Not a compiled CIDR trie: " + file);
+            }
+            return new CidrTrie(mapped, mapped.getInt(8), mapped.getInt(12), nodeCount);
+        }
+    }
+
+    /**
+     * @return the label of the longest prefix containing the address; 0 if there is none or the
+     *         address is not an IP literal
+     */
+    public int lookup(CharSequence address) {
+        if (address == null) {
+            return 0;
+        }
+        int end = address.length();
+        for (int i = 0; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == ':') {
+                return lookupIpv6(address, end);
+            } else if (c == '.') {
+                break;
+            }
+        }
+        long ipv4 = parseIpv4(address, 0, end);
+        return ipv4 < 0 ? 0 : label(descend(ipv4Root, ipv4, 32));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getSizeBytes() {
+        return HEADER_BYTES + (long) nodeCount * NODE_BYTES;
+    }
+
+    private int lookupIpv6(CharSequence address, int end) {
+        // Zone ids (fe80::1%eth0) play no part in matching
+        for (int i = 0; i < end; i++) {
+            if (address.charAt(i) == '%') {
+                end = i;
+                break;
+            }
+        }
+
+        // First pass validates and counts the groups, so the zeros "::" stands for are known
+        int groups = 0;
+        int gapAfter = -1;
+        int ipv4Tail = -1;
+        int i = 0;
+        if (end >= 2 && address.charAt(0) == ':' && address.charAt(1) == ':') {
+            gapAfter = 0;
+            i = 2;
+        }
+        while (i < end) {
+            int start = i;
+            while (i < end && hexValue(address.charAt(i)) >= 0) {
+                i++;
+            }
+            if (i < end && address.charAt(i) == '.') {
+                if (parseIpv4(address, start, end) < 0) {
+                    return 0;
+                }
+                ipv4Tail = start;
+                groups += 2;
+                break;
+            }
+            if (i == start || i - start > 4) {
+                return 0;
+            }
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (address.charAt(i++) != ':' || i == end) {
+                return 0;
+            }
+            if (address.charAt(i) == ':') {
+                if (gapAfter >= 0) {
+                    return 0;
+                }
+                gapAfter = groups;
+                i++;
+            }
+        }
+        if (gapAfter >= 0 ? groups > 7 : groups != 8) {
+            return 0;
+        }
+
+        int zeroBits = 16 * (8 - groups);
+        int node = ipv6Root;
+        if (gapAfter == 0) {
+            node = descend(node, 0, zeroBits);
+            i = 2;
+        } else {
+            i = 0;
+        }
+        int written = 0;
+        while (node >= 0 && i < end) {
+            if (i == ipv4Tail) {
+                node = descend(node, parseIpv4(address, i, end), 32);
+                break;
+            }
+            int group = 0;
+            int digit;
+            while (i < end && (digit = hexValue(address.charAt(i))) >= 0) {
+                group = group << 4 | digit;
+                i++;
+            }
+            node = descend(node, group, 16);
+            i++;
+            if (++written == gapAfter) {
+                node = descend(node, 0, zeroBits);
+                i++;
+            }
+        }
+        return label(node);
+    }
+
+    /**
+     * Follow the top {@code bits} bits of {@code value}; a run of zeros may be longer than 64 bits
+     */
+    private int descend(int node, long value, int bits) {
+        for (int bit = bits - 1; bit >= 0 && node >= 0; bit--) {
+            node = nodes.getInt(HEADER_BYTES + node * NODE_BYTES + (int) (value >>> bit & 1) * Integer.BYTES);
+        }
+        return node;
+    }
+
+    private static int label(int node) {
+        // Every full-length walk ends on a leaf; anything else came from a malformed address
+        return node < 0 ? ~node : 0;
+    }
+
+    /**
+     * @return the address as an unsigned 32-bit value, or -1 if it is not a dotted quad
+     */
+    private static long parseIpv4(CharSequence address, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int i = start;
+        while (octets < 4) {
+            int octet = 0;
+            int digits = 0;
+            while (i < end && digits < 4) {
+                char c = address.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                octet = octet * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || octet > 255) {
+                return -1;
+            }
+            value = value << 8 | octet;
+            if (++octets < 4 && (i == end || address.charAt(i++) != '.')) {
+                return -1;
+            }
+        }
+        return i == end ? value : -1;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static void insert(BuildNode root, byte[] address, int length, int label, IntBinaryOperator refine) {
+        BuildNode node = root;
+        for (int bit = 0; bit < length; bit++) {
+            boolean one = (address[bit >>> 3] & (0x80 >>> (bit & 7))) != 0;
+            if (one) {
+                node = node.one != null ? node.one : (node.one = new BuildNode());
+            } else {
+                node = node.zero != null ? node.zero : (node.zero = new BuildNode());
+            }
+        }
+        node.label = node.label < 0 ? label : refine.applyAsInt(node.label, label);
+    }
+
+    private static final class BuildNode {
+        private BuildNode zero;
+        private BuildNode one;
+        private int label = -1;
+    }
+
+    private static final class NodeWriter {
+        private int[] children = new int[1024];
+        private int count;
+
+        /**
+         * Write the subtree below children first
+         *
+         * @return its index, or the complement of its label if it collapsed into a leaf
+         */
+        int emit(BuildNode node, int enclosing, IntBinaryOperator refine) {
+            int label = node.label < 0 ? enclosing : refine.applyAsInt(enclosing, node.label);
+            if (label < 0) {
+                throw new IllegalArgumentException("Refined label must not be negative");
+            }
+            int zero = node.zero == null ? ~label : emit(node.zero, label, refine);
+            int one = node.one == null ? ~label : emit(node.one, label, refine);
+            if (zero == one && zero < 0) {
+                // Both halves carry the same label, e.g. a prefix nested in one with that label
+                return zero;
+            }
+            if (count * 2 == children.length) {
+                if (count == MAX_NODES) {
+                    throw new IllegalArgumentException("Too many prefixes for one trie file");
+                }
+                children = Arrays.copyOf(children, (int) Math.min(children.length * 2L, MAX_NODES * 2L));
+            }
+            children[count * 2] = zero;
+            children[count * 2 + 1] = one;
+            return count++;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.serialprovider.network;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Classification of an address packed into one int, as stored in a {@link CidrTrie}: category
+ * flags in the low byte and the ISO 3166 country code in the next ten bits. 0 is an unlisted
+ * address.
+ */
+public final class IpLabel {
+
+    public static final int BLOCKLISTED = 1;
+    public static final int DATACENTER = 1 << 1;
+    public static final int PROXY = 1 << 2;
+
+    private static final int FLAG_MASK = 0xFF;
+    private static final int COUNTRY_SHIFT = 8;
+    private static final int COUNTRY_MASK = 0x3FF << COUNTRY_SHIFT;
+
+    private IpLabel() {
+    }
+
+    /**
+     * @param country two ASCII letters, or null if unknown
+     */
+    public static int of(int flags, String country) {
+        if ((flags & ~FLAG_MASK) != 0) {
+            throw new IllegalArgumentException("Unknown category flags " + flags);
+        }
+        int label = flags;
+        if (country != null && !country.isEmpty()) {
+            String code = country.toUpperCase(Locale.ROOT);
+            if (code.length() != 2 || !isLetter(code.charAt(0)) || !isLetter(code.charAt(1))) {
+                throw new IllegalArgumentException("Not a two-letter country code: " + country);
+            }
+            label |= ((code.charAt(0) - 'A') * 26 + (code.charAt(1) - 'A') + 1) << COUNTRY_SHIFT;
+        }
+        return label;
+    }
+
+    /**
+     * @return the flag for a category name in a CIDR list
+     */
+    public static int category(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "blocklisted" -> BLOCKLISTED;
+            case "datacenter" -> DATACENTER;
+            case "proxy" -> PROXY;
+            default -> throw new IllegalArgumentException("Unknown category: " + name);
+        };
+    }
+
+    /**
+     * Label of a network listed inside another: categories add up, the inner country wins
+     */
+    public static int refine(int enclosing, int own) {
+        int country = (own & COUNTRY_MASK) != 0 ? own & COUNTRY_MASK : enclosing & COUNTRY_MASK;
+        return (enclosing | own) & FLAG_MASK | country;
+    }
+
+    public static boolean isBlocklisted(int label) {
+        return (label & BLOCKLISTED) != 0;
+    }
+
+    public static boolean isDatacenter(int label) {
+        return (label & DATACENTER) != 0;
+    }
+
+    public static boolean isProxy(int label) {
+        return (label & PROXY) != 0;
+    }
+
+    /**
+     * @return the country code, or null if the label has none
+     */
+    public static String country(int label) {
+        int code = (label & COUNTRY_MASK) >>> COUNTRY_SHIFT;
+        if (code == 0) {
+            return null;
+        }
+        code--;
+        return new String(new char[] {(char) ('A' + code / 26), (char) ('A' + code % 26)});
+    }
+
+    /**
+     * Category names for logs, e.g. {@code datacenter|proxy}
+     */
+    public static String describe(int label) {
+        StringJoiner names = new StringJoiner("|");
+        if (isBlocklisted(label)) {
+            names.add("blocklisted");
+        }
+        if (isDatacenter(label)) {
+            names.add("datacenter");
+        }
+        if (isProxy(label)) {
+            names.add("proxy");
+        }
+        return names.length() == 0 ? "unlisted" : names.toString();
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
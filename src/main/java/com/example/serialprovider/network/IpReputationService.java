@@ -0,0 +1,206 @@
+package com.example.serialprovider.network;
+
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classifies client addresses from a local CIDR list: blocklisted, data-centre and proxy
+ * ranges, and the country.
+ *
+ * <p>The list is a text file with one {@code network,categories,country} line per range
+ * (categories separated by {@code |}, both optional; {@code #} starts a comment). It is
+ * compiled into a {@link CidrTrie} in a temporary file and memory-mapped. The file is polled
+ * for changes; a changed list is compiled off the request path and swapped in with a single
+ * volatile write, so a lookup sees either the old trie or the new one. A list that fails to
+ * load at startup fails startup; a bad edit later is reported and the previous trie stays.
+ */
+@Component
+public class IpReputationService {
+
+    /**
+     * Request attribute holding the label once a request has been classified
+     */
+    public static final String REQUEST_ATTRIBUTE = IpReputationService.class.getName() + ".label";
+
+    private final Path source;
+    private final boolean denyBlocklisted;
+    private final AuthEventLogger eventLogger;
+    private volatile LoadedList current;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder listedLookups = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failedReloads = new LongAdder();
+
+    public IpReputationService(@Value("${auth.ip-reputation.path:}") String path,
+                               @Value("${auth.ip-reputation.deny-blocklisted:true}") boolean denyBlocklisted,
+                               AuthEventLogger eventLogger) {
+        this.source = path.isBlank() ? null : Path.of(path);
+        this.denyBlocklisted = denyBlocklisted;
+        this.eventLogger = eventLogger;
+        if (source != null) {
+            try {
+                this.current = load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load IP list " + path, e);
+            }
+        }
+    }
+
+    private record LoadedList(CidrTrie trie, FileTime modified, long size, int prefixes) {
+    }
+
+    /**
+     * Recompile the list if the file changed since it was last loaded
+     */
+    @Scheduled(fixedDelayString = "${auth.ip-reputation.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        if (source == null) {
+            return;
+        }
+        LoadedList loaded = current;
+        try {
+            if (Files.getLastModifiedTime(source).equals(loaded.modified()) && Files.size(source) == loaded.size()) {
+                return;
+            }
+            LoadedList reloaded = load();
+            current = reloaded;
+            reloads.increment();
+            eventLogger.event(AuthEventType.IP_LIST_RELOADED)
+                .field("prefixes", String.valueOf(reloaded.prefixes()))
+                .field("nodes", String.valueOf(reloaded.trie().getNodeCount()))
+                .publish();
+        } catch (IOException | RuntimeException e) {
+            failedReloads.increment();
+            eventLogger.event(AuthEventType.IP_LIST_RELOAD_FAILED)
+                .field("path", source.toString())
+                .field("error", String.valueOf(e.getMessage()))
+                .publish();
+        }
+    }
+
+    /**
+     * @return the {@link IpLabel} of the address; 0 if it is unlisted, malformed or no list is configured
+     */
+    public int classify(CharSequence address) {
+        LoadedList loaded = current;
+        if (loaded == null) {
+            return 0;
+        }
+        int label = loaded.trie().lookup(address);
+        lookups.increment();
+        if (label != 0) {
+            listedLookups.increment();
+        }
+        return label;
+    }
+
+    /**
+     * Classify the client of a request once; later callers on the same request reuse the result
+     */
+    public int classify(HttpServletRequest request) {
+        if (request.getAttribute(REQUEST_ATTRIBUTE) instanceof Integer label) {
+            return label;
+        }
+        int label = classify(request.getRemoteAddr());
+        request.setAttribute(REQUEST_ATTRIBUTE, label);
+        return label;
+    }
+
+    /**
+     * @return true if the request comes from a blocklisted range and such ranges are denied
+     */
+    public boolean isDenied(HttpServletRequest request) {
+        return denyBlocklisted && current != null && IpLabel.isBlocklisted(classify(request));
+    }
+
+    public Stats getStats() {
+        LoadedList loaded = current;
+        return new Stats(loaded != null,
+            loaded != null ? loaded.prefixes() : 0,
+            loaded != null ? loaded.trie().getNodeCount() : 0,
+            loaded != null ? loaded.trie().getSizeBytes() : 0,
+            lookups.sum(), listedLookups.sum(), reloads.sum(), failedReloads.sum());
+    }
+
+    private LoadedList load() throws IOException {
+        // Taken before reading, so an edit made while compiling is picked up by the next poll
+        FileTime modified = Files.getLastModifiedTime(source);
+        long size = Files.size(source);
+        List<CidrTrie.Prefix> prefixes = readList(source);
+
+        Path compiled = Files.createTempFile("ip-reputation", ".trie");
+        try {
+            CidrTrie.compile(prefixes, IpLabel::refine, compiled);
+            return new LoadedList(CidrTrie.open(compiled), modified, size, prefixes.size());
+        } finally {
+            try {
+                // The mapping outlives the file where the OS allows it
+                Files.deleteIfExists(compiled);
+            } catch (IOException e) {
+                compiled.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private static List<CidrTrie.Prefix> readList(Path file) throws IOException {
+        List<CidrTrie.Prefix> prefixes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                try {
+                    String[] columns = entry.split(",", -1);
+                    if (columns.length > 3) {
+                        throw new IllegalArgumentException("Expected network,categories,country");
+                    }
+                    int flags = 0;
+                    if (columns.length > 1 && !columns[1].isBlank()) {
+                        for (String category : columns[1].split("\\|")) {
+                            flags |= IpLabel.category(category);
+                        }
+                    }
+                    String country = columns.length > 2 ? columns[2].trim() : null;
+                    prefixes.add(CidrTrie.Prefix.parse(columns[0].trim(), IpLabel.of(flags, country)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + " line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Lookup counters since startup and the size of the loaded trie
+     */
+    public record Stats(boolean loaded,
+                        int prefixes,
+                        int trieNodes,
+                        long trieBytes,
+                        long lookups,
+                        long listedLookups,
+                        long reloads,
+                        long failedReloads) {
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.serialprovider.reactive;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.LoginRequestDetails;
+import com.example.serialprovider.auth.risk.LoginHistory;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepChain;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.auth.step.OnboardingAuthenticationStep;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import com.example.serialprovider.auth.token.OnboardingAuthenticationToken;
+import com.example.serialprovider.auth.token.OtpAuthenticationToken;
+import com.example.serialprovider.auth.token.UsernamePasswordAuthenticationToken;
+import com.example.serialprovider.controller.AuthController;
+import com.example.serialprovider.service.OnboardingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The password, OTP and onboarding endpoints of {@link AuthController}, with the same request
+ * and response bodies, on WebFlux. Each step goes through {@link ReactiveAuthenticationStepChain};
+ * the handlers themselves never block.
+ */
+@RestController
+@RequestMapping("/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private final ReactiveAuthenticationStepChain stepChain;
+    private final ReactiveAuthenticationSessions authenticationSessions;
+    private final WebSessionServerSecurityContextRepository securityContextRepository;
+    private final LoginHistory loginHistory;
+    private final String deviceCookieName;
+
+    public ReactiveAuthController(ReactiveAuthenticationStepChain stepChain,
+                                  ReactiveAuthenticationSessions authenticationSessions,
+                                  WebSessionServerSecurityContextRepository securityContextRepository,
+                                  LoginHistory loginHistory,
+                                  @Value("${auth.device.cookie-name:SERIAL_PROVIDER_DEVICE}") String deviceCookieName) {
+        this.stepChain = stepChain;
+        this.authenticationSessions = authenticationSessions;
+        this.securityContextRepository = securityContextRepository;
+        this.loginHistory = loginHistory;
+        this.deviceCookieName = deviceCookieName;
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Map<String, Object>>> login(@RequestBody AuthController.LoginRequest request,
+                                                           ServerWebExchange exchange) {
+        // A new login gets a new session id, so one fixed before the password cannot ride along
+        return exchange.getSession()
+            .flatMap(webSession -> webSession.changeSessionId().thenReturn(webSession))
+            .flatMap(webSession -> {
+                UsernamePasswordAuthenticationToken token =
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword());
+                token.setDetails(new LoginRequestDetails(remoteAddress(exchange),
+                    exchange.getRequest().getHeaders().getFirst(HttpHeaders.USER_AGENT),
+                    cookie(exchange, deviceCookieName), cookie(exchange, loginHistory.getDeviceCookieName()),
+                    webSession.getId()));
+                return step(exchange, authenticationSessions.of(webSession), PasswordAuthenticationStep.STEP_ID,
+                    session -> token);
+            });
+    }
+
+    @PostMapping("/otp")
+    public Mono<ResponseEntity<Map<String, Object>>> verifyOtp(@RequestBody AuthController.OtpRequest request,
+                                                               ServerWebExchange exchange) {
+        // Whether OTP is part of the user's flow is checked by the chain, as for any step
+        return exchange.getSession().flatMap(webSession -> step(exchange, authenticationSessions.of(webSession),
+            OtpAuthenticationStep.STEP_ID, session -> new OtpAuthenticationToken(session.getUsername(), request.getOtp())));
+    }
+
+    @PostMapping("/onboard")
+    public Mono<ResponseEntity<Map<String, Object>>> completeOnboarding(@RequestBody OnboardingService.OnboardingData data,
+                                                                        ServerWebExchange exchange) {
+        return exchange.getSession().flatMap(webSession -> step(exchange, authenticationSessions.of(webSession),
+            OnboardingAuthenticationStep.STEP_ID, session -> new OnboardingAuthenticationToken(session.getUsername(), data)));
+    }
+
+    @GetMapping("/status")
+    public Mono<ResponseEntity<Map<String, Object>>> getStatus(ServerWebExchange exchange) {
+        return authenticationSessions.find(exchange)
+            .map(session -> Map.<String, Object>of(
+                "user", session.getUsername() != null ? session.getUsername() : "null",
+                "currentState", session.getState(),
+                "isExpired", session.isExpired(),
+                "onboardingCompleted", session.isOnboardingCompleted()))
+            .defaultIfEmpty(Map.of("user", "null", "currentState", "UNAUTHENTICATED"))
+            .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Map<String, Object>>> logout(ServerWebExchange exchange) {
+        return authenticationSessions.find(exchange)
+            .flatMap(stepChain::resetAllSteps)
+            .then(exchange.getSession().flatMap(webSession -> webSession.invalidate()))
+            .thenReturn(ResponseEntity.ok(Map.of("message", "Logged out successfully")));
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> step(ServerWebExchange exchange, AuthenticationSession session,
+                                                           String stepId,
+                                                           Function<AuthenticationSession, Authentication> token) {
+        return stepChain.processStep(stepId, token.apply(session), session)
+            .flatMap(result -> result.isSuccess()
+                ? stepChain.position(session).flatMap(position -> respond(exchange, session, result, position))
+                : Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<Map<String, Object>>body(Map.of(
+                    "error", result.getMessage() != null ? result.getMessage() : "Authentication failed",
+                    "nextStep", "login"))));
+    }
+
+    /**
+     * Same body as the servlet success handler, without the tokens, which the edge does not issue
+     */
+    private Mono<ResponseEntity<Map<String, Object>>> respond(ServerWebExchange exchange, AuthenticationSession session,
+                                                              AuthenticationStepResult result,
+                                                              ReactiveAuthenticationStepChain.Position position) {
+        AuthenticationStepChain.AuthenticationProgress progress = position.progress();
+        Mono<Void> completion = Mono.empty();
+        String message;
+        String nextStep;
+        if (position.nextStep().isPresent()) {
+            AuthenticationStep next = position.nextStep().get();
+            message = next.getSuccessMessage();
+            nextStep = next.getStepId();
+        } else if (progress.isFullyAuthenticated()) {
+            message = "Authentication completed successfully!";
+            nextStep = "dashboard";
+            completion = completeLogin(exchange, session, result);
+        } else {
+            message = "Please start authentication.";
+            nextStep = "login";
+        }
+        Map<String, Object> body = new HashMap<>(Map.of(
+            "message", message,
+            "nextStep", nextStep,
+            "fullyAuthenticated", "dashboard".equals(nextStep),
+            "progress", Map.of(
+                "completedSteps", progress.getCompletedSteps(),
+                "totalSteps", progress.getTotalSteps(),
+                "percentage", Math.round(progress.getProgressPercentage())
+            ),
+            "user", session.getUsername() != null ? session.getUsername() : "null",
+            "flowDescription", position.flowDescription()
+        ));
+        return completion.thenReturn(ResponseEntity.ok(body));
+    }
+
+    /**
+     * The security context /api is authorized against, and the known-device cookie the risk
+     * step looks for next time
+     */
+    private Mono<Void> completeLogin(ServerWebExchange exchange, AuthenticationSession session,
+                                     AuthenticationStepResult result) {
+        String deviceId = loginHistory.recordCompletedLogin(session.getUsername(),
+            cookie(exchange, loginHistory.getDeviceCookieName()), Instant.now());
+        exchange.getResponse().addCookie(loginHistory.deviceCookie(deviceId, isSecure(exchange)));
+        return securityContextRepository.save(exchange, new SecurityContextImpl(
+            new PreAuthenticatedAuthenticationToken(session.getUsername(), null, result.getGrantedAuthorities())));
+    }
+
+    private static String cookie(ServerWebExchange exchange, String name) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(name);
+        return cookie != null ? cookie.getValue() : null;
+    }
+
+    private static String remoteAddress(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        return address != null && address.getAddress() != null ? address.getAddress().getHostAddress() : null;
+    }
+
+    private static boolean isSecure(ServerWebExchange exchange) {
+        return exchange.getRequest().getSslInfo() != null;
+    }
+}
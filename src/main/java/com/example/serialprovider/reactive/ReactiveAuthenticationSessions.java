@@ -0,0 +1,60 @@
+package com.example.serialprovider.reactive;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.AuthenticationState;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps each browser's {@link AuthenticationSession} in its {@link WebSession}, the reactive
+ * counterpart of the session-scoped bean. The session repository holds the object itself, so
+ * parallel requests of one browser share it and its compare-and-set updates work as on the
+ * servlet stack.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthenticationSessions {
+
+    static final String ATTRIBUTE = AuthenticationSession.class.getName();
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    /**
+     * The login progress of the web session, started if there is none yet
+     */
+    public AuthenticationSession of(WebSession webSession) {
+        return (AuthenticationSession) webSession.getAttributes()
+            .computeIfAbsent(ATTRIBUTE, key -> new AuthenticationSession());
+    }
+
+    /**
+     * Progress only if the browser already has some
+     */
+    public Mono<AuthenticationSession> find(ServerWebExchange exchange) {
+        return exchange.getSession().mapNotNull(webSession -> webSession.getAttribute(ATTRIBUTE));
+    }
+
+    /**
+     * Grants /api to the user who finished every step in this session, while it is still
+     * fully authenticated; a reset or expiry revokes access along with the session state
+     */
+    public Mono<AuthorizationDecision> authorizeApi(Mono<Authentication> authentication, AuthorizationContext context) {
+        return authentication
+            .filter(Authentication::isAuthenticated)
+            .filter(auth -> auth.getAuthorities().stream()
+                .anyMatch(authority -> "FULLY_AUTHENTICATED".equals(authority.getAuthority())))
+            .flatMap(auth -> find(context.getExchange())
+                .map(session -> session.getState() == AuthenticationState.FULLY_AUTHENTICATED
+                    && !session.isExpired()
+                    && auth.getName().equals(session.getUsername())))
+            .map(granted -> granted ? GRANTED : DENIED)
+            .defaultIfEmpty(DENIED);
+    }
+}
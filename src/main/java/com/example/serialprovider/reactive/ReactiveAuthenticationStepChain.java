@@ -0,0 +1,57 @@
+package com.example.serialprovider.reactive;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepChain;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+/**
+ * {@link AuthenticationStepChain} for reactive callers. Steps block (password hashing, the
+ * database behind settings and trusted devices, risk signals with timeouts), and so can the
+ * flow lookups through the settings cache, so every call runs on the bounded elastic
+ * scheduler and never on a Netty event loop.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthenticationStepChain {
+
+    private final AuthenticationStepChain stepChain;
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    public ReactiveAuthenticationStepChain(AuthenticationStepChain stepChain) {
+        this.stepChain = stepChain;
+    }
+
+    public Mono<AuthenticationStepResult> processStep(String stepId, Authentication authentication, AuthenticationSession session) {
+        return Mono.fromCallable(() -> stepChain.processStep(stepId, authentication, session))
+            .subscribeOn(scheduler);
+    }
+
+    /**
+     * Where the session stands after a step: the next step, if any, and the progress
+     */
+    public Mono<Position> position(AuthenticationSession session) {
+        return Mono.fromCallable(() -> new Position(stepChain.getNextStep(session),
+                stepChain.getProgress(session), stepChain.getFlowDescription(session)))
+            .subscribeOn(scheduler);
+    }
+
+    public Mono<Void> resetAllSteps(AuthenticationSession session) {
+        return Mono.fromRunnable(() -> stepChain.resetAllSteps(session))
+            .subscribeOn(scheduler)
+            .then();
+    }
+
+    public record Position(Optional<AuthenticationStep> nextStep,
+                           AuthenticationStepChain.AuthenticationProgress progress,
+                           String flowDescription) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.serialprovider.reactive;
+
+import com.example.serialprovider.SerialProviderApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * The login flow on WebFlux and Netty, for an edge node where an idle connection should cost
+ * next to nothing.
+ *
+ * <p>Steps, flows and services are the ones {@link SerialProviderApplication} uses; what
+ * differs is the web layer around them. {@link ReactiveAuthenticationStepChain} runs the
+ * blocking step chain off the event loop, the session lives in a reactive Spring Session
+ * repository and {@link ReactiveEdgeConfig} secures the routes with a WebFlux filter chain.
+ * Everything bound to the servlet API (controllers, the servlet security chain and its
+ * authorization managers and handlers, the session-scoped session bean's users) is left out.
+ * Tokens and the admin pages stay on the servlet application.
+ *
+ * <p>Not a {@code @SpringBootConfiguration}, so tests keep finding the servlet application;
+ * the classes in this package only load in a reactive context.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// Entities and repositories are found from the application root, not from this package
+@AutoConfigurationPackage(basePackageClasses = SerialProviderApplication.class)
+@EnableAutoConfiguration(exclude = ReactiveUserDetailsServiceAutoConfiguration.class)
+@ComponentScan(basePackageClasses = SerialProviderApplication.class, excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+    @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+    @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SerialProviderApplication.class),
+    @ComponentScan.Filter(type = FilterType.REGEX, pattern = {
+        "com\\.example\\.serialprovider\\.controller\\.(?!ProtectedController$).*",
+        "com\\.example\\.serialprovider\\.config\\.SecurityConfig.*",
+        "com\\.example\\.serialprovider\\.auth\\.(authorization|handler|provider|event)\\..*",
+        "com\\.example\\.serialprovider\\.auth\\.(StepBasedAuthenticationManager|MultiFactorAuthentication.*)",
+        "com\\.example\\.serialprovider\\.tracing\\.AuthTracingFilter",
+        "com\\.example\\.serialprovider\\.session\\..*"
+    })
+})
+public class ReactiveEdgeApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveEdgeApplication.class)
+            .properties("spring.main.web-application-type=reactive")
+            .run(args);
+    }
+}
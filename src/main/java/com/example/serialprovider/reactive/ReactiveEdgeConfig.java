@@ -0,0 +1,86 @@
+package com.example.serialprovider.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.session.ReactiveMapSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.config.annotation.web.server.EnableSpringWebSession;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store and security chain of the {@link ReactiveEdgeApplication}.
+ *
+ * <p>Sessions go through Spring Session's reactive repository, here the in-memory map with a
+ * periodic sweep of expired entries; a shared backend's {@code ReactiveSessionRepository}
+ * replaces it for more than one edge node. The filter chain mirrors the servlet one for the
+ * routes the edge serves: /auth is open, /api needs a completed login in the same session
+ * and everything else is refused.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+@EnableSpringWebSession
+public class ReactiveEdgeConfig {
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Tomcat is on the classpath for the servlet application, and Boot would pick it for a
+     * reactive server too
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactiveMapSessionRepository reactiveSessionRepository(
+            @Value("${server.reactive.session.timeout:30m}") Duration sessionTimeout) {
+        ReactiveMapSessionRepository repository = new ReactiveMapSessionRepository(sessions);
+        repository.setDefaultMaxInactiveInterval(sessionTimeout);
+        return repository;
+    }
+
+    @Bean
+    public WebSessionServerSecurityContextRepository securityContextRepository() {
+        return new WebSessionServerSecurityContextRepository();
+    }
+
+    @Bean
+    public SecurityWebFilterChain edgeSecurityFilterChain(ServerHttpSecurity http,
+                                                          WebSessionServerSecurityContextRepository securityContextRepository,
+                                                          ReactiveAuthenticationSessions authenticationSessions) {
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            // Logout is an /auth endpoint, as on the servlet application
+            .logout(ServerHttpSecurity.LogoutSpec::disable)
+            .securityContextRepository(securityContextRepository)
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers("/auth/**").permitAll()
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .pathMatchers("/api/**").access(authenticationSessions::authorizeApi)
+                .anyExchange().denyAll())
+            .build();
+    }
+
+    /**
+     * The map repository only drops an expired session when it is looked up again
+     */
+    @Scheduled(fixedDelayString = "${auth.reactive.session-sweep-interval:60s}")
+    void removeExpiredSessions() {
+        sessions.values().removeIf(Session::isExpired);
+    }
+}
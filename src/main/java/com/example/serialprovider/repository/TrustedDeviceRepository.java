@@ -0,0 +1,21 @@
+package com.example.serialprovider.repository;
+
+import com.example.serialprovider.entity.TrustedDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface TrustedDeviceRepository extends JpaRepository<TrustedDevice, Long> {
+    
+    List<TrustedDevice> findByExpiresAtGreaterThan(Long epochSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TrustedDevice d WHERE d.expiresAt <= :epochSeconds")
+    int deleteExpired(Long epochSeconds);
+}
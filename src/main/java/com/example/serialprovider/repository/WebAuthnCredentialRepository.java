@@ -0,0 +1,27 @@
+package com.example.serialprovider.repository;
+
+import com.example.serialprovider.entity.WebAuthnCredential;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface WebAuthnCredentialRepository extends JpaRepository<WebAuthnCredential, String> {
+
+    List<WebAuthnCredential> findByUsername(String username);
+
+    /**
+     * Store a new signature counter unless another node already stored this one or a later one.
+     * Authenticators without a counter always report 0, which is accepted while the stored one is 0.
+     * @return 1 if the counter was advanced
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebAuthnCredential c SET c.signCount = :signCount, c.lastUsedAt = :usedAt " +
+           "WHERE c.credentialId = :credentialId AND (c.signCount < :signCount OR (c.signCount = 0 AND :signCount = 0))")
+    int advanceSignCount(String credentialId, long signCount, long usedAt);
+}
@@ -0,0 +1,9 @@
+package com.example.serialprovider.service;
+
+/**
+ * Published after the authentication flow settings have been changed.
+ */
+public record AuthenticationSettingsChangedEvent(boolean otpEnabled,
+                                                 boolean onboardingEnabled,
+                                                 String flowDescription) {
+}
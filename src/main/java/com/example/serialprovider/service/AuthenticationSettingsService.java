@@ -1,28 +1,83 @@
 package com.example.serialprovider.service;
 
+import com.example.serialprovider.config.CacheConfig;
 import com.example.serialprovider.entity.AuthenticationSettings;
+import com.example.serialprovider.invalidation.SettingsInvalidationBus;
+import com.example.serialprovider.invalidation.SettingsInvalidationBus.SettingsChange;
 import com.example.serialprovider.repository.AuthenticationSettingsRepository;
+import com.example.serialprovider.tracing.AuthTracer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
 
 @Service
 public class AuthenticationSettingsService {
     
     private final AuthenticationSettingsRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthTracer tracer;
+    private final Cache settingsCache;
+    private final SettingsInvalidationBus invalidationBus;
+    // Settings one thread runs under instead of the stored ones; see runWithSettings
+    private final ThreadLocal<AuthenticationSettings> threadSettings = new ThreadLocal<>();
     
-    public AuthenticationSettingsService(AuthenticationSettingsRepository repository) {
+    public AuthenticationSettingsService(AuthenticationSettingsRepository repository,
+                                         ApplicationEventPublisher eventPublisher,
+                                         AuthTracer tracer,
+                                         CacheManager cacheManager,
+                                         SettingsInvalidationBus invalidationBus) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.tracer = tracer;
+        this.settingsCache = cacheManager.getCache(CacheConfig.AUTH_SETTINGS_CACHE);
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(this::applyRemoteChange);
     }
     
-    @Cacheable("authSettings")
+    /**
+     * Goes through the cache directly rather than @Cacheable, so the lookups below that call
+     * this on the same instance are cached too. Concurrent misses share a single load.
+     */
     public AuthenticationSettings getCurrentSettings() {
-        return repository.findDefaultOrCreate();
+        AuthenticationSettings overridden = threadSettings.get();
+        if (overridden != null) {
+            return overridden;
+        }
+        // The loader only runs on a miss or refresh, so this span marks a database load
+        return settingsCache.get(SimpleKey.EMPTY,
+            () -> tracer.inSpan("settings.load", repository::findDefaultOrCreate));
+    }
+    
+    /**
+     * Run task on the calling thread as if OTP and onboarding were switched as given, e.g. to
+     * warm up every flow. Nothing is saved, cached or sent to the other nodes, and other threads
+     * keep seeing the stored settings; plugins stay as stored.
+     */
+    public <T> T runWithSettings(boolean otpEnabled, boolean onboardingEnabled, Supplier<T> task) {
+        AuthenticationSettings previous = threadSettings.get();
+        AuthenticationSettings settings = new AuthenticationSettings(otpEnabled, onboardingEnabled);
+        settings.setEnabledPlugins(getCurrentSettings().getEnabledPlugins());
+        threadSettings.set(settings);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                threadSettings.remove();
+            } else {
+                threadSettings.set(previous);
+            }
+        }
     }
     
     @Transactional
-    @CacheEvict(value = "authSettings", allEntries = true)
     public AuthenticationSettings updateSettings(boolean otpEnabled, boolean onboardingEnabled) {
         AuthenticationSettings settings = repository.findDefaultSettings()
                 .orElse(new AuthenticationSettings());
@@ -32,11 +87,33 @@ public class AuthenticationSettingsService {
         settings.setOnboardingEnabled(onboardingEnabled);
         settings.setDescription("Default authentication settings - Updated");
         
-        return repository.save(settings);
+        AuthenticationSettings saved = repository.save(settings);
+        applyAfterCommit(saved);
+        eventPublisher.publishEvent(new AuthenticationSettingsChangedEvent(
+            saved.isOtpEnabled(), saved.isOnboardingEnabled(), saved.getFlowDescription()));
+        return saved;
+    }
+    
+    /**
+     * Switch a step plugin on or off; the other settings are kept
+     */
+    @Transactional
+    public AuthenticationSettings setPluginEnabled(String stepId, boolean enabled) {
+        AuthenticationSettings settings = repository.findDefaultSettings()
+                .orElse(new AuthenticationSettings());
+        
+        settings.setSettingName("DEFAULT");
+        settings.setPluginEnabled(stepId, enabled);
+        
+        AuthenticationSettings saved = repository.save(settings);
+        applyAfterCommit(saved);
+        eventPublisher.publishEvent(new AuthenticationSettingsChangedEvent(
+            saved.isOtpEnabled(), saved.isOnboardingEnabled(), saved.getFlowDescription()));
+        return saved;
     }
     
     @Transactional
-    @CacheEvict(value = "authSettings", allEntries = true)
+    @CacheEvict(value = CacheConfig.AUTH_SETTINGS_CACHE, allEntries = true)
     public void initializeDefaultSettings() {
         if (repository.findDefaultSettings().isEmpty()) {
             AuthenticationSettings defaultSettings = new AuthenticationSettings(true, true);
@@ -46,13 +123,69 @@ public class AuthenticationSettingsService {
         }
     }
     
+    /**
+     * Replace the cached settings once the update is visible to other transactions, then tell
+     * the other nodes. An evict-and-reload could read the old row if it ran before the commit.
+     */
+    private void applyAfterCommit(AuthenticationSettings saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyCommitted(saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyCommitted(saved);
+            }
+        });
+    }
+    
+    private void applyCommitted(AuthenticationSettings saved) {
+        settingsCache.put(SimpleKey.EMPTY, saved);
+        // The version was assigned when the update was flushed
+        invalidationBus.publish(new SettingsChange(
+            saved.getVersion(), saved.isOtpEnabled(), saved.isOnboardingEnabled(), saved.getEnabledPlugins()));
+    }
+    
+    /**
+     * Apply a change committed on another node without a database round trip. Changes older
+     * than the cached settings are ignored, since the bus may deliver them out of order.
+     */
+    private synchronized void applyRemoteChange(SettingsChange change) {
+        AuthenticationSettings cached = settingsCache.get(SimpleKey.EMPTY, AuthenticationSettings.class);
+        if (cached == null) {
+            // Nothing cached yet; the next lookup loads the committed row
+            return;
+        }
+        if (cached.getVersion() != null && cached.getVersion() >= change.version()) {
+            return;
+        }
+        
+        AuthenticationSettings updated = new AuthenticationSettings(change.otpEnabled(), change.onboardingEnabled());
+        updated.setId(cached.getId());
+        updated.setEnabledPlugins(change.enabledPlugins());
+        updated.setSettingName(cached.getSettingName());
+        updated.setDescription(cached.getDescription());
+        updated.setVersion(change.version());
+        settingsCache.put(SimpleKey.EMPTY, updated);
+        eventPublisher.publishEvent(new AuthenticationSettingsChangedEvent(
+            updated.isOtpEnabled(), updated.isOnboardingEnabled(), updated.getFlowDescription()));
+    }
+    
     // Convenient methods for checking individual settings
     public boolean isOtpEnabled() {
-        return getCurrentSettings().isOtpEnabled();
+        return tracer.inSpan("settings.lookup.otp", () -> getCurrentSettings().isOtpEnabled());
     }
     
     public boolean isOnboardingEnabled() {
-        return getCurrentSettings().isOnboardingEnabled();
+        return tracer.inSpan("settings.lookup.onboarding", () -> getCurrentSettings().isOnboardingEnabled());
+    }
+    
+    /**
+     * Whether a step plugin is switched on
+     */
+    public boolean isPluginEnabled(String stepId) {
+        return getCurrentSettings().isPluginEnabled(stepId);
     }
     
     // Get next step in authentication flow
@@ -0,0 +1,162 @@
+package com.example.serialprovider.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Read-only view of a breached-password corpus: a headerless file of fixed-width SHA-1
+ * prefixes sorted in unsigned byte order.
+ *
+ * <p>The file is memory-mapped in chunks (a single mapping is limited to 2 GB) and searched in
+ * place, so nothing is copied to the heap and the page cache is shared with every other
+ * process reading the same file. SHA-1 output is uniformly distributed, which makes
+ * interpolation search land within a few records of the target; a handful of probes, each a
+ * page-cache read, keeps a lookup in the low microseconds even for hundreds of millions of
+ * records. Binary search takes over if interpolation stops converging.
+ *
+ * <p>Mappings are released by the garbage collector once the corpus is unreachable.
+ */
+public class BreachCorpus {
+
+    private static final int MAX_INTERPOLATION_STEPS = 8;
+    private static final long DEFAULT_CHUNK_BYTES = 1L << 30;
+
+    private final int recordBytes;
+    private final long recordCount;
+    private final long recordsPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    public BreachCorpus(Path file, int recordBytes) throws IOException {
+        this(file, recordBytes, DEFAULT_CHUNK_BYTES);
+    }
+
+    BreachCorpus(Path file, int recordBytes, long maxChunkBytes) throws IOException {
+        if (recordBytes < Long.BYTES || recordBytes > 20) {
+            throw new IllegalArgumentException("Record width must be between 8 and 20 bytes of SHA-1");
+        }
+        this.recordBytes = recordBytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % recordBytes != 0) {
+                throw new IOException("Corpus size " + size + " is not a multiple of the record width " + recordBytes);
+            }
+            this.recordCount = size / recordBytes;
+            // Chunks hold whole records so a record never straddles two mappings
+            this.recordsPerChunk = Math.max(1, maxChunkBytes / recordBytes);
+            int chunkCount = (int) ((recordCount + recordsPerChunk - 1) / recordsPerChunk);
+            this.chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long offset = i * recordsPerChunk * recordBytes;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(recordsPerChunk * recordBytes, size - offset));
+            }
+        }
+    }
+
+    public boolean containsPassword(String password) {
+        return contains(sha1(password));
+    }
+
+    /**
+     * @param hash a full SHA-1 digest; only the first record-width bytes are compared
+     */
+    public boolean contains(byte[] hash) {
+        if (recordCount == 0) {
+            return false;
+        }
+        long key = leadingLong(hash);
+        long lo = 0;
+        long hi = recordCount - 1;
+        int steps = 0;
+        while (lo <= hi) {
+            long mid;
+            if (steps++ < MAX_INTERPOLATION_STEPS) {
+                long loKey = leadingLong(lo);
+                long hiKey = leadingLong(hi);
+                if (Long.compareUnsigned(key, loKey) < 0 || Long.compareUnsigned(key, hiKey) > 0) {
+                    return false;
+                }
+                mid = interpolate(key, loKey, hiKey, lo, hi);
+            } else {
+                mid = (lo + hi) >>> 1;
+            }
+            int comparison = compare(mid, key, hash);
+            if (comparison == 0) {
+                return true;
+            } else if (comparison < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getRecordBytes() {
+        return recordBytes;
+    }
+
+    static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 unavailable", e);
+        }
+    }
+
+    private static long interpolate(long key, long loKey, long hiKey, long lo, long hi) {
+        if (loKey == hiKey) {
+            return lo;
+        }
+        // Unsigned keys as fractions of the range; doubles are precise enough to land close
+        double fraction = unsignedToDouble(key - loKey) / unsignedToDouble(hiKey - loKey);
+        long mid = lo + (long) (fraction * (hi - lo));
+        return Math.max(lo, Math.min(hi, mid));
+    }
+
+    private static double unsignedToDouble(long value) {
+        double result = (double) (value >>> 1) * 2.0;
+        return result + (value & 1);
+    }
+
+    /**
+     * Compare record {@code index} with the key, unsigned: negative if the record is smaller
+     */
+    private int compare(long index, long key, byte[] hash) {
+        int comparison = Long.compareUnsigned(leadingLong(index), key);
+        if (comparison != 0 || recordBytes == Long.BYTES) {
+            return comparison;
+        }
+        MappedByteBuffer chunk = chunks[(int) (index / recordsPerChunk)];
+        int offset = (int) (index % recordsPerChunk) * recordBytes;
+        for (int i = Long.BYTES; i < recordBytes; i++) {
+            comparison = Integer.compare(chunk.get(offset + i) & 0xFF, hash[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private long leadingLong(long index) {
+        // Absolute reads: no position changes, so the buffers are safe to share between threads
+        return chunks[(int) (index / recordsPerChunk)].getLong((int) (index % recordsPerChunk) * recordBytes);
+    }
+
+    private static long leadingLong(byte[] hash) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << 8 | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+}
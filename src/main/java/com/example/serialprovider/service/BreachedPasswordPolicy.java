@@ -0,0 +1,84 @@
+package com.example.serialprovider.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional check of passwords against a local {@link BreachCorpus}, applied when a password
+ * is set and on every successful login.
+ *
+ * <p>OFF skips the check, WARN lets the login through and reports it, REJECT refuses it. The
+ * corpus is opened once at startup; a missing path or an unreadable file fails startup
+ * rather than silently disabling the policy.
+ */
+@Component
+public class BreachedPasswordPolicy {
+
+    public enum Mode {
+        OFF, WARN, REJECT
+    }
+
+    private final Mode mode;
+    private final BreachCorpus corpus;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder breached = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+
+    public BreachedPasswordPolicy(@Value("${auth.breach-corpus.mode:off}") Mode mode,
+                                  @Value("${auth.breach-corpus.path:}") String path,
+                                  @Value("${auth.breach-corpus.record-bytes:8}") int recordBytes) {
+        if (mode == Mode.OFF) {
+            this.mode = Mode.OFF;
+            this.corpus = null;
+            return;
+        }
+        if (path.isBlank()) {
+            throw new IllegalStateException("auth.breach-corpus.mode is " + mode + " but auth.breach-corpus.path is not set");
+        }
+        this.mode = mode;
+        try {
+            this.corpus = new BreachCorpus(Path.of(path), recordBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open breach corpus " + path, e);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true if the policy is active and the password is in the corpus
+     */
+    public boolean isBreached(String password) {
+        if (corpus == null) {
+            return false;
+        }
+        long started = System.nanoTime();
+        boolean found = corpus.containsPassword(password);
+        checkNanos.add(System.nanoTime() - started);
+        checks.increment();
+        if (found) {
+            breached.increment();
+        }
+        return found;
+    }
+
+    public Stats getStats() {
+        long count = checks.sum();
+        return new Stats(mode, corpus != null ? corpus.getRecordCount() : 0, count, breached.sum(),
+            count == 0 ? 0 : checkNanos.sum() / count);
+    }
+
+    /**
+     * Policy counters since startup; averageCheckNanos includes hashing the password
+     */
+    public record Stats(Mode mode, long corpusRecords, long checks, long breached, long averageCheckNanos) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.serialprovider.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Demo delivery channel standing in for SMS/email: prints the code to the server console
+ * so it can be typed into the OTP page, and login links so they can be opened. The structured
+ * event log only ever sees them masked; disable this with {@code otp.delivery.console=false}
+ * outside of demos.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.delivery.console", havingValue = "true", matchIfMissing = true)
+public class ConsoleOtpDelivery implements OtpDeliveryListener {
+
+    @Override
+    public void onOtpSent(String username, String otpCode) {
+        // Runs on the @Async delivery thread, not the request thread
+        System.out.println("OTP for user " + username + ": " + otpCode);
+    }
+
+    @Override
+    public void onLoginLinkSent(String username, String link) {
+        System.out.println("Login link for user " + username + ": " + link);
+    }
+}
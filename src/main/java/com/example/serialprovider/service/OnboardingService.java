@@ -1,26 +1,40 @@
 package com.example.serialprovider.service;
 
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
 import org.springframework.stereotype.Service;
 
 @Service
 public class OnboardingService {
+
+    private final AuthEventLogger eventLogger;
+
+    public OnboardingService(AuthEventLogger eventLogger) {
+        this.eventLogger = eventLogger;
+    }
     
     public boolean processOnboarding(String username, OnboardingData data) {
-        // Simple validation for demonstration
-        if (data.getFullName() == null || data.getFullName().trim().isEmpty()) {
-            return false;
-        }
-        if (data.getEmail() == null || !data.getEmail().contains("@")) {
+        if (!isValid(data)) {
             return false;
         }
         
         // In production, this would save user profile information to database
-        System.out.println("Onboarding completed for user " + username + 
-                          " with name: " + data.getFullName() + 
-                          " and email: " + data.getEmail());
+        eventLogger.event(AuthEventType.ONBOARDING_COMPLETED)
+            .field("user", username)
+            .partial("fullName", data.getFullName())
+            .email("email", data.getEmail())
+            .publish();
         return true;
     }
     
+    public boolean isValid(OnboardingData data) {
+        // Simple validation for demonstration
+        if (data.getFullName() == null || data.getFullName().trim().isEmpty()) {
+            return false;
+        }
+        return data.getEmail() != null && data.getEmail().contains("@");
+    }
+    
     public static class OnboardingData {
         private String fullName;
         private String email;
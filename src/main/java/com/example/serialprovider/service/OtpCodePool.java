@@ -0,0 +1,174 @@
+package com.example.serialprovider.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool of pre-generated OTP codes.
+ *
+ * <p>Background refill threads each own a DRBG instance and keep the pool topped up, so
+ * request threads only dequeue from a lock-free queue and never contend on, or block in,
+ * a shared SecureRandom. If a burst drains the pool, the caller generates a code from one
+ * fallback DRBG shared by all request threads (DRBG instances are thread-safe) and the
+ * underflow is counted.
+ *
+ * <p>The refill rate is sampled about once a second by the first refill thread, so reading
+ * the stats changes nothing.
+ */
+@Component
+public class OtpCodePool {
+
+    private static final long RATE_SAMPLE_NANOS = 1_000_000_000L;
+
+    private final ConcurrentLinkedQueue<String> codes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final SecureRandom fallbackRandom = newDrbg();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder underflows = new LongAdder();
+
+    private final int codeLength;
+    private final char[] alphabet;
+    private final int capacity;
+    private final int lowWatermark;
+    private final long refillIntervalNanos;
+    private final Thread[] refillThreads;
+
+    private volatile boolean running;
+    private volatile RateSample rateSample = new RateSample(System.nanoTime(), 0, 0.0);
+
+    public OtpCodePool(@Value("${otp.code.length:6}") int codeLength,
+                       @Value("${otp.code.alphabet:0123456789}") String alphabet,
+                       @Value("${otp.pool.capacity:4096}") int capacity,
+                       @Value("${otp.pool.low-watermark:1024}") int lowWatermark,
+                       @Value("${otp.pool.refill-threads:1}") int refillThreads,
+                       @Value("${otp.pool.refill-interval-ms:50}") long refillIntervalMs) {
+        if (codeLength <= 0 || alphabet.isEmpty()) {
+            throw new IllegalArgumentException("OTP code length and alphabet must not be empty");
+        }
+        this.codeLength = codeLength;
+        this.alphabet = alphabet.toCharArray();
+        this.capacity = capacity;
+        this.lowWatermark = Math.min(lowWatermark, capacity);
+        this.refillIntervalNanos = refillIntervalMs * 1_000_000L;
+        this.refillThreads = new Thread[Math.max(1, refillThreads)];
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < refillThreads.length; i++) {
+            boolean samplesRate = i == 0;
+            refillThreads[i] = Thread.ofPlatform()
+                .name("otp-pool-refill-" + i)
+                .daemon()
+                .start(() -> refillLoop(samplesRate));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        wakeRefillers();
+    }
+
+    /**
+     * Take a fresh code; never blocks on entropy
+     */
+    public String take() {
+        String code = codes.poll();
+        if (code != null) {
+            if (size.decrementAndGet() < lowWatermark) {
+                wakeRefillers();
+            }
+            served.increment();
+            return code;
+        }
+
+        underflows.increment();
+        wakeRefillers();
+        generated.increment();
+        return generate(fallbackRandom);
+    }
+
+    public Stats getStats() {
+        return new Stats(size.get(), capacity, generated.sum(), served.sum(), underflows.sum(),
+            rateSample.ratePerSecond());
+    }
+
+    private void refillLoop(boolean samplesRate) {
+        SecureRandom random = newDrbg();
+        while (running) {
+            while (running && size.get() < capacity) {
+                codes.offer(generate(random));
+                size.incrementAndGet();
+                generated.increment();
+            }
+            if (samplesRate) {
+                sampleRate();
+            }
+            LockSupport.parkNanos(this, refillIntervalNanos);
+        }
+    }
+
+    private void sampleRate() {
+        long now = System.nanoTime();
+        RateSample previous = rateSample;
+        if (now - previous.nanos() >= RATE_SAMPLE_NANOS) {
+            long total = generated.sum();
+            rateSample = new RateSample(now, total, (total - previous.generated()) * 1_000_000_000.0 / (now - previous.nanos()));
+        }
+    }
+
+    private void wakeRefillers() {
+        for (Thread thread : refillThreads) {
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private String generate(SecureRandom random) {
+        char[] code = new char[codeLength];
+        for (int i = 0; i < codeLength; i++) {
+            code[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(code);
+    }
+
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    /**
+     * Generated count at one point in time and the rate since the sample before; written only
+     * by the sampling refill thread
+     */
+    private record RateSample(long nanos, long generated, double ratePerSecond) {
+    }
+
+    /**
+     * Pool metrics; refillRatePerSecond is the rate over the last sampled second or so
+     */
+    public record Stats(int available,
+                        int capacity,
+                        long generated,
+                        long served,
+                        long underflows,
+                        double refillRatePerSecond) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.serialprovider.service;
+
+/**
+ * Callback invoked after an OTP or login link has been handed to the delivery channel.
+ * Lets test harnesses and monitoring observe deliveries without touching the channel itself.
+ */
+public interface OtpDeliveryListener {
+
+    void onOtpSent(String username, String otpCode);
+
+    default void onLoginLinkSent(String username, String link) {
+    }
+}
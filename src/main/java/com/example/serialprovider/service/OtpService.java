@@ -1,25 +1,78 @@
 package com.example.serialprovider.service;
 
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.tracing.AuthTracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class OtpService {
-    private final SecureRandom random = new SecureRandom();
+    private final OtpCodePool codePool;
+    private final ObjectProvider<OtpDeliveryListener> deliveryListeners;
+    private final AuthEventLogger eventLogger;
+    private final AuthTracer tracer;
+    // Users nothing is delivered to, such as the warm-up user, who exists only inside this node
+    private final Set<String> undeliverable = ConcurrentHashMap.newKeySet();
+    
+    public OtpService(OtpCodePool codePool, ObjectProvider<OtpDeliveryListener> deliveryListeners,
+                      AuthEventLogger eventLogger, AuthTracer tracer) {
+        this.codePool = codePool;
+        this.deliveryListeners = deliveryListeners;
+        this.eventLogger = eventLogger;
+        this.tracer = tracer;
+    }
     
     public String generateOtp() {
-        int otp = 100000 + random.nextInt(900000); // 6-digit OTP
-        return String.valueOf(otp);
+        // Pre-generated off the request thread; see OtpCodePool
+        return codePool.take();
     }
     
     public boolean validateOtp(String sessionOtp, String providedOtp) {
         return sessionOtp != null && sessionOtp.equals(providedOtp);
     }
     
+    /**
+     * Keep codes and links for this user off every channel for the life of this node; they are
+     * still generated and stored in the session as usual. Sends are asynchronous and may run
+     * after the caller is done, so there is no way back; meant for one-off internal users.
+     */
+    public void suppressDelivery(String username) {
+        undeliverable.add(username);
+    }
+    
+    @Async
     public void sendOtp(String username, String otpCode) {
-        // In a real implementation, this would send OTP via SMS/Email
-        System.out.println("OTP for user " + username + ": " + otpCode);
-        // For demo purposes, we'll just log it
+        if (undeliverable.contains(username)) {
+            return;
+        }
+        // Runs on the async executor; the trace context is carried over by the task decorator
+        tracer.inSpan("otp.send", () -> {
+            // In a real implementation, this would send OTP via SMS/Email
+            eventLogger.event(AuthEventType.OTP_SENT)
+                .field("user", username)
+                .secret("otp", otpCode)
+                .publish();
+            deliveryListeners.orderedStream().forEach(listener -> listener.onOtpSent(username, otpCode));
+        });
+    }
+    
+    @Async
+    public void sendLoginLink(String username, String link) {
+        if (undeliverable.contains(username)) {
+            return;
+        }
+        // Same channel and executor as the codes; the link is as secret as a code
+        tracer.inSpan("email-link.send", () -> {
+            eventLogger.event(AuthEventType.EMAIL_LINK_SENT)
+                .field("user", username)
+                .secret("link", link)
+                .publish();
+            deliveryListeners.orderedStream().forEach(listener -> listener.onLoginLinkSent(username, link));
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,166 @@
 package com.example.serialprovider.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * User store and password check.
+ *
+ * <p>Most failed logins name users that do not exist. A bloom filter of known usernames
+ * answers those without a store lookup; the password is then checked against a dummy
+ * credential, so a miss costs the same hashing and comparison as a wrong password.
+ */
 @Service
 public class UserCredentialsService {
-    
+
+    private static final int SALT_BYTES = 16;
+    private static final int FILTER_INITIAL_CAPACITY = 1024;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    private final BreachedPasswordPolicy breachedPasswordPolicy;
+    private final SecureRandom random = new SecureRandom();
+    // Stands in for the user table
+    private final Map<String, StoredCredential> users = new ConcurrentHashMap<>();
+    private final StoredCredential dummyCredential;
+    // Not a monitor: a rebuild joins a parallel stream, which would pin a virtual thread's carrier
+    private final ReentrantLock filterLock = new ReentrantLock();
+    private final AtomicInteger removedSinceRebuild = new AtomicInteger();
+    private volatile ScalableBloomFilter knownUsernames = new ScalableBloomFilter(FILTER_INITIAL_CAPACITY, FILTER_FALSE_POSITIVE_RATE);
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UserCredentialsService(BreachedPasswordPolicy breachedPasswordPolicy) {
+        this.breachedPasswordPolicy = breachedPasswordPolicy;
+        // Simple hardcoded users for demonstration
+        users.put("admin", newCredential("password123"));
+        users.put("user", newCredential("userpass"));
+        byte[] unguessable = new byte[SALT_BYTES];
+        random.nextBytes(unguessable);
+        this.dummyCredential = newCredential(new String(unguessable, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Load every known username into a fresh filter, adding from a parallel stream
+     */
+    @PostConstruct
+    public void rebuildUsernameFilter() {
+        filterLock.lock();
+        try {
+            ScalableBloomFilter rebuilt = new ScalableBloomFilter(
+                Math.max(FILTER_INITIAL_CAPACITY, users.size()), FILTER_FALSE_POSITIVE_RATE);
+            users.keySet().parallelStream().forEach(rebuilt::add);
+            knownUsernames = rebuilt;
+            removedSinceRebuild.set(0);
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
     public boolean validateCredentials(String username, String password) {
-        // Simple hardcoded validation for demonstration
-        // In production, this would check against a database with hashed passwords
-        return "admin".equals(username) && "password123".equals(password) ||
-               "user".equals(username) && "userpass".equals(password);
+        if (username == null || password == null) {
+            return false;
+        }
+        lookups.increment();
+        StoredCredential credential = null;
+        if (knownUsernames.mightContain(username)) {
+            credential = users.get(username);
+            if (credential == null) {
+                falsePositives.increment();
+            }
+        } else {
+            definiteMisses.increment();
+        }
+        // Always hash and compare, so unknown users cannot be told apart by timing
+        boolean matches = (credential != null ? credential : dummyCredential).matches(password);
+        return credential != null && matches;
     }
-    
+
     public boolean userExists(String username) {
-        return "admin".equals(username) || "user".equals(username);
+        return username != null && knownUsernames.mightContain(username) && users.containsKey(username);
+    }
+
+    /**
+     * @return false if the username is already taken
+     * @throws IllegalArgumentException if the breach policy is active and the password is in its corpus
+     */
+    public boolean createUser(String username, String password) {
+        // Warn-only mode still refuses breached passwords here; only logins are let through
+        if (breachedPasswordPolicy.isBreached(password)) {
+            throw new IllegalArgumentException("Password appears in a known data breach");
+        }
+        // Hashed before taking the lock, so concurrent sign-ups do not queue behind each other's hashing
+        StoredCredential credential = newCredential(password);
+        filterLock.lock();
+        try {
+            // Filter first: a concurrent login may briefly see a false positive, never a false miss
+            knownUsernames.add(username);
+            return users.putIfAbsent(username, credential) == null;
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    /**
+     * @return false if there was no such user
+     */
+    public boolean deleteUser(String username) {
+        if (users.remove(username) == null) {
+            return false;
+        }
+        // Removed names stay in the filter as false positives; rebuild once they are a sizeable share
+        if (removedSinceRebuild.incrementAndGet() > Math.max(FILTER_INITIAL_CAPACITY, users.size()) / 4) {
+            rebuildUsernameFilter();
+        }
+        return true;
+    }
+
+    public Stats getStats() {
+        return new Stats(lookups.sum(), definiteMisses.sum(), falsePositives.sum(), users.size(),
+            knownUsernames.getStats());
+    }
+
+    private StoredCredential newCredential(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new StoredCredential(salt, digest(salt, password));
+    }
+
+    private static byte[] digest(byte[] salt, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private record StoredCredential(byte[] salt, byte[] hash) {
+
+        boolean matches(String password) {
+            return MessageDigest.isEqual(hash, digest(salt, password));
+        }
+    }
+
+    /**
+     * Lookup counters since startup; definiteMisses never reached the user store
+     */
+    public record Stats(long lookups,
+                        long definiteMisses,
+                        long falsePositives,
+                        int users,
+                        ScalableBloomFilter.Stats usernameFilter) {
     }
-}
\ No newline at end of file
+}
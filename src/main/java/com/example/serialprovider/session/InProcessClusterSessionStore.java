@@ -0,0 +1,91 @@
+package com.example.serialprovider.session;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a shared session backend: every store created with the same cluster name in
+ * this JVM sees the same sessions and the same invalidations. Lets several application
+ * contexts act as a cluster in tests and local runs without Redis or a database.
+ *
+ * <p>Expired sessions are swept periodically, as a backend with key TTLs would drop them.
+ */
+public class InProcessClusterSessionStore implements SessionStore {
+
+    private static final Map<String, Cluster> CLUSTERS = new ConcurrentHashMap<>();
+
+    private final Cluster cluster;
+
+    public InProcessClusterSessionStore(String clusterName) {
+        this.cluster = CLUSTERS.computeIfAbsent(clusterName, name -> new Cluster());
+    }
+
+    @Override
+    public StoredSession load(String sessionId) {
+        Entry entry = cluster.sessions.get(sessionId);
+        return entry != null ? entry.session() : null;
+    }
+
+    @Override
+    public long save(String sessionId, byte[] data, Instant expiresAt) {
+        long version = cluster.versions.incrementAndGet();
+        cluster.sessions.put(sessionId, new Entry(new StoredSession(version, data.clone()), expiresAt));
+        cluster.broadcast(sessionId, version);
+        return version;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        if (cluster.sessions.remove(sessionId) != null) {
+            cluster.broadcast(sessionId, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Delete every session of the cluster that has expired, notifying all nodes
+     */
+    @Scheduled(fixedDelayString = "${auth.session.sweep-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        cluster.sessions.forEach((sessionId, entry) -> {
+            // Only the expired entry; a save that raced with the sweep keeps its session
+            if (!now.isBefore(entry.expiresAt()) && cluster.sessions.remove(sessionId, entry)) {
+                cluster.broadcast(sessionId, Long.MAX_VALUE);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        cluster.listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        cluster.listeners.remove(listener);
+    }
+
+    private record Entry(StoredSession session, Instant expiresAt) {
+    }
+
+    /**
+     * Shared state of one named cluster
+     */
+    private static class Cluster {
+        private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+        private final AtomicLong versions = new AtomicLong();
+        private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+        void broadcast(String sessionId, long version) {
+            for (InvalidationListener listener : listeners) {
+                listener.onInvalidate(sessionId, version);
+            }
+        }
+    }
+}
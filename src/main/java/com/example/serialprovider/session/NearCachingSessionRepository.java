@@ -0,0 +1,210 @@
+package com.example.serialprovider.session;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spring Session repository with a per-node near-cache in front of a shared {@link SessionStore}.
+ *
+ * <p>Reads are served from the near-cache when it holds the session; the store is only
+ * consulted on a miss. A save writes to the store only when the serialized session changed
+ * (or its last-access time is due to be refreshed), and the store's invalidation broadcast
+ * makes every other node drop copies older than the new version. Expired copies are swept
+ * from the near-cache periodically, so sessions that are never read again do not pile up.
+ */
+public class NearCachingSessionRepository implements SessionRepository<MapSession>, DisposableBean {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final SessionStore store;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration lastAccessWriteInterval;
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final SessionStore.InvalidationListener invalidationListener = this::invalidate;
+
+    public NearCachingSessionRepository(SessionStore store, Duration defaultMaxInactiveInterval,
+                                        Duration lastAccessWriteInterval) {
+        this.store = store;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.lastAccessWriteInterval = lastAccessWriteInterval;
+        store.subscribe(invalidationListener);
+    }
+
+    /**
+     * Cached copy of a stored session together with what was last written for it
+     */
+    private record CachedSession(long version, MapSession session, byte[] data, Instant persistedLastAccess) {
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        String originalId = session.getOriginalId();
+        if (!session.getId().equals(originalId)) {
+            // Session fixation protection changed the id
+            deleteById(originalId);
+        }
+
+        byte[] data = serialize(session);
+        CachedSession cached = nearCache.get(session.getId());
+        if (cached != null && Arrays.equals(cached.data(), dataWithoutLastAccess(data))
+                && session.getLastAccessedTime().isBefore(cached.persistedLastAccess().plus(lastAccessWriteInterval))) {
+            // Nothing the other nodes need to see
+            return;
+        }
+
+        long version = store.save(session.getId(), data, expiresAt(session));
+        nearCache.merge(session.getId(),
+            new CachedSession(version, new MapSession(session), dataWithoutLastAccess(data), session.getLastAccessedTime()),
+            (existing, updated) -> existing.version() > updated.version() ? existing : updated);
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        CachedSession cached = nearCache.get(id);
+        if (cached == null) {
+            cached = loadIntoCache(id);
+            if (cached == null) {
+                return null;
+            }
+        }
+
+        if (cached.session().isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        // Each request works on its own copy; attribute values are shared as with a local session
+        return new MapSession(cached.session());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        nearCache.remove(id);
+        store.delete(id);
+    }
+
+    /**
+     * Drop expired sessions from the near-cache; the store expires its own copies
+     */
+    @Scheduled(fixedDelayString = "${auth.session.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        nearCache.values().removeIf(cached -> cached.session().isExpired());
+    }
+
+    @Override
+    public void destroy() {
+        store.unsubscribe(invalidationListener);
+    }
+
+    int nearCacheSize() {
+        return nearCache.size();
+    }
+
+    private CachedSession loadIntoCache(String id) {
+        long invalidationsBefore = invalidations.get();
+        SessionStore.StoredSession stored = store.load(id);
+        if (stored == null) {
+            return null;
+        }
+
+        MapSession session = deserialize(id, stored.data());
+        CachedSession loaded = new CachedSession(stored.version(), session,
+            dataWithoutLastAccess(stored.data()), session.getLastAccessedTime());
+        if (invalidations.get() == invalidationsBefore) {
+            // Only cache if no invalidation raced with the load; otherwise serve it uncached
+            nearCache.merge(id, loaded, (existing, updated) -> existing.version() > updated.version() ? existing : updated);
+        }
+        return loaded;
+    }
+
+    private static Instant expiresAt(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        return maxInactive.isNegative() ? Instant.MAX : session.getLastAccessedTime().plus(maxInactive);
+    }
+
+    private void invalidate(String sessionId, long version) {
+        invalidations.incrementAndGet();
+        nearCache.computeIfPresent(sessionId, (id, cached) -> cached.version() < version ? null : cached);
+    }
+
+    /**
+     * Layout: last access millis, then an object stream with format version, creation time,
+     * max inactive seconds and the attributes. Last access comes first so unchanged sessions
+     * can be compared without it.
+     */
+    private static byte[] serialize(MapSession session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            new DataOutputStream(bytes).writeLong(session.getLastAccessedTime().toEpochMilli());
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(session.getCreationTime().toEpochMilli());
+                out.writeLong(session.getMaxInactiveInterval().toSeconds());
+                out.writeInt(session.getAttributeNames().size());
+                for (String name : session.getAttributeNames()) {
+                    out.writeUTF(name);
+                    out.writeObject(session.getAttribute(name));
+                }
+            }
+        } catch (NotSerializableException e) {
+            throw new IllegalStateException("Session attributes must be serializable to be shared: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] dataWithoutLastAccess(byte[] data) {
+        return Arrays.copyOfRange(data, Long.BYTES, data.length);
+    }
+
+    private static MapSession deserialize(String id, byte[] data) {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        try {
+            long lastAccessMillis = new DataInputStream(bytes).readLong();
+            ObjectInputStream in = new ObjectInputStream(bytes);
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported stored session format " + version);
+            }
+            MapSession session = new MapSession(id);
+            session.setCreationTime(Instant.ofEpochMilli(in.readLong()));
+            session.setMaxInactiveInterval(Duration.ofSeconds(in.readLong()));
+            int attributes = in.readInt();
+            for (int i = 0; i < attributes; i++) {
+                session.setAttribute(in.readUTF(), in.readObject());
+            }
+            session.setLastAccessedTime(Instant.ofEpochMilli(lastAccessMillis));
+            return session;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Stored session references an unknown class", e);
+        }
+    }
+}
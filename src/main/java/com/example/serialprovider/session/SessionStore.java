@@ -0,0 +1,49 @@
+package com.example.serialprovider.session;
+
+import java.time.Instant;
+
+/**
+ * Shared backend holding serialized HTTP sessions for all nodes.
+ *
+ * <p>Every save assigns a new, cluster-wide increasing version and notifies all subscribed
+ * nodes, so they can drop near-cached copies older than that version. Implementations
+ * must deliver invalidations for their own saves too, and drop sessions once they expire
+ * (e.g. as a key TTL) without waiting for them to be read.
+ */
+public interface SessionStore {
+
+    /**
+     * @return the stored session, or null if there is none
+     */
+    StoredSession load(String sessionId);
+
+    /**
+     * Store the session and return its new version
+     * @param expiresAt when the session expires unless it is saved again
+     */
+    long save(String sessionId, byte[] data, Instant expiresAt);
+
+    void delete(String sessionId);
+
+    void subscribe(InvalidationListener listener);
+
+    void unsubscribe(InvalidationListener listener);
+
+    /**
+     * Serialized session as held by the backend
+     */
+    record StoredSession(long version, byte[] data) {
+    }
+
+    /**
+     * Notified when a session changed (or was deleted) anywhere in the cluster
+     */
+    @FunctionalInterface
+    interface InvalidationListener {
+
+        /**
+         * Version of the change; {@link Long#MAX_VALUE} for a deletion
+         */
+        void onInvalidate(String sessionId, long version);
+    }
+}
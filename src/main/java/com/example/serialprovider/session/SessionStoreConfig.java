@@ -0,0 +1,35 @@
+package com.example.serialprovider.session;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Replaces the container's local HTTP sessions with sessions shared through a
+ * {@link SessionStore}, so any node can serve any request without sticky sessions.
+ * Enabled with auth.session.store=cluster; a SessionStore bean for a real backend replaces
+ * the in-process stand-in.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "auth.session.store", havingValue = "cluster")
+public class SessionStoreConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(SessionStore.class)
+    public SessionStore inProcessClusterSessionStore(@Value("${auth.session.cluster-name:default}") String clusterName) {
+        return new InProcessClusterSessionStore(clusterName);
+    }
+
+    @Bean
+    public NearCachingSessionRepository sessionRepository(SessionStore sessionStore,
+                                                          @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout,
+                                                          @Value("${auth.session.last-access-write-interval:60s}") Duration lastAccessWriteInterval) {
+        return new NearCachingSessionRepository(sessionStore, sessionTimeout, lastAccessWriteInterval);
+    }
+}
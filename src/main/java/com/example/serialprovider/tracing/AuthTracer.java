@@ -0,0 +1,43 @@
+package com.example.serialprovider.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Thin helper for manual spans around auth work. Add attributes from inside the work
+ * via {@link Span#current()}; exceptions are recorded and mark the span as failed.
+ */
+@Component
+public class AuthTracer {
+
+    private final Tracer tracer;
+
+    public AuthTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public <T> T inSpan(String spanName, Supplier<T> work) {
+        Span span = tracer.spanBuilder(spanName).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return work.get();
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    public void inSpan(String spanName, Runnable work) {
+        inSpan(spanName, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
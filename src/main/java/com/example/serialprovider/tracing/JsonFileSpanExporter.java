@@ -0,0 +1,89 @@
+package com.example.serialprovider.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Appends finished spans to a file as JSON lines, one span per line, for offline analysis
+ */
+public class JsonFileSpanExporter implements SpanExporter {
+
+    private final BufferedWriter writer;
+
+    public JsonFileSpanExporter(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        try {
+            for (SpanData span : batch) {
+                writer.write(toJson(span));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    static String toJson(SpanData span) {
+        StringBuilder json = new StringBuilder(256)
+            .append("{\"traceId\":\"").append(span.getTraceId())
+            .append("\",\"spanId\":\"").append(span.getSpanId())
+            .append("\",\"parentSpanId\":\"").append(span.getParentSpanId())
+            .append("\",\"name\":\"").append(escape(span.getName()))
+            .append("\",\"kind\":\"").append(span.getKind())
+            .append("\",\"startEpochNanos\":").append(span.getStartEpochNanos())
+            .append(",\"durationMicros\":").append((span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000)
+            .append(",\"status\":\"").append(span.getStatus().getStatusCode())
+            .append("\",\"attributes\":{");
+        boolean[] first = {true};
+        span.getAttributes().forEach((key, value) -> {
+            if (!first[0]) {
+                json.append(',');
+            }
+            first[0] = false;
+            json.append('"').append(escape(key.getKey())).append("\":\"").append(escape(String.valueOf(value))).append('"');
+        });
+        return json.append("}}").toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        try {
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
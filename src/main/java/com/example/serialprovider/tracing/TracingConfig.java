@@ -0,0 +1,76 @@
+package com.example.serialprovider.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * OpenTelemetry SDK wiring. Spans go to an in-memory exporter and, when
+ * tracing.exporter.file.path is set, to a JSON lines file, so tracing works without a collector.
+ * Incoming W3C traceparent headers are honoured so traces join up across services.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${tracing.exporter.in-memory.max-spans:1000}") int maxSpans) {
+        return new InMemorySpanExporter(maxSpans);
+    }
+
+    @Bean(destroyMethod = "close")
+    public SdkTracerProvider sdkTracerProvider(InMemorySpanExporter inMemorySpanExporter,
+                                               @Value("${spring.application.name:serial-provider}") String serviceName,
+                                               @Value("${tracing.sampling.probability:1.0}") double probability,
+                                               @Value("${tracing.exporter.file.path:}") String filePath) throws IOException {
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+            .setResource(Resource.getDefault().merge(
+                Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), serviceName))))
+            // Follow the caller's decision when a sampled parent arrives via traceparent
+            .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(probability)))
+            .addSpanProcessor(SimpleSpanProcessor.create(inMemorySpanExporter));
+        if (!filePath.isBlank()) {
+            builder.addSpanProcessor(BatchSpanProcessor.builder(new JsonFileSpanExporter(Path.of(filePath))).build());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public OpenTelemetry openTelemetry(SdkTracerProvider sdkTracerProvider) {
+        return OpenTelemetrySdk.builder()
+            .setTracerProvider(sdkTracerProvider)
+            .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+            .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer("com.example.serialprovider");
+    }
+
+    /**
+     * Carries the current trace context into @Async work such as OTP delivery.
+     * Boot applies a unique TaskDecorator bean to the application task executor.
+     */
+    @Bean
+    public TaskDecorator tracingTaskDecorator() {
+        return runnable -> Context.current().wrap(runnable);
+    }
+}
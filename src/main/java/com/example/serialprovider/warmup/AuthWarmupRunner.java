@@ -0,0 +1,228 @@
+package com.example.serialprovider.warmup;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepChain;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import com.example.serialprovider.auth.step.OnboardingAuthenticationStep;
+import com.example.serialprovider.auth.step.OtpAuthenticationStep;
+import com.example.serialprovider.auth.step.PasswordAuthenticationStep;
+import com.example.serialprovider.auth.token.OnboardingAuthenticationToken;
+import com.example.serialprovider.auth.token.OtpAuthenticationToken;
+import com.example.serialprovider.auth.token.UsernamePasswordAuthenticationToken;
+import com.example.serialprovider.logging.AuthEventLogger;
+import com.example.serialprovider.logging.AuthEventType;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.service.OnboardingService;
+import com.example.serialprovider.service.OtpService;
+import com.example.serialprovider.service.UserCredentialsService;
+import com.example.serialprovider.tracing.InMemorySpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Drives login flows through the step chain until JIT compilation settles, so the first
+ * real logins after a deploy do not run interpreted.
+ *
+ * <p>Runs after {@link com.example.serialprovider.config.DataInitializer}. Boot only reports
+ * readiness (ACCEPTING_TRAFFIC) once all runners have finished, so /actuator/health/readiness
+ * stays down until warm-up completes. The flows run in-process against throwaway sessions as
+ * a dedicated user with a random password, which exists only while warm-up runs. Each round
+ * goes through all four OTP/onboarding combinations under
+ * {@link AuthenticationSettingsService#runWithSettings}, so the stored settings are never
+ * touched. Nothing is delivered to that user: its codes are read back from the session, which
+ * also covers the case where a login link is offered and no code is sent on its own.
+ */
+@Component
+@Order(2)
+public class AuthWarmupRunner implements CommandLineRunner {
+
+    private static final String USERNAME_PREFIX = "warmup-";
+    private static final boolean[] SWITCHES = {true, false};
+    // More than any flow has steps; a step that succeeds without moving the flow on ends it
+    private static final int MAX_STEPS_PER_FLOW = 16;
+
+    private final ApplicationContext applicationContext;
+    private final AuthenticationStepChain stepChain;
+    private final OtpAuthenticationStep otpStep;
+    private final AuthenticationSettingsService settingsService;
+    private final UserCredentialsService credentialsService;
+    private final OtpService otpService;
+    private final InMemorySpanExporter spanExporter;
+    private final AuthEventLogger eventLogger;
+
+    private final boolean enabled;
+    private final int flowsPerRound;
+    private final int minRounds;
+    private final int settleRounds;
+    private final long settleThresholdMillis;
+    private final Duration maxDuration;
+
+    // Written by the runner thread only
+    private volatile boolean finished;
+    private volatile int rounds;
+    private volatile long completedFlows;
+    private volatile long incompleteFlows;
+
+    public AuthWarmupRunner(ApplicationContext applicationContext,
+                            AuthenticationStepChain stepChain,
+                            OtpAuthenticationStep otpStep,
+                            AuthenticationSettingsService settingsService,
+                            UserCredentialsService credentialsService,
+                            OtpService otpService,
+                            InMemorySpanExporter spanExporter,
+                            AuthEventLogger eventLogger,
+                            @Value("${auth.warmup.enabled:true}") boolean enabled,
+                            @Value("${auth.warmup.flows-per-round:20}") int flowsPerRound,
+                            @Value("${auth.warmup.min-rounds:5}") int minRounds,
+                            @Value("${auth.warmup.settle-rounds:3}") int settleRounds,
+                            @Value("${auth.warmup.settle-threshold-ms:10}") long settleThresholdMillis,
+                            @Value("${auth.warmup.max-duration:30s}") Duration maxDuration) {
+        this.applicationContext = applicationContext;
+        this.stepChain = stepChain;
+        this.otpStep = otpStep;
+        this.settingsService = settingsService;
+        this.credentialsService = credentialsService;
+        this.otpService = otpService;
+        this.spanExporter = spanExporter;
+        this.eventLogger = eventLogger;
+        this.enabled = enabled;
+        this.flowsPerRound = flowsPerRound;
+        this.minRounds = minRounds;
+        this.settleRounds = settleRounds;
+        this.settleThresholdMillis = settleThresholdMillis;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean canMeasure = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        int quietRounds = 0;
+        long compileDelta = 0;
+
+        String password = randomSecret();
+        String username = USERNAME_PREFIX + randomSecret();
+        credentialsService.createUser(username, password);
+        // For good: the sends are asynchronous and can outlast warm-up; the name is never reused
+        otpService.suppressDelivery(username);
+        try {
+            while (System.nanoTime() < deadline) {
+                long compileBefore = canMeasure ? compiler.getTotalCompilationTime() : 0;
+                for (int i = 0; i < flowsPerRound; i++) {
+                    for (boolean otp : SWITCHES) {
+                        for (boolean onboarding : SWITCHES) {
+                            boolean completed = settingsService.runWithSettings(otp, onboarding,
+                                () -> runFlow(username, password));
+                            if (completed) {
+                                completedFlows++;
+                            } else {
+                                incompleteFlows++;
+                            }
+                        }
+                    }
+                }
+                rounds++;
+
+                compileDelta = canMeasure ? compiler.getTotalCompilationTime() - compileBefore : 0;
+                quietRounds = compileDelta <= settleThresholdMillis ? quietRounds + 1 : 0;
+                if (rounds >= minRounds && (!canMeasure || quietRounds >= settleRounds)) {
+                    break;
+                }
+            }
+            eventLogger.event(AuthEventType.WARMUP_COMPLETED)
+                .field("rounds", String.valueOf(rounds))
+                .field("durationMs", String.valueOf(Duration.ofNanos(System.nanoTime() - started).toMillis()))
+                .field("compilation", quietRounds >= settleRounds ? "settled" : "active")
+                .field("lastRoundCompileMs", String.valueOf(compileDelta))
+                .publish();
+        } catch (RuntimeException e) {
+            // Warm-up is best effort; a cold node is still a working node
+            eventLogger.event(AuthEventType.WARMUP_ABORTED)
+                .field("rounds", String.valueOf(rounds))
+                .field("error", e.toString())
+                .publish();
+        } finally {
+            credentialsService.deleteUser(username);
+            spanExporter.reset();
+            finished = true;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(finished, rounds, completedFlows, incompleteFlows);
+    }
+
+    /**
+     * One login from password to the end of the flow, answering each step as its page would
+     * @return false if the flow stopped at a step the warm-up cannot answer, such as a passkey
+     */
+    private boolean runFlow(String username, String password) {
+        AuthenticationSession session = new AuthenticationSession();
+        AuthenticationStepResult result = stepChain.processStep(PasswordAuthenticationStep.STEP_ID,
+            new UsernamePasswordAuthenticationToken(username, password), session);
+        for (int steps = 0; result.isSuccess() && steps < MAX_STEPS_PER_FLOW; steps++) {
+            Optional<AuthenticationStep> next = stepChain.getNextStep(session);
+            if (next.isEmpty()) {
+                break;
+            }
+            result = switch (next.get().getStepId()) {
+                case OtpAuthenticationStep.STEP_ID -> {
+                    // Where a login link is offered no code was sent yet; ask for one as the OTP page does
+                    otpStep.sendCode(session);
+                    yield stepChain.processStep(OtpAuthenticationStep.STEP_ID,
+                        new OtpAuthenticationToken(username, session.snapshot().otpCode()), session);
+                }
+                case OnboardingAuthenticationStep.STEP_ID -> stepChain.processStep(OnboardingAuthenticationStep.STEP_ID,
+                    new OnboardingAuthenticationToken(username, profile(username)), session);
+                default -> AuthenticationStepResult.failure().message("No warm-up input for " + next.get().getStepId()).build();
+            };
+        }
+        boolean completed = result.isSuccess() && stepChain.isFullyAuthenticated(session);
+        // What the success handler and the status endpoint read
+        stepChain.getProgress(session);
+        stepChain.getFlowDescription(session);
+        stepChain.resetAllSteps(session);
+        return completed;
+    }
+
+    private static OnboardingService.OnboardingData profile(String username) {
+        OnboardingService.OnboardingData data = new OnboardingService.OnboardingData();
+        data.setFullName("Warm-up User");
+        data.setEmail(username + "@example.invalid");
+        return data;
+    }
+
+    private static String randomSecret() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Progress of the warm-up; finished is also true when it is switched off
+     */
+    public record Stats(boolean finished, int rounds, long completedFlows, long incompleteFlows) {
+    }
+}
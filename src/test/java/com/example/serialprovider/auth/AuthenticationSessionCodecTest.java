@@ -0,0 +1,109 @@
+package com.example.serialprovider.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthenticationSessionCodecTest {
+
+    private static final long NOW = 1_790_000_000_000L;
+
+    private final AuthenticationSession.Snapshot inProgress = new AuthenticationSession.Snapshot(
+        "admin", Set.of("password", "otp"), NOW, "042917", false);
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        AuthenticationSession.Snapshot full = new AuthenticationSession.Snapshot(
+            "alice@example.com", Set.of("password", "otp", "onboarding", "risk"), NOW, "A7-x9", true);
+
+        for (AuthenticationSession.Snapshot snapshot : new AuthenticationSession.Snapshot[]{
+                inProgress, full, new AuthenticationSession.Snapshot(null, Set.of(), NOW, null, false)}) {
+            assertThat(AuthenticationSessionCodec.decode(AuthenticationSessionCodec.encode(snapshot)))
+                .isEqualTo(snapshot);
+        }
+    }
+
+    @Test
+    void keepsPayloadsToTensOfBytes() throws IOException {
+        byte[] compact = AuthenticationSessionCodec.encode(inProgress);
+        byte[] javaSerialized = javaSerialize(inProgress);
+
+        assertThat(compact.length).isLessThan(24);
+        assertThat(javaSerialized.length).isGreaterThan(compact.length * 10);
+    }
+
+    @Test
+    void sessionBeanSerializesThroughCodec() throws Exception {
+        AuthenticationSession session = new AuthenticationSession();
+        session.update(current -> inProgress);
+
+        AuthenticationSession restored = (AuthenticationSession) javaDeserialize(javaSerialize(session));
+
+        assertThat(restored.snapshot()).isEqualTo(inProgress);
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] encoded = AuthenticationSessionCodec.encode(inProgress);
+        encoded[0] = (byte) (AuthenticationSessionCodec.VERSION + 1);
+
+        assertThatThrownBy(() -> AuthenticationSessionCodec.decode(encoded))
+            .isInstanceOf(InvalidObjectException.class);
+    }
+
+    /**
+     * Run with -Dbenchmark.enabled=true to compare against Java serialization of the snapshot.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+    void benchmarkAgainstJavaSerialization() throws Exception {
+        int iterations = 200_000;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            time(iterations, () -> AuthenticationSessionCodec.decode(AuthenticationSessionCodec.encode(inProgress)));
+            time(iterations, () -> javaDeserialize(javaSerialize(inProgress)));
+        }
+        long codecNanos = time(iterations, () -> AuthenticationSessionCodec.decode(AuthenticationSessionCodec.encode(inProgress)));
+        long javaNanos = time(iterations, () -> javaDeserialize(javaSerialize(inProgress)));
+
+        System.out.printf("codec: %d bytes, %d ns/round-trip%njava:  %d bytes, %d ns/round-trip%n",
+            AuthenticationSessionCodec.encode(inProgress).length, codecNanos / iterations,
+            javaSerialize(inProgress).length, javaNanos / iterations);
+    }
+
+    private static long time(int iterations, ThrowingSupplier work) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            work.get();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object javaDeserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.serialprovider.auth;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress tests in the spirit of jcstress: many threads race on one session and every
+ * observed outcome must be one of the acceptable ones.
+ */
+class AuthenticationSessionConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2_000;
+
+    @RepeatedTest(5)
+    void concurrentStepCompletionsAreNeverLost() throws Exception {
+        for (int round = 0; round < ROUNDS / 10; round++) {
+            AuthenticationSession session = new AuthenticationSession();
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+
+            runConcurrently(thread -> {
+                start.await();
+                session.addCompletedStep("step-" + thread);
+                return null;
+            });
+
+            assertThat(session.getCompletedSteps()).hasSize(THREADS);
+        }
+    }
+
+    @Test
+    void conditionalTransitionHappensExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            AuthenticationSession session = new AuthenticationSession();
+            session.addCompletedStep("password");
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            AtomicInteger winners = new AtomicInteger();
+
+            runConcurrently(thread -> {
+                start.await();
+                if (session.completeStepIf("otp", current -> !current.hasCompletedStep("otp"))) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+
+            assertThat(winners).hasValue(1);
+            assertThat(session.getCompletedSteps()).containsExactlyInAnyOrder("password", "otp");
+        }
+    }
+
+    @Test
+    void otpCodeIsUsedUpByExactlyOneSubmission() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            AuthenticationSession session = new AuthenticationSession();
+            session.update(current -> current.withCompletedStep("password").withOtpCode("123456"));
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            AtomicInteger winners = new AtomicInteger();
+
+            runConcurrently(thread -> {
+                start.await();
+                if (session.completeStepIf("otp", current -> "123456".equals(current.otpCode()),
+                        current -> current.withOtpCode(null))) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+
+            assertThat(winners).hasValue(1);
+            assertThat(session.getOtpCode()).isNull();
+        }
+    }
+
+    @Test
+    void resetRacingWithCompletionLeavesNoOrphanStep() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            AuthenticationSession session = new AuthenticationSession();
+            session.update(current -> current.withUsername("user").withCompletedStep("password"));
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> reset = executor.submit(() -> {
+                    start.await();
+                    session.reset();
+                    return null;
+                });
+                Future<?> complete = executor.submit(() -> {
+                    start.await();
+                    session.completeStepIf("otp", current -> current.hasCompletedStep("password"));
+                    return null;
+                });
+                reset.get(5, TimeUnit.SECONDS);
+                complete.get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // Acceptable outcomes: reset won ({}), or completion won and was then reset ({})
+            // A lone "otp" without "password" would mean a lost update
+            Set<String> steps = session.getCompletedSteps();
+            assertThat(steps.contains("otp") && !steps.contains("password")).isFalse();
+        }
+    }
+
+    @Test
+    void readersNeverObserveTornState() throws Exception {
+        AuthenticationSession session = new AuthenticationSession();
+        AuthenticationSession.Snapshot first = session.update(current -> current
+            .withUsername("alice").withCompletedSteps(Set.of("password")).withOnboardingCompleted(false));
+        AuthenticationSession.Snapshot second = first
+            .withUsername("bob").withCompletedSteps(Set.of("password", "otp", "onboarding")).withOnboardingCompleted(true);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Set<String> torn = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ROUNDS * 50; i++) {
+                    session.update(current -> "alice".equals(current.username()) ? second : first);
+                }
+                running.set(false);
+            }));
+            for (int reader = 1; reader < THREADS; reader++) {
+                futures.add(executor.submit(() -> {
+                    while (running.get()) {
+                        AuthenticationSession.Snapshot seen = session.snapshot();
+                        boolean consistent = "alice".equals(seen.username())
+                            ? seen.completedSteps().size() == 1 && !seen.onboardingCompleted()
+                            : seen.completedSteps().size() == 3 && seen.onboardingCompleted();
+                        if (!consistent) {
+                            torn.add(seen.toString());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(torn).isEmpty();
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                futures.add(executor.submit(() -> task.run(id)));
+            }
+            for (Future<Void> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        Void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.serialprovider.auth.device;
+
+import com.example.serialprovider.SerialProviderApplication;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import com.example.serialprovider.support.TestBrowser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpResponse;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the login flow against two nodes sharing one database: a device trusted on node 1
+ * skips OTP there at once, and on node 2 once node 1 has written its index behind. The nodes
+ * are started by hand, since {@code @SpringBootTest} starts only one.
+ */
+class TrustedDeviceFlowTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final String database = "devices-" + UUID.randomUUID();
+    private final CapturingDeliveryListener deliveries = new CapturingDeliveryListener();
+    private ConfigurableApplicationContext node1;
+    private ConfigurableApplicationContext node2;
+    private TestBrowser onNode1;
+    private TestBrowser onNode2;
+
+    @BeforeEach
+    void startNodes() {
+        node1 = startNode();
+        node2 = startNode();
+        // One browser: cookies do not depend on the port
+        onNode1 = new TestBrowser(port(node1));
+        onNode2 = onNode1.onPort(port(node2));
+    }
+
+    @AfterEach
+    void stopNodes() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    void trustedDeviceSkipsOtpUntilForgotten() throws Exception {
+        assertThat(login(onNode1).path("nextStep").asText()).isEqualTo("otp");
+        HttpResponse<String> otp = onNode1.post("/auth/otp",
+            "{\"otp\":\"" + deliveries.takeOtp("user") + "\",\"rememberDevice\":true}");
+        assertThat(otp.statusCode()).isEqualTo(200);
+        assertThat(otp.headers().allValues("Set-Cookie")).anyMatch(cookie -> cookie.startsWith("SERIAL_PROVIDER_DEVICE="));
+        int otpsSent = deliveries.getOtpDeliveries();
+
+        onNode1.logout();
+        assertThat(login(onNode1).path("nextStep").asText()).isEqualTo("onboarding");
+
+        // Node 2 only learns about the device from the database
+        node1.getBean(TrustedDeviceService.class).flush();
+        assertThat(login(onNode2).path("nextStep").asText()).isEqualTo("onboarding");
+        assertThat(node2.getBean(TrustedDeviceService.class).getStats().loadedFromStore()).isEqualTo(1);
+        assertThat(deliveries.getOtpDeliveries()).isEqualTo(otpsSent);
+
+        onNode1.post("/auth/device/forget", "");
+        assertThat(login(onNode1).path("nextStep").asText()).isEqualTo("otp");
+    }
+
+    @Test
+    void deviceCookieIsBoundToItsUser() throws Exception {
+        login(onNode1);
+        onNode1.post("/auth/otp", "{\"otp\":\"" + deliveries.takeOtp("user") + "\",\"rememberDevice\":true}");
+        onNode1.logout();
+
+        assertThat(onNode1.login("admin", "password123").path("nextStep").asText()).isEqualTo("otp");
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        // Command-line arguments, so they take precedence over application.properties
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(SerialProviderApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.show-sql=false",
+            "--auth.warmup.enabled=false",
+            "--auth.device.secret=" + SECRET,
+            "--auth.device.flush-interval-ms=3600000");
+        node.getBeanFactory().registerSingleton("capturingDeliveryListener-" + UUID.randomUUID(), deliveries);
+        return node;
+    }
+
+    private static int port(ConfigurableApplicationContext node) {
+        return ((WebServerApplicationContext) node).getWebServer().getPort();
+    }
+
+    private static JsonNode login(TestBrowser browser) throws Exception {
+        return browser.login("user", "userpass");
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.serialprovider.auth.email;
+
+import com.example.serialprovider.support.CapturingDeliveryConfiguration;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import com.example.serialprovider.support.TestBrowser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A login link mailed from the OTP page completes the OTP step, once, and only in the browser
+ * session that asked for it; admins, whose flow makes OTP mandatory, cannot ask for one. Where
+ * a link is offered, no code is sent until the user asks for it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:email-link",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false",
+    "auth.email-link.enabled=true",
+    "auth.email-link.base-url=https://login.example.com"
+})
+@Import(CapturingDeliveryConfiguration.class)
+class EmailLinkAuthenticationStepTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CapturingDeliveryListener deliveries;
+
+    @BeforeEach
+    void forgetDeliveries() {
+        deliveries.clear();
+    }
+
+    @Test
+    void linkCompletesOtpOnceInTheRequestingSession() throws Exception {
+        TestBrowser browser = loggedIn("user", "userpass");
+        assertThat(browser.post("/auth/email-link", "").statusCode()).isEqualTo(200);
+        String link = deliveries.awaitLink("user");
+        assertThat(link).startsWith("https://login.example.com/otp?link=");
+        String submission = TestBrowser.json(Map.of("token", link.substring(link.indexOf("link=") + 5)));
+
+        // Opened in another browser that got as far as the password, the link is refused
+        TestBrowser otherBrowser = loggedIn("user", "userpass");
+        assertThat(otherBrowser.post("/auth/step/email-link", submission).statusCode()).isEqualTo(401);
+
+        HttpResponse<String> accepted = browser.post("/auth/step/email-link", submission);
+        assertThat(TestBrowser.nextStep(accepted)).isEqualTo("onboarding");
+
+        browser.logout();
+        assertThat(browser.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        assertThat(browser.post("/auth/step/email-link", submission).statusCode()).isEqualTo(401);
+
+        TestBrowser admin = loggedIn("admin", "password123");
+        assertThat(admin.post("/auth/email-link", "").statusCode()).isEqualTo(400);
+
+        // The admin gets a code straight away; the user, who may take a link, got none
+        assertThat(deliveries.awaitOtp("admin")).isNotNull();
+        assertThat(deliveries.hasOtpFor("user")).isFalse();
+    }
+
+    @Test
+    void codeIsOnlySentOnceTheUserAsksForIt() throws Exception {
+        TestBrowser browser = loggedIn("user", "userpass");
+        assertThat(browser.post("/auth/otp/send", "").statusCode()).isEqualTo(200);
+        String code = deliveries.awaitOtp("user");
+        assertThat(browser.post("/auth/otp/send", "").statusCode()).isEqualTo(400);
+
+        HttpResponse<String> accepted = browser.post("/auth/otp", "{\"otp\":\"" + code + "\"}");
+        assertThat(TestBrowser.nextStep(accepted)).isEqualTo("onboarding");
+    }
+
+    private TestBrowser loggedIn(String username, String password) throws Exception {
+        TestBrowser browser = new TestBrowser(port);
+        assertThat(browser.login(username, password).path("nextStep").asText()).isEqualTo("otp");
+        return browser;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.serialprovider.auth.email;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailLinkTokensTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Test
+    void tokenIsAcceptedOnceAndOnlyForItsSessionAndUser() {
+        EmailLinkTokens tokens = new EmailLinkTokens(SECRET, Duration.ofMinutes(10));
+        String token = tokens.issue("session-1", "user");
+
+        assertThat(tokens.consume(token, "session-2", "user")).isFalse();
+        assertThat(tokens.consume(token, "session-1", "admin")).isFalse();
+        assertThat(tokens.consume(token, "session-1", "user")).isTrue();
+        assertThat(tokens.consume(token, "session-1", "user")).isFalse();
+
+        // Another node with the same secret checks the signature without any shared state
+        EmailLinkTokens otherNode = new EmailLinkTokens(SECRET, Duration.ofMinutes(10));
+        assertThat(otherNode.consume(tokens.issue("session-1", "user"), "session-1", "user")).isTrue();
+        assertThat(tokens.getStats()).isEqualTo(new EmailLinkTokens.Stats(2, 1, 3, 1));
+    }
+
+    @Test
+    void forgedAndExpiredTokensAreRejected() {
+        EmailLinkTokens tokens = new EmailLinkTokens(SECRET, Duration.ofMinutes(10));
+        byte[] forged = Base64.getUrlDecoder().decode(tokens.issue("session-1", "user"));
+        forged[20] ^= 1;
+        assertThat(tokens.consume(Base64.getUrlEncoder().withoutPadding().encodeToString(forged), "session-1", "user"))
+            .isFalse();
+        assertThat(tokens.consume("not a token", "session-1", "user")).isFalse();
+
+        EmailLinkTokens expiring = new EmailLinkTokens(SECRET, Duration.ZERO);
+        assertThat(expiring.consume(expiring.issue("session-1", "user"), "session-1", "user")).isFalse();
+        assertThat(new EmailLinkTokens("", Duration.ofMinutes(10)).consume(tokens.issue("session-1", "user"),
+            "session-1", "user")).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.serialprovider.auth.flow;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthenticationFlowsTest {
+
+    private final StubStep password = new StubStep("password", 1);
+    private final StubStep risk = new StubStep("risk", 2);
+    private final StubStep otp = new StubStep("otp", 3);
+    private final StubStep onboarding = new StubStep("onboarding", 4);
+
+    @Test
+    void usersGetTheFlowOfTheirGroup() {
+        AuthenticationFlows flows = flows(
+            FlowDefinition.builder("admins").forGroups("admins")
+                .path("password", "risk", "otp", "onboarding").mandatory("otp").build(),
+            FlowDefinition.builder("service").forGroups("service")
+                .path("password", "risk", "otp").build(),
+            FlowDefinition.builder("default").path("password", "risk", "otp", "onboarding").build());
+        otp.enabled = false;
+
+        AuthenticationSession admin = session("alice", "password", "risk");
+        assertThat(flows.nextStepId(admin)).isEqualTo("otp");
+        assertThat(flows.canEnter(admin, "onboarding")).isFalse();
+        assertThat(flows.isWaivable("alice", "otp")).isFalse();
+
+        AuthenticationSession user = session("bob", "password", "risk");
+        assertThat(flows.nextStepId(user)).isEqualTo("onboarding");
+        assertThat(flows.includes(user, "otp")).isFalse();
+        assertThat(flows.isWaivable("bob", "otp")).isTrue();
+
+        otp.enabled = true;
+        AuthenticationSession service = session("svc", "password", "risk", "otp");
+        assertThat(flows.isComplete(service)).isTrue();
+        assertThat(flows.nextStep(service)).isEmpty();
+        assertThat(flows.stepsFor(service)).extracting(AuthenticationStep::getStepId)
+            .containsExactly("password", "risk", "otp");
+    }
+
+    @Test
+    void disabledStepsDropOutOfTheGraph() {
+        // password -> risk -> onboarding, password -> otp
+        int[] ancestors = {0, 0b0001, 0b0001, 0b0011};
+        CompiledFlow flow = CompiledFlow.compile("test", 4, 0b1111, 0, ancestors, 0b1101);
+
+        assertThat(flow.includes(1)).isFalse();
+        assertThat(flow.canEnter(0, 3)).isFalse();
+        assertThat(flow.canEnter(0b0001, 3)).isTrue();
+        assertThat(flow.nextStep(0b0001)).isEqualTo(2);
+        assertThat(flow.complete(0b0101, 3)).isEqualTo(0b1101);
+        // A completed step outside the flow does not change its state
+        assertThat(flow.nextStep(0b0111)).isEqualTo(3);
+        assertThat(flow.isComplete(0b1101)).isTrue();
+        assertThat(flow.nextStep(0b1101)).isEqualTo(CompiledFlow.DONE);
+    }
+
+    @Test
+    void invalidGraphsAreRejectedAtStartup() {
+        assertThatThrownBy(() -> flows(
+            FlowDefinition.builder("default").path("password", "otp", "risk", "otp").build()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("cycle");
+        assertThatThrownBy(() -> flows(
+            FlowDefinition.builder("default").path("password", "otp").build(),
+            FlowDefinition.builder("skip").forUsers("alice").path("otp").build()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("same steps");
+        assertThatThrownBy(() -> flows(
+            FlowDefinition.builder("default").path("password", "sms").build()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("unknown step sms");
+    }
+
+    private AuthenticationFlows flows(FlowDefinition... definitions) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (StubStep step : List.of(onboarding, otp, risk, password)) {
+            beanFactory.registerSingleton(step.id, step);
+        }
+        AuthenticationFlows flows = new AuthenticationFlows(beanFactory.getBeanProvider(AuthenticationStep.class),
+            List.of(definitions), beanFactory.getBeanProvider(StepPlacement.class), new UserGroups("admins:alice;service:svc"));
+        flows.afterSingletonsInstantiated();
+        return flows;
+    }
+
+    private static AuthenticationSession session(String username, String... completed) {
+        AuthenticationSession session = new AuthenticationSession();
+        session.setUsername(username);
+        Set.of(completed).forEach(session::addCompletedStep);
+        return session;
+    }
+
+    private static final class StubStep implements AuthenticationStep {
+        private final String id;
+        private final int order;
+        private boolean enabled = true;
+
+        StubStep(String id, int order) {
+            this.id = id;
+            this.order = order;
+        }
+
+        @Override
+        public String getStepId() {
+            return id;
+        }
+
+        @Override
+        public String getStepName() {
+            return id;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public boolean isCompleted(AuthenticationSession session) {
+            return session.hasCompletedStep(id);
+        }
+
+        @Override
+        public boolean canAccess(AuthenticationSession session) {
+            return true;
+        }
+
+        @Override
+        public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getNextStep(AuthenticationSession session) {
+            return null;
+        }
+
+        @Override
+        public String getStepUrl() {
+            return "/auth/" + id;
+        }
+
+        @Override
+        public String getSuccessMessage() {
+            return id;
+        }
+
+        @Override
+        public void resetStep(AuthenticationSession session) {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.serialprovider.auth.flow;
+
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.support.CapturingDeliveryConfiguration;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import com.example.serialprovider.support.TestBrowser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Switching OTP off for everyone leaves it in the admins' flow, where it is mandatory: an
+ * admin still gets a code, can submit it and finishes the login.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:mandatory-otp",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false"
+})
+@Import(CapturingDeliveryConfiguration.class)
+class MandatoryOtpFlowTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthenticationSettingsService settingsService;
+
+    @Autowired
+    private CapturingDeliveryListener deliveries;
+
+    @Test
+    void adminCompletesMandatoryOtpWhileOtpIsSwitchedOff() throws Exception {
+        settingsService.updateSettings(false, true);
+
+        TestBrowser user = new TestBrowser(port);
+        assertThat(user.login("user", "userpass").path("nextStep").asText()).isEqualTo("onboarding");
+        assertThat(user.post("/auth/otp", "{\"otp\":\"000000\"}").statusCode()).isEqualTo(400);
+
+        TestBrowser admin = new TestBrowser(port);
+        assertThat(admin.login("admin", "password123").path("nextStep").asText()).isEqualTo("otp");
+
+        HttpResponse<String> otp = admin.post("/auth/otp", "{\"otp\":\"" + deliveries.awaitOtp("admin") + "\"}");
+        assertThat(TestBrowser.nextStep(otp)).isEqualTo("onboarding");
+        HttpResponse<String> onboarded = admin.post("/auth/onboard",
+            "{\"fullName\":\"Admin User\",\"email\":\"admin@example.com\"}");
+        assertThat(TestBrowser.nextStep(onboarded)).isEqualTo("dashboard");
+        assertThat(TestBrowser.body(onboarded).path("fullyAuthenticated").asBoolean()).isTrue();
+
+        JsonNode status = TestBrowser.body(admin.get("/auth/status"));
+        assertThat(status.path("user").asText()).isEqualTo("admin");
+        assertThat(status.path("currentState").asText()).isEqualTo("FULLY_AUTHENTICATED");
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.serialprovider.auth.jwt;
+
+import com.example.serialprovider.auth.token.AccessTokenAuthenticationToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessTokenServiceTest {
+
+    private static final Set<String> ALL_STEPS = Set.of("password", "otp", "onboarding");
+
+    private final JwtKeyRing keyRing = new JwtKeyRing("", Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(8));
+    private final AccessTokenService service = new AccessTokenService(keyRing, Duration.ofMinutes(5), 100, "access");
+
+    @Test
+    void mintedTokenVerifiesAndRepeatedTokensHitTheCache() {
+        String token = service.mint("alice", ALL_STEPS).value();
+
+        AccessTokenAuthenticationToken first = service.verify(token);
+        AccessTokenAuthenticationToken second = service.verify(token);
+
+        assertThat(first.getName()).isEqualTo("alice");
+        assertThat(first.isFullyAuthenticated()).isTrue();
+        assertThat(first.getCompletedSteps()).isEqualTo(ALL_STEPS);
+        assertThat(second).isSameAs(first);
+        assertThat(service.getStats().verifications()).isEqualTo(1);
+        assertThat(service.getStats().cacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        String token = service.mint("alice", ALL_STEPS).value();
+        String[] parts = token.split("\\.");
+        String forgedClaims = encode(decode(parts[1]).replace("alice", "admin"));
+        String forgedAlgorithm = encode(decode(parts[0]).replace("HS256", "none"));
+
+        AccessTokenService otherNode = new AccessTokenService(
+            new JwtKeyRing("", Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(8)), Duration.ofMinutes(5), 100, "access");
+
+        assertThatThrownBy(() -> service.verify(parts[0] + "." + forgedClaims + "." + parts[2]))
+            .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> service.verify(forgedAlgorithm + "." + parts[1] + "."))
+            .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> service.verify("not-a-token"))
+            .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> otherNode.verify(token))
+            .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        AccessTokenService shortLived = new AccessTokenService(keyRing, Duration.ofSeconds(1), 100, "access");
+        String token = shortLived.mint("alice", ALL_STEPS).value();
+        shortLived.verify(token);
+
+        Thread.sleep(2_100);
+
+        assertThatThrownBy(() -> shortLived.verify(token)).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void tokensSurviveKeyRotationUntilTheOldKeyIsRetired() throws Exception {
+        JwtKeyRing rotatingRing = new JwtKeyRing("", Duration.ZERO, Duration.ofMillis(500), Duration.ofMillis(500));
+        AccessTokenService rotating = new AccessTokenService(rotatingRing, Duration.ofMinutes(5), 100, "access");
+        String token = rotating.mint("alice", ALL_STEPS).value();
+        String oldKid = rotatingRing.signingKey().kid();
+
+        rotatingRing.rotateIfDue();
+        assertThat(rotatingRing.signingKey().kid()).isNotEqualTo(oldKid);
+        assertThat(rotatingRing.verificationKey(oldKid)).isNotNull();
+
+        Thread.sleep(600);
+        rotatingRing.rotateIfDue();
+        assertThat(rotatingRing.verificationKey(oldKid)).isNull();
+        assertThatThrownBy(() -> rotating.verify(token)).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void sharedSecretLetsAnotherNodeVerify() {
+        String secret = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+        AccessTokenService node1 = new AccessTokenService(
+            new JwtKeyRing(secret, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(8)), Duration.ofMinutes(5), 100, "access");
+        AccessTokenService node2 = new AccessTokenService(
+            new JwtKeyRing(secret, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(8)), Duration.ofMinutes(5), 100, "access");
+
+        assertThat(node2.verify(node1.mint("alice", ALL_STEPS).value()).getName()).isEqualTo("alice");
+    }
+
+    /**
+     * Run with -Dbenchmark.enabled=true to measure cached and uncached verification.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+    void benchmarkVerification() {
+        int iterations = 1_000_000;
+        String token = service.mint("alice", ALL_STEPS).value();
+        AccessTokenService uncached = new AccessTokenService(keyRing, Duration.ofMinutes(5), 0, "access");
+        for (int warmup = 0; warmup < 3; warmup++) {
+            time(iterations, () -> service.verify(token));
+            time(iterations / 10, () -> uncached.verify(token));
+        }
+        long cachedNanos = time(iterations, () -> service.verify(token));
+        long uncachedNanos = time(iterations / 10, () -> uncached.verify(token));
+
+        System.out.printf("cached:   %d ns/verify%nuncached: %d ns/verify%n",
+            cachedNanos / iterations, uncachedNanos / (iterations / 10));
+    }
+
+    private static long time(int iterations, Runnable work) {
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            work.run();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static String decode(String part) {
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.serialprovider.auth.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringIdSetTest {
+
+    private static final long BUCKET = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ExpiringIdSet ids = new ExpiringIdSet(BUCKET, now::get);
+
+    @Test
+    void secondAddOfAnIdFails() {
+        assertThat(ids.add(42, now.get() + BUCKET)).isTrue();
+        assertThat(ids.add(42, now.get() + BUCKET)).isFalse();
+        assertThat(ids.contains(42)).isTrue();
+        assertThat(ids.contains(43)).isFalse();
+    }
+
+    @Test
+    void idsAreKeptUntilTheyExpireAndThenDropped() {
+        ids.add(1, now.get() + BUCKET);
+        ids.add(2, now.get() + 10 * BUCKET);
+
+        now.addAndGet(BUCKET - 1);
+        assertThat(ids.contains(1)).isTrue();
+
+        now.addAndGet(2 * BUCKET);
+        assertThat(ids.contains(1)).isFalse();
+        assertThat(ids.contains(2)).isTrue();
+        assertThat(ids.size()).isEqualTo(1);
+
+        now.addAndGet(10 * BUCKET);
+        assertThat(ids.contains(2)).isFalse();
+        assertThat(ids.size()).isZero();
+    }
+
+    @Test
+    void sizeIsBoundedByIdsThatHaveNotExpired() {
+        for (long id = 0; id < 100_000; id++) {
+            // A steady stream of ids, each live for five minutes
+            now.addAndGet(100);
+            ids.add(id, now.get() + 5 * BUCKET);
+        }
+        // 5 minutes of ids at 10 per second, plus at most one bucket of stragglers
+        assertThat(ids.size()).isLessThanOrEqualTo(6 * 600);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.serialprovider.auth.jwt;
+
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.support.TestBrowser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Logout revokes the refresh token the browser holds in its cookie, so a copy taken earlier
+ * can no longer be exchanged.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:refresh-logout",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false"
+})
+class RefreshTokenLogoutTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthenticationSettingsService settingsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void passwordOnly() {
+        settingsService.updateSettings(false, false);
+    }
+
+    @Test
+    void logoutRevokesTheRefreshTokenFromTheCookie() throws Exception {
+        TestBrowser browser = new TestBrowser(port);
+        HttpResponse<String> login = browser.post("/auth/login", "{\"username\":\"user\",\"password\":\"userpass\"}");
+        assertThat(login.headers().allValues("Set-Cookie"))
+            .anyMatch(cookie -> cookie.startsWith("SERIAL_PROVIDER_REFRESH=") && cookie.contains("Path=/auth;"));
+        String copied = TestBrowser.body(login).path("refreshToken").asText();
+        assertThat(copied).isNotEmpty();
+        int revokedBefore = refreshTokenService.getStats().revokedFamilies();
+
+        // The token travels only in the cookie here
+        assertThat(browser.post("/auth/logout", "").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> refresh = browser.post("/auth/token/refresh", "{\"refreshToken\":\"" + copied + "\"}");
+        assertThat(refresh.statusCode()).isEqualTo(401);
+        assertThat(refreshTokenService.getStats().revokedFamilies()).isEqualTo(revokedBefore + 1);
+    }
+}
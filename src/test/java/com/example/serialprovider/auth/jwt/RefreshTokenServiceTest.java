@@ -0,0 +1,103 @@
+package com.example.serialprovider.auth.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshTokenServiceTest {
+
+    private static final Set<String> ALL_STEPS = Set.of("password", "otp", "onboarding");
+
+    private final JwtKeyRing keyRing = new JwtKeyRing("", Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(8));
+    private final RefreshTokenService service = new RefreshTokenService(
+        keyRing, Duration.ofHours(8), Duration.ofDays(7), Duration.ofMinutes(1), "refresh");
+    private final AccessTokenService accessTokens = new AccessTokenService(keyRing, Duration.ofMinutes(5), 100, "access");
+
+    @Test
+    void rotationReturnsAUsableSuccessor() {
+        String first = service.issue("alice", ALL_STEPS).value();
+
+        RefreshTokenService.Rotation rotation = service.rotate(first);
+        RefreshTokenService.Rotation next = service.rotate(rotation.refreshToken().value());
+
+        assertThat(rotation.username()).isEqualTo("alice");
+        assertThat(rotation.completedSteps()).isEqualTo(ALL_STEPS);
+        assertThat(next.refreshToken().value()).isNotEqualTo(rotation.refreshToken().value());
+    }
+
+    @Test
+    void reusingAnExchangedTokenRevokesTheWholeFamily() {
+        String stolen = service.issue("alice", ALL_STEPS).value();
+        String successor = service.rotate(stolen).refreshToken().value();
+
+        assertThatThrownBy(() -> service.rotate(stolen))
+            .isInstanceOf(BadCredentialsException.class)
+            .hasMessageContaining("reuse");
+        assertThatThrownBy(() -> service.rotate(successor))
+            .isInstanceOf(BadCredentialsException.class)
+            .hasMessageContaining("revoked");
+        assertThat(service.getStats().reuseDetected()).isEqualTo(1);
+
+        // Other families are unaffected
+        assertThat(service.rotate(service.issue("bob", ALL_STEPS).value()).username()).isEqualTo("bob");
+    }
+
+    @Test
+    void concurrentExchangesOfOneTokenHaveASingleWinner() throws Exception {
+        int threads = 8;
+        String token = service.issue("alice", ALL_STEPS).value();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.rotate(token);
+                        return true;
+                    } catch (BadCredentialsException e) {
+                        return false;
+                    }
+                }));
+            }
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                winners += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(winners).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void revokedTokenCannotBeExchanged() {
+        String token = service.issue("alice", ALL_STEPS).value();
+
+        service.revoke(token);
+
+        assertThatThrownBy(() -> service.rotate(token)).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void accessAndRefreshTokensAreNotInterchangeable() {
+        String refreshToken = service.issue("alice", ALL_STEPS).value();
+        String accessToken = accessTokens.mint("alice", ALL_STEPS).value();
+
+        assertThatThrownBy(() -> accessTokens.verify(refreshToken)).isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> service.rotate(accessToken)).isInstanceOf(BadCredentialsException.class);
+    }
+}
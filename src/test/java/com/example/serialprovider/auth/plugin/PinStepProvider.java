@@ -0,0 +1,91 @@
+package com.example.serialprovider.auth.plugin;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import com.example.serialprovider.auth.step.AuthenticationStep;
+import com.example.serialprovider.auth.step.AuthenticationStepResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test plugin asking for a fixed PIN between the password and OTP steps
+ */
+@StepPlugin(id = "pin", name = "PIN", order = 2, after = "password", before = "otp")
+public class PinStepProvider implements AuthenticationStepProvider {
+
+    static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public PinStepProvider() {
+        INSTANCES.incrementAndGet();
+    }
+
+    @Override
+    public AuthenticationStep create(StepPluginContext context) {
+        String expected = context.getProperty("expected", "0000");
+        return new AuthenticationStep() {
+            @Override
+            public String getStepId() {
+                return context.getStepId();
+            }
+
+            @Override
+            public String getStepName() {
+                return context.getDescriptor().name();
+            }
+
+            @Override
+            public int getOrder() {
+                return context.getDescriptor().order();
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public boolean isCompleted(AuthenticationSession session) {
+                return session.hasCompletedStep(getStepId());
+            }
+
+            @Override
+            public boolean canAccess(AuthenticationSession session) {
+                return session.getUsername() != null;
+            }
+
+            @Override
+            public AuthenticationStepResult processAuthentication(Authentication authentication, AuthenticationSession session) {
+                if (!(authentication.getCredentials() instanceof Map<?, ?> fields) || !expected.equals(fields.get("pin"))) {
+                    return AuthenticationStepResult.failure().message("Wrong PIN").build();
+                }
+                session.addCompletedStep(getStepId());
+                return AuthenticationStepResult.success()
+                    .message(getSuccessMessage())
+                    .grantedAuthorities(List.of(new SimpleGrantedAuthority("STEP_1_COMPLETED")))
+                    .build();
+            }
+
+            @Override
+            public String getNextStep(AuthenticationSession session) {
+                return null;
+            }
+
+            @Override
+            public String getStepUrl() {
+                return "/auth/step/" + getStepId();
+            }
+
+            @Override
+            public String getSuccessMessage() {
+                return "Enter your PIN";
+            }
+
+            @Override
+            public void resetStep(AuthenticationSession session) {
+            }
+        };
+    }
+}
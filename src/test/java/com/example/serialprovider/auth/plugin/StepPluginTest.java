@@ -0,0 +1,61 @@
+package com.example.serialprovider.auth.plugin;
+
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.support.TestBrowser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The PIN plugin on the test class path is discovered at startup, stays unloaded while it is
+ * switched off, and once switched on sits between the password and OTP steps.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:plugins",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false",
+    "auth.plugins.pin.expected=2468"
+})
+class StepPluginTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PluginAuthenticationStep pin;
+
+    @Autowired
+    private AuthenticationSettingsService settingsService;
+
+    @Test
+    void pluginIsLoadedOnlyOnceSwitchedOnAndUsed() throws Exception {
+        TestBrowser browser = new TestBrowser(port);
+        assertThat(browser.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        assertThat(pin.isLoaded()).isFalse();
+        // Submitting to a switched off plugin is refused without loading it
+        assertThat(browser.post("/auth/step/pin", "{\"pin\":\"2468\"}").statusCode()).isEqualTo(401);
+        assertThat(pin.isLoaded()).isFalse();
+        assertThat(PinStepProvider.INSTANCES).hasValue(0);
+
+        settingsService.setPluginEnabled("pin", true);
+        browser.logout();
+        assertThat(browser.login("user", "userpass").path("nextStep").asText()).isEqualTo("pin");
+
+        assertThat(browser.post("/auth/step/otp", "{}").statusCode()).isEqualTo(404);
+        assertThat(browser.post("/auth/otp", "{\"otp\":\"000000\"}").statusCode()).isEqualTo(401);
+        assertThat(browser.post("/auth/step/pin", "{\"pin\":\"0000\"}").statusCode()).isEqualTo(401);
+        HttpResponse<String> accepted = browser.post("/auth/step/pin", "{\"pin\":\"2468\"}");
+        assertThat(TestBrowser.nextStep(accepted)).isEqualTo("otp");
+        assertThat(pin.getStats().loaded()).isTrue();
+        assertThat(PinStepProvider.INSTANCES).hasValue(1);
+
+        settingsService.setPluginEnabled("pin", false);
+        browser.logout();
+        assertThat(browser.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+    }
+}
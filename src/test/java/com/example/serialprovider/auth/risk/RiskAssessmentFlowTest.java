@@ -0,0 +1,56 @@
+package com.example.serialprovider.auth.risk;
+
+import com.example.serialprovider.support.CapturingDeliveryConfiguration;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import com.example.serialprovider.support.TestBrowser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Once a device has completed a login, the risk step waives OTP for it; other devices, even
+ * one sending the same user agent, are still challenged.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:risk",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false",
+    "auth.risk.enabled=true"
+})
+@Import(CapturingDeliveryConfiguration.class)
+class RiskAssessmentFlowTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CapturingDeliveryListener deliveries;
+
+    @Autowired
+    private RiskAssessmentStep riskStep;
+
+    @Test
+    void familiarLoginSkipsOtpWhileANewDeviceIsChallenged() throws Exception {
+        TestBrowser laptop = new TestBrowser(port).withHeader("User-Agent", "laptop");
+
+        // First login: nothing is known about the device or the hour yet
+        assertThat(laptop.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        laptop.post("/auth/otp", "{\"otp\":\"" + deliveries.takeOtp("user") + "\"}");
+        assertThat(TestBrowser.nextStep(laptop.post("/auth/onboard",
+            "{\"fullName\":\"Test User\",\"email\":\"user@example.com\"}"))).isEqualTo("dashboard");
+        laptop.logout();
+
+        assertThat(laptop.login("user", "userpass").path("nextStep").asText()).isEqualTo("onboarding");
+        laptop.logout();
+        TestBrowser phone = new TestBrowser(port).withHeader("User-Agent", "unknown-phone");
+        assertThat(phone.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        // Copying the laptop's user agent does not make another device familiar
+        TestBrowser copycat = new TestBrowser(port).withHeader("User-Agent", "laptop");
+        assertThat(copycat.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        assertThat(riskStep.getStats().otpWaived()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.serialprovider.auth.risk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiskAssessmentStepTest {
+
+    private static final RiskContext CONTEXT = new RiskContext("alice", "10.0.0.1", "test-agent", null, Instant.now());
+
+    private RiskAssessmentStep step;
+
+    @AfterEach
+    void shutDown() {
+        if (step != null) {
+            step.destroy();
+        }
+    }
+
+    @Test
+    void scoreIsTheWeightedMeanOfTheSignals() {
+        step = stepWith(signal("low", 3, context -> 0.0), signal("high", 1, context -> 1.0));
+
+        RiskAssessmentStep.RiskScore score = step.assess(CONTEXT);
+
+        assertThat(score.value()).isEqualTo(0.25);
+        assertThat(score.timedOutSignals()).isZero();
+    }
+
+    @Test
+    void slowAndFailingSignalsCountAsMaximumRiskWithoutDelayingTheScore() {
+        step = stepWith(
+            signal("fast", 1, context -> 0.0),
+            signal("slow", 1, context -> {
+                Thread.sleep(5_000);
+                return 0.0;
+            }),
+            signal("broken", 1, context -> {
+                throw new IllegalStateException("signal unavailable");
+            }));
+
+        long started = System.nanoTime();
+        RiskAssessmentStep.RiskScore score = step.assess(CONTEXT);
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertThat(score.value()).isEqualTo(2.0 / 3.0);
+        assertThat(score.timedOutSignals()).isEqualTo(2);
+        assertThat(elapsedMillis).isLessThan(1_000);
+    }
+
+    private static RiskAssessmentStep stepWith(RiskSignal... signals) {
+        return new RiskAssessmentStep(List.of(signals), null, null, null, true, 0.3, Duration.ofMillis(50));
+    }
+
+    private static RiskSignal signal(String name, double weight, Evaluation evaluation) {
+        return new RiskSignal() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public double getWeight() {
+                return weight;
+            }
+
+            @Override
+            public double evaluate(RiskContext context) throws Exception {
+                return evaluation.evaluate(context);
+            }
+        };
+    }
+
+    private interface Evaluation {
+        double evaluate(RiskContext context) throws Exception;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.serialprovider.auth.webauthn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * An ES256 authenticator in memory, answering challenges the way a browser and a platform
+ * authenticator would together
+ */
+class SoftwareAuthenticator {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final KeyPair keyPair;
+    private final String credentialId;
+    private final String rpId;
+    private final String origin;
+    private int signCount;
+
+    SoftwareAuthenticator(String rpId, String origin) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        this.keyPair = generator.generateKeyPair();
+        byte[] id = new byte[16];
+        new SecureRandom().nextBytes(id);
+        this.credentialId = ENCODER.encodeToString(id);
+        this.rpId = rpId;
+        this.origin = origin;
+    }
+
+    String getCredentialId() {
+        return credentialId;
+    }
+
+    byte[] getPublicKey() {
+        return keyPair.getPublic().getEncoded();
+    }
+
+    void setSignCount(int signCount) {
+        this.signCount = signCount;
+    }
+
+    Map<String, Object> register(String challenge) {
+        return Map.of(
+            "credentialId", credentialId,
+            "clientDataJSON", clientData("webauthn.create", challenge),
+            "publicKey", ENCODER.encodeToString(getPublicKey()),
+            "publicKeyAlgorithm", WebAuthnCredentialService.ES256);
+    }
+
+    /**
+     * @param userVerified whether the authenticator checked a PIN or biometric
+     */
+    Map<String, String> assertion(String challenge, boolean userVerified) throws GeneralSecurityException {
+        signCount++;
+        int flags = WebAuthnRelyingParty.FLAG_USER_PRESENT | (userVerified ? WebAuthnRelyingParty.FLAG_USER_VERIFIED : 0);
+        byte[] authenticatorData = ByteBuffer.allocate(37)
+            .put(WebAuthnRelyingParty.sha256(rpId.getBytes(StandardCharsets.UTF_8)))
+            .put((byte) flags)
+            .putInt(signCount)
+            .array();
+        String clientData = clientData("webauthn.get", challenge);
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(authenticatorData);
+        signer.update(WebAuthnRelyingParty.sha256(Base64.getUrlDecoder().decode(clientData)));
+        return Map.of(
+            "credentialId", credentialId,
+            "clientDataJSON", clientData,
+            "authenticatorData", ENCODER.encodeToString(authenticatorData),
+            "signature", ENCODER.encodeToString(signer.sign()));
+    }
+
+    private String clientData(String type, String challenge) {
+        String json = "{\"type\":\"" + type + "\",\"challenge\":\"" + challenge + "\",\"origin\":\"" + origin + "\"}";
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
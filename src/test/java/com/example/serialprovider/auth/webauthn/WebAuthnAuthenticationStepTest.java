@@ -0,0 +1,123 @@
+package com.example.serialprovider.auth.webauthn;
+
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.support.TestBrowser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A passkey registered by a signed-in user replaces password and OTP at the next login, and
+ * each assertion and counter value is accepted once.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:webauthn",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false",
+    "auth.webauthn.enabled=true"
+})
+class WebAuthnAuthenticationStepTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SoftwareAuthenticator authenticator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthenticationSettingsService settings;
+
+    @Autowired
+    private WebAuthnCredentialService credentials;
+
+    @BeforeEach
+    void newAuthenticator() throws Exception {
+        authenticator = new SoftwareAuthenticator("localhost", "http://localhost:" + port);
+    }
+
+    @Test
+    void passkeyReplacesPasswordAndOtpOnce() throws Exception {
+        settings.updateSettings(false, false);
+        TestBrowser registering = new TestBrowser(port);
+        String accessToken = registering.login("user", "userpass").path("accessToken").asText();
+        String bearer = "Bearer " + accessToken;
+
+        String createChallenge = TestBrowser.body(
+            registering.post("/api/webauthn/credentials/options", "", "Authorization", bearer)).path("challenge").asText();
+        HttpResponse<String> registered = registering.post("/api/webauthn/credentials",
+            objectMapper.writeValueAsString(authenticator.register(createChallenge)), "Authorization", bearer);
+        assertThat(registered.statusCode()).isEqualTo(200);
+
+        settings.updateSettings(true, false);
+        TestBrowser browser = new TestBrowser(port);
+        Map<String, String> assertion = authenticator.assertion(challenge(browser), true);
+        HttpResponse<String> passkeyLogin = browser.post("/auth/step/webauthn", objectMapper.writeValueAsString(assertion));
+        assertThat(passkeyLogin.statusCode()).isEqualTo(200);
+        JsonNode body = TestBrowser.body(passkeyLogin);
+        assertThat(body.path("fullyAuthenticated").asBoolean()).isTrue();
+        assertThat(body.path("user").asText()).isEqualTo("user");
+
+        // The same assertion again, and a fresh challenge signed with an old counter
+        long counterRejections = credentials.getStats().counterRejections();
+        TestBrowser attacker = new TestBrowser(port);
+        challenge(attacker);
+        assertThat(attacker.post("/auth/step/webauthn", objectMapper.writeValueAsString(assertion)).statusCode())
+            .isEqualTo(401);
+        authenticator.setSignCount(0);
+        Map<String, String> cloned = authenticator.assertion(challenge(attacker), true);
+        assertThat(attacker.post("/auth/step/webauthn", objectMapper.writeValueAsString(cloned)).statusCode())
+            .isEqualTo(401);
+        assertThat(credentials.getStats().counterRejections()).isEqualTo(counterRejections + 1);
+
+        // Without user verification the passkey only stands in for the password
+        authenticator.setSignCount(10);
+        TestBrowser unverified = new TestBrowser(port);
+        Map<String, String> presenceOnly = authenticator.assertion(challenge(unverified), false);
+        HttpResponse<String> partial = unverified.post("/auth/step/webauthn", objectMapper.writeValueAsString(presenceOnly));
+        assertThat(TestBrowser.nextStep(partial)).isEqualTo("otp");
+    }
+
+    @Test
+    void concurrentLoginsWithOneCounterValueAdmitOne() throws Exception {
+        credentials.register("user", authenticator.getCredentialId(), authenticator.getPublicKey(),
+            WebAuthnCredentialService.ES256);
+        WebAuthnCredentialService.CachedCredential credential = credentials.find(authenticator.getCredentialId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> logins = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                logins.add(() -> credentials.advanceSignCount(credential, 5));
+            }
+            int accepted = 0;
+            for (Future<Boolean> login : executor.invokeAll(logins)) {
+                accepted += login.get() ? 1 : 0;
+            }
+            assertThat(accepted).isEqualTo(1);
+            assertThat(credentials.advanceSignCount(credential, 6)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String challenge(TestBrowser browser) throws Exception {
+        HttpResponse<String> options = browser.post("/auth/webauthn/options", "");
+        assertThat(options.statusCode()).isEqualTo(200);
+        return TestBrowser.body(options).path("challenge").asText();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.serialprovider.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache("test", Duration.ZERO, false, executor);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get("key", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(200);
+                    return "loaded";
+                });
+            }));
+        }
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getStats().coalescedWaits()).isEqualTo(THREADS - 1);
+    }
+
+    @Test
+    void evictedSnapshotIsServedWhileRefreshRuns() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache("test", Duration.ZERO, true, executor);
+        cache.put("key", "v1");
+        cache.evict("key");
+
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            // The refresh is blocked, yet every read returns at once with the old snapshot
+            assertThat(cache.get("key", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "v2";
+            })).isEqualTo("v1");
+        }
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!"v2".equals(cache.get("key", String.class)) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.get("key", String.class)).isEqualTo("v2");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadOverlappingAPutDoesNotOverwriteIt() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache("test", Duration.ZERO, false, executor);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> slowLoad = executor.submit(() -> cache.get("key", () -> {
+            loading.countDown();
+            release.await();
+            return "old";
+        }));
+        loading.await();
+        cache.put("key", "new");
+        release.countDown();
+
+        assertThat(slowLoad.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(cache.get("key", String.class)).isEqualTo("new");
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.serialprovider.invalidation;
+
+import com.example.serialprovider.invalidation.SettingsInvalidationBus.SettingsChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettingsInvalidationBusTest {
+
+    private static final SettingsChange CHANGE = new SettingsChange(7, false, true, "pin,webauthn");
+
+    @Test
+    void loopbackDeliversToPeersButNotToPublisher() {
+        String group = "test-" + UUID.randomUUID();
+        LoopbackSettingsInvalidationBus node1 = new LoopbackSettingsInvalidationBus(group);
+        LoopbackSettingsInvalidationBus node2 = new LoopbackSettingsInvalidationBus(group);
+        LoopbackSettingsInvalidationBus otherGroup = new LoopbackSettingsInvalidationBus(group + "-other");
+        List<SettingsChange> onNode1 = new CopyOnWriteArrayList<>();
+        List<SettingsChange> onNode2 = new CopyOnWriteArrayList<>();
+        List<SettingsChange> onOtherGroup = new CopyOnWriteArrayList<>();
+        node1.subscribe(onNode1::add);
+        node2.subscribe(onNode2::add);
+        otherGroup.subscribe(onOtherGroup::add);
+
+        node1.publish(CHANGE);
+
+        assertThat(onNode2).containsExactly(CHANGE);
+        assertThat(onNode1).isEmpty();
+        assertThat(onOtherGroup).isEmpty();
+
+        node2.destroy();
+        node1.publish(CHANGE);
+        assertThat(onNode2).hasSize(1);
+    }
+
+    @Test
+    void multicastDeliversToPeersOnTheSameHost() throws Exception {
+        int port = ThreadLocalRandom.current().nextInt(40_000, 50_000);
+        MulticastSettingsInvalidationBus node1 = new MulticastSettingsInvalidationBus("239.255.42.99", port, "");
+        MulticastSettingsInvalidationBus node2 = new MulticastSettingsInvalidationBus("239.255.42.99", port, "");
+        try {
+            BlockingQueue<SettingsChange> onNode1 = new LinkedBlockingQueue<>();
+            BlockingQueue<SettingsChange> onNode2 = new LinkedBlockingQueue<>();
+            node1.subscribe(onNode1::add);
+            node2.subscribe(onNode2::add);
+
+            node1.publish(CHANGE);
+
+            assertThat(onNode2.poll(5, TimeUnit.SECONDS)).isEqualTo(CHANGE);
+            assertThat(onNode1.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        } finally {
+            node1.destroy();
+            node2.destroy();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.serialprovider.invalidation;
+
+import com.example.serialprovider.SerialProviderApplication;
+import com.example.serialprovider.config.SingleFlightCache;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application instances with separate databases: a settings change on one node reaches
+ * the other through the bus alone, without it reloading from its database.
+ */
+class SettingsPropagationTest {
+
+    private final String group = "settings-" + UUID.randomUUID();
+    private ConfigurableApplicationContext node1;
+    private ConfigurableApplicationContext node2;
+
+    @BeforeEach
+    void startNodes() {
+        node1 = startNode("node1");
+        node2 = startNode("node2");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    void changeOnOneNodeIsAppliedOnTheOther() {
+        AuthenticationSettingsService settingsOnNode2 = node2.getBean(AuthenticationSettingsService.class);
+        assertThat(settingsOnNode2.isOtpEnabled()).isTrue();
+        long loadsBefore = node2.getBean(SingleFlightCache.class).getStats().loads();
+
+        node1.getBean(AuthenticationSettingsService.class).updateSettings(false, true);
+
+        assertThat(settingsOnNode2.isOtpEnabled()).isFalse();
+        assertThat(settingsOnNode2.getNextStep("password")).isEqualTo("onboarding");
+        assertThat(node2.getBean(SingleFlightCache.class).getStats().loads()).isEqualTo(loadsBefore);
+    }
+
+    private ConfigurableApplicationContext startNode(String name) {
+        // Command-line arguments, so they take precedence over application.properties
+        return new SpringApplicationBuilder(SerialProviderApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:" + name + "-" + group,
+            "--spring.jpa.show-sql=false",
+            "--auth.warmup.enabled=false",
+            "--auth.settings.bus=loopback",
+            "--auth.settings.bus.group=" + group);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.serialprovider.loadtest;
+
+import com.example.serialprovider.service.BreachedPasswordPolicy;
+import com.example.serialprovider.service.UserCredentialsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * In-JVM load harness: boots the app on an ephemeral port and drives virtual users through
+ * /auth/login → /auth/otp → /auth/onboard → /api/dashboard for each configured flow combination.
+ *
+ * <p>Disabled by default. Run with, for example:
+ * <pre>
+ * mvn test -Dtest=AuthFlowLoadTest -Dloadtest.enabled=true -Dloadtest.users=10000 \
+ *     -Dloadtest.arrivalRate=2000 -Dloadtest.thinkTimeMs=100 -Dloadtest.failureRatio=0.02 \
+ *     -Dspring.threads.virtual.enabled=true
+ * </pre>
+ * Compare runs with and without {@code spring.threads.virtual.enabled} to measure the
+ * platform vs virtual thread difference. The harness's users are virtual threads too, so on
+ * small machines add {@code -DargLine="-Djdk.virtualThreadScheduler.parallelism=4"} to keep
+ * them from sharing one carrier with the server; results are in docs/virtual-threads.md. Set {@code -Dloadtest.failOnErrors=true} to fail the
+ * run on unexpected step errors.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest.enabled", matches = "true")
+class AuthFlowLoadTest {
+
+    private static final String LOAD_USER_PREFIX = "load-";
+    private static final String LOAD_USER_PASSWORD = "load-pass";
+    private static final Duration OTP_WAIT = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CapturingOtpListener otpListener;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    @Test
+    void runConfiguredLoadProfile() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        long errors = 0;
+
+        for (String combination : profile.combinations()) {
+            applyFlowCombination(combination);
+            errors += runPhase(profile, combination);
+        }
+
+        if (Boolean.getBoolean("loadtest.failOnErrors")) {
+            assertThat(errors).as("unexpected step failures").isZero();
+        }
+    }
+
+    private long runPhase(LoadProfile profile, String combination) throws InterruptedException {
+        StepMetrics metrics = new StepMetrics();
+        LongAdder completedFlows = new LongAdder();
+        long intervalNanos = (long) (1_000_000_000L / profile.arrivalRatePerSecond());
+        long start = System.nanoTime();
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < profile.users(); i++) {
+                // Open workload model: users arrive on schedule regardless of in-flight work
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                String username = LOAD_USER_PREFIX + combination + "-" + i;
+                users.submit(() -> {
+                    new VirtualUser(username, profile, metrics, LoadProfile.otpEnabled(combination)).run();
+                    completedFlows.increment();
+                });
+            }
+            users.shutdown();
+            if (!users.awaitTermination(profile.phaseTimeout().toSeconds(), TimeUnit.SECONDS)) {
+                users.shutdownNow();
+            }
+        }
+
+        System.out.println(metrics.report(combination, completedFlows.sum(), System.nanoTime() - start));
+        return metrics.errors();
+    }
+
+    private void applyFlowCombination(String combination) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+            "otpEnabled", LoadProfile.otpEnabled(combination),
+            "onboardingEnabled", LoadProfile.onboardingEnabled(combination)
+        ));
+        HttpResponse<String> response = httpClient.send(
+            HttpRequest.newBuilder(uri("/admin/auth-settings/update"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    /**
+     * One user walking the full flow with its own session cookie.
+     */
+    private class VirtualUser {
+
+        private final String username;
+        private final LoadProfile profile;
+        private final StepMetrics metrics;
+        private final boolean otpFlow;
+        // Session, access token and refresh cookies, by name
+        private final Map<String, String> cookies = new LinkedHashMap<>();
+        private String currentStep = "login";
+
+        VirtualUser(String username, LoadProfile profile, StepMetrics metrics, boolean otpFlow) {
+            this.username = username;
+            this.profile = profile;
+            this.metrics = metrics;
+            this.otpFlow = otpFlow;
+        }
+
+        void run() {
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                boolean injectFailure = random.nextDouble() < profile.failureRatio();
+                boolean failAtOtp = injectFailure && otpFlow && random.nextBoolean();
+
+                String password = injectFailure && !failAtOtp ? "wrong-password" : LOAD_USER_PASSWORD;
+                String nextStep = submit("login", "/auth/login",
+                    Map.of("username", username, "password", password),
+                    injectFailure && !failAtOtp);
+
+                while (nextStep != null && !"dashboard".equals(nextStep)) {
+                    think();
+                    nextStep = switch (nextStep) {
+                        case "otp" -> {
+                            String otp = otpListener.await(username, OTP_WAIT);
+                            yield submit("otp", "/auth/otp",
+                                Map.of("otp", failAtOtp ? "000000" : otp), failAtOtp);
+                        }
+                        case "onboarding" -> submit("onboard", "/auth/onboard",
+                            Map.of("fullName", "Load User", "email", username + "@example.com"), false);
+                        default -> null;
+                    };
+                }
+
+                if ("dashboard".equals(nextStep)) {
+                    think();
+                    get("dashboard", "/api/dashboard");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                metrics.recordError(currentStep, 0, e.getClass().getSimpleName());
+            }
+        }
+
+        /**
+         * Posts a step and returns the next step, or null when the flow ends here.
+         */
+        private String submit(String step, String path, Map<String, String> payload, boolean expectFailure)
+                throws Exception {
+            currentStep = step;
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(payload)));
+            long started = System.nanoTime();
+            HttpResponse<String> response = send(request);
+            long latency = System.nanoTime() - started;
+
+            if (expectFailure) {
+                if (response.statusCode() == 401) {
+                    metrics.record(step, latency, StepMetrics.Outcome.EXPECTED_FAILURE);
+                } else {
+                    metrics.recordError(step, latency, "HTTP " + response.statusCode());
+                }
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                metrics.recordError(step, latency, "HTTP " + response.statusCode());
+                return null;
+            }
+            metrics.record(step, latency, StepMetrics.Outcome.OK);
+            JsonNode body = objectMapper.readTree(response.body());
+            return body.path("nextStep").asText(null);
+        }
+
+        private void get(String step, String path) throws Exception {
+            currentStep = step;
+            long started = System.nanoTime();
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri(path)).GET());
+            long latency = System.nanoTime() - started;
+            if (response.statusCode() == 200) {
+                metrics.record(step, latency, StepMetrics.Outcome.OK);
+            } else {
+                metrics.recordError(step, latency, "HTTP " + response.statusCode());
+            }
+        }
+
+        private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+            if (!cookies.isEmpty()) {
+                request.header("Cookie", cookies.entrySet().stream()
+                    .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+                    .collect(Collectors.joining("; ")));
+            }
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            for (String setCookie : response.headers().allValues("Set-Cookie")) {
+                int end = setCookie.indexOf(';');
+                String pair = end < 0 ? setCookie : setCookie.substring(0, end);
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    String value = pair.substring(equals + 1);
+                    if (value.isEmpty()) {
+                        cookies.remove(pair.substring(0, equals));
+                    } else {
+                        cookies.put(pair.substring(0, equals), value);
+                    }
+                }
+            }
+            return response;
+        }
+
+        private void think() throws InterruptedException {
+            long mean = profile.meanThinkTime().toMillis();
+            if (mean > 0) {
+                // Exponentially distributed think time around the configured mean
+                long pause = (long) (-mean * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+                Thread.sleep(pause);
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class LoadTestConfiguration {
+
+        @Bean
+        CapturingOtpListener capturingOtpListener() {
+            return new CapturingOtpListener();
+        }
+
+        /**
+         * Accepts any "load-*" user so concurrent flows never share a username (and OTP).
+         */
+        @Bean
+        @Primary
+        UserCredentialsService loadTestCredentialsService(BreachedPasswordPolicy breachedPasswordPolicy) {
+            return new UserCredentialsService(breachedPasswordPolicy) {
+                @Override
+                public boolean validateCredentials(String username, String password) {
+                    if (username != null && username.startsWith(LOAD_USER_PREFIX)) {
+                        return LOAD_USER_PASSWORD.equals(password);
+                    }
+                    return super.validateCredentials(username, password);
+                }
+
+                @Override
+                public boolean userExists(String username) {
+                    return (username != null && username.startsWith(LOAD_USER_PREFIX)) || super.userExists(username);
+                }
+            };
+        }
+    }
+}
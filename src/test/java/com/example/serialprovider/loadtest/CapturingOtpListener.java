@@ -0,0 +1,34 @@
+package com.example.serialprovider.loadtest;
+
+import com.example.serialprovider.service.OtpDeliveryListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test hook on OtpService deliveries: hands each code to the virtual user waiting for it.
+ */
+class CapturingOtpListener implements OtpDeliveryListener {
+
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onOtpSent(String username, String otpCode) {
+        futureFor(username).complete(otpCode);
+    }
+
+    String await(String username, Duration timeout) throws Exception {
+        try {
+            return futureFor(username).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            pending.remove(username);
+        }
+    }
+
+    private CompletableFuture<String> futureFor(String username) {
+        return pending.computeIfAbsent(username, key -> new CompletableFuture<>());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.serialprovider.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load shape for {@link AuthFlowLoadTest}, read from {@code loadtest.*} system properties.
+ */
+record LoadProfile(int users,
+                   double arrivalRatePerSecond,
+                   Duration meanThinkTime,
+                   double failureRatio,
+                   List<String> combinations,
+                   Duration phaseTimeout) {
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+            Integer.getInteger("loadtest.users", 500),
+            Double.parseDouble(System.getProperty("loadtest.arrivalRate", "100")),
+            Duration.ofMillis(Long.getLong("loadtest.thinkTimeMs", 200L)),
+            Double.parseDouble(System.getProperty("loadtest.failureRatio", "0.05")),
+            Arrays.stream(System.getProperty("loadtest.combinations",
+                    "full_3fa,password_otp,password_onboarding,password_only").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList(),
+            Duration.ofSeconds(Long.getLong("loadtest.phaseTimeoutSeconds", 300L))
+        );
+    }
+
+    static boolean otpEnabled(String combination) {
+        return switch (combination) {
+            case "full_3fa", "password_otp" -> true;
+            case "password_onboarding", "password_only" -> false;
+            default -> throw new IllegalArgumentException("Unknown flow combination: " + combination);
+        };
+    }
+
+    static boolean onboardingEnabled(String combination) {
+        return switch (combination) {
+            case "full_3fa", "password_onboarding" -> true;
+            case "password_otp", "password_only" -> false;
+            default -> throw new IllegalArgumentException("Unknown flow combination: " + combination);
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.serialprovider.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-step latency and outcome counters collected by the load harness.
+ */
+class StepMetrics {
+
+    private final Map<String, Step> steps = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorCauses = new ConcurrentHashMap<>();
+
+    void record(String step, long latencyNanos, Outcome outcome) {
+        Step metrics = steps.computeIfAbsent(step, key -> new Step());
+        metrics.latencies.add(latencyNanos);
+        switch (outcome) {
+            case OK -> metrics.ok.increment();
+            case EXPECTED_FAILURE -> metrics.expectedFailures.increment();
+            case ERROR -> metrics.errors.increment();
+        }
+    }
+
+    /**
+     * Record an error together with what caused it: an unexpected status or an exception type
+     */
+    void recordError(String step, long latencyNanos, String cause) {
+        record(step, latencyNanos, Outcome.ERROR);
+        errorCauses.computeIfAbsent(step + ": " + cause, key -> new LongAdder()).increment();
+    }
+
+    String report(String title, long completedFlows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%n== %s: %d flows in %.1fs (%.1f flows/s)%n",
+            title, completedFlows, seconds, completedFlows / seconds));
+        out.append(String.format("%-12s %8s %8s %8s %7s %9s %9s %9s %9s%n",
+            "step", "count", "ok", "injected", "err%", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+        for (String name : new String[] {"login", "otp", "onboard", "dashboard"}) {
+            Step step = steps.get(name);
+            if (step == null) {
+                continue;
+            }
+            long[] sorted = step.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long count = sorted.length;
+            out.append(String.format("%-12s %8d %8d %8d %6.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                name, count, step.ok.sum(), step.expectedFailures.sum(),
+                count == 0 ? 0.0 : step.errors.sum() * 100.0 / count,
+                percentile(sorted, 0.50), percentile(sorted, 0.95),
+                percentile(sorted, 0.99), percentile(sorted, 1.0)));
+        }
+        errorCauses.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(cause -> out.append(String.format("  error %-40s %8d%n", cause.getKey(), cause.getValue().sum())));
+        return out.toString();
+    }
+
+    long errors() {
+        return steps.values().stream().mapToLong(step -> step.errors.sum()).sum();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    enum Outcome { OK, EXPECTED_FAILURE, ERROR }
+
+    private static class Step {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder expectedFailures = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+}
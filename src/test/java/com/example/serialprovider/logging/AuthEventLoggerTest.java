@@ -0,0 +1,131 @@
+package com.example.serialprovider.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthEventLoggerTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    void masksSensitiveFieldsAtCaptureTime() throws Exception {
+        AuthEventLogger logger = new AuthEventLogger(16, 8, new PrintStream(output, true, StandardCharsets.UTF_8));
+        logger.start();
+
+        logger.event(AuthEventType.ONBOARDING_COMPLETED)
+            .field("user", "alice")
+            .partial("fullName", "Alice Smith")
+            .email("email", "alice@example.com")
+            .secret("otp", "123456")
+            .publish();
+        logger.stop();
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).contains(
+            "\"event\":\"onboarding.completed\"",
+            "\"user\":\"alice\"",
+            "\"fullName\":\"A**********\"",
+            "\"email\":\"a****@example.com\"",
+            "\"otp\":\"******\"");
+        assertThat(output.toString(StandardCharsets.UTF_8)).doesNotContain("123456", "Smith");
+    }
+
+    @Test
+    void entryNeverPublishedIsSkippedAfterTimeout() throws Exception {
+        AuthEventLogger logger = new AuthEventLogger(16, 8, Duration.ofMillis(50),
+            new PrintStream(output, true, StandardCharsets.UTF_8));
+        logger.start();
+
+        // A caller that failed between claiming and publishing
+        logger.event(AuthEventType.SETTINGS_INITIALIZED).field("flow", "lost");
+        logger.event(AuthEventType.OTP_SENT).field("user", "alice").publish();
+        for (int i = 0; i < 100 && logger.getWrittenCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        logger.stop();
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).contains("\"user\":\"alice\"").doesNotContain("lost");
+        assertThat(logger.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lateProducerCannotTouchTheEventThatReusedItsSlot() throws Exception {
+        AuthEventLogger logger = new AuthEventLogger(8, 4, Duration.ofMillis(20),
+            new PrintStream(output, true, StandardCharsets.UTF_8));
+        logger.start();
+        int producers = 4;
+        int eventsEach = 2_000;
+
+        CountDownLatch stalledClaimed = new CountDownLatch(1);
+        CountDownLatch lapped = new CountDownLatch(1);
+        Thread stalled = Thread.ofPlatform().start(() -> {
+            AuthEventLogger.Event event = logger.event(AuthEventType.SETTINGS_INITIALIZED).field("user", "stale");
+            stalledClaimed.countDown();
+            try {
+                lapped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Long past abandon-after, with the slot claimed again many times over
+            event.field("check", "stale").publish();
+        });
+        stalledClaimed.await();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < eventsEach; i++) {
+                    String id = producer + "-" + i;
+                    logger.event(AuthEventType.OTP_SENT).field("user", id).field("check", id).publish();
+                    if (i % 100 == 0) {
+                        LockSupport.parkNanos(5_000_000L);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        lapped.countDown();
+        stalled.join();
+        for (int i = 0; i < 200 && logger.getWrittenCount() + logger.getDroppedCount() < producers * eventsEach + 1; i++) {
+            Thread.sleep(10);
+        }
+        logger.stop();
+
+        String log = output.toString(StandardCharsets.UTF_8);
+        assertThat(log).doesNotContain("stale");
+        Matcher line = Pattern.compile("\"user\":\"([^\"]*)\",\"check\":\"([^\"]*)\"").matcher(log);
+        int lines = 0;
+        while (line.find()) {
+            assertThat(line.group(2)).isEqualTo(line.group(1));
+            lines++;
+        }
+        assertThat(lines).isEqualTo(log.lines().count()).isEqualTo(logger.getWrittenCount());
+        assertThat(logger.getWrittenCount() + logger.getDroppedCount()).isEqualTo(producers * eventsEach + 1);
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() {
+        // Consumer not started, so nothing is drained
+        AuthEventLogger logger = new AuthEventLogger(4, 8, new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        for (int i = 0; i < 10; i++) {
+            logger.event(AuthEventType.OTP_SENT).field("user", "user-" + i).publish();
+        }
+
+        assertThat(logger.getDroppedCount()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.serialprovider.network;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CidrTrieTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void longestPrefixWinsAndRefinesTheEnclosingLabel() throws Exception {
+        int datacenterUs = IpLabel.of(IpLabel.DATACENTER, "us");
+        int proxyNl = IpLabel.of(IpLabel.PROXY, "NL");
+        CidrTrie trie = compile(List.of(
+            CidrTrie.Prefix.parse("10.0.0.0/8", datacenterUs),
+            CidrTrie.Prefix.parse("10.1.0.0/16", IpLabel.of(IpLabel.BLOCKLISTED, null)),
+            CidrTrie.Prefix.parse("10.1.2.3", IpLabel.of(0, "DE")),
+            CidrTrie.Prefix.parse("2001:db8::/32", proxyNl),
+            CidrTrie.Prefix.parse("2001:db8:1::/48", IpLabel.of(IpLabel.BLOCKLISTED, null))), IpLabel::refine);
+
+        assertThat(trie.lookup("10.200.0.1")).isEqualTo(datacenterUs);
+        assertThat(trie.lookup("10.1.0.5")).isEqualTo(IpLabel.of(IpLabel.DATACENTER | IpLabel.BLOCKLISTED, "US"));
+        assertThat(IpLabel.country(trie.lookup("10.1.2.3"))).isEqualTo("DE");
+        assertThat(trie.lookup("11.0.0.1")).isZero();
+        assertThat(trie.lookup("::ffff:10.200.0.1")).isEqualTo(datacenterUs);
+
+        assertThat(trie.lookup("2001:db8::")).isEqualTo(proxyNl);
+        assertThat(trie.lookup("2001:DB8:2:0:0:0:0:1")).isEqualTo(proxyNl);
+        assertThat(trie.lookup("2001:db8:1::1%eth0")).isEqualTo(IpLabel.of(IpLabel.PROXY | IpLabel.BLOCKLISTED, "NL"));
+        assertThat(trie.lookup("2001:db9::1")).isZero();
+        assertThat(trie.lookup("::")).isZero();
+
+        for (String malformed : List.of("", "10.1.2", "10.1.2.256", "10.1.2.3.4", "10..1.2", "1::2::3",
+                "2001:db8:1:0:0:0:0:0:1", "2001:db8:1", ":2001:db8::", "2001:db8:1::12345", "example.com")) {
+            assertThat(trie.lookup(malformed)).as(malformed).isZero();
+        }
+    }
+
+    @Test
+    void matchesALinearScanOverRandomPrefixes() throws Exception {
+        Random random = new Random(46);
+        List<CidrTrie.Prefix> prefixes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            byte[] address = new byte[random.nextBoolean() ? 4 : 16];
+            random.nextBytes(address);
+            // Share leading bytes so prefixes nest
+            address[0] = (byte) random.nextInt(4);
+            prefixes.add(new CidrTrie.Prefix(address, random.nextInt(address.length * 8 + 1), 1 + random.nextInt(1000)));
+        }
+        CidrTrie trie = compile(prefixes, (enclosing, own) -> own);
+
+        for (int i = 0; i < 20_000; i++) {
+            byte[] address = new byte[i % 2 == 0 ? 4 : 16];
+            random.nextBytes(address);
+            address[0] = (byte) random.nextInt(4);
+            String literal = InetAddress.getByAddress(address).getHostAddress();
+            assertThat(trie.lookup(literal)).as(literal).isEqualTo(longestMatch(prefixes, address));
+        }
+    }
+
+    @Test
+    void lookupsDoNotAllocate() throws Exception {
+        CidrTrie trie = compile(List.of(
+            CidrTrie.Prefix.parse("192.0.2.0/24", IpLabel.of(IpLabel.BLOCKLISTED, null)),
+            CidrTrie.Prefix.parse("2001:db8::/32", IpLabel.of(IpLabel.PROXY, "NL"))), IpLabel::refine);
+        String[] addresses = {"192.0.2.10", "198.51.100.1", "2001:db8::1", "fe80::1%eth0", "::ffff:192.0.2.1"};
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long checksum = 0;
+        for (int i = 0; i < 200_000; i++) {
+            checksum += trie.lookup(addresses[i % addresses.length]);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 200_000; i++) {
+            checksum += trie.lookup(addresses[i % addresses.length]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(checksum).isPositive();
+        // Allowance for the measurement itself, far below one object per lookup
+        assertThat(allocated).isLessThan(4_096);
+    }
+
+    private CidrTrie compile(List<CidrTrie.Prefix> prefixes, IntBinaryOperator refine) throws Exception {
+        Path file = directory.resolve("list.trie");
+        CidrTrie.compile(prefixes, refine, file);
+        return CidrTrie.open(file);
+    }
+
+    private static int longestMatch(List<CidrTrie.Prefix> prefixes, byte[] address) {
+        int bestLength = -1;
+        int label = 0;
+        for (CidrTrie.Prefix prefix : prefixes) {
+            // Later duplicates win, as with the own-label refinement above
+            if (prefix.address().length == address.length && prefix.length() >= bestLength &&
+                matches(prefix, address)) {
+                bestLength = prefix.length();
+                label = prefix.label();
+            }
+        }
+        return label;
+    }
+
+    private static boolean matches(CidrTrie.Prefix prefix, byte[] address) {
+        for (int bit = 0; bit < prefix.length(); bit++) {
+            int mask = 0x80 >>> (bit & 7);
+            if ((prefix.address()[bit >>> 3] & mask) != (address[bit >>> 3] & mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.serialprovider.network;
+
+import com.example.serialprovider.logging.AuthEventLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpReputationServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void swapsInAChangedListAndKeepsTheOldOneWhenAnEditIsBroken() throws Exception {
+        Path list = directory.resolve("ranges.csv");
+        write(list, """
+            # test ranges
+            203.0.113.0/24,blocklisted
+            198.51.100.0/24,datacenter|proxy,us
+            """, 1);
+        // Never started, so events stay in the buffer
+        IpReputationService service = new IpReputationService(list.toString(), true, new AuthEventLogger(16, 8, Duration.ofSeconds(2)));
+
+        assertThat(IpLabel.isBlocklisted(service.classify("203.0.113.7"))).isTrue();
+        assertThat(IpLabel.describe(service.classify("198.51.100.1"))).isEqualTo("datacenter|proxy");
+        assertThat(IpLabel.country(service.classify("198.51.100.1"))).isEqualTo("US");
+
+        write(list, "2001:db8::/32,blocklisted\n", 2);
+        service.reloadIfChanged();
+        assertThat(service.classify("203.0.113.7")).isZero();
+        assertThat(IpLabel.isBlocklisted(service.classify("2001:db8::7"))).isTrue();
+
+        write(list, "2001:db8::/129,blocklisted\n", 3);
+        service.reloadIfChanged();
+        assertThat(IpLabel.isBlocklisted(service.classify("2001:db8::7"))).isTrue();
+        assertThat(service.getStats().reloads()).isEqualTo(1);
+        assertThat(service.getStats().failedReloads()).isEqualTo(1);
+    }
+
+    private static void write(Path file, String content, int version) throws Exception {
+        Files.writeString(file, content);
+        // Distinct timestamps even on file systems with coarse modification times
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_700_000_000L + version)));
+    }
+}
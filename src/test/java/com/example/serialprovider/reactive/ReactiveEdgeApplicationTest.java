@@ -0,0 +1,69 @@
+package com.example.serialprovider.reactive;
+
+import com.example.serialprovider.support.CapturingDeliveryConfiguration;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import com.example.serialprovider.support.TestBrowser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The edge application serves the same login flow on Netty: the steps are the servlet
+ * application's, the session is a WebSession, and /api opens only once the flow is complete.
+ */
+@SpringBootTest(classes = ReactiveEdgeApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-edge",
+        "spring.jpa.show-sql=false",
+        "auth.warmup.enabled=false"
+    })
+@Import(CapturingDeliveryConfiguration.class)
+class ReactiveEdgeApplicationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Autowired
+    private CapturingDeliveryListener deliveries;
+
+    @Test
+    void completesTheFlowOnNettyBeforeOpeningTheApi() throws Exception {
+        assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+        TestBrowser browser = new TestBrowser(port);
+
+        assertThat(browser.post("/auth/login", "{\"username\":\"user\",\"password\":\"wrong\"}").statusCode()).isEqualTo(401);
+        assertThat(browser.login("user", "userpass").path("nextStep").asText()).isEqualTo("otp");
+        assertThat(browser.get("/api/dashboard").statusCode()).isIn(401, 403);
+        assertThat(browser.post("/auth/otp", "{\"otp\":\"000000\"}").statusCode()).isEqualTo(401);
+
+        HttpResponse<String> otp = browser.post("/auth/otp", "{\"otp\":\"" + deliveries.takeOtp("user") + "\"}");
+        assertThat(TestBrowser.nextStep(otp)).isEqualTo("onboarding");
+        HttpResponse<String> onboarded = browser.post("/auth/onboard",
+            "{\"fullName\":\"Test User\",\"email\":\"user@example.com\"}");
+        assertThat(TestBrowser.nextStep(onboarded)).isEqualTo("dashboard");
+        assertThat(TestBrowser.body(onboarded).path("fullyAuthenticated").asBoolean()).isTrue();
+        assertThat(TestBrowser.body(browser.get("/auth/status")).path("currentState").asText())
+            .isEqualTo("FULLY_AUTHENTICATED");
+
+        HttpResponse<String> dashboard = browser.get("/api/dashboard");
+        assertThat(dashboard.statusCode()).isEqualTo(200);
+        assertThat(TestBrowser.body(dashboard).path("user").asText()).isEqualTo("user");
+        // Another browser has no session, so no access
+        assertThat(new TestBrowser(port).get("/api/dashboard").statusCode()).isIn(401, 403);
+
+        assertThat(browser.post("/auth/logout", "").statusCode()).isEqualTo(200);
+        assertThat(browser.get("/api/dashboard").statusCode()).isIn(401, 403);
+    }
+}
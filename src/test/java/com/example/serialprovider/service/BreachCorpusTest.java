@@ -0,0 +1,111 @@
+package com.example.serialprovider.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BreachCorpusTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findsEveryBreachedPasswordAcrossChunkBoundaries() throws IOException {
+        List<String> breached = IntStream.range(0, 10_000).mapToObj(i -> "hunter" + i).toList();
+        Path file = writeCorpus(breached, 8);
+
+        // 1000 records per mapping, so lookups cross ten chunks
+        BreachCorpus corpus = new BreachCorpus(file, 8, 8_000);
+
+        assertThat(corpus.getRecordCount()).isEqualTo(10_000);
+        assertThat(breached).allMatch(corpus::containsPassword);
+        assertThat(IntStream.range(0, 10_000).mapToObj(i -> "correct horse " + i))
+            .noneMatch(corpus::containsPassword);
+    }
+
+    @Test
+    void comparesTheWholeRecordBeyondTheFirstEightBytes() throws IOException {
+        Path file = writeCorpus(List.of("password", "123456", "qwerty"), 20);
+        byte[] nearMiss = BreachCorpus.sha1("password");
+        nearMiss[19] ^= 1;
+
+        BreachCorpus corpus = new BreachCorpus(file, 20);
+
+        assertThat(corpus.containsPassword("qwerty")).isTrue();
+        assertThat(corpus.contains(nearMiss)).isFalse();
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWholeRecords() throws IOException {
+        Path file = tempDir.resolve("truncated.bin");
+        Files.write(file, new byte[13]);
+
+        assertThatThrownBy(() -> new BreachCorpus(file, 8)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void policyRefusesToStartWithoutACorpusUnlessItIsOff() {
+        assertThatThrownBy(() -> new BreachedPasswordPolicy(BreachedPasswordPolicy.Mode.REJECT, " ", 8))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(new BreachedPasswordPolicy(BreachedPasswordPolicy.Mode.OFF, "", 8).isBreached("password")).isFalse();
+    }
+
+    /**
+     * Run with -Dbenchmark.enabled=true to time lookups in a 100M record (800 MB) corpus.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+    void benchmarkLookups() throws IOException {
+        int records = 100_000_000;
+        Path file = tempDir.resolve("large.bin");
+        // Random uniform prefixes, written in sorted order
+        // Flipping the sign bit makes a signed sort order the values as unsigned
+        long[] prefixes = new SplittableRandom(42).longs(records).map(value -> value ^ Long.MIN_VALUE).toArray();
+        Arrays.parallelSort(prefixes);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            ByteBuffer record = ByteBuffer.allocate(8);
+            for (long prefix : prefixes) {
+                out.write(record.clear().putLong(prefix ^ Long.MIN_VALUE).array());
+            }
+        }
+        BreachCorpus corpus = new BreachCorpus(file, 8);
+        int lookups = 1_000_000;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            IntStream.range(0, lookups).forEach(i -> corpus.containsPassword("password" + i));
+        }
+        long started = System.nanoTime();
+        long hits = IntStream.range(0, lookups).filter(i -> corpus.containsPassword("password" + i)).count();
+        long elapsed = System.nanoTime() - started;
+
+        System.out.printf("%d ns/lookup including SHA-1 (%d hits)%n", elapsed / lookups, hits);
+    }
+
+    private Path writeCorpus(List<String> passwords, int recordBytes) throws IOException {
+        Path file = tempDir.resolve("corpus-" + recordBytes + ".bin");
+        List<byte[]> records = passwords.stream()
+            .map(password -> Arrays.copyOf(BreachCorpus.sha1(password), recordBytes))
+            .sorted(Comparator.comparing(record -> record, Arrays::compareUnsigned))
+            .toList();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (byte[] record : records) {
+                out.write(record);
+            }
+        }
+        return file;
+    }
+}
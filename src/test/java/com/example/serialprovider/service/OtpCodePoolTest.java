@@ -0,0 +1,74 @@
+package com.example.serialprovider.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OtpCodePoolTest {
+
+    @Test
+    void codesUseConfiguredLengthAndAlphabet() {
+        OtpCodePool pool = new OtpCodePool(8, "ABC", 64, 16, 1, 10);
+        pool.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                assertThat(pool.take()).hasSize(8).matches("[ABC]{8}");
+            }
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void drainedPoolFallsBackInlineAndCountsUnderflow() {
+        // Not started: no refill threads, so every take underflows
+        OtpCodePool pool = new OtpCodePool(6, "0123456789", 16, 4, 1, 10);
+
+        assertThat(pool.take()).matches("\\d{6}");
+        assertThat(pool.getStats().underflows()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentUnderflowsShareTheFallbackAndStatsOnlyRead() throws InterruptedException {
+        OtpCodePool pool = new OtpCodePool(6, "0123456789", 16, 4, 1, 10);
+        List<Thread> threads = new ArrayList<>();
+        Queue<String> codes = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.startVirtualThread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    codes.add(pool.take());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(codes).hasSize(800).allMatch(code -> code.matches("\\d{6}"));
+        assertThat(pool.getStats().underflows()).isEqualTo(800);
+        assertThat(pool.getStats()).isEqualTo(pool.getStats());
+    }
+
+    @Test
+    void refillThreadsTopUpToCapacity() throws InterruptedException {
+        OtpCodePool pool = new OtpCodePool(6, "0123456789", 128, 32, 2, 10);
+        pool.start();
+        try {
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (pool.getStats().available() < 128 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(pool.getStats().available()).isGreaterThanOrEqualTo(128);
+            pool.take();
+            assertThat(pool.getStats().served()).isEqualTo(1);
+            assertThat(pool.getStats().underflows()).isZero();
+        } finally {
+            pool.stop();
+        }
+    }
+}
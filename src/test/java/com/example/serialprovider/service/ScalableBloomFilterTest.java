@@ -0,0 +1,32 @@
+package com.example.serialprovider.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void addedValuesAreAlwaysFoundAsTheFilterGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+        IntStream.range(0, 50_000).parallel().forEach(i -> filter.add("user-" + i));
+
+        assertThat(filter.getStats().stages()).isGreaterThan(1);
+        assertThat(IntStream.range(0, 50_000).allMatch(i -> filter.mightContain("user-" + i))).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinTheBoundAfterGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 50_000).forEach(i -> filter.add("user-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000)
+            .filter(i -> filter.mightContain("stranger-" + i))
+            .count();
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.01);
+    }
+}
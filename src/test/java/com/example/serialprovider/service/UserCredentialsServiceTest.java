@@ -0,0 +1,64 @@
+package com.example.serialprovider.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserCredentialsServiceTest {
+
+    private final UserCredentialsService service = new UserCredentialsService(
+        new BreachedPasswordPolicy(BreachedPasswordPolicy.Mode.OFF, "", 8));
+
+    @BeforeEach
+    void rebuildFilter() {
+        service.rebuildUsernameFilter();
+    }
+
+    @Test
+    void unknownUsersAreRejectedFromTheFilter() {
+        assertThat(service.validateCredentials("user", "userpass")).isTrue();
+        assertThat(service.validateCredentials("user", "wrong")).isFalse();
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(service.validateCredentials("stuffed-" + i, "password")).isFalse();
+        }
+
+        UserCredentialsService.Stats stats = service.getStats();
+        assertThat(stats.lookups()).isEqualTo(1_002);
+        // At a 1% error rate almost every unknown name is a definite miss
+        assertThat(stats.definiteMisses()).isGreaterThan(950);
+        assertThat(stats.definiteMisses() + stats.falsePositives()).isEqualTo(1_000);
+    }
+
+    @Test
+    void createdAndDeletedUsersAreTrackedByTheFilter() {
+        assertThat(service.userExists("carol")).isFalse();
+
+        assertThat(service.createUser("carol", "secret")).isTrue();
+        assertThat(service.createUser("carol", "other")).isFalse();
+        assertThat(service.userExists("carol")).isTrue();
+        assertThat(service.validateCredentials("carol", "secret")).isTrue();
+
+        assertThat(service.deleteUser("carol")).isTrue();
+        assertThat(service.userExists("carol")).isFalse();
+        assertThat(service.validateCredentials("carol", "secret")).isFalse();
+    }
+
+    @Test
+    void breachedPasswordsCannotBeSet(@TempDir Path tempDir) throws IOException {
+        Path corpus = tempDir.resolve("corpus.bin");
+        Files.write(corpus, Arrays.copyOf(BreachCorpus.sha1("123456"), 8));
+        UserCredentialsService checked = new UserCredentialsService(
+            new BreachedPasswordPolicy(BreachedPasswordPolicy.Mode.WARN, corpus.toString(), 8));
+
+        assertThatThrownBy(() -> checked.createUser("dave", "123456")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(checked.createUser("dave", "correct horse battery staple")).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.serialprovider.session;
+
+import com.example.serialprovider.SerialProviderApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots two application instances in one JVM on a shared in-process cluster and moves a
+ * browser between them on every request, as a load balancer without sticky sessions would.
+ */
+class ClusterSessionFailoverTest {
+
+    private static final String SESSION_COOKIE = "SERIAL_PROVIDER_SESSION";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final String clusterName = "failover-" + UUID.randomUUID();
+    private ConfigurableApplicationContext node1;
+    private ConfigurableApplicationContext node2;
+    private String sessionCookie;
+
+    @BeforeEach
+    void startNodes() {
+        node1 = startNode("node1");
+        node2 = startNode("node2");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    void sessionFollowsTheUserAcrossNodes() throws Exception {
+        HttpResponse<String> login = send(node1, HttpRequest.newBuilder(uri(node1, "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"userpass\"}")));
+        assertThat(login.statusCode()).isEqualTo(200);
+        assertThat(sessionCookie).isNotNull();
+
+        assertThat(status(node2).path("user").asText()).isEqualTo("user");
+
+        HttpResponse<String> logout = send(node2, HttpRequest.newBuilder(uri(node2, "/auth/logout"))
+            .POST(HttpRequest.BodyPublishers.noBody()));
+        assertThat(logout.statusCode()).isEqualTo(200);
+
+        // Node 1 had the pre-logout session in its near-cache; the write on node 2 must evict it
+        assertThat(status(node1).path("user").asText()).isEqualTo("null");
+    }
+
+    private ConfigurableApplicationContext startNode(String name) {
+        // Command-line arguments, so they take precedence over application.properties
+        return new SpringApplicationBuilder(SerialProviderApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:" + name + "-" + clusterName,
+            "--spring.jpa.show-sql=false",
+            "--auth.warmup.enabled=false",
+            "--auth.session.store=cluster",
+            "--auth.session.cluster-name=" + clusterName);
+    }
+
+    private JsonNode status(ConfigurableApplicationContext node) throws Exception {
+        HttpResponse<String> response = send(node, HttpRequest.newBuilder(uri(node, "/auth/status")).GET());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(ConfigurableApplicationContext node, HttpRequest.Builder request) throws Exception {
+        if (sessionCookie != null) {
+            request.header("Cookie", sessionCookie);
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            if (setCookie.startsWith(SESSION_COOKIE + "=")) {
+                int end = setCookie.indexOf(';');
+                sessionCookie = end < 0 ? setCookie : setCookie.substring(0, end);
+            }
+        }
+        return response;
+    }
+
+    private static URI uri(ConfigurableApplicationContext node, String path) {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.serialprovider.session;
+
+import com.example.serialprovider.auth.AuthenticationSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCachingSessionRepositoryTest {
+
+    private static final String ATTRIBUTE = "scopedTarget.authenticationSession";
+
+    private final AtomicInteger backendReads = new AtomicInteger();
+    private final AtomicInteger backendWrites = new AtomicInteger();
+    private final String clusterName = "test-" + UUID.randomUUID();
+    private final NearCachingSessionRepository nodeA = node();
+    private final NearCachingSessionRepository nodeB = node();
+
+    @AfterEach
+    void leaveCluster() {
+        nodeA.destroy();
+        nodeB.destroy();
+    }
+
+    @Test
+    void sessionWrittenOnOneNodeIsReadOnAnother() {
+        MapSession created = nodeA.createSession();
+        created.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        nodeA.save(created);
+
+        MapSession onB = nodeB.findById(created.getId());
+
+        assertThat(onB).isNotNull();
+        assertThat(authSession(onB).getUsername()).isEqualTo("alice");
+        assertThat(authSession(onB).getCompletedSteps()).containsExactly("password");
+    }
+
+    @Test
+    void repeatedReadsAreServedFromNearCache() {
+        MapSession created = nodeA.createSession();
+        created.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        nodeA.save(created);
+
+        nodeB.findById(created.getId());
+        int readsAfterFirstLoad = backendReads.get();
+        for (int i = 0; i < 100; i++) {
+            nodeB.findById(created.getId());
+            nodeA.findById(created.getId());
+        }
+
+        assertThat(backendReads.get()).isEqualTo(readsAfterFirstLoad);
+    }
+
+    @Test
+    void unchangedSessionIsNotWrittenAgain() {
+        MapSession created = nodeA.createSession();
+        created.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        nodeA.save(created);
+        int writes = backendWrites.get();
+
+        MapSession read = nodeA.findById(created.getId());
+        nodeA.save(read);
+
+        assertThat(backendWrites.get()).isEqualTo(writes);
+    }
+
+    @Test
+    void writeOnOneNodeInvalidatesStaleCopyOnPeer() {
+        MapSession created = nodeA.createSession();
+        created.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        nodeA.save(created);
+        nodeB.findById(created.getId());
+
+        // Node A completes the OTP step; node B must not keep serving its stale copy
+        MapSession onA = nodeA.findById(created.getId());
+        authSession(onA).addCompletedStep("otp");
+        nodeA.save(onA);
+
+        assertThat(authSession(nodeB.findById(created.getId())).getCompletedSteps())
+            .containsExactlyInAnyOrder("password", "otp");
+    }
+
+    @Test
+    void deletionIsVisibleOnEveryNode() {
+        MapSession created = nodeA.createSession();
+        created.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        nodeA.save(created);
+        nodeB.findById(created.getId());
+
+        nodeB.deleteById(created.getId());
+
+        assertThat(nodeA.findById(created.getId())).isNull();
+        assertThat(nodeA.nearCacheSize()).isZero();
+    }
+
+    @Test
+    void expiredSessionsAreSweptWithoutBeingReadAgain() {
+        InProcessClusterSessionStore store = new InProcessClusterSessionStore(clusterName);
+        MapSession abandoned = nodeA.createSession();
+        abandoned.setAttribute(ATTRIBUTE, sessionOf("alice", "password"));
+        abandoned.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+        nodeA.save(abandoned);
+        MapSession active = nodeA.createSession();
+        active.setAttribute(ATTRIBUTE, sessionOf("bob", "password"));
+        nodeA.save(active);
+
+        nodeA.evictExpired();
+        assertThat(nodeA.nearCacheSize()).isEqualTo(1);
+
+        store.purgeExpired();
+        assertThat(store.load(abandoned.getId())).isNull();
+        assertThat(store.load(active.getId())).isNotNull();
+    }
+
+    private NearCachingSessionRepository node() {
+        SessionStore shared = new InProcessClusterSessionStore(clusterName) {
+            @Override
+            public StoredSession load(String sessionId) {
+                backendReads.incrementAndGet();
+                return super.load(sessionId);
+            }
+
+            @Override
+            public long save(String sessionId, byte[] data, Instant expiresAt) {
+                backendWrites.incrementAndGet();
+                return super.save(sessionId, data, expiresAt);
+            }
+        };
+        return new NearCachingSessionRepository(shared, Duration.ofMinutes(30), Duration.ofMinutes(1));
+    }
+
+    private static AuthenticationSession sessionOf(String username, String step) {
+        AuthenticationSession session = new AuthenticationSession();
+        session.update(current -> current.withUsername(username).withCompletedStep(step));
+        return session;
+    }
+
+    private static AuthenticationSession authSession(MapSession session) {
+        return session.getAttribute(ATTRIBUTE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.serialprovider.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Import into a {@code @SpringBootTest} to read the codes and links the node sends.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class CapturingDeliveryConfiguration {
+
+    @Bean
+    CapturingDeliveryListener capturingDeliveryListener() {
+        return new CapturingDeliveryListener();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.serialprovider.support;
+
+import com.example.serialprovider.service.OtpDeliveryListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the last OTP and login link delivered to each user, so a test can type them in.
+ * Deliveries are asynchronous, hence the await methods.
+ */
+public class CapturingDeliveryListener implements OtpDeliveryListener {
+
+    private static final int POLLS = 100;
+    private static final long POLL_MILLIS = 20;
+
+    private final Map<String, String> otps = new ConcurrentHashMap<>();
+    private final Map<String, String> links = new ConcurrentHashMap<>();
+    private final AtomicInteger otpDeliveries = new AtomicInteger();
+
+    @Override
+    public void onOtpSent(String username, String otpCode) {
+        otps.put(username, otpCode);
+        otpDeliveries.incrementAndGet();
+    }
+
+    @Override
+    public void onLoginLinkSent(String username, String link) {
+        links.put(username, link);
+    }
+
+    /**
+     * @return the user's last code, or null if none arrives within two seconds
+     */
+    public String awaitOtp(String username) throws InterruptedException {
+        return await(otps, username);
+    }
+
+    /**
+     * Like {@link #awaitOtp}, but forgets the code, so the next await waits for a new one
+     */
+    public String takeOtp(String username) throws InterruptedException {
+        String code = await(otps, username);
+        otps.remove(username, code);
+        return code;
+    }
+
+    public String awaitLink(String username) throws InterruptedException {
+        return await(links, username);
+    }
+
+    public boolean hasOtpFor(String username) {
+        return otps.containsKey(username);
+    }
+
+    public int getOtpDeliveries() {
+        return otpDeliveries.get();
+    }
+
+    public void clear() {
+        otps.clear();
+        links.clear();
+        otpDeliveries.set(0);
+    }
+
+    private static String await(Map<String, String> delivered, String username) throws InterruptedException {
+        for (int i = 0; i < POLLS && !delivered.containsKey(username); i++) {
+            Thread.sleep(POLL_MILLIS);
+        }
+        return delivered.get(username);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.serialprovider.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One browser against a running node: keeps its cookies between requests and posts JSON, the
+ * way the login pages do. Create one per browser a test needs.
+ */
+public class TestBrowser {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final int port;
+    private final Map<String, String> headers;
+
+    public TestBrowser(int port) {
+        this(HttpClient.newBuilder().cookieHandler(new CookieManager()).build(), port, new LinkedHashMap<>());
+    }
+
+    private TestBrowser(HttpClient client, int port, Map<String, String> headers) {
+        this.client = client;
+        this.port = port;
+        this.headers = headers;
+    }
+
+    /**
+     * The same browser, with the same cookies, pointed at another node
+     */
+    public TestBrowser onPort(int otherPort) {
+        return new TestBrowser(client, otherPort, headers);
+    }
+
+    /**
+     * Send a header, such as User-Agent, with every request from now on
+     */
+    public TestBrowser withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param extraHeaders header names and values for this request only, as in {@link HttpRequest.Builder#headers}
+     */
+    public HttpResponse<String> post(String path, String json, String... extraHeaders) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Content-Type", "application/json")
+            .POST(json.isEmpty() ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        headers.forEach(request::header);
+        if (extraHeaders.length > 0) {
+            request.headers(extraHeaders);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public HttpResponse<String> get(String path) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+        headers.forEach(request::header);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Submit a password and return the response body
+     */
+    public JsonNode login(String username, String password) throws Exception {
+        HttpResponse<String> response = post("/auth/login", json(Map.of("username", username, "password", password)));
+        assertThat(response.statusCode()).as("login of %s", username).isEqualTo(200);
+        return body(response);
+    }
+
+    public void logout() throws Exception {
+        post("/auth/logout", "");
+    }
+
+    /**
+     * @return the step a successful response points to next
+     */
+    public static String nextStep(HttpResponse<String> response) {
+        assertThat(response.statusCode()).as(response.body()).isEqualTo(200);
+        return body(response).path("nextStep").asText();
+    }
+
+    public static JsonNode body(HttpResponse<String> response) {
+        try {
+            return OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String json(Map<String, ?> fields) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(fields);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
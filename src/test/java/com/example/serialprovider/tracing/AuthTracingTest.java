@@ -0,0 +1,73 @@
+package com.example.serialprovider.tracing;
+
+import com.example.serialprovider.controller.AdminMetricsController;
+import com.example.serialprovider.support.TestBrowser;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A login continues the caller's trace, its spans are exported, and the OTP delivery that runs
+ * on the async executor stays in the same trace.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:tracing",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=false"
+})
+class AuthTracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private AdminMetricsController metrics;
+
+    @Test
+    void loginSpansAreExportedAndOtpDeliveryStaysInTheTrace() throws Exception {
+        TestBrowser browser = new TestBrowser(port);
+        assertThat(browser.post("/auth/login", "{\"username\":\"user\",\"password\":\"userpass\"}",
+            "traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01").statusCode()).isEqualTo(200);
+
+        SpanData serverSpan = awaitSpan(exporter, "POST /auth/login");
+        SpanData otpSpan = awaitSpan(exporter, "otp.send");
+        assertThat(serverSpan.getTraceId()).isEqualTo(TRACE_ID);
+        // Delivery runs on the async executor, under a span of the login request
+        assertThat(otpSpan.getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(exporter.getFinishedSpans().stream()
+            .filter(span -> span.getTraceId().equals(TRACE_ID))
+            .map(SpanData::getSpanId))
+            .contains(otpSpan.getParentSpanId());
+
+        int exported = exporter.getFinishedSpans().size();
+        assertThat(metrics.getRecentSpans(-1).getBody()).isEmpty();
+        assertThat(metrics.getRecentSpans(exported + 100).getBody()).hasSizeGreaterThanOrEqualTo(exported);
+        assertThat(metrics.getRecentSpans(1).getBody()).hasSize(1);
+    }
+
+    private static SpanData awaitSpan(InMemorySpanExporter exporter, String name) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<SpanData> span = exporter.getFinishedSpans().stream()
+                .filter(candidate -> candidate.getName().equals(name))
+                .findFirst();
+            if (span.isPresent()) {
+                return span.get();
+            }
+            Thread.sleep(20);
+        }
+        List<String> names = exporter.getFinishedSpans().stream().map(SpanData::getName).toList();
+        throw new AssertionError("No span " + name + " among " + names);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.serialprovider.warmup;
+
+import com.example.serialprovider.entity.AuthenticationSettings;
+import com.example.serialprovider.repository.AuthenticationSettingsRepository;
+import com.example.serialprovider.service.AuthenticationSettingsService;
+import com.example.serialprovider.support.CapturingDeliveryConfiguration;
+import com.example.serialprovider.support.CapturingDeliveryListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Warm-up keeps the node out of rotation until it is done, runs every OTP/onboarding
+ * combination to the end even where a login link is offered instead of a code, and leaves
+ * the stored settings and the delivery channels alone.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:warmup",
+    "spring.jpa.show-sql=false",
+    "auth.warmup.enabled=true",
+    "auth.warmup.flows-per-round=2",
+    "auth.warmup.min-rounds=2",
+    "auth.warmup.max-duration=10s",
+    "auth.email-link.enabled=true",
+    "auth.email-link.base-url=https://login.example.com"
+})
+@Import({CapturingDeliveryConfiguration.class, AuthWarmupRunnerTest.ReadinessRecorder.class})
+class AuthWarmupRunnerTest {
+
+    @Autowired
+    private AuthWarmupRunner runner;
+
+    @Autowired
+    private ReadinessRecorder readiness;
+
+    @Autowired
+    private CapturingDeliveryListener deliveries;
+
+    @Autowired
+    private AuthenticationSettingsService settingsService;
+
+    @Autowired
+    private AuthenticationSettingsRepository settingsRepository;
+
+    @Test
+    void refusesTrafficUntilEveryFlowHasBeenWarmedUp() {
+        AuthWarmupRunner.Stats stats = runner.getStats();
+        assertThat(stats.finished()).isTrue();
+        assertThat(stats.rounds()).isGreaterThanOrEqualTo(2);
+        assertThat(stats.completedFlows()).isEqualTo(stats.rounds() * 2L * 4);
+        assertThat(stats.incompleteFlows()).isZero();
+
+        // Each change is recorded with whether warm-up had finished when it was published
+        assertThat(readiness.changes).startsWith(new Change(ReadinessState.REFUSING_TRAFFIC, false));
+        assertThat(readiness.changes).filteredOn(change -> change.state() == ReadinessState.ACCEPTING_TRAFFIC)
+            .isNotEmpty()
+            .allMatch(Change::warmupFinished);
+
+        assertThat(deliveries.getOtpDeliveries()).isZero();
+        AuthenticationSettings stored = settingsRepository.findDefaultSettings().orElseThrow();
+        assertThat(stored.isOtpEnabled()).isTrue();
+        assertThat(stored.isOnboardingEnabled()).isTrue();
+        assertThat(stored.getVersion()).isEqualTo(settingsService.getCurrentSettings().getVersion());
+    }
+
+    record Change(ReadinessState state, boolean warmupFinished) {
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ReadinessRecorder implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+        private final ObjectProvider<AuthWarmupRunner> runner;
+        final List<Change> changes = new CopyOnWriteArrayList<>();
+
+        ReadinessRecorder(ObjectProvider<AuthWarmupRunner> runner) {
+            this.runner = runner;
+        }
+
+        @Override
+        public void onApplicationEvent(AvailabilityChangeEvent<ReadinessState> event) {
+            changes.add(new Change(event.getState(), runner.getObject().getStats().finished()));
+        }
+    }
+}